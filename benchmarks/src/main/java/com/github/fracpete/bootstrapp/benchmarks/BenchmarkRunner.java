@@ -0,0 +1,38 @@
+/*
+ * BenchmarkRunner.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks, always reporting the allocation rate via the GC
+ * profiler. Accepts the same options as the JMH command-line, e.g., a
+ * regular expression to select benchmarks or "-f 1" for a single fork.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class BenchmarkRunner {
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args	the JMH options
+   * @throws Exception	if running fails
+   */
+  public static void main(String[] args) throws Exception {
+    Options	options;
+
+    options = new OptionsBuilder()
+      .parent(new CommandLineOptions(args))
+      .addProfiler(GCProfiler.class)
+      .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * BenchmarkUtils.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Helper methods for the benchmarks.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class BenchmarkUtils {
+
+  /**
+   * Creates a temporary directory.
+   *
+   * @param prefix	the prefix for the directory name
+   * @return		the directory
+   * @throws IOException	if creation fails
+   */
+  public static File createTempDir(String prefix) throws IOException {
+    return Files.createTempDirectory("bootstrapp-" + prefix + "-").toFile();
+  }
+
+  /**
+   * Copies the file or directory (recursively), merging with existing content.
+   *
+   * @param source	the file/dir to copy
+   * @param target	the destination
+   * @throws IOException	if copying fails
+   */
+  public static void copy(File source, File target) throws IOException {
+    File[]	files;
+
+    if (source.isDirectory()) {
+      if (!target.exists() && !target.mkdirs())
+	throw new IOException("Failed to create directory: " + target);
+      files = source.listFiles();
+      if (files != null) {
+	for (File f: files)
+	  copy(f, new File(target, f.getName()));
+      }
+    }
+    else {
+      Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Deletes the file or directory (recursively).
+   *
+   * @param file	the file/dir to delete
+   */
+  public static void delete(File file) {
+    File[]	files;
+
+    if (file == null)
+      return;
+    if (file.isDirectory()) {
+      files = file.listFiles();
+      if (files != null) {
+	for (File f: files)
+	  delete(f);
+      }
+    }
+    file.delete();
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * DependencyFileBenchmark.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.benchmarks;
+
+import com.github.fracpete.bootstrapp.Main;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Benchmarks {@link Main#getAllDependencies()} on large dependency files.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DependencyFileBenchmark {
+
+  /** the number of lines in each dependency file. */
+  @Param({"1000", "100000"})
+  public int lines;
+
+  /** the number of dependency files. */
+  @Param({"1", "10"})
+  public int files;
+
+  /** the working directory. */
+  protected File m_WorkDir;
+
+  /** the configured bootstrapp instance. */
+  protected Main m_Main;
+
+  /**
+   * Generates the dependency files.
+   *
+   * @throws Exception	if setup fails
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    List<File>		depFiles;
+    List<String>	content;
+    File		depFile;
+    int			i;
+    int			n;
+
+    Logger.getLogger(Main.class.getName()).setLevel(java.util.logging.Level.SEVERE);
+    m_WorkDir = BenchmarkUtils.createTempDir("deps");
+    depFiles  = new ArrayList<>();
+    for (i = 0; i < files; i++) {
+      content = new ArrayList<>();
+      for (n = 0; n < lines; n++) {
+	// sprinkle in empty lines and comments that get skipped
+	if (n % 20 == 0)
+	  content.add("");
+	else if (n % 25 == 0)
+	  content.add("# comment " + n);
+	else
+	  content.add("  org.example.group" + (n % 100) + ":artifact-" + i + "-" + n + ":1." + (n % 10) + ".0  ");
+      }
+      depFile = new File(m_WorkDir, "deps" + i + ".txt");
+      Files.write(depFile.toPath(), content);
+      depFiles.add(depFile);
+    }
+    m_Main = new Main().dependencyFiles(depFiles);
+  }
+
+  /**
+   * Removes the temporary files.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchmarkUtils.delete(m_WorkDir);
+  }
+
+  /**
+   * Reads and combines the dependencies.
+   *
+   * @return		the dependencies
+   */
+  @Benchmark
+  public List<String> allDependencies() {
+    return m_Main.getAllDependencies();
+  }
+}
@@ -0,0 +1,409 @@
+/*
+ * EndToEndBenchmark.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.benchmarks;
+
+import com.github.fracpete.bootstrapp.Main;
+import com.github.fracpete.simpleargparse4j.ArgumentParser;
+import com.github.fracpete.simpleargparse4j.ArgumentParserException;
+import com.github.fracpete.simpleargparse4j.Namespace;
+import com.github.fracpete.simpleargparse4j.Option.Type;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the full bootstrapp pipeline against a synthetic repository, served
+ * either via file:// or a local HTTP stand-in, and reports the timings of
+ * the stages for cold (empty cache), warm (populated cache) and incremental
+ * (populated cache and output, one additional dependency) runs.
+ * <br>
+ * No network access is used: Maven runs offline, with only file:// and the
+ * local HTTP stand-in exempted. The Maven installation (see --maven_home) and
+ * the Maven plugins used by the generated POM must therefore be available
+ * locally (e.g., from a previous bootstrapp run, use --local_repo to point to
+ * an existing repository). This gets verified up front with an untimed,
+ * offline bootstrap, which fails with the list of missing files otherwise.
+ * Only the synthetic artifacts get removed for cold runs.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class EndToEndBenchmark {
+
+  /** the cold mode. */
+  public final static String MODE_COLD = "cold";
+
+  /** the warm mode. */
+  public final static String MODE_WARM = "warm";
+
+  /** the incremental mode. */
+  public final static String MODE_INCREMENTAL = "incremental";
+
+  /** the key for the wall-clock time. */
+  public final static String KEY_WALLCLOCK = "wallclock";
+
+  /** the Maven options that keep Maven offline, apart from the synthetic repository. */
+  public final static String[] MAVEN_CONFIG = {
+    "--offline",
+    "-Daether.offline.protocols=file",
+    "-Daether.offline.hosts=127.0.0.1",
+  };
+
+  /** the working directory. */
+  protected File m_WorkDir;
+
+  /** the local repository. */
+  protected File m_LocalRepo;
+
+  /** the maven installation to use. */
+  protected File m_MavenHome;
+
+  /** the number of artifacts. */
+  protected int m_NumArtifacts;
+
+  /** the fan-out. */
+  protected int m_Fanout;
+
+  /** the jar size. */
+  protected int m_JarSize;
+
+  /** the number of iterations per mode. */
+  protected int m_Iterations;
+
+  /** whether to serve the repository via HTTP. */
+  protected boolean m_Http;
+
+  /** the delay per HTTP request in msec. */
+  protected int m_Delay;
+
+  /** the collected timings (mode - stage - timings). */
+  protected Map<String,Map<String,List<Long>>> m_Timings;
+
+  /**
+   * Configures and returns the commandline parser.
+   *
+   * @return		the parser
+   */
+  protected ArgumentParser getParser() {
+    ArgumentParser 		parser;
+
+    parser = new ArgumentParser("End-to-end bootstrapp benchmark using a synthetic repository.");
+    parser.addOption("-w", "--work_dir")
+      .required(true)
+      .type(Type.DIRECTORY)
+      .dest("work_dir")
+      .metaVar("DIR")
+      .help("The directory for the synthetic repository, settings and output.");
+    parser.addOption("-l", "--local_repo")
+      .required(false)
+      .type(Type.DIRECTORY)
+      .dest("local_repo")
+      .metaVar("DIR")
+      .help("The local repository to use, must contain the Maven plugins; default: WORK_DIR/m2.");
+    parser.addOption("-m", "--maven_home")
+      .required(false)
+      .type(Type.EXISTING_DIR)
+      .dest("maven_home")
+      .metaVar("DIR")
+      .help("The directory with a local Maven installation to use instead of the downloaded one.");
+    parser.addOption("-a", "--artifacts")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(100)
+      .dest("artifacts")
+      .metaVar("NUM")
+      .help("The number of synthetic artifacts.");
+    parser.addOption("-f", "--fanout")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(3)
+      .dest("fanout")
+      .metaVar("NUM")
+      .help("The number of dependencies of each synthetic artifact.");
+    parser.addOption("-s", "--jar_size")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(100 * 1024)
+      .dest("jar_size")
+      .metaVar("BYTES")
+      .help("The payload size of the synthetic jars.");
+    parser.addOption("-i", "--iterations")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(3)
+      .dest("iterations")
+      .metaVar("NUM")
+      .help("The number of runs per mode (cold/warm/incremental).");
+    parser.addOption("--http")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("http")
+      .help("If enabled, the repository gets served via a local HTTP server rather than file://.");
+    parser.addOption("--delay")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(0)
+      .dest("delay")
+      .metaVar("MSEC")
+      .help("The delay per HTTP request to simulate latency.");
+
+    return parser;
+  }
+
+  /**
+   * Deletes the directory and re-creates it.
+   *
+   * @param dir		the directory to reset
+   * @throws Exception	if re-creation fails
+   */
+  protected void reset(File dir) throws Exception {
+    BenchmarkUtils.delete(dir);
+    if (!dir.mkdirs())
+      throw new IllegalStateException("Failed to create directory: " + dir);
+  }
+
+  /**
+   * Writes the Maven settings and the Maven options (.mvn/maven.config in
+   * the work dir, which Maven picks up for the output directories below it),
+   * so that Maven runs offline except for the synthetic repository.
+   *
+   * @return		the settings file
+   * @throws Exception	if writing fails
+   */
+  protected File configureMaven() throws Exception {
+    File	result;
+    File	dir;
+
+    result = new File(m_WorkDir, "settings.xml");
+    Files.write(result.toPath(), (
+      "<settings>\n"
+	+ "  <localRepository>" + m_LocalRepo.getAbsolutePath() + "</localRepository>\n"
+	+ "  <offline>true</offline>\n"
+	+ "</settings>\n").getBytes());
+
+    dir = new File(m_WorkDir, ".mvn");
+    if (!dir.exists() && !dir.mkdirs())
+      throw new IllegalStateException("Failed to create directory: " + dir);
+    Files.write(new File(dir, "maven.config").toPath(), (String.join("\n", MAVEN_CONFIG) + "\n").getBytes());
+
+    return result;
+  }
+
+  /**
+   * Verifies that everything apart from the synthetic artifacts is available
+   * locally, by installing the synthetic artifacts in the local repository
+   * and performing an untimed bootstrap in offline mode (which checks the
+   * Maven installation and the local repository before running Maven).
+   *
+   * @param repo		the synthetic repository
+   * @param settings		the maven settings file
+   * @param dependencies	the dependencies to use
+   * @throws Exception		if files are missing
+   */
+  protected void checkOffline(SyntheticRepository repo, File settings, List<String> dependencies) throws Exception {
+    File	outputDir;
+    String	msg;
+
+    System.out.println("Checking local Maven installation and repository: " + m_LocalRepo);
+    BenchmarkUtils.copy(repo.getDir(), m_LocalRepo);
+    outputDir = new File(m_WorkDir, "preflight");
+    reset(outputDir);
+    msg = new Main()
+      .mavenHome(m_MavenHome)
+      .mavenUserSettings(settings)
+      .offline(true)
+      .outputDir(outputDir)
+      .name("synthetic")
+      .version("preflight")
+      .dependencies(dependencies)
+      .repositories("synthetic;synthetic;" + repo.getDir().toURI())
+      .execute();
+    BenchmarkUtils.delete(outputDir);
+    if (msg != null)
+      throw new IllegalStateException("Benchmark requires the Maven installation (see --maven_home) and the Maven plugins "
+	+ "in the local repository (see --local_repo), as it runs without network access:\n" + msg);
+  }
+
+  /**
+   * Performs a single bootstrap.
+   *
+   * @param mode		the mode
+   * @param repoURL		the URL of the synthetic repository
+   * @param outputDir		the output directory
+   * @param settings		the maven settings file
+   * @param dependencies	the dependencies to use
+   * @throws Exception		if bootstrapping fails
+   */
+  protected void bootstrap(String mode, String repoURL, File outputDir, File settings, List<String> dependencies) throws Exception {
+    Main			main;
+    String			msg;
+    long			start;
+    Map<String,Long>		timings;
+    Map<String,List<Long>>	modeTimings;
+
+    main = new Main()
+      .mavenHome(m_MavenHome)
+      .mavenUserSettings(settings)
+      .outputDir(outputDir)
+      .name("synthetic")
+      .version(mode)
+      .dependencies(dependencies)
+      .repositories("synthetic;synthetic;" + repoURL);
+    start = System.currentTimeMillis();
+    msg   = main.execute();
+    if (msg != null)
+      throw new IllegalStateException("Bootstrap failed (" + mode + "): " + msg);
+
+    timings = new LinkedHashMap<>(main.getStageTimings());
+    timings.put(KEY_WALLCLOCK, System.currentTimeMillis() - start);
+    if (!m_Timings.containsKey(mode))
+      m_Timings.put(mode, new LinkedHashMap<String,List<Long>>());
+    modeTimings = m_Timings.get(mode);
+    for (String stage: timings.keySet()) {
+      if (!modeTimings.containsKey(stage))
+	modeTimings.put(stage, new ArrayList<Long>());
+      modeTimings.get(stage).add(timings.get(stage));
+    }
+  }
+
+  /**
+   * Outputs the timings (min/mean/max per stage).
+   */
+  protected void report() {
+    List<Long>	values;
+    long	min;
+    long	max;
+    long	sum;
+
+    System.out.println();
+    System.out.println("artifacts=" + m_NumArtifacts + ", fanout=" + m_Fanout + ", jar_size=" + m_JarSize + ", http=" + m_Http + ", delay=" + m_Delay);
+    System.out.println(String.format("%-12s %-10s %10s %10s %10s", "mode", "stage", "min", "mean", "max"));
+    for (String mode: m_Timings.keySet()) {
+      for (String stage: m_Timings.get(mode).keySet()) {
+	values = m_Timings.get(mode).get(stage);
+	min    = Long.MAX_VALUE;
+	max    = Long.MIN_VALUE;
+	sum    = 0;
+	for (long value: values) {
+	  min  = Math.min(min, value);
+	  max  = Math.max(max, value);
+	  sum += value;
+	}
+	System.out.println(String.format("%-12s %-10s %10d %10d %10d", mode, stage, min, sum / values.size(), max));
+      }
+    }
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param ns		the parsed options
+   * @throws Exception	if the benchmark fails
+   */
+  protected void run(Namespace ns) throws Exception {
+    SyntheticRepository	repo;
+    RepositoryServer	server;
+    String		repoURL;
+    File		settings;
+    File		outputDir;
+    File		syntheticDir;
+    List<String>	deps;
+    List<String>	depsIncr;
+    int			i;
+
+    m_WorkDir      = ns.getFile("work_dir");
+    m_LocalRepo    = ns.getFile("local_repo");
+    m_MavenHome    = ns.getFile("maven_home");
+    m_NumArtifacts = ns.getInt("artifacts");
+    m_Fanout       = ns.getInt("fanout");
+    m_JarSize      = ns.getInt("jar_size");
+    m_Iterations   = ns.getInt("iterations");
+    m_Http         = ns.getBoolean("http");
+    m_Delay        = ns.getInt("delay");
+    m_Timings      = new LinkedHashMap<>();
+    if (m_LocalRepo == null)
+      m_LocalRepo = new File(m_WorkDir, "m2");
+
+    // repository
+    repo = new SyntheticRepository(new File(m_WorkDir, "repo"), m_NumArtifacts, m_Fanout, m_JarSize);
+    reset(repo.getDir());
+    System.out.println("Generating synthetic repository: " + repo.getDir());
+    repo.generate();
+
+    // settings
+    settings = configureMaven();
+
+    deps = new ArrayList<>();
+    deps.add(repo.rootDependency());
+    depsIncr = new ArrayList<>(deps);
+    depsIncr.add(repo.extraDependency());
+    outputDir    = new File(m_WorkDir, "out");
+    syntheticDir = new File(m_LocalRepo, SyntheticRepository.GROUP_ID.replace('.', '/'));
+
+    // fail fast if anything needs downloading from the network
+    checkOffline(repo, settings, depsIncr);
+
+    server = null;
+    if (m_Http) {
+      server = new RepositoryServer(repo.getDir(), m_Delay);
+      server.start();
+      repoURL = server.getURL();
+    }
+    else {
+      repoURL = repo.getDir().toURI().toString();
+    }
+
+    try {
+      for (i = 0; i < m_Iterations; i++) {
+	// cold: no synthetic artifacts cached, empty output
+	BenchmarkUtils.delete(syntheticDir);
+	reset(outputDir);
+	bootstrap(MODE_COLD, repoURL, outputDir, settings, deps);
+
+	// warm: synthetic artifacts cached, empty output
+	reset(outputDir);
+	bootstrap(MODE_WARM, repoURL, outputDir, settings, deps);
+
+	// incremental: cached artifacts and existing output, one more dependency
+	bootstrap(MODE_INCREMENTAL, repoURL, outputDir, settings, depsIncr);
+      }
+    }
+    finally {
+      if (server != null)
+	server.stop();
+    }
+
+    report();
+  }
+
+  /**
+   * Runs the benchmark with the specified command-line arguments.
+   *
+   * @param args	the options to use
+   * @throws Exception	if the benchmark fails
+   */
+  public static void main(String[] args) throws Exception {
+    EndToEndBenchmark	benchmark;
+    ArgumentParser 	parser;
+    Namespace 		ns;
+
+    benchmark = new EndToEndBenchmark();
+    parser    = benchmark.getParser();
+    try {
+      ns = parser.parseArgs(args);
+    }
+    catch (ArgumentParserException e) {
+      parser.handleError(e);
+      if (!parser.getHelpRequested())
+	System.exit(1);
+      return;
+    }
+    benchmark.run(ns);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * RepositoryServer.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves a repository directory via HTTP on localhost, as stand-in for a
+ * remote Maven repository. Supports GET and HEAD, with an optional delay
+ * per request to simulate latency.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class RepositoryServer
+  implements HttpHandler {
+
+  /** the directory to serve. */
+  protected File m_Dir;
+
+  /** the delay per request in msec. */
+  protected int m_Delay;
+
+  /** the server. */
+  protected HttpServer m_Server;
+
+  /**
+   * Initializes the server.
+   *
+   * @param dir		the directory to serve
+   * @param delay	the delay per request in msec
+   */
+  public RepositoryServer(File dir, int delay) {
+    m_Dir   = dir;
+    m_Delay = delay;
+  }
+
+  /**
+   * Starts the server on a free port.
+   *
+   * @throws IOException	if starting fails
+   */
+  public void start() throws IOException {
+    m_Server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    m_Server.createContext("/", this);
+    m_Server.setExecutor(Executors.newCachedThreadPool());
+    m_Server.start();
+  }
+
+  /**
+   * Returns the URL of the repository.
+   *
+   * @return		the URL
+   */
+  public String getURL() {
+    return "http://127.0.0.1:" + m_Server.getAddress().getPort() + "/";
+  }
+
+  /**
+   * Stops the server.
+   */
+  public void stop() {
+    if (m_Server != null) {
+      m_Server.stop(0);
+      m_Server = null;
+    }
+  }
+
+  /**
+   * Handles the request.
+   *
+   * @param exchange	the exchange to handle
+   * @throws IOException	if handling fails
+   */
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    File	file;
+    String	path;
+    boolean	head;
+
+    try {
+      if (m_Delay > 0)
+	Thread.sleep(m_Delay);
+    }
+    catch (InterruptedException e) {
+      // ignored
+    }
+
+    path = exchange.getRequestURI().getPath();
+    head = exchange.getRequestMethod().equals("HEAD");
+    file = new File(m_Dir, path);
+    if (path.contains("..") || !file.isFile()) {
+      exchange.sendResponseHeaders(404, -1);
+      exchange.close();
+      return;
+    }
+
+    exchange.sendResponseHeaders(200, head ? -1 : file.length());
+    if (!head) {
+      try (OutputStream out = exchange.getResponseBody()) {
+	Files.copy(file.toPath(), out);
+      }
+    }
+    exchange.close();
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * SyntheticRepository.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * Generates a synthetic Maven repository (default layout) on disk. The
+ * artifacts form a tree: artifact i depends on artifacts i*fanout+1 to
+ * i*fanout+fanout, i.e., depending on artifact 0 pulls in all of them.
+ * An additional standalone artifact is generated for incremental runs.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class SyntheticRepository {
+
+  /** the group ID of the synthetic artifacts. */
+  public final static String GROUP_ID = "org.bootstrapp.synthetic";
+
+  /** the version of the synthetic artifacts. */
+  public final static String VERSION = "1.0.0";
+
+  /** the artifact ID of the standalone artifact. */
+  public final static String EXTRA_ARTIFACT = "artifact-extra";
+
+  /** the repository directory. */
+  protected File m_Dir;
+
+  /** the number of artifacts. */
+  protected int m_NumArtifacts;
+
+  /** the fan-out of dependencies. */
+  protected int m_Fanout;
+
+  /** the size of the jar payload in bytes. */
+  protected int m_JarSize;
+
+  /**
+   * Initializes the repository.
+   *
+   * @param dir			the directory for the repository
+   * @param numArtifacts	the number of artifacts
+   * @param fanout		the number of dependencies per artifact
+   * @param jarSize		the payload size of the jars in bytes
+   */
+  public SyntheticRepository(File dir, int numArtifacts, int fanout, int jarSize) {
+    m_Dir          = dir;
+    m_NumArtifacts = numArtifacts;
+    m_Fanout       = fanout;
+    m_JarSize      = jarSize;
+  }
+
+  /**
+   * Returns the repository directory.
+   *
+   * @return		the directory
+   */
+  public File getDir() {
+    return m_Dir;
+  }
+
+  /**
+   * Returns the artifact ID for the index.
+   *
+   * @param index	the index of the artifact
+   * @return		the artifact ID
+   */
+  public static String artifactId(int index) {
+    return String.format("artifact-%05d", index);
+  }
+
+  /**
+   * Returns the dependency (group:artifact:version) of the root artifact.
+   *
+   * @return		the dependency
+   */
+  public String rootDependency() {
+    return GROUP_ID + ":" + artifactId(0) + ":" + VERSION;
+  }
+
+  /**
+   * Returns the dependency (group:artifact:version) of the standalone artifact.
+   *
+   * @return		the dependency
+   */
+  public String extraDependency() {
+    return GROUP_ID + ":" + EXTRA_ARTIFACT + ":" + VERSION;
+  }
+
+  /**
+   * Writes the SHA-1 checksum file for the file.
+   *
+   * @param file	the file to generate the checksum for
+   * @throws Exception	if generation fails
+   */
+  protected void writeChecksum(File file) throws Exception {
+    MessageDigest	digest;
+    String		hex;
+
+    digest = MessageDigest.getInstance("SHA-1");
+    hex    = String.format("%040x", new BigInteger(1, digest.digest(Files.readAllBytes(file.toPath()))));
+    Files.write(new File(file.getAbsolutePath() + ".sha1").toPath(), hex.getBytes());
+  }
+
+  /**
+   * Writes the POM of the artifact.
+   *
+   * @param dir		the version directory
+   * @param artifactId	the artifact ID
+   * @param children	the indices of the dependencies
+   * @throws Exception	if writing fails
+   */
+  protected void writePom(File dir, String artifactId, int[] children) throws Exception {
+    StringBuilder	pom;
+    File		file;
+
+    pom = new StringBuilder();
+    pom.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    pom.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+    pom.append("  <modelVersion>4.0.0</modelVersion>\n");
+    pom.append("  <groupId>").append(GROUP_ID).append("</groupId>\n");
+    pom.append("  <artifactId>").append(artifactId).append("</artifactId>\n");
+    pom.append("  <version>").append(VERSION).append("</version>\n");
+    pom.append("  <packaging>jar</packaging>\n");
+    if (children.length > 0) {
+      pom.append("  <dependencies>\n");
+      for (int child: children) {
+	pom.append("    <dependency>\n");
+	pom.append("      <groupId>").append(GROUP_ID).append("</groupId>\n");
+	pom.append("      <artifactId>").append(artifactId(child)).append("</artifactId>\n");
+	pom.append("      <version>").append(VERSION).append("</version>\n");
+	pom.append("    </dependency>\n");
+      }
+      pom.append("  </dependencies>\n");
+    }
+    pom.append("</project>\n");
+
+    file = new File(dir, artifactId + "-" + VERSION + ".pom");
+    Files.write(file.toPath(), pom.toString().getBytes());
+    writeChecksum(file);
+  }
+
+  /**
+   * Writes the jar of the artifact, with an uncompressed payload of the
+   * configured size.
+   *
+   * @param dir		the version directory
+   * @param artifactId	the artifact ID
+   * @param rnd		for generating the payload
+   * @throws Exception	if writing fails
+   */
+  protected void writeJar(File dir, String artifactId, Random rnd) throws Exception {
+    File		file;
+    Manifest		manifest;
+    byte[]		payload;
+    JarEntry		entry;
+    CRC32		crc;
+
+    manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    payload = new byte[m_JarSize];
+    rnd.nextBytes(payload);
+    crc = new CRC32();
+    crc.update(payload);
+
+    file = new File(dir, artifactId + "-" + VERSION + ".jar");
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file), manifest)) {
+      entry = new JarEntry(GROUP_ID.replace('.', '/') + "/" + artifactId + "/payload.bin");
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(payload.length);
+      entry.setCompressedSize(payload.length);
+      entry.setCrc(crc.getValue());
+      out.putNextEntry(entry);
+      out.write(payload);
+      out.closeEntry();
+    }
+    writeChecksum(file);
+  }
+
+  /**
+   * Writes POM and jar of the artifact.
+   *
+   * @param artifactId	the artifact ID
+   * @param children	the indices of the dependencies
+   * @param rnd		for generating the payload
+   * @throws Exception	if writing fails
+   */
+  protected void writeArtifact(String artifactId, int[] children, Random rnd) throws Exception {
+    File	dir;
+
+    dir = new File(m_Dir, GROUP_ID.replace('.', '/') + "/" + artifactId + "/" + VERSION);
+    if (!dir.exists() && !dir.mkdirs())
+      throw new IOException("Failed to create directory: " + dir);
+    writePom(dir, artifactId, children);
+    writeJar(dir, artifactId, rnd);
+  }
+
+  /**
+   * Generates the repository.
+   *
+   * @throws Exception	if generation fails
+   */
+  public void generate() throws Exception {
+    Random	rnd;
+    int		i;
+    int		n;
+    int		count;
+    int[]	children;
+
+    rnd = new Random(1);
+    for (i = 0; i < m_NumArtifacts; i++) {
+      count = 0;
+      for (n = 1; n <= m_Fanout; n++) {
+	if (i * m_Fanout + n < m_NumArtifacts)
+	  count++;
+      }
+      children = new int[count];
+      for (n = 0; n < count; n++)
+	children[n] = i * m_Fanout + n + 1;
+      writeArtifact(artifactId(i), children, rnd);
+    }
+    writeArtifact(EXTRA_ARTIFACT, new int[0], rnd);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * TemplateBenchmark.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.benchmarks;
+
+import com.github.fracpete.bootstrapp.core.Resources;
+import com.github.fracpete.bootstrapp.core.Template;
+import com.github.fracpete.bootstrapp.core.Template.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Benchmarks {@link Template#configureTemplate(File, File, Configuration)}.
+ * Since the exclusions get repeated for every dependency, dependencies and
+ * exclusions are scaled separately.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateBenchmark {
+
+  /** the number of dependencies/exclusions to scale. */
+  @Param({"10", "1000", "50000"})
+  public int size;
+
+  /** the template file. */
+  protected File m_Template;
+
+  /** the output directory. */
+  protected File m_OutputDir;
+
+  /** the configuration with many dependencies. */
+  protected Configuration m_ConfigDependencies;
+
+  /** the configuration with many exclusions. */
+  protected Configuration m_ConfigExclusions;
+
+  /**
+   * Generates the specified number of dependencies.
+   *
+   * @param num		the number of dependencies
+   * @return		the dependencies
+   */
+  protected List<String> dependencies(int num) {
+    List<String>	result;
+    int			i;
+
+    result = new ArrayList<>();
+    for (i = 0; i < num; i++)
+      result.add("org.example.group" + (i % 100) + ":artifact-" + i + ":1." + (i % 10) + ".0");
+
+    return result;
+  }
+
+  /**
+   * Generates the specified number of exclusions.
+   *
+   * @param num		the number of exclusions
+   * @return		the exclusions
+   */
+  protected List<String> exclusions(int num) {
+    List<String>	result;
+    int			i;
+
+    result = new ArrayList<>();
+    for (i = 0; i < num; i++)
+      result.add("org.example.excluded" + (i % 100) + ":excluded-" + i);
+
+    return result;
+  }
+
+  /**
+   * Creates a configuration.
+   *
+   * @param numDeps	the number of dependencies
+   * @param numExcls	the number of exclusions
+   * @return		the configuration
+   */
+  protected Configuration configuration(int numDeps, int numExcls) {
+    Configuration	result;
+
+    result = new Configuration();
+    result.outputDirMaven = new File(m_OutputDir, "target");
+    result.dependencies   = dependencies(numDeps);
+    result.exclusions     = exclusions(numExcls);
+    result.noSources      = true;
+    result.noSpringBoot   = true;
+    result.name           = Template.DEFAULT_NAME;
+    result.version        = Template.DEFAULT_VERSION;
+
+    return result;
+  }
+
+  /**
+   * Extracts the bundled template and generates the configurations.
+   *
+   * @throws Exception	if setup fails
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    Logger.getLogger(Template.class.getName()).setLevel(java.util.logging.Level.SEVERE);
+    m_OutputDir = BenchmarkUtils.createTempDir("template");
+    m_Template  = new File(m_OutputDir, Template.TEMPLATE_FILE);
+    try (InputStream in = Template.class.getClassLoader().getResourceAsStream(Resources.LOCATION + "/" + Template.TEMPLATE_FILE)) {
+      Files.copy(in, m_Template.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    m_ConfigDependencies = configuration(size, 10);
+    m_ConfigExclusions   = configuration(10, size);
+  }
+
+  /**
+   * Removes the temporary files.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchmarkUtils.delete(m_OutputDir);
+  }
+
+  /**
+   * Configures the template with many dependencies (and 10 exclusions).
+   *
+   * @return		the result of the configuration
+   */
+  @Benchmark
+  public String dependencies() {
+    return Template.configureTemplate(m_Template, m_OutputDir, m_ConfigDependencies);
+  }
+
+  /**
+   * Configures the template with many exclusions (and 10 dependencies).
+   *
+   * @return		the result of the configuration
+   */
+  @Benchmark
+  public String exclusions() {
+    return Template.configureTemplate(m_Template, m_OutputDir, m_ConfigExclusions);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * ZipBenchmark.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.benchmarks;
+
+import com.github.fracpete.bootstrapp.core.ZipUtils;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+
+/**
+ * Benchmarks {@link ZipUtils#decompress(File, File, boolean, int, List)}
+ * on synthetic archives.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZipBenchmark {
+
+  /** the buffer size to use for decompressing (same as Maven download). */
+  public final static int BUFFER_SIZE = 1024 * 1024;
+
+  /** the layout of the archive: many small or few large entries. */
+  @Param({"many-small", "few-large"})
+  public String layout;
+
+  /** the compression method. */
+  @Param({"STORED", "DEFLATED"})
+  public String method;
+
+  /** the working directory. */
+  protected File m_WorkDir;
+
+  /** the archive. */
+  protected File m_Archive;
+
+  /** the output directory. */
+  protected File m_OutputDir;
+
+  /**
+   * Generates the synthetic archive.
+   *
+   * @throws Exception	if setup fails
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    int			numEntries;
+    int			entrySize;
+    byte[]		data;
+    Random		rnd;
+    int			i;
+    int			n;
+    ZipArchiveEntry	entry;
+
+    if (layout.equals("many-small")) {
+      numEntries = 5000;
+      entrySize  = 1024;
+    }
+    else {
+      numEntries = 4;
+      entrySize  = 8 * 1024 * 1024;
+    }
+
+    m_WorkDir   = BenchmarkUtils.createTempDir("zip");
+    m_Archive   = new File(m_WorkDir, "archive.zip");
+    m_OutputDir = new File(m_WorkDir, "out");
+    rnd         = new Random(42);
+    data        = new byte[entrySize];
+    try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(m_Archive)) {
+      out.setMethod(method.equals("STORED") ? ZipEntry.STORED : ZipEntry.DEFLATED);
+      for (i = 0; i < numEntries; i++) {
+	// semi-compressible content
+	for (n = 0; n < data.length; n++)
+	  data[n] = (byte) ((n % 64 == 0) ? rnd.nextInt(256) : (n % 32));
+	entry = new ZipArchiveEntry("dir" + (i % 50) + "/file" + i + ".bin");
+	out.putArchiveEntry(entry);
+	out.write(data);
+	out.closeArchiveEntry();
+      }
+    }
+  }
+
+  /**
+   * Removes the temporary files.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchmarkUtils.delete(m_WorkDir);
+  }
+
+  /**
+   * Decompresses the archive.
+   *
+   * @return		the extracted files
+   */
+  @Benchmark
+  public List<File> decompress() {
+    List<String>	errors;
+    List<File>		result;
+
+    errors = new ArrayList<>();
+    result = ZipUtils.decompress(m_Archive, m_OutputDir, true, BUFFER_SIZE, errors);
+    if (!errors.isEmpty())
+      throw new IllegalStateException("Failed to decompress: " + errors);
+
+    return result;
+  }
+}
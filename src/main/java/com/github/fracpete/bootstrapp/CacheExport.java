@@ -0,0 +1,391 @@
+/*
+ * CacheExport.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp;
+
+import com.github.fracpete.bootstrapp.core.Bundle;
+import com.github.fracpete.bootstrapp.core.Maven;
+import com.github.fracpete.bootstrapp.core.VersionCache;
+import com.github.fracpete.simpleargparse4j.ArgumentParser;
+import com.github.fracpete.simpleargparse4j.ArgumentParserException;
+import com.github.fracpete.simpleargparse4j.Namespace;
+import com.github.fracpete.simpleargparse4j.Option.Type;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Bootstraps one or more configurations on a connected machine and exports
+ * everything they need (Maven distribution, local repository artifacts,
+ * resolved metadata) as a single bundle for air-gapped nodes (see
+ * CacheImport). A configuration is a file with the bootstrapp options, one
+ * option or value per line (empty lines and lines starting with # get
+ * ignored). A manifest lists configuration files, one per line, relative
+ * paths are interpreted relative to the manifest.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class CacheExport {
+
+  /** the configuration files. */
+  protected List<File> m_Configs;
+
+  /** the manifest with configuration files. */
+  protected File m_Manifest;
+
+  /** the bundle to write. */
+  protected File m_Output;
+
+  /** the number of threads for hashing. */
+  protected int m_Threads;
+
+  /** for logging. */
+  protected Logger m_Logger;
+
+  /** whether help got requested. */
+  protected boolean m_HelpRequested;
+
+  /**
+   * Initializes the object.
+   */
+  public CacheExport() {
+    initialize();
+  }
+
+  /**
+   * Initializes the members.
+   */
+  protected void initialize() {
+    m_Configs       = new ArrayList<>();
+    m_Manifest      = null;
+    m_Output        = null;
+    m_Threads       = Runtime.getRuntime().availableProcessors();
+    m_Logger        = null;
+    m_HelpRequested = false;
+  }
+
+  /**
+   * Returns the logger instance to use.
+   *
+   * @return		the logger
+   */
+  protected Logger getLogger() {
+    if (m_Logger == null)
+      m_Logger = Logger.getLogger(getClass().getName());
+    return m_Logger;
+  }
+
+  /**
+   * Sets the configuration files to bootstrap.
+   *
+   * @param configs	the files
+   * @return		itself
+   */
+  public CacheExport configs(List<File> configs) {
+    m_Configs = (configs == null) ? new ArrayList<>() : new ArrayList<>(configs);
+    return this;
+  }
+
+  /**
+   * Returns the configuration files to bootstrap.
+   *
+   * @return		the files
+   */
+  public List<File> getConfigs() {
+    return m_Configs;
+  }
+
+  /**
+   * Sets the manifest with the configuration files to bootstrap.
+   *
+   * @param manifest	the manifest, null if not used
+   * @return		itself
+   */
+  public CacheExport manifest(File manifest) {
+    m_Manifest = manifest;
+    return this;
+  }
+
+  /**
+   * Returns the manifest with the configuration files to bootstrap.
+   *
+   * @return		the manifest, null if not used
+   */
+  public File getManifest() {
+    return m_Manifest;
+  }
+
+  /**
+   * Sets the bundle to write.
+   *
+   * @param output	the bundle
+   * @return		itself
+   */
+  public CacheExport output(File output) {
+    m_Output = output;
+    return this;
+  }
+
+  /**
+   * Returns the bundle to write.
+   *
+   * @return		the bundle
+   */
+  public File getOutput() {
+    return m_Output;
+  }
+
+  /**
+   * Sets the number of threads to use for hashing the files.
+   *
+   * @param threads	the number of threads
+   * @return		itself
+   */
+  public CacheExport threads(int threads) {
+    m_Threads = threads;
+    return this;
+  }
+
+  /**
+   * Returns the number of threads to use for hashing the files.
+   *
+   * @return		the number of threads
+   */
+  public int getThreads() {
+    return m_Threads;
+  }
+
+  /**
+   * Configures and returns the commandline parser.
+   *
+   * @return		the parser
+   */
+  protected ArgumentParser getParser() {
+    ArgumentParser 		parser;
+
+    parser = new ArgumentParser("Bootstraps the configurations and exports the Maven distribution, the required artifacts and the resolved metadata as a bundle for air-gapped nodes.");
+    parser.addOption("-c", "--config")
+      .required(false)
+      .multiple(true)
+      .type(Type.EXISTING_FILE)
+      .dest("configs")
+      .metaVar("FILE")
+      .help("The file with the bootstrapp options to use, one option or value per line (# for comments).");
+    parser.addOption("-m", "--manifest")
+      .required(false)
+      .type(Type.EXISTING_FILE)
+      .dest("manifest")
+      .metaVar("FILE")
+      .help("The file listing the configuration files, one per line (relative to the manifest).");
+    parser.addOption("-o", "--output")
+      .required(true)
+      .type(Type.FILE)
+      .dest("output")
+      .metaVar("FILE")
+      .help("The bundle (zip file) to write.");
+    parser.addOption("-t", "--threads")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(Runtime.getRuntime().availableProcessors())
+      .dest("threads")
+      .metaVar("NUM")
+      .help("The number of threads to use for computing the checksums.");
+
+    return parser;
+  }
+
+  /**
+   * Sets the parsed options.
+   *
+   * @param ns		the parsed options
+   * @return		if successfully set
+   */
+  protected boolean setOptions(Namespace ns) {
+    configs(ns.getList("configs"));
+    manifest(ns.getFile("manifest"));
+    output(ns.getFile("output"));
+    threads(ns.getInt("threads"));
+    return true;
+  }
+
+  /**
+   * Returns whether help got requested when setting the options.
+   *
+   * @return		true if help got requested
+   */
+  public boolean getHelpRequested() {
+    return m_HelpRequested;
+  }
+
+  /**
+   * Parses the options and configures the object.
+   *
+   * @param options	the command-line options
+   * @return		true if successfully set (or help requested)
+   */
+  public boolean setOptions(String[] options) {
+    ArgumentParser 	parser;
+    Namespace 		ns;
+
+    m_HelpRequested = false;
+    parser          = getParser();
+    try {
+      ns = parser.parseArgs(options);
+    }
+    catch (ArgumentParserException e) {
+      parser.handleError(e);
+      m_HelpRequested = parser.getHelpRequested();
+      return m_HelpRequested;
+    }
+
+    return setOptions(ns);
+  }
+
+  /**
+   * Reads the non-empty lines that aren't comments.
+   *
+   * @param file	the file to read
+   * @return		the lines
+   * @throws Exception	if reading fails
+   */
+  protected List<String> readLines(File file) throws Exception {
+    List<String>	result;
+
+    result = new ArrayList<>();
+    for (String line: Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#"))
+	continue;
+      result.add(line);
+    }
+
+    return result;
+  }
+
+  /**
+   * Deletes the directory recursively.
+   *
+   * @param dir		the directory to delete
+   */
+  protected void delete(File dir) {
+    try (Stream<Path> stream = Files.walk(dir.toPath())) {
+      stream
+	.sorted(Collections.reverseOrder())
+	.map(Path::toFile)
+	.forEach(File::delete);
+    }
+    catch (Exception e) {
+      getLogger().warning("Failed to delete directory: " + dir + "\n" + e);
+    }
+  }
+
+  /**
+   * Bootstraps the configurations into a fresh repository and exports the
+   * bundle.
+   *
+   * @param tmpDir	the temporary directory to use
+   * @return		null if successful, otherwise error message
+   * @throws Exception	if reading of the configurations fails
+   */
+  protected String doExecute(File tmpDir) throws Exception {
+    String		result;
+    List<File>		configs;
+    File		repo;
+    File		file;
+    Main		main;
+    int			i;
+
+    configs = new ArrayList<>(m_Configs);
+    if (m_Manifest != null) {
+      for (String line: readLines(m_Manifest)) {
+	file = new File(line);
+	if (!file.isAbsolute())
+	  file = new File(m_Manifest.getAbsoluteFile().getParentFile(), line);
+	configs.add(file);
+      }
+    }
+    if (configs.isEmpty())
+      return "No configurations provided!";
+
+    // resolve the configurations into a fresh repository
+    repo = new File(tmpDir, "repository");
+    for (i = 0; i < configs.size(); i++) {
+      getLogger().info("Bootstrapping configuration " + (i + 1) + "/" + configs.size() + ": " + configs.get(i));
+      main = new Main();
+      if (!main.setOptions(readLines(configs.get(i)).toArray(new String[0])) || main.getHelpRequested())
+	return "Failed to parse options of configuration: " + configs.get(i);
+      main.outputDir(new File(tmpDir, "output-" + i));
+      main.localRepoBase(repo);
+      main.launch(false);
+      main.watch(false);
+      // captures the Maven output and reports it on failure
+      main.quiet(true);
+      if ((result = main.execute()) != null)
+	return "Failed to bootstrap configuration " + configs.get(i) + ":\n" + result;
+    }
+
+    return new Bundle(m_Output, m_Threads).export(new File(Maven.homeDir()), repo, VersionCache.defaultFile());
+  }
+
+  /**
+   * Performs the export.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public String execute() {
+    String		result;
+    File		tmpDir;
+
+    if (m_Output == null)
+      return "No output file provided!";
+
+    tmpDir = null;
+    try {
+      tmpDir = Files.createTempDirectory("bootstrapp-export-").toFile();
+      result = doExecute(tmpDir);
+    }
+    catch (Exception e) {
+      result = "Failed to export bundle: " + e;
+    }
+    finally {
+      if (tmpDir != null)
+	delete(tmpDir);
+    }
+    if (result != null)
+      getLogger().severe(result);
+
+    return result;
+  }
+
+  /**
+   * Executes the export with the specified command-line arguments.
+   *
+   * @param args	the options to use
+   */
+  public static void main(String[] args) {
+    CacheExport export = new CacheExport();
+
+    if (!export.setOptions(args)) {
+      System.err.println("Failed to parse options!");
+      System.exit(1);
+    }
+    else if (export.getHelpRequested()) {
+      System.exit(0);
+    }
+
+    String result = export.execute();
+    if (result != null) {
+      System.err.println("Failed to export bundle:\n" + result);
+      System.exit(2);
+    }
+  }
+}
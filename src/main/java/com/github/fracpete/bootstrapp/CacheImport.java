@@ -0,0 +1,257 @@
+/*
+ * CacheImport.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp;
+
+import com.github.fracpete.bootstrapp.core.Bundle;
+import com.github.fracpete.bootstrapp.core.Maven;
+import com.github.fracpete.bootstrapp.core.Settings;
+import com.github.fracpete.bootstrapp.core.VersionCache;
+import com.github.fracpete.simpleargparse4j.ArgumentParser;
+import com.github.fracpete.simpleargparse4j.ArgumentParserException;
+import com.github.fracpete.simpleargparse4j.Namespace;
+import com.github.fracpete.simpleargparse4j.Option.Type;
+
+import java.io.File;
+import java.util.logging.Logger;
+
+/**
+ * Imports a bundle generated by CacheExport on an air-gapped node: the
+ * Maven distribution gets placed in the bootstrapp home directory, the
+ * artifacts in the local repository and the resolved metadata gets merged
+ * into the version cache. Afterwards, bootstrapp can be run with --offline.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class CacheImport {
+
+  /** the bundle to import. */
+  protected File m_Input;
+
+  /** the local repository. */
+  protected File m_LocalRepo;
+
+  /** the number of threads for writing. */
+  protected int m_Threads;
+
+  /** for logging. */
+  protected Logger m_Logger;
+
+  /** whether help got requested. */
+  protected boolean m_HelpRequested;
+
+  /**
+   * Initializes the object.
+   */
+  public CacheImport() {
+    initialize();
+  }
+
+  /**
+   * Initializes the members.
+   */
+  protected void initialize() {
+    m_Input         = null;
+    m_LocalRepo     = null;
+    m_Threads       = Runtime.getRuntime().availableProcessors();
+    m_Logger        = null;
+    m_HelpRequested = false;
+  }
+
+  /**
+   * Returns the logger instance to use.
+   *
+   * @return		the logger
+   */
+  protected Logger getLogger() {
+    if (m_Logger == null)
+      m_Logger = Logger.getLogger(getClass().getName());
+    return m_Logger;
+  }
+
+  /**
+   * Sets the bundle to import.
+   *
+   * @param input	the bundle
+   * @return		itself
+   */
+  public CacheImport input(File input) {
+    m_Input = input;
+    return this;
+  }
+
+  /**
+   * Returns the bundle to import.
+   *
+   * @return		the bundle
+   */
+  public File getInput() {
+    return m_Input;
+  }
+
+  /**
+   * Sets the local repository to import the artifacts into.
+   *
+   * @param dir		the repository, null for the one Maven uses by default
+   * @return		itself
+   */
+  public CacheImport localRepo(File dir) {
+    m_LocalRepo = dir;
+    return this;
+  }
+
+  /**
+   * Returns the local repository to import the artifacts into.
+   *
+   * @return		the repository, null for the one Maven uses by default
+   */
+  public File getLocalRepo() {
+    return m_LocalRepo;
+  }
+
+  /**
+   * Sets the number of threads to use for verifying and writing the files.
+   *
+   * @param threads	the number of threads
+   * @return		itself
+   */
+  public CacheImport threads(int threads) {
+    m_Threads = threads;
+    return this;
+  }
+
+  /**
+   * Returns the number of threads to use for verifying and writing the files.
+   *
+   * @return		the number of threads
+   */
+  public int getThreads() {
+    return m_Threads;
+  }
+
+  /**
+   * Configures and returns the commandline parser.
+   *
+   * @return		the parser
+   */
+  protected ArgumentParser getParser() {
+    ArgumentParser 		parser;
+
+    parser = new ArgumentParser("Imports a bundle generated by CacheExport on an air-gapped node.");
+    parser.addOption("-i", "--input")
+      .required(true)
+      .type(Type.EXISTING_FILE)
+      .dest("input")
+      .metaVar("FILE")
+      .help("The bundle (zip file) to import.");
+    parser.addOption("-r", "--local_repo")
+      .required(false)
+      .type(Type.DIRECTORY)
+      .dest("local_repo")
+      .metaVar("DIR")
+      .help("The local repository to import the artifacts into (can be the base repository for --local_repo_base); default is the one Maven uses.");
+    parser.addOption("-t", "--threads")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(Runtime.getRuntime().availableProcessors())
+      .dest("threads")
+      .metaVar("NUM")
+      .help("The number of threads to use for verifying and writing the files.");
+
+    return parser;
+  }
+
+  /**
+   * Sets the parsed options.
+   *
+   * @param ns		the parsed options
+   * @return		if successfully set
+   */
+  protected boolean setOptions(Namespace ns) {
+    input(ns.getFile("input"));
+    localRepo(ns.getFile("local_repo"));
+    threads(ns.getInt("threads"));
+    return true;
+  }
+
+  /**
+   * Returns whether help got requested when setting the options.
+   *
+   * @return		true if help got requested
+   */
+  public boolean getHelpRequested() {
+    return m_HelpRequested;
+  }
+
+  /**
+   * Parses the options and configures the object.
+   *
+   * @param options	the command-line options
+   * @return		true if successfully set (or help requested)
+   */
+  public boolean setOptions(String[] options) {
+    ArgumentParser 	parser;
+    Namespace 		ns;
+
+    m_HelpRequested = false;
+    parser          = getParser();
+    try {
+      ns = parser.parseArgs(options);
+    }
+    catch (ArgumentParserException e) {
+      parser.handleError(e);
+      m_HelpRequested = parser.getHelpRequested();
+      return m_HelpRequested;
+    }
+
+    return setOptions(ns);
+  }
+
+  /**
+   * Performs the import.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public String execute() {
+    String		result;
+    File		localRepo;
+
+    if (m_Input == null)
+      result = "No bundle provided!";
+    else {
+      localRepo = (m_LocalRepo == null) ? Settings.localRepository(null, null) : m_LocalRepo;
+      getLogger().info("Importing " + m_Input + " into " + Maven.homeDir() + " and " + localRepo);
+      result = new Bundle(m_Input, m_Threads).extract(
+	new File(Maven.homeDir()), localRepo, new VersionCache(VersionCache.defaultFile(), 0));
+    }
+    if (result != null)
+      getLogger().severe(result);
+
+    return result;
+  }
+
+  /**
+   * Executes the import with the specified command-line arguments.
+   *
+   * @param args	the options to use
+   */
+  public static void main(String[] args) {
+    CacheImport imp = new CacheImport();
+
+    if (!imp.setOptions(args)) {
+      System.err.println("Failed to parse options!");
+      System.exit(1);
+    }
+    else if (imp.getHelpRequested()) {
+      System.exit(0);
+    }
+
+    String result = imp.execute();
+    if (result != null) {
+      System.err.println("Failed to import bundle:\n" + result);
+      System.exit(2);
+    }
+  }
+}
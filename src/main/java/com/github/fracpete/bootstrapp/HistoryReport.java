@@ -0,0 +1,377 @@
+/*
+ * HistoryReport.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp;
+
+import com.github.fracpete.bootstrapp.core.History;
+import com.github.fracpete.bootstrapp.core.History.Regression;
+import com.github.fracpete.bootstrapp.core.History.Run;
+import com.github.fracpete.bootstrapp.core.Template;
+import com.github.fracpete.simpleargparse4j.ArgumentParser;
+import com.github.fracpete.simpleargparse4j.ArgumentParserException;
+import com.github.fracpete.simpleargparse4j.Namespace;
+import com.github.fracpete.simpleargparse4j.Option.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Compares the latest recorded run of a project with a rolling baseline
+ * of the preceding runs and flags regressions (see --history in Main).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class HistoryReport {
+
+  /** the default number of runs for the baseline. */
+  public final static int DEFAULT_BASELINE = 5;
+
+  /** the default threshold for timings. */
+  public final static double DEFAULT_TIME_THRESHOLD = 1.3;
+
+  /** the default threshold for counts/sizes. */
+  public final static double DEFAULT_SIZE_THRESHOLD = 2.0;
+
+  /** the name of the project. */
+  protected String m_Name;
+
+  /** the version of the project. */
+  protected String m_Version;
+
+  /** the number of preceding runs to use as baseline. */
+  protected int m_Baseline;
+
+  /** the threshold ratio for timings. */
+  protected double m_TimeThreshold;
+
+  /** the threshold ratio for counts/sizes. */
+  protected double m_SizeThreshold;
+
+  /** the detected regressions. */
+  protected transient List<Regression> m_Regressions;
+
+  /** for logging. */
+  protected Logger m_Logger;
+
+  /** whether help got requested. */
+  protected boolean m_HelpRequested;
+
+  /**
+   * Initializes the object.
+   */
+  public HistoryReport() {
+    initialize();
+  }
+
+  /**
+   * Initializes the members.
+   */
+  protected void initialize() {
+    m_Name          = Template.DEFAULT_NAME;
+    m_Version       = Template.DEFAULT_VERSION;
+    m_Baseline      = DEFAULT_BASELINE;
+    m_TimeThreshold = DEFAULT_TIME_THRESHOLD;
+    m_SizeThreshold = DEFAULT_SIZE_THRESHOLD;
+    m_Regressions   = new ArrayList<>();
+    m_Logger        = null;
+    m_HelpRequested = false;
+  }
+
+  /**
+   * Returns the logger instance to use.
+   *
+   * @return		the logger
+   */
+  protected Logger getLogger() {
+    if (m_Logger == null)
+      m_Logger = Logger.getLogger(getClass().getName());
+    return m_Logger;
+  }
+
+  /**
+   * Sets the name of the project.
+   *
+   * @param name	the name
+   * @return		itself
+   */
+  public HistoryReport name(String name) {
+    m_Name = name;
+    return this;
+  }
+
+  /**
+   * Returns the name of the project.
+   *
+   * @return		the name
+   */
+  public String getName() {
+    return m_Name;
+  }
+
+  /**
+   * Sets the version of the project.
+   *
+   * @param version	the version
+   * @return		itself
+   */
+  public HistoryReport version(String version) {
+    m_Version = version;
+    return this;
+  }
+
+  /**
+   * Returns the version of the project.
+   *
+   * @return		the version
+   */
+  public String getVersion() {
+    return m_Version;
+  }
+
+  /**
+   * Sets the number of preceding runs to use as baseline.
+   *
+   * @param baseline	the number of runs
+   * @return		itself
+   */
+  public HistoryReport baseline(int baseline) {
+    m_Baseline = baseline;
+    return this;
+  }
+
+  /**
+   * Returns the number of preceding runs to use as baseline.
+   *
+   * @return		the number of runs
+   */
+  public int getBaseline() {
+    return m_Baseline;
+  }
+
+  /**
+   * Sets the ratio above which timings are considered a regression.
+   *
+   * @param threshold	the ratio, eg 1.3 for 30% slower
+   * @return		itself
+   */
+  public HistoryReport timeThreshold(double threshold) {
+    m_TimeThreshold = threshold;
+    return this;
+  }
+
+  /**
+   * Returns the ratio above which timings are considered a regression.
+   *
+   * @return		the ratio
+   */
+  public double getTimeThreshold() {
+    return m_TimeThreshold;
+  }
+
+  /**
+   * Sets the ratio above which counts/sizes are considered a regression.
+   *
+   * @param threshold	the ratio, eg 2.0 for twice as large
+   * @return		itself
+   */
+  public HistoryReport sizeThreshold(double threshold) {
+    m_SizeThreshold = threshold;
+    return this;
+  }
+
+  /**
+   * Returns the ratio above which counts/sizes are considered a regression.
+   *
+   * @return		the ratio
+   */
+  public double getSizeThreshold() {
+    return m_SizeThreshold;
+  }
+
+  /**
+   * Returns the regressions detected by the last execution.
+   *
+   * @return		the regressions
+   */
+  public List<Regression> getRegressions() {
+    return m_Regressions;
+  }
+
+  /**
+   * Configures and returns the commandline parser.
+   *
+   * @return		the parser
+   */
+  protected ArgumentParser getParser() {
+    ArgumentParser 		parser;
+
+    parser = new ArgumentParser("Compares the latest bootstrapp run against the recorded history.");
+    parser.addOption("-n", "--name")
+      .required(false)
+      .setDefault(Template.DEFAULT_NAME)
+      .dest("name")
+      .help("The name of the project, as used for bootstrapping.");
+    parser.addOption("-V", "--version")
+      .required(false)
+      .setDefault(Template.DEFAULT_VERSION)
+      .dest("version")
+      .help("The version of the project, as used for bootstrapping.");
+    parser.addOption("-b", "--baseline")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(DEFAULT_BASELINE)
+      .dest("baseline")
+      .metaVar("NUM")
+      .help("The number of runs preceding the latest one to use as rolling baseline (median).");
+    parser.addOption("-t", "--time_threshold")
+      .required(false)
+      .type(Type.DOUBLE)
+      .setDefault(DEFAULT_TIME_THRESHOLD)
+      .dest("time_threshold")
+      .metaVar("RATIO")
+      .help("The ratio latest/baseline above which stage timings are flagged, e.g., 1.3 for 30% slower.");
+    parser.addOption("-s", "--size_threshold")
+      .required(false)
+      .type(Type.DOUBLE)
+      .setDefault(DEFAULT_SIZE_THRESHOLD)
+      .dest("size_threshold")
+      .metaVar("RATIO")
+      .help("The ratio latest/baseline above which artifact counts and output sizes are flagged, e.g., 2.0 for twice as large.");
+
+    return parser;
+  }
+
+  /**
+   * Sets the parsed options.
+   *
+   * @param ns		the parsed options
+   * @return		if successfully set
+   */
+  protected boolean setOptions(Namespace ns) {
+    name(ns.getString("name"));
+    version(ns.getString("version"));
+    baseline(ns.getInt("baseline"));
+    timeThreshold(ns.getDouble("time_threshold"));
+    sizeThreshold(ns.getDouble("size_threshold"));
+    return true;
+  }
+
+  /**
+   * Returns whether help got requested when setting the options.
+   *
+   * @return		true if help got requested
+   */
+  public boolean getHelpRequested() {
+    return m_HelpRequested;
+  }
+
+  /**
+   * Parses the options and configures the object.
+   *
+   * @param options	the command-line options
+   * @return		true if successfully set (or help requested)
+   */
+  public boolean setOptions(String[] options) {
+    ArgumentParser 	parser;
+    Namespace 		ns;
+
+    m_HelpRequested = false;
+    parser          = getParser();
+    try {
+      ns = parser.parseArgs(options);
+    }
+    catch (ArgumentParserException e) {
+      parser.handleError(e);
+      m_HelpRequested = parser.getHelpRequested();
+      return m_HelpRequested;
+    }
+
+    return setOptions(ns);
+  }
+
+  /**
+   * Performs the comparison and outputs the report.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String doExecute() {
+    List<Run>	runs;
+    Run		latest;
+
+    if (m_Baseline < 1)
+      return "Baseline must be at least 1, provided: " + m_Baseline;
+
+    runs = History.load(m_Name, m_Version);
+    if (runs.isEmpty())
+      return "No history available for " + m_Name + " " + m_Version + ": " + History.historyFile(m_Name, m_Version);
+
+    latest = runs.get(runs.size() - 1);
+    System.out.println("History: " + History.historyFile(m_Name, m_Version));
+    System.out.println("Runs: " + runs.size());
+    System.out.println("Latest run:");
+    for (String metric: latest.metrics.keySet())
+      System.out.println("  " + metric + ": " + latest.metrics.get(metric));
+
+    if (runs.size() < 2) {
+      System.out.println("Not enough runs for a baseline yet.");
+      return null;
+    }
+
+    m_Regressions = History.compare(runs, m_Baseline, m_TimeThreshold, m_SizeThreshold);
+    if (m_Regressions.isEmpty()) {
+      System.out.println("No regressions.");
+    }
+    else {
+      System.out.println("Regressions:");
+      for (Regression regression: m_Regressions)
+	System.out.println("  " + regression);
+    }
+
+    return null;
+  }
+
+  /**
+   * Performs the comparison.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public String execute() {
+    String		result;
+
+    m_Regressions = new ArrayList<>();
+    result        = doExecute();
+    if (result != null)
+      getLogger().severe(result);
+
+    return result;
+  }
+
+  /**
+   * Executes the comparison with the specified command-line arguments.
+   * Exits with 3 if regressions were detected.
+   *
+   * @param args	the options to use
+   */
+  public static void main(String[] args) {
+    HistoryReport report = new HistoryReport();
+
+    if (!report.setOptions(args)) {
+      System.err.println("Failed to parse options!");
+      System.exit(1);
+    }
+    else if (report.getHelpRequested()) {
+      System.exit(0);
+    }
+
+    String result = report.execute();
+    if (result != null) {
+      System.err.println("Failed to generate history report:\n" + result);
+      System.exit(2);
+    }
+    if (!report.getRegressions().isEmpty())
+      System.exit(3);
+  }
+}
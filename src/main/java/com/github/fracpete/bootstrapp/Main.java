@@ -1,14 +1,36 @@
 /*
  * Main.java
- * Copyright (C) 2020-2021 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2020-2026 University of Waikato, Hamilton, NZ
  */
 
 package com.github.fracpete.bootstrapp;
 
+import com.github.fracpete.bootstrapp.core.CachingProxy;
+import com.github.fracpete.bootstrapp.core.Checksums;
+import com.github.fracpete.bootstrapp.core.ClassDataSharing;
+import com.github.fracpete.bootstrapp.core.DebianPackage;
+import com.github.fracpete.bootstrapp.core.FileWatcher;
+import com.github.fracpete.bootstrapp.core.History;
+import com.github.fracpete.bootstrapp.core.History.Run;
+import com.github.fracpete.bootstrapp.core.MainClassFinder;
+import com.github.fracpete.bootstrapp.core.LocalRepository;
 import com.github.fracpete.bootstrapp.core.Maven;
+import com.github.fracpete.bootstrapp.core.MavenDaemon;
+import com.github.fracpete.bootstrapp.core.MavenTimings;
+import com.github.fracpete.bootstrapp.core.MergedJar;
+import com.github.fracpete.bootstrapp.core.OciImage;
+import com.github.fracpete.bootstrapp.core.OfflineCheck;
+import com.github.fracpete.bootstrapp.core.OutputBuffer;
+import com.github.fracpete.bootstrapp.core.Platform;
+import com.github.fracpete.bootstrapp.core.Reachability;
+import com.github.fracpete.bootstrapp.core.RepositoryProbe;
+import com.github.fracpete.bootstrapp.core.RuntimeImage;
 import com.github.fracpete.bootstrapp.core.Resources;
+import com.github.fracpete.bootstrapp.core.Settings;
 import com.github.fracpete.bootstrapp.core.Template;
 import com.github.fracpete.bootstrapp.core.Template.Configuration;
+import com.github.fracpete.bootstrapp.core.TokenBucket;
+import com.github.fracpete.bootstrapp.core.VersionCache;
 import com.github.fracpete.processoutput4j.core.impl.SimpleStreamingProcessOwner;
 import com.github.fracpete.processoutput4j.output.StreamingProcessOutput;
 import com.github.fracpete.resourceextractor4j.Content;
@@ -19,17 +41,31 @@ import com.github.fracpete.simpleargparse4j.Option.Type;
 import org.apache.maven.shared.invoker.DefaultInvocationRequest;
 import org.apache.maven.shared.invoker.DefaultInvoker;
 import org.apache.maven.shared.invoker.InvocationRequest;
+import org.apache.maven.shared.invoker.InvocationResult;
 import org.apache.maven.shared.invoker.Invoker;
+import org.apache.maven.shared.invoker.PrintStreamHandler;
 
 import java.io.File;
 import java.io.FilenameFilter;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Command-line application for bootstrapping a Maven appplication.
@@ -38,15 +74,39 @@ import java.util.logging.Logger;
  */
 public class Main {
 
+  /** the name of the generated POM for retrieving the sources in the background. */
+  public final static String SOURCES_POM_FILE = "pom-sources.xml";
+
+  /** the goal for retrieving the sources (execution of the dependency plugin in the template). */
+  public final static String SOURCES_GOAL = "dependency:copy-dependencies@sources";
+
+  /** the directory (below the output directory) for staging the tiers of layered Docker images. */
+  public final static String DOCKER_TIERS_DIR = "docker";
+
+  /** the tier with the sources (layered Docker images). */
+  public final static String TIER_SOURCES = "sources";
+
   /** the alternative maven installation. */
   protected File m_MavenHome;
 
   /** the actual maven home to use. */
   protected transient File m_ActMavenHome;
 
+  /** whether to use the Maven Daemon (mvnd) instead of plain Maven. */
+  protected boolean m_MavenDaemon;
+
+  /** the actual maven executable to use, null for the default one. */
+  protected transient File m_ActMavenExecutable;
+
   /** the maven user settings to use. */
   protected File m_MavenUserSettings;
 
+  /** the shared base repository, null if not using overlays. */
+  protected File m_LocalRepoBase;
+
+  /** the local repository with the overlay of the run. */
+  protected transient LocalRepository m_ActLocalRepo;
+
   /** the alternative java installation. */
   protected File m_JavaHome;
 
@@ -77,6 +137,18 @@ public class Main {
   /** the repositories. */
   protected List<String> m_Repositories;
 
+  /** whether to probe the repositories and rank them by speed. */
+  protected boolean m_ProbeRepositories;
+
+  /** the path of the artifact to use for probing. */
+  protected String m_ProbePath;
+
+  /** the time-to-live in minutes for resolved version ranges and snapshots (0 = no caching). */
+  protected int m_VersionTTL;
+
+  /** the actual repositories to use (ranked if probed). */
+  protected transient List<String> m_ActRepositories;
+
   /** the pom template. */
   protected File m_PomTemplate;
 
@@ -95,9 +167,60 @@ public class Main {
   /** the main class to launch. */
   protected String m_MainClass;
 
+  /** whether to discover the main class if none supplied. */
+  protected boolean m_DiscoverMainClass;
+
+  /** whether to generate a class data sharing archive (AppCDS/AOT cache). */
+  protected boolean m_CDS;
+
+  /** the time limit in seconds for the training run. */
+  protected int m_CDSTimeout;
+
+  /** the regular expression for the output that ends the training run. */
+  protected String m_CDSTrigger;
+
+  /** whether to analyze which jars are reachable from the main class. */
+  protected boolean m_Reachability;
+
+  /** whether to move the unreachable jars out of the lib directory. */
+  protected boolean m_ReachabilityPrune;
+
+  /** the additional entry points for the reachability analysis. */
+  protected List<String> m_ReachabilityEntries;
+
+  /** the regular expressions of classes/jars to keep (eg accessed via reflection). */
+  protected List<String> m_ReachabilityKeep;
+
+  /** whether to generate a minimal runtime with jlink. */
+  protected boolean m_JLink;
+
+  /** additional modules to include in the runtime. */
+  protected List<String> m_JLinkModules;
+
+  /** whether to merge the jars into a single flat jar. */
+  protected boolean m_Merged;
+
+  /** how to handle duplicate entries in the merged jar. */
+  protected MergedJar.Duplicates m_MergedDuplicates;
+
+  /** the regular expressions of additional resources to append in the merged jar. */
+  protected List<String> m_MergedAppend;
+
   /** whether to retrieve source jars or not. */
   protected boolean m_Sources;
 
+  /** whether to retrieve the source jars in the background. */
+  protected boolean m_SourcesBackground;
+
+  /** the generated POM for retrieving the sources in the background. */
+  protected transient File m_ActSourcesPom;
+
+  /** the thread retrieving the sources in the background. */
+  protected transient Thread m_ActSources;
+
+  /** the result of retrieving the sources in the background. */
+  protected transient volatile String m_ActSourcesResult;
+
   /** the external source jar files/dirs. */
   protected List<File> m_ExternalSources;
 
@@ -113,6 +236,12 @@ public class Main {
   /** the custom debian maven snippet to use. */
   protected File m_DebianSnippet;
 
+  /** the compression for the data in the .deb package. */
+  protected DebianPackage.Compression m_DebianCompression;
+
+  /** the maintainer of the .deb package, null for default. */
+  protected String m_DebianMaintainer;
+
   /** whether to build .rpm package. */
   protected boolean m_Redhat;
 
@@ -128,12 +257,96 @@ public class Main {
   /** the custom docker snippet to use. */
   protected File m_DockerSnippet;
 
+  /** whether to generate a layered Docker image (one layer per tier of jars). */
+  protected boolean m_DockerLayered;
+
+  /** the base image (OCI image layout) for writing an OCI image directly, null for Dockerfile only. */
+  protected File m_OciBase;
+
   /** whether to launch the main class. */
   protected boolean m_Launch;
 
+  /** whether to monitor the inputs and re-bootstrap on changes. */
+  protected boolean m_Watch;
+
+  /** the delay in msec for debouncing changes in watch mode. */
+  protected int m_WatchDelay;
+
+  /** the main class launched in watch mode. */
+  protected transient Process m_ActLaunched;
+
   /** whether to compress the directory structure. */
   protected boolean m_CompressDirStructure;
 
+  /** the target platform for pruning native artifacts (eg linux-x86_64), null for all. */
+  protected String m_Platform;
+
+  /** the parsed target platform. */
+  protected transient Platform m_ActPlatform;
+
+  /** the generated class data sharing archive, null if none. */
+  protected transient ClassDataSharing m_ActCDS;
+
+  /** the generated runtime image, null if none. */
+  protected transient File m_ActRuntime;
+
+  /** whether to record the run in the history. */
+  protected boolean m_History;
+
+  /** whether to verify the checksums of the artifacts and record a manifest. */
+  protected boolean m_Verify;
+
+  /** the timings of the stages (stage - msec). */
+  protected transient Map<String,Long> m_StageTimings;
+
+  /** whether to start an embedded caching proxy. */
+  protected boolean m_Proxy;
+
+  /** the URL of an already running caching proxy to use as mirror. */
+  protected String m_ProxyURL;
+
+  /** the maximum size of the proxy cache in MB. */
+  protected int m_ProxyCacheSize;
+
+  /** whether to work offline. */
+  protected boolean m_Offline;
+
+  /** the number of threads for verifying the local repository in offline mode. */
+  protected int m_OfflineThreads;
+
+  /** the number of slowest transfers/plugin executions to log. */
+  protected int m_Slowest;
+
+  /** the timings parsed from the Maven output. */
+  protected transient MavenTimings m_ActMavenTimings;
+
+  /** whether to capture the process output rather than printing it. */
+  protected boolean m_Quiet;
+
+  /** the number of lines to keep in quiet mode. */
+  protected int m_QuietLines;
+
+  /** the log file to write the process output to in quiet mode, can be null. */
+  protected File m_QuietLog;
+
+  /** the captured output in quiet mode. */
+  protected transient OutputBuffer m_ActOutput;
+
+  /** the download limit in kB/s (0 = unlimited). */
+  protected int m_DownloadLimit;
+
+  /** the maximum number of concurrent connections per repository (0 = default). */
+  protected int m_MaxConnections;
+
+  /** the embedded proxy. */
+  protected transient CachingProxy m_ActProxy;
+
+  /** the bandwidth limit of the current run, null if unlimited. */
+  protected transient TokenBucket m_ActBandwidth;
+
+  /** the generated global settings. */
+  protected transient File m_ActGlobalSettings;
+
   /** for logging. */
   protected Logger m_Logger;
 
@@ -152,7 +365,9 @@ public class Main {
    */
   protected void initialize() {
     m_MavenHome            = null;
+    m_MavenDaemon          = false;
     m_MavenUserSettings    = null;
+    m_LocalRepoBase        = null;
     m_JavaHome             = null;
     m_OutputDir            = null;
     m_OutputDirMaven       = null;
@@ -162,23 +377,61 @@ public class Main {
     m_ExternalJars         = null;
     m_Exclusions           = null;
     m_Repositories         = null;
+    m_ProbeRepositories    = false;
+    m_ProbePath            = RepositoryProbe.DEFAULT_PATH;
+    m_VersionTTL           = 0;
     m_PomTemplate          = null;
     m_Name                 = Template.DEFAULT_NAME;
     m_Version              = Template.DEFAULT_VERSION;
     m_Clean                = false;
+    m_DiscoverMainClass    = false;
+    m_CDS                  = false;
+    m_CDSTimeout           = ClassDataSharing.DEFAULT_TIMEOUT;
+    m_CDSTrigger           = null;
+    m_Reachability         = false;
+    m_ReachabilityPrune    = false;
+    m_ReachabilityEntries  = null;
+    m_ReachabilityKeep     = null;
+    m_JLink                = false;
+    m_JLinkModules         = null;
+    m_Merged               = false;
+    m_MergedDuplicates     = MergedJar.Duplicates.FIRST;
+    m_MergedAppend         = null;
     m_Sources              = false;
+    m_SourcesBackground    = false;
     m_ExternalSources      = null;
     m_Scripts              = false;
     m_Launch               = false;
+    m_Watch                = false;
+    m_WatchDelay           = FileWatcher.DEFAULT_DELAY;
     m_SpringBoot           = false;
     m_Debian               = false;
     m_DebianSnippet        = null;
+    m_DebianCompression    = DebianPackage.Compression.GZIP;
+    m_DebianMaintainer     = null;
     m_Redhat               = false;
     m_RedhatSnippet        = null;
     m_Docker               = false;
     m_DockerBaseImage      = null;
     m_DockerSnippet        = null;
+    m_DockerLayered        = false;
+    m_OciBase              = null;
     m_CompressDirStructure = false;
+    m_Platform             = null;
+    m_History              = false;
+    m_Verify               = false;
+    m_StageTimings         = new LinkedHashMap<>();
+    m_Proxy                = false;
+    m_ProxyURL             = null;
+    m_ProxyCacheSize       = CachingProxy.DEFAULT_CACHE_SIZE;
+    m_Offline              = false;
+    m_OfflineThreads       = -1;
+    m_Slowest              = 0;
+    m_DownloadLimit        = 0;
+    m_MaxConnections       = 0;
+    m_Quiet                = false;
+    m_QuietLines           = OutputBuffer.DEFAULT_LINES;
+    m_QuietLog             = null;
     m_Logger               = null;
     m_HelpRequested        = false;
   }
@@ -214,6 +467,27 @@ public class Main {
     return m_MavenHome;
   }
 
+  /**
+   * Sets whether to use the Maven Daemon (mvnd) instead of plain Maven.
+   * If a maven home is supplied, it must point to an mvnd installation.
+   *
+   * @param daemon	true if to use mvnd
+   * @return		itself
+   */
+  public Main mavenDaemon(boolean daemon) {
+    m_MavenDaemon = daemon;
+    return this;
+  }
+
+  /**
+   * Returns whether to use the Maven Daemon (mvnd) instead of plain Maven.
+   *
+   * @return		true if to use mvnd
+   */
+  public boolean getMavenDaemon() {
+    return m_MavenDaemon;
+  }
+
   /**
    * Sets the alternative maven user settings to use.
    *
@@ -234,6 +508,29 @@ public class Main {
     return m_MavenUserSettings;
   }
 
+  /**
+   * Sets the shared base repository. Maven then uses a per-run overlay as
+   * local repository, with the base as read-only tail (Maven 3.9+) or seeded
+   * from the base, with the new files getting promoted into the base after
+   * a successful run.
+   *
+   * @param dir		the base repository, null to use Maven's local repository directly
+   * @return		itself
+   */
+  public Main localRepoBase(File dir) {
+    m_LocalRepoBase = dir;
+    return this;
+  }
+
+  /**
+   * Returns the shared base repository.
+   *
+   * @return		the base repository, null if Maven's local repository is used directly
+   */
+  public File getLocalRepoBase() {
+    return m_LocalRepoBase;
+  }
+
   /**
    * Sets the alternative java installation to use.
    *
@@ -520,6 +817,69 @@ public class Main {
     return m_Repositories;
   }
 
+  /**
+   * Sets whether to probe the repositories concurrently at startup, ranking
+   * them by speed and dropping unreachable ones.
+   *
+   * @param probe	true if to probe
+   * @return		itself
+   */
+  public Main probeRepositories(boolean probe) {
+    m_ProbeRepositories = probe;
+    return this;
+  }
+
+  /**
+   * Returns whether to probe the repositories concurrently at startup.
+   *
+   * @return		true if to probe
+   */
+  public boolean getProbeRepositories() {
+    return m_ProbeRepositories;
+  }
+
+  /**
+   * Sets the path of the artifact to use for probing the repositories.
+   *
+   * @param path	the path relative to the repository URL
+   * @return		itself
+   */
+  public Main probePath(String path) {
+    m_ProbePath = path;
+    return this;
+  }
+
+  /**
+   * Returns the path of the artifact to use for probing the repositories.
+   *
+   * @return		the path relative to the repository URL
+   */
+  public String getProbePath() {
+    return m_ProbePath;
+  }
+
+  /**
+   * Sets the time-to-live for the cached resolution of version ranges and
+   * snapshot versions of the dependencies.
+   *
+   * @param ttl		the time-to-live in minutes, 0 to turn off caching
+   * @return		itself
+   */
+  public Main versionTTL(int ttl) {
+    m_VersionTTL = ttl;
+    return this;
+  }
+
+  /**
+   * Returns the time-to-live for the cached resolution of version ranges
+   * and snapshot versions of the dependencies.
+   *
+   * @return		the time-to-live in minutes, 0 if caching is turned off
+   */
+  public int getVersionTTL() {
+    return m_VersionTTL;
+  }
+
   /**
    * Sets whether to execute the "clean" goal.
    *
@@ -560,6 +920,27 @@ public class Main {
     return m_Sources;
   }
 
+  /**
+   * Sets whether to download the source jars in the background, after the
+   * lib directory is complete, using a separate Maven invocation.
+   *
+   * @param background	true if in the background
+   * @return		itself
+   */
+  public Main sourcesBackground(boolean background) {
+    m_SourcesBackground = background;
+    return this;
+  }
+
+  /**
+   * Returns whether to download the source jars in the background.
+   *
+   * @return		true if in the background
+   */
+  public boolean getSourcesBackground() {
+    return m_SourcesBackground;
+  }
+
   /**
    * Sets the external source files/dirs to use.
    *
@@ -748,6 +1129,51 @@ public class Main {
     return m_DebianSnippet;
   }
 
+  /**
+   * Sets the compression for the data in the .deb package (when not using a
+   * custom maven snippet).
+   *
+   * @param compression	the compression
+   * @return		itself
+   */
+  public Main debianCompression(DebianPackage.Compression compression) {
+    m_DebianCompression = compression;
+    return this;
+  }
+
+  /**
+   * Returns the compression for the data in the .deb package (when not using
+   * a custom maven snippet).
+   *
+   * @return		the compression
+   */
+  public DebianPackage.Compression getDebianCompression() {
+    return m_DebianCompression;
+  }
+
+  /**
+   * Sets the maintainer of the .deb package (when not using a custom maven
+   * snippet).
+   *
+   * @param maintainer	the maintainer ("name &lt;email&gt;"), null for default
+   * @return		itself
+   * @see		DebianPackage#defaultMaintainer()
+   */
+  public Main debianMaintainer(String maintainer) {
+    m_DebianMaintainer = maintainer;
+    return this;
+  }
+
+  /**
+   * Returns the maintainer of the .deb package (when not using a custom
+   * maven snippet).
+   *
+   * @return		the maintainer, null for default
+   */
+  public String getDebianMaintainer() {
+    return m_DebianMaintainer;
+  }
+
   /**
    * Sets whether to generate .rpm package.
    *
@@ -848,6 +1274,52 @@ public class Main {
     return m_DockerSnippet;
   }
 
+  /**
+   * Sets whether to generate a layered Docker image, i.e., the jars get
+   * sorted into tiers (dependencies, application, snapshots, external,
+   * sources) with a separate layer each.
+   *
+   * @param layered	true if layered
+   * @return		itself
+   */
+  public Main dockerLayered(boolean layered) {
+    m_DockerLayered = layered;
+    return this;
+  }
+
+  /**
+   * Returns whether to generate a layered Docker image, i.e., the jars get
+   * sorted into tiers (dependencies, application, snapshots, external,
+   * sources) with a separate layer each.
+   *
+   * @return		true if layered
+   */
+  public boolean getDockerLayered() {
+    return m_DockerLayered;
+  }
+
+  /**
+   * Sets the base image (OCI image layout) for writing the Docker image
+   * directly as OCI image layout (no Docker daemon required).
+   *
+   * @param dir		the OCI image layout of the base image, null for Dockerfile only
+   * @return		itself
+   */
+  public Main ociBase(File dir) {
+    m_OciBase = dir;
+    return this;
+  }
+
+  /**
+   * Returns the base image (OCI image layout) for writing the Docker image
+   * directly as OCI image layout (no Docker daemon required).
+   *
+   * @return		the OCI image layout of the base image, null for Dockerfile only
+   */
+  public File getOciBase() {
+    return m_OciBase;
+  }
+
   /**
    * Sets whether to compress the directory structure.
    * NB: The pom.xml will disappear when used in conjunction with "clean=true".
@@ -871,95 +1343,766 @@ public class Main {
   }
 
   /**
-   * Sets whether to launch the main class.
+   * Sets the target platform, i.e., native artifacts for other platforms
+   * get pruned from the output.
    *
-   * @param launch	true if to launch
+   * @param platform	the platform (eg linux-x86_64), null for all
    * @return		itself
    */
-  public Main launch(boolean launch) {
-    m_Launch = launch;
+  public Main platform(String platform) {
+    m_Platform = platform;
     return this;
   }
 
   /**
-   * Returns whether to launch the main class.
+   * Returns the target platform, i.e., native artifacts for other platforms
+   * get pruned from the output.
    *
-   * @return		true if to launch
+   * @return		the platform (eg linux-x86_64), null for all
    */
-  public boolean getLaunch() {
-    return m_Launch;
+  public String getPlatform() {
+    return m_Platform;
   }
 
   /**
-   * Configures and returns the commandline parser.
+   * Sets whether to record stage timings, artifact counts and output sizes
+   * in the history.
    *
-   * @return		the parser
+   * @param history	true if to record
+   * @return		itself
    */
-  protected ArgumentParser getParser() {
-    ArgumentParser 		parser;
+  public Main history(boolean history) {
+    m_History = history;
+    return this;
+  }
 
-    parser = new ArgumentParser("Bootstrapping Java applications with Maven dependencies and/or jar files.");
-    parser.addOption("-m", "--maven_home")
-      .required(false)
-      .type(Type.EXISTING_DIR)
-      .dest("maven_home")
-      .metaVar("DIR")
-      .help("The directory with a local Maven installation to use instead of the downloaded one.");
-    parser.addOption("-u", "--maven_user_settings")
-      .required(false)
-      .type(Type.EXISTING_FILE)
-      .dest("maven_user_settings")
-      .metaVar("FILE")
-      .help("The file with the maven user settings to use other than $HOME/.m2/settings.xml.");
-    parser.addOption("-j", "--java_home")
-      .required(false)
-      .type(Type.EXISTING_DIR)
-      .dest("java_home")
-      .metaVar("DIR")
-      .help("The Java home to use for the Maven execution.");
-    parser.addOption("-n", "--name")
-      .required(false)
-      .setDefault(Template.DEFAULT_NAME)
-      .dest("name")
-      .help("The name to use for the project in the pom.xml. Also used as library directory and executable name when generating Debian/Redhat packages.");
-    parser.addOption("-V", "--version")
-      .required(false)
-      .setDefault(Template.DEFAULT_VERSION)
-      .dest("version")
-      .help("The version to use for the project in the pom.xml");
-    parser.addOption("-d", "--dependency")
-      .required(false)
-      .multiple(true)
-      .dest("dependencies")
-      .metaVar("DEPENDENCY")
-      .help("The maven dependencies to use for bootstrapping the application (group:artifact:version), e.g.: nz.ac.waikato.cms.weka:weka-dev:3.9.4");
-    parser.addOption("-D", "--dependency_file")
-      .required(false)
-      .multiple(true)
-      .type(Type.EXISTING_FILE)
-      .dest("dependency_files")
-      .metaVar("DEPENDENCY_FILE")
-      .help("The file(s) with maven dependencies to use for bootstrapping the application (group:artifact:version), one dependency per line.");
-    parser.addOption("-J", "--external-jar")
-      .required(false)
-      .multiple(true)
-      .type(Type.EXISTING_FILE_OR_DIRECTORY)
-      .dest("external_jars")
-      .metaVar("JAR_OR_DIR")
-      .help("The external jar or directory with jar files to also include in the application.");
-    parser.addOption("-x", "--exclusion")
-      .required(false)
-      .multiple(true)
-      .dest("exclusions")
-      .metaVar("EXCLUSION")
-      .help("The maven artifacts to exclude from all the dependencies ('group:artifact').");
-    parser.addOption("-r", "--repository")
-      .required(false)
-      .multiple(true)
-      .dest("repositories")
-      .metaVar("REPOSITORY")
-      .help("The maven repository to use for bootstrapping the application (id;name;url), e.g.: bedatadriven;bedatadriven public repo;https://nexus.bedatadriven.com/content/groups/public/");
-    parser.addOption("-C", "--clean")
+  /**
+   * Returns whether to record stage timings, artifact counts and output sizes
+   * in the history.
+   *
+   * @return		true if to record
+   */
+  public boolean getHistory() {
+    return m_History;
+  }
+
+  /**
+   * Sets whether to discover the main class in the bootstrapped jars if
+   * none was supplied.
+   *
+   * @param discover	true if to discover
+   * @return		itself
+   */
+  public Main discoverMainClass(boolean discover) {
+    m_DiscoverMainClass = discover;
+    return this;
+  }
+
+  /**
+   * Returns whether to discover the main class in the bootstrapped jars if
+   * none was supplied.
+   *
+   * @return		true if to discover
+   */
+  public boolean getDiscoverMainClass() {
+    return m_DiscoverMainClass;
+  }
+
+  /**
+   * Sets whether to generate a class data sharing archive (AppCDS or AOT
+   * cache) from a training run of the main class.
+   *
+   * @param cds		true if to generate
+   * @return		itself
+   */
+  public Main cds(boolean cds) {
+    m_CDS = cds;
+    return this;
+  }
+
+  /**
+   * Returns whether to generate a class data sharing archive (AppCDS or
+   * AOT cache) from a training run of the main class.
+   *
+   * @return		true if to generate
+   */
+  public boolean getCDS() {
+    return m_CDS;
+  }
+
+  /**
+   * Sets the time limit for the training run.
+   *
+   * @param seconds	the time limit in seconds, less than 1 to wait for the application to exit
+   * @return		itself
+   */
+  public Main cdsTimeout(int seconds) {
+    m_CDSTimeout = seconds;
+    return this;
+  }
+
+  /**
+   * Returns the time limit for the training run.
+   *
+   * @return		the time limit in seconds, less than 1 to wait for the application to exit
+   */
+  public int getCDSTimeout() {
+    return m_CDSTimeout;
+  }
+
+  /**
+   * Sets the regular expression that ends the training run once a line of
+   * output matches it.
+   *
+   * @param regexp	the regular expression, null for none
+   * @return		itself
+   */
+  public Main cdsTrigger(String regexp) {
+    m_CDSTrigger = regexp;
+    return this;
+  }
+
+  /**
+   * Returns the regular expression that ends the training run once a line
+   * of output matches it.
+   *
+   * @return		the regular expression, null for none
+   */
+  public String getCDSTrigger() {
+    return m_CDSTrigger;
+  }
+
+  /**
+   * Sets whether to analyze which jars are reachable at class level from
+   * the main class and the additional entry points.
+   *
+   * @param reachability	true if to analyze
+   * @return		itself
+   */
+  public Main reachability(boolean reachability) {
+    m_Reachability = reachability;
+    return this;
+  }
+
+  /**
+   * Returns whether to analyze which jars are reachable at class level from
+   * the main class and the additional entry points.
+   *
+   * @return		true if to analyze
+   */
+  public boolean getReachability() {
+    return m_Reachability;
+  }
+
+  /**
+   * Sets whether to move the unreachable jars out of the lib directory.
+   *
+   * @param prune	true if to move
+   * @return		itself
+   */
+  public Main reachabilityPrune(boolean prune) {
+    m_ReachabilityPrune = prune;
+    return this;
+  }
+
+  /**
+   * Returns whether to move the unreachable jars out of the lib directory.
+   *
+   * @return		true if to move
+   */
+  public boolean getReachabilityPrune() {
+    return m_ReachabilityPrune;
+  }
+
+  /**
+   * Sets the additional entry points (class names) for the reachability
+   * analysis.
+   *
+   * @param classes	the classes, null for none
+   * @return		itself
+   */
+  public Main reachabilityEntries(List<String> classes) {
+    m_ReachabilityEntries = classes;
+    return this;
+  }
+
+  /**
+   * Returns the additional entry points (class names) for the reachability
+   * analysis.
+   *
+   * @return		the classes, null for none
+   */
+  public List<String> getReachabilityEntries() {
+    return m_ReachabilityEntries;
+  }
+
+  /**
+   * Sets the regular expressions for class names (eg only accessed via
+   * reflection) and jar names to keep in the reachability analysis.
+   *
+   * @param regexps	the regular expressions, null for none
+   * @return		itself
+   */
+  public Main reachabilityKeep(List<String> regexps) {
+    m_ReachabilityKeep = regexps;
+    return this;
+  }
+
+  /**
+   * Returns the regular expressions for class names (eg only accessed via
+   * reflection) and jar names to keep in the reachability analysis.
+   *
+   * @return		the regular expressions, null for none
+   */
+  public List<String> getReachabilityKeep() {
+    return m_ReachabilityKeep;
+  }
+
+  /**
+   * Sets whether to generate a minimal runtime with jlink, containing only
+   * the JDK modules that the jars require (determined with jdeps).
+   *
+   * @param jlink	true if to generate
+   * @return		itself
+   */
+  public Main jlink(boolean jlink) {
+    m_JLink = jlink;
+    return this;
+  }
+
+  /**
+   * Returns whether to generate a minimal runtime with jlink, containing
+   * only the JDK modules that the jars require (determined with jdeps).
+   *
+   * @return		true if to generate
+   */
+  public boolean getJLink() {
+    return m_JLink;
+  }
+
+  /**
+   * Sets the additional modules to include in the runtime, eg ones only
+   * accessed via reflection or service loading.
+   *
+   * @param modules	the modules, null for none
+   * @return		itself
+   */
+  public Main jlinkModules(List<String> modules) {
+    m_JLinkModules = modules;
+    return this;
+  }
+
+  /**
+   * Returns the additional modules to include in the runtime, eg ones only
+   * accessed via reflection or service loading.
+   *
+   * @return		the modules, null for none
+   */
+  public List<String> getJLinkModules() {
+    return m_JLinkModules;
+  }
+
+  /**
+   * Sets whether to merge the jars into a single flat jar, as faster
+   * starting alternative to the Spring Boot jar with its nested jars.
+   *
+   * @param merged	true if to merge
+   * @return		itself
+   */
+  public Main merged(boolean merged) {
+    m_Merged = merged;
+    return this;
+  }
+
+  /**
+   * Returns whether to merge the jars into a single flat jar, as faster
+   * starting alternative to the Spring Boot jar with its nested jars.
+   *
+   * @return		true if to merge
+   */
+  public boolean getMerged() {
+    return m_Merged;
+  }
+
+  /**
+   * Sets how to handle duplicate entries in the merged jar.
+   *
+   * @param duplicates	the strategy
+   * @return		itself
+   */
+  public Main mergedDuplicates(MergedJar.Duplicates duplicates) {
+    m_MergedDuplicates = duplicates;
+    return this;
+  }
+
+  /**
+   * Returns how to handle duplicate entries in the merged jar.
+   *
+   * @return		the strategy
+   */
+  public MergedJar.Duplicates getMergedDuplicates() {
+    return m_MergedDuplicates;
+  }
+
+  /**
+   * Sets the regular expressions for additional resources to append in the
+   * merged jar (besides reference.conf and the Spring handlers/schemas).
+   *
+   * @param regexps	the regular expressions, null for none
+   * @return		itself
+   */
+  public Main mergedAppend(List<String> regexps) {
+    m_MergedAppend = regexps;
+    return this;
+  }
+
+  /**
+   * Returns the regular expressions for additional resources to append in
+   * the merged jar (besides reference.conf and the Spring handlers/schemas).
+   *
+   * @return		the regular expressions, null for none
+   */
+  public List<String> getMergedAppend() {
+    return m_MergedAppend;
+  }
+
+  /**
+   * Sets whether to verify the checksums of the artifacts in the lib/src
+   * directories against the local repository and record a manifest.
+   *
+   * @param verify	true if to verify
+   * @return		itself
+   */
+  public Main verify(boolean verify) {
+    m_Verify = verify;
+    return this;
+  }
+
+  /**
+   * Returns whether to verify the checksums of the artifacts and record a
+   * manifest.
+   *
+   * @return		true if to verify
+   */
+  public boolean getVerify() {
+    return m_Verify;
+  }
+
+  /**
+   * Sets whether to start an embedded caching proxy for the Maven execution.
+   *
+   * @param proxy	true if to start proxy
+   * @return		itself
+   */
+  public Main proxy(boolean proxy) {
+    m_Proxy = proxy;
+    return this;
+  }
+
+  /**
+   * Returns whether to start an embedded caching proxy for the Maven execution.
+   *
+   * @return		true if to start proxy
+   */
+  public boolean getProxy() {
+    return m_Proxy;
+  }
+
+  /**
+   * Sets the URL of an already running caching proxy to use as mirror.
+   *
+   * @param url		the URL, null to unset
+   * @return		itself
+   */
+  public Main proxyURL(String url) {
+    m_ProxyURL = url;
+    return this;
+  }
+
+  /**
+   * Returns the URL of an already running caching proxy to use as mirror.
+   *
+   * @return		the URL, null if not set
+   */
+  public String getProxyURL() {
+    return m_ProxyURL;
+  }
+
+  /**
+   * Sets the maximum size of the cache of the embedded proxy.
+   *
+   * @param size	the size in MB
+   * @return		itself
+   */
+  public Main proxyCacheSize(int size) {
+    m_ProxyCacheSize = size;
+    return this;
+  }
+
+  /**
+   * Returns the maximum size of the cache of the embedded proxy.
+   *
+   * @return		the size in MB
+   */
+  public int getProxyCacheSize() {
+    return m_ProxyCacheSize;
+  }
+
+  /**
+   * Sets whether to work offline, i.e., all artifacts must already be
+   * present in the local repository.
+   *
+   * @param offline	true if offline
+   * @return		itself
+   */
+  public Main offline(boolean offline) {
+    m_Offline = offline;
+    return this;
+  }
+
+  /**
+   * Returns whether to work offline.
+   *
+   * @return		true if offline
+   */
+  public boolean getOffline() {
+    return m_Offline;
+  }
+
+  /**
+   * Sets the number of threads to use for verifying the local repository
+   * in offline mode.
+   *
+   * @param threads	the number of threads, -1 for number of CPUs times two
+   * @return		itself
+   */
+  public Main offlineThreads(int threads) {
+    m_OfflineThreads = threads;
+    return this;
+  }
+
+  /**
+   * Returns the number of threads to use for verifying the local repository
+   * in offline mode.
+   *
+   * @return		the number of threads, -1 for number of CPUs times two
+   */
+  public int getOfflineThreads() {
+    return m_OfflineThreads;
+  }
+
+  /**
+   * Sets the number of slowest transfers and plugin executions to log
+   * after Maven finished.
+   *
+   * @param num		the number, 0 to turn off
+   * @return		itself
+   */
+  public Main slowest(int num) {
+    m_Slowest = num;
+    return this;
+  }
+
+  /**
+   * Returns the number of slowest transfers and plugin executions to log
+   * after Maven finished.
+   *
+   * @return		the number, 0 if turned off
+   */
+  public int getSlowest() {
+    return m_Slowest;
+  }
+
+  /**
+   * Sets the limit for the total download bandwidth of this bootstrap.
+   * Artifacts get downloaded via the embedded proxy (unless a proxy URL is
+   * supplied) to apply the limit.
+   *
+   * @param limit	the limit in kB/s, 0 for unlimited
+   * @return		itself
+   */
+  public Main downloadLimit(int limit) {
+    m_DownloadLimit = limit;
+    return this;
+  }
+
+  /**
+   * Returns the limit for the total download bandwidth.
+   *
+   * @return		the limit in kB/s, 0 for unlimited
+   */
+  public int getDownloadLimit() {
+    return m_DownloadLimit;
+  }
+
+  /**
+   * Sets the maximum number of concurrent connections per repository.
+   * Artifacts get downloaded via the embedded proxy (unless a proxy URL is
+   * supplied) to apply the limit.
+   *
+   * @param max		the maximum, 0 for Maven's default
+   * @return		itself
+   */
+  public Main maxConnections(int max) {
+    m_MaxConnections = max;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of concurrent connections per repository.
+   *
+   * @return		the maximum, 0 for Maven's default
+   */
+  public int getMaxConnections() {
+    return m_MaxConnections;
+  }
+
+  /**
+   * Sets whether to capture the output of Maven and the launched application
+   * rather than printing it. Only a summary gets output on success and the
+   * last lines on failure.
+   *
+   * @param quiet	true if quiet
+   * @return		itself
+   */
+  public Main quiet(boolean quiet) {
+    m_Quiet = quiet;
+    return this;
+  }
+
+  /**
+   * Returns whether to capture the output of Maven and the launched
+   * application rather than printing it.
+   *
+   * @return		true if quiet
+   */
+  public boolean getQuiet() {
+    return m_Quiet;
+  }
+
+  /**
+   * Sets the number of lines of output to keep (and output on failure) in
+   * quiet mode.
+   *
+   * @param lines	the number of lines
+   * @return		itself
+   */
+  public Main quietLines(int lines) {
+    m_QuietLines = lines;
+    return this;
+  }
+
+  /**
+   * Returns the number of lines of output to keep (and output on failure)
+   * in quiet mode.
+   *
+   * @return		the number of lines
+   */
+  public int getQuietLines() {
+    return m_QuietLines;
+  }
+
+  /**
+   * Sets the log file to write the complete output to in quiet mode.
+   *
+   * @param file	the log file, null for none
+   * @return		itself
+   */
+  public Main quietLog(File file) {
+    m_QuietLog = file;
+    return this;
+  }
+
+  /**
+   * Returns the log file to write the complete output to in quiet mode.
+   *
+   * @return		the log file, null for none
+   */
+  public File getQuietLog() {
+    return m_QuietLog;
+  }
+
+  /**
+   * Returns the artifact transfer and plugin execution timings of the last
+   * execution.
+   *
+   * @return		the timings, null if Maven wasn't executed
+   */
+  public MavenTimings getMavenTimings() {
+    return m_ActMavenTimings;
+  }
+
+  /**
+   * Returns the timings of the stages of the last execution.
+   *
+   * @return		the timings (stage - msec)
+   */
+  public Map<String,Long> getStageTimings() {
+    return m_StageTimings;
+  }
+
+  /**
+   * Sets whether to launch the main class.
+   *
+   * @param launch	true if to launch
+   * @return		itself
+   */
+  public Main launch(boolean launch) {
+    m_Launch = launch;
+    return this;
+  }
+
+  /**
+   * Returns whether to launch the main class.
+   *
+   * @return		true if to launch
+   */
+  public boolean getLaunch() {
+    return m_Launch;
+  }
+
+  /**
+   * Sets whether to monitor the dependency files, POM template, external
+   * jars and snippets after bootstrapping and re-bootstrap incrementally on
+   * changes (until terminated).
+   *
+   * @param watch	true if to watch
+   * @return		itself
+   */
+  public Main watch(boolean watch) {
+    m_Watch = watch;
+    return this;
+  }
+
+  /**
+   * Returns whether to monitor the inputs and re-bootstrap on changes.
+   *
+   * @return		true if to watch
+   */
+  public boolean getWatch() {
+    return m_Watch;
+  }
+
+  /**
+   * Sets the delay for debouncing changes in watch mode, i.e., the time
+   * without further changes before re-bootstrapping.
+   *
+   * @param delay	the delay in msec
+   * @return		itself
+   */
+  public Main watchDelay(int delay) {
+    m_WatchDelay = delay;
+    return this;
+  }
+
+  /**
+   * Returns the delay for debouncing changes in watch mode.
+   *
+   * @return		the delay in msec
+   */
+  public int getWatchDelay() {
+    return m_WatchDelay;
+  }
+
+  /**
+   * Configures and returns the commandline parser.
+   *
+   * @return		the parser
+   */
+  protected ArgumentParser getParser() {
+    ArgumentParser 		parser;
+
+    parser = new ArgumentParser("Bootstrapping Java applications with Maven dependencies and/or jar files.");
+    parser.addOption("-m", "--maven_home")
+      .required(false)
+      .type(Type.EXISTING_DIR)
+      .dest("maven_home")
+      .metaVar("DIR")
+      .help("The directory with a local Maven installation to use instead of the downloaded one.");
+    parser.addOption("--mvnd")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("mvnd")
+      .help("If enabled, the Maven Daemon (mvnd) gets used instead of plain Maven, reusing a warm build JVM across bootstraps. Gets downloaded next to the Maven installation, unless a maven home pointing to an mvnd installation is supplied.");
+    parser.addOption("-u", "--maven_user_settings")
+      .required(false)
+      .type(Type.EXISTING_FILE)
+      .dest("maven_user_settings")
+      .metaVar("FILE")
+      .help("The file with the maven user settings to use other than $HOME/.m2/settings.xml.");
+    parser.addOption("--local_repo_base")
+      .required(false)
+      .type(Type.DIRECTORY)
+      .dest("local_repo_base")
+      .metaVar("DIR")
+      .help("The shared base repository to use for concurrent bootstraps. Maven uses a per-run overlay, with the base as read-only tail (Maven 3.9+) or seeded from the base (hard links), and new files get promoted atomically into the base after a successful run.");
+    parser.addOption("-j", "--java_home")
+      .required(false)
+      .type(Type.EXISTING_DIR)
+      .dest("java_home")
+      .metaVar("DIR")
+      .help("The Java home to use for the Maven execution.");
+    parser.addOption("-n", "--name")
+      .required(false)
+      .setDefault(Template.DEFAULT_NAME)
+      .dest("name")
+      .help("The name to use for the project in the pom.xml. Also used as library directory and executable name when generating Debian/Redhat packages.");
+    parser.addOption("-V", "--version")
+      .required(false)
+      .setDefault(Template.DEFAULT_VERSION)
+      .dest("version")
+      .help("The version to use for the project in the pom.xml");
+    parser.addOption("-d", "--dependency")
+      .required(false)
+      .multiple(true)
+      .dest("dependencies")
+      .metaVar("DEPENDENCY")
+      .help("The maven dependencies to use for bootstrapping the application (group:artifact:version), e.g.: nz.ac.waikato.cms.weka:weka-dev:3.9.4");
+    parser.addOption("-D", "--dependency_file")
+      .required(false)
+      .multiple(true)
+      .type(Type.EXISTING_FILE)
+      .dest("dependency_files")
+      .metaVar("DEPENDENCY_FILE")
+      .help("The file(s) with maven dependencies to use for bootstrapping the application (group:artifact:version), one dependency per line.");
+    parser.addOption("-J", "--external-jar")
+      .required(false)
+      .multiple(true)
+      .type(Type.EXISTING_FILE_OR_DIRECTORY)
+      .dest("external_jars")
+      .metaVar("JAR_OR_DIR")
+      .help("The external jar or directory with jar files to also include in the application.");
+    parser.addOption("-x", "--exclusion")
+      .required(false)
+      .multiple(true)
+      .dest("exclusions")
+      .metaVar("EXCLUSION")
+      .help("The maven artifacts to exclude from all the dependencies ('group:artifact').");
+    parser.addOption("-r", "--repository")
+      .required(false)
+      .multiple(true)
+      .dest("repositories")
+      .metaVar("REPOSITORY")
+      .help("The maven repository to use for bootstrapping the application (id;name;url), e.g.: bedatadriven;bedatadriven public repo;https://nexus.bedatadriven.com/content/groups/public/");
+    parser.addOption("--version_ttl")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(0)
+      .dest("version_ttl")
+      .metaVar("MINUTES")
+      .help("The time-to-live for caching the resolution of version ranges and snapshot versions of the dependencies to concrete versions, which then get used in the pom.xml; 0 turns off caching.");
+    parser.addOption("--probe_repositories")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("probe_repositories")
+      .help("If enabled, the repositories get probed concurrently at startup and used in the order of their speed (latency and throughput), with unreachable ones being dropped.");
+    parser.addOption("--probe_path")
+      .required(false)
+      .setDefault(RepositoryProbe.DEFAULT_PATH)
+      .dest("probe_path")
+      .metaVar("PATH")
+      .help("The path of the artifact (relative to the repository URL) to use for probing the repositories.");
+    parser.addOption("-C", "--clean")
       .type(Type.BOOLEAN)
       .setDefault(false)
       .dest("clean")
@@ -969,6 +2112,11 @@ public class Main {
       .setDefault(false)
       .dest("sources")
       .help("If enabled, source jars of the Maven artifacts will get downloaded as well and stored in a separated directory.");
+    parser.addOption("--sources_background")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("sources_background")
+      .help("If enabled, the source jars get downloaded in the background by a separate Maven invocation once the lib directory is complete, so that the application can be used (e.g., launched) straight away. Not supported in conjunction with Debian/Redhat packages and Docker.");
     parser.addOption("-S", "--external-source")
       .required(false)
       .multiple(true)
@@ -993,6 +2141,78 @@ public class Main {
       .dest("main_class")
       .metaVar("CLASSNAME")
       .help("The main class to execute after bootstrapping the application.");
+    parser.addOption("--discover_main_class")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("discover_main_class")
+      .help("If enabled and no main class supplied, the bootstrapped jars get scanned in parallel for main classes (manifest and main methods, without loading classes) and the best candidate (preferring direct dependencies) gets used for scripts, launching and docker.");
+    parser.addOption("--cds")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("cds")
+      .help("If enabled, the main class gets executed in a training run and the loaded classes get stored in a class data sharing archive (AOT cache for Java 24+, dynamic AppCDS for Java 13+, static AppCDS for Java 11/12) in the '" + ClassDataSharing.DIR + "' directory for faster startup. The archive is only valid for the JDK it was generated with (see --java_home) and the same class path, hence it gets used when launching the main class and by docker when shipping a runtime image (--jlink).");
+    parser.addOption("--cds_timeout")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(ClassDataSharing.DEFAULT_TIMEOUT)
+      .dest("cds_timeout")
+      .metaVar("SECONDS")
+      .help("The time limit in seconds for the training run, after which the application gets terminated; use 0 to wait for the application to exit.");
+    parser.addOption("--cds_trigger")
+      .required(false)
+      .dest("cds_trigger")
+      .metaVar("REGEXP")
+      .help("The regular expression that terminates the training run once a line of output of the application matches it (eg a 'started' message).");
+    parser.addOption("--reachability")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("reachability")
+      .help("If enabled, the class references in the jars get followed (in parallel, without loading classes) from the main class and the additional entry points, and the jars that are not reachable get reported with their sizes.");
+    parser.addOption("--reachability_prune")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("reachability_prune")
+      .help("If enabled, the jars that are not reachable get moved from the lib directory to the '" + Reachability.UNUSED_DIR + "' directory, i.e., they no longer end up in the class path, packages and images.");
+    parser.addOption("--reachability_entry")
+      .required(false)
+      .multiple(true)
+      .dest("reachability_entry")
+      .metaVar("CLASSNAME")
+      .help("Additional entry point for the reachability analysis, besides the main class.");
+    parser.addOption("--reachability_keep")
+      .required(false)
+      .multiple(true)
+      .dest("reachability_keep")
+      .metaVar("REGEXP")
+      .help("The regular expression for class names (eg only accessed via reflection) or jar names that the reachability analysis must keep.");
+    parser.addOption("--jlink")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("jlink")
+      .help("If enabled, jdeps determines the JDK modules that the jars require and jlink generates a minimal runtime (compressed, without debug information) from the JDK (see --java_home) in the '" + RuntimeImage.DIR + "' directory, which gets used by the scripts, the Debian package and docker.");
+    parser.addOption("--jlink_modules")
+      .required(false)
+      .multiple(true)
+      .dest("jlink_modules")
+      .metaVar("MODULE")
+      .help("Additional JDK modules to include in the runtime (comma-separated list or multiple options), eg ones that only get accessed via reflection or service loading like jdk.crypto.ec or jdk.localedata.");
+    parser.addOption("--merged_jar")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("merged")
+      .help("If enabled, the jars get merged into a single flat jar ('<name>-<version>-merged.jar' in the output directory) with the main class in the manifest, as faster starting alternative to the Spring Boot jar; service files and Spring factories/imports get merged, signature files dropped.");
+    parser.addOption("--merged_duplicates")
+      .required(false)
+      .setDefault(MergedJar.Duplicates.FIRST.toString())
+      .dest("merged_duplicates")
+      .metaVar("STRATEGY")
+      .help("How to handle duplicate entries in the merged jar: " + Arrays.toString(MergedJar.Duplicates.values()) + "; FIRST/LAST use the entry of the first/last jar (sorted by name), FAIL fails if the content differs (outside META-INF).");
+    parser.addOption("--merged_append")
+      .required(false)
+      .multiple(true)
+      .dest("merged_append")
+      .metaVar("REGEXP")
+      .help("The regular expression for additional resources to append in the merged jar, besides reference.conf and the Spring handlers/schemas/tooling.");
     parser.addOption("-v", "--jvm")
       .required(false)
       .multiple(true)
@@ -1008,6 +2228,18 @@ public class Main {
       .setDefault(false)
       .dest("launch")
       .help("If enabled, the supplied main class will get launched.");
+    parser.addOption("--watch")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("watch")
+      .help("If enabled, the dependency files, POM template, external jars/sources and snippets get monitored after bootstrapping and changes trigger an incremental re-bootstrap (regenerating the POM, resolving only new artifacts, syncing the lib directory and restarting the launched main class), until terminated.");
+    parser.addOption("--watch_delay")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(FileWatcher.DEFAULT_DELAY)
+      .dest("watch_delay")
+      .metaVar("MSEC")
+      .help("The time without further changes before re-bootstrapping in watch mode.");
     parser.addOption("-b", "--spring_boot")
       .type(Type.BOOLEAN)
       .setDefault(false)
@@ -1017,13 +2249,24 @@ public class Main {
       .type(Type.BOOLEAN)
       .setDefault(false)
       .dest("debian")
-      .help("If enabled, a Debian .deb package is generated. Required tools: fakeroot, dpkg-deb");
+      .help("If enabled, a Debian .deb package is generated (in-process, no external tools required).");
     parser.addOption("--deb_snippet")
       .type(Type.EXISTING_FILE)
       .required(false)
       .dest("debian_snippet")
       .metaVar("FILE")
-      .help("The custom Maven pom.xml snippet for generating a Debian package.");
+      .help("The custom Maven pom.xml snippet for generating a Debian package, using Maven instead of the in-process generation. Required tools: fakeroot, dpkg-deb");
+    parser.addOption("--deb_compression")
+      .required(false)
+      .setDefault(DebianPackage.Compression.GZIP.toString())
+      .dest("debian_compression")
+      .metaVar("COMPRESSION")
+      .help("The compression for the data in the Debian package: " + Arrays.toString(DebianPackage.Compression.values()) + "; GZIP gets compressed in parallel.");
+    parser.addOption("--deb_maintainer")
+      .required(false)
+      .dest("debian_maintainer")
+      .metaVar("MAINTAINER")
+      .help("The maintainer of the Debian package ('name <email>'), defaults to the DEBFULLNAME/DEBEMAIL environment variables or the user name.");
     parser.addOption("--rpm")
       .type(Type.BOOLEAN)
       .setDefault(false)
@@ -1051,11 +2294,105 @@ public class Main {
       .dest("docker_snippet")
       .metaVar("FILE")
       .help("The file with custom docker instructions.");
+    parser.addOption("--docker_layered")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("docker_layered")
+      .help("If enabled, the jars get sorted into tiers (third-party releases, releases of the direct dependencies, snapshots, external jars, sources), which get staged in the '" + DOCKER_TIERS_DIR + "' directory and copied into the image separately, so that dependency updates only invalidate the affected layers.");
+    parser.addOption("--oci_base")
+      .type(Type.EXISTING_DIR)
+      .required(false)
+      .dest("oci_base")
+      .metaVar("DIR")
+      .help("The base image as OCI image layout (eg from 'skopeo copy docker://IMAGE oci:DIR'); if supplied, the Docker image gets written directly as OCI image layout to the 'oci' directory in the output directory, without requiring a Docker daemon. Custom docker instructions are not supported.");
     parser.addOption("-z", "--compress_dir_structure")
       .type(Type.BOOLEAN)
       .setDefault(false)
       .dest("compress_dir_structure")
       .help("If enabled, the directory structure gets compressed (ie 'target' left out). However, side-effect in combination with '--clean' is that the 'pom.xml' disappears.");
+    parser.addOption("--platform")
+      .required(false)
+      .dest("platform")
+      .metaVar("PLATFORM")
+      .help("The target platform (eg linux-x86_64, linux-arm64, macosx-arm64, windows-x86_64); platform-specific native artifacts (JavaCPP, Netty, LWJGL, OpenJFX classifiers) for other platforms get pruned from lib and therefore all packages and images.");
+    parser.addOption("--history")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("history")
+      .help("If enabled, stage timings, artifact counts and output sizes get recorded in the history below the bootstrapp home directory (see HistoryReport).");
+    parser.addOption("--verify")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("verify")
+      .help("If enabled, the artifacts in the lib/src directories get hashed in parallel and compared against the checksums in the local repository. The checksums get recorded in " + Checksums.MANIFEST_FILE + " for verifying the output later on (see VerifyOutput).");
+    parser.addOption("--proxy")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("proxy")
+      .help("If enabled, an embedded caching proxy for the repositories gets started and used as mirror, with the cache located below the bootstrapp home directory.");
+    parser.addOption("--proxy_url")
+      .required(false)
+      .dest("proxy_url")
+      .metaVar("URL")
+      .help("The URL of an already running caching proxy (see ProxyServer) to use as mirror, e.g., http://127.0.0.1:8765/");
+    parser.addOption("--proxy_cache_size")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(CachingProxy.DEFAULT_CACHE_SIZE)
+      .dest("proxy_cache_size")
+      .metaVar("MB")
+      .help("The maximum size of the cache of the embedded proxy, least recently used artifacts get evicted.");
+    parser.addOption("--slowest")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(0)
+      .dest("slowest")
+      .metaVar("NUM")
+      .help("The number of slowest artifact transfers and plugin executions to log after Maven finished (default: 0, i.e., off).");
+    parser.addOption("--download_limit")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(0)
+      .dest("download_limit")
+      .metaVar("KB_PER_SEC")
+      .help("The limit for the total download bandwidth (Maven distribution and artifacts) in kB/s, per bootstrap; 0 for unlimited. Artifacts get downloaded via the embedded proxy, unless a proxy URL is supplied.");
+    parser.addOption("--max_connections")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(0)
+      .dest("max_connections")
+      .metaVar("NUM")
+      .help("The maximum number of concurrent connections per repository; 0 for Maven's default. Artifacts get downloaded via the embedded proxy, unless a proxy URL is supplied (only limits the parallel downloads of Maven then).");
+    parser.addOption("-q", "--quiet")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("quiet")
+      .help("If enabled, the output of Maven and the launched application gets captured rather than printed, outputting only a summary on success and the last lines on failure.");
+    parser.addOption("--quiet_lines")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(OutputBuffer.DEFAULT_LINES)
+      .dest("quiet_lines")
+      .metaVar("NUM")
+      .help("The number of lines of output to keep in quiet mode and to output on failure.");
+    parser.addOption("--quiet_log")
+      .required(false)
+      .type(Type.FILE)
+      .dest("quiet_log")
+      .metaVar("FILE")
+      .help("The log file to write the complete output to in quiet mode.");
+    parser.addOption("--offline")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("offline")
+      .help("If enabled, Maven runs in offline mode and no Maven distribution gets downloaded. Before executing Maven, the local repository gets checked for all required artifacts, failing with a list of the missing ones.");
+    parser.addOption("--offline_threads")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(-1)
+      .dest("offline_threads")
+      .metaVar("NUM")
+      .help("The number of threads to use for checking the local repository in offline mode, -1 for number of CPUs times two.");
 
     return parser;
   }
@@ -1068,7 +2405,9 @@ public class Main {
    */
   protected boolean setOptions(Namespace ns) {
     mavenHome(ns.getFile("maven_home"));
+    mavenDaemon(ns.getBoolean("mvnd"));
     mavenUserSettings(ns.getFile("maven_user_settings"));
+    localRepoBase(ns.getFile("local_repo_base"));
     javaHome(ns.getFile("java_home"));
     outputDir(ns.getFile("output_dir"));
     jvm(ns.getList("jvm"));
@@ -1079,22 +2418,71 @@ public class Main {
     externalJars(ns.getList("external_jars"));
     exclusions(ns.getList("exclusions"));
     repositories(ns.getList("repositories"));
+    probeRepositories(ns.getBoolean("probe_repositories"));
+    probePath(ns.getString("probe_path"));
+    versionTTL(ns.getInt("version_ttl"));
     clean(ns.getBoolean("clean"));
     sources(ns.getBoolean("sources"));
+    sourcesBackground(ns.getBoolean("sources_background"));
     externalSources(ns.getList("external_sources"));
     pomTemplate(ns.getFile("pom_template"));
     mainClass(ns.getString("main_class"));
+    discoverMainClass(ns.getBoolean("discover_main_class"));
+    cds(ns.getBoolean("cds"));
+    cdsTimeout(ns.getInt("cds_timeout"));
+    cdsTrigger(ns.getString("cds_trigger"));
+    reachability(ns.getBoolean("reachability"));
+    reachabilityPrune(ns.getBoolean("reachability_prune"));
+    reachabilityEntries(ns.getList("reachability_entry"));
+    reachabilityKeep(ns.getList("reachability_keep"));
+    jlink(ns.getBoolean("jlink"));
+    jlinkModules(ns.getList("jlink_modules"));
+    merged(ns.getBoolean("merged"));
+    try {
+      mergedDuplicates(MergedJar.Duplicates.valueOf(ns.getString("merged_duplicates").toUpperCase()));
+    }
+    catch (Exception e) {
+      getLogger().severe("Invalid duplicates strategy: " + ns.getString("merged_duplicates"));
+      return false;
+    }
+    mergedAppend(ns.getList("merged_append"));
     scripts(ns.getBoolean("scripts"));
     springBoot(ns.getBoolean("spring_boot"));
     debian(ns.getBoolean("debian"));
     debianSnippet(ns.getFile("debian_snippet"));
+    try {
+      debianCompression(DebianPackage.Compression.valueOf(ns.getString("debian_compression").toUpperCase()));
+    }
+    catch (Exception e) {
+      getLogger().severe("Invalid Debian compression: " + ns.getString("debian_compression"));
+      return false;
+    }
+    debianMaintainer(ns.getString("debian_maintainer"));
     redhat(ns.getBoolean("redhat"));
     redhatSnippet(ns.getFile("redhat_snippet"));
     docker(ns.getBoolean("docker"));
     dockerBaseImage(ns.getString("docker_base_image"));
     dockerSnippet(ns.getFile("docker_snippet"));
+    dockerLayered(ns.getBoolean("docker_layered"));
+    ociBase(ns.getFile("oci_base"));
     launch(ns.getBoolean("launch"));
+    watch(ns.getBoolean("watch"));
+    watchDelay(ns.getInt("watch_delay"));
     compressDirStructure(ns.getBoolean("compress_dir_structure"));
+    platform(ns.getString("platform"));
+    history(ns.getBoolean("history"));
+    verify(ns.getBoolean("verify"));
+    proxy(ns.getBoolean("proxy"));
+    proxyURL(ns.getString("proxy_url"));
+    proxyCacheSize(ns.getInt("proxy_cache_size"));
+    slowest(ns.getInt("slowest"));
+    downloadLimit(ns.getInt("download_limit"));
+    maxConnections(ns.getInt("max_connections"));
+    quiet(ns.getBoolean("quiet"));
+    quietLines(ns.getInt("quiet_lines"));
+    quietLog(ns.getFile("quiet_log"));
+    offline(ns.getBoolean("offline"));
+    offlineThreads(ns.getInt("offline_threads"));
     return true;
   }
 
@@ -1139,9 +2527,32 @@ public class Main {
    */
   protected String initMavenHome() {
     String	result;
-
-    if (m_MavenHome == null) {
-      if ((result = Maven.initRemoteMaven()) != null)
+    File	home;
+
+    m_ActMavenExecutable = null;
+    if (m_MavenDaemon) {
+      if (m_MavenHome == null) {
+        if (MavenDaemon.homeDir() == null)
+          return "No Maven Daemon distribution available for platform: " + System.getProperty("os.name") + "/" + System.getProperty("os.arch");
+        if (!m_Offline && (result = MavenDaemon.initRemoteMavenDaemon(m_ActBandwidth)) != null)
+          return result;
+        home = new File(MavenDaemon.homeDir());
+      }
+      else {
+        home = m_MavenHome;
+      }
+      m_ActMavenExecutable = MavenDaemon.executable(home);
+      if (!m_ActMavenExecutable.exists())
+        return "Maven Daemon executable does not exist: " + m_ActMavenExecutable;
+      m_ActMavenHome = MavenDaemon.mavenHome(home);
+    }
+    else if ((m_MavenHome == null) && m_Offline) {
+      m_ActMavenHome = new File(Maven.homeDir());
+      if ((result = OfflineCheck.checkMaven(m_ActMavenHome)) != null)
+        return result + " (cannot download in offline mode)";
+    }
+    else if (m_MavenHome == null) {
+      if ((result = Maven.initRemoteMaven(m_ActBandwidth)) != null)
         return result;
       m_ActMavenHome = new File(Maven.homeDir());
     }
@@ -1196,6 +2607,146 @@ public class Main {
     return null;
   }
 
+  /**
+   * Initializes the repositories to use, probing and ranking them if
+   * enabled.
+   *
+   * @return		null if successful, otherwise error message
+   * @see		#m_ActRepositories
+   */
+  protected String initRepositories() {
+    RepositoryProbe	probe;
+
+    m_ActRepositories = m_Repositories;
+    if (m_ProbeRepositories && (m_Repositories != null) && !m_Repositories.isEmpty() && !m_Offline) {
+      probe             = new RepositoryProbe(m_ProbePath);
+      m_ActRepositories = probe.rank(m_Repositories);
+      if (m_ActRepositories.isEmpty())
+	return "None of the repositories is reachable: " + m_Repositories;
+    }
+
+    return null;
+  }
+
+  /**
+   * Parses the target platform, if supplied.
+   *
+   * @return		null if successful, otherwise error message
+   * @see		#m_ActPlatform
+   */
+  protected String initPlatform() {
+    m_ActPlatform = null;
+    if (m_Platform == null)
+      return null;
+    m_ActPlatform = Platform.parse(m_Platform);
+    if (m_ActPlatform == null)
+      return "Invalid platform (eg linux-x86_64): " + m_Platform;
+    getLogger().info("Target platform: " + m_ActPlatform);
+    return null;
+  }
+
+  /**
+   * Initializes the overlay of the local repository, if a base repository
+   * was supplied. Maven 3.9+ uses the base as read-only tail, otherwise the
+   * overlay gets seeded from the base.
+   *
+   * @return		null if successful, otherwise error message
+   * @see		#m_ActLocalRepo
+   */
+  protected String initLocalRepository() {
+    if (m_LocalRepoBase == null)
+      return null;
+    m_ActLocalRepo = new LocalRepository(m_LocalRepoBase, LocalRepository.supportsTail(m_ActMavenHome));
+    if (!m_ActLocalRepo.isTail())
+      getLogger().info("Maven " + m_ActMavenHome + " does not support local repository tails (3.9+), seeding overlay from base");
+    return m_ActLocalRepo.createOverlay();
+  }
+
+  /**
+   * Returns the URLs of the repositories, replaced by the mirrors from the
+   * user/global Maven settings where applicable (like Maven does).
+   *
+   * @return		the URLs
+   */
+  protected List<String> getUpstreamRepositories() {
+    Set<String>		result;
+    List<String>	mirrors;
+    String[]		parts;
+
+    result  = new LinkedHashSet<>();
+    mirrors = Settings.mirrors(m_MavenUserSettings, m_ActMavenHome);
+    if (m_ActRepositories != null) {
+      for (String repo: m_ActRepositories) {
+	parts = repo.split(";");
+	if (parts.length == 3)
+	  result.add(Settings.mirrorURL(mirrors, parts[0], parts[2]));
+      }
+    }
+    result.add(Settings.mirrorURL(mirrors, "central", CachingProxy.CENTRAL_URL));
+
+    return new ArrayList<>(result);
+  }
+
+  /**
+   * Returns the URLs to retrieve repository metadata from, i.e., the same
+   * route that Maven takes: the embedded proxy, the proxy URL or the
+   * (mirrored) repositories.
+   *
+   * @return		the URLs
+   */
+  protected List<String> getMetadataRepositories() {
+    if (m_ActProxy != null)
+      return Collections.singletonList(m_ActProxy.getURL());
+    else if (m_ProxyURL != null)
+      return Collections.singletonList(m_ProxyURL);
+    else
+      return getUpstreamRepositories();
+  }
+
+  /**
+   * Initializes the global Maven settings, if required (e.g., for mirrors).
+   * Starts the embedded proxy, if enabled.
+   *
+   * @return		null if successful, otherwise error message
+   * @see		#m_ActGlobalSettings
+   */
+  protected String initSettings() {
+    String			result;
+    Settings.Configuration	config;
+
+    config = new Settings.Configuration();
+
+    // proxy
+    if ((m_DownloadLimit > 0) && !m_Proxy && (m_ProxyURL == null) && !m_Offline)
+      getLogger().info("Using embedded proxy for applying download limit of " + m_DownloadLimit + "kB/s");
+    if ((m_MaxConnections > 0) && !m_Proxy && (m_ProxyURL == null) && !m_Offline)
+      getLogger().info("Using embedded proxy for applying limit of " + m_MaxConnections + " connection(s) per repository");
+    if (m_Proxy || (((m_DownloadLimit > 0) || (m_MaxConnections > 0)) && (m_ProxyURL == null) && !m_Offline)) {
+      m_ActProxy = new CachingProxy(getUpstreamRepositories(), CachingProxy.defaultCacheDir(), m_ProxyCacheSize);
+      m_ActProxy.setMaxConnections(m_MaxConnections);
+      m_ActProxy.setBandwidth(m_ActBandwidth);
+      m_ActProxy.setSettings(m_MavenUserSettings, m_ActMavenHome);
+      if ((result = m_ActProxy.start(0)) != null)
+	return result;
+      config.mirrors.add(CachingProxy.mirror(m_ActProxy.getURL()));
+    }
+    else if (m_ProxyURL != null) {
+      config.mirrors.add(CachingProxy.mirror(m_ProxyURL));
+      if (m_DownloadLimit > 0)
+	getLogger().warning("Download limit only applies to the Maven distribution, not to artifacts retrieved via proxy URL " + m_ProxyURL + " (use the download limit of ProxyServer instead)");
+      if (m_MaxConnections > 0)
+	getLogger().warning("Connections per repository cannot be limited with proxy URL " + m_ProxyURL + ", only limiting the parallel downloads of Maven (use the connection limit of ProxyServer instead)");
+    }
+
+    if (Settings.isRequired(config)) {
+      if ((result = Settings.configure(m_ActMavenHome, m_OutputDir, config)) != null)
+	return result;
+      m_ActGlobalSettings = new File(m_OutputDir, Settings.SETTINGS_FILE);
+    }
+
+    return null;
+  }
+
   /**
    * Expands the jars/dirs to just jars.
    *
@@ -1241,11 +2792,18 @@ public class Main {
     config = new Configuration();
     config.outputDirMaven = m_OutputDirMaven;
     config.dependencies   = getAllDependencies();
+    if (m_VersionTTL > 0)
+      config.dependencies = new VersionCache(VersionCache.defaultFile(), m_VersionTTL * 60000L)
+	.bandwidth(m_ActBandwidth)
+	.settings(m_MavenUserSettings, m_ActMavenHome)
+	.resolve(config.dependencies, getMetadataRepositories(), m_Offline);
     config.exclusions     = getExclusions();
-    config.repositories   = getRepositories();
-    config.noSources      = !m_Sources;
+    config.repositories   = m_ActRepositories;
+    config.noSources      = !m_Sources || isSourcesInBackground();
     config.noSpringBoot   = !m_SpringBoot;
     config.mainClass      = m_MainClass;
+    if (m_ActPlatform != null)
+      config.excludeClassifiers = String.join(",", m_ActPlatform.excludedClassifiers());
     config.name           = m_Name;
     config.version        = m_Version;
     if (m_ExternalJars != null)
@@ -1254,24 +2812,16 @@ public class Main {
       config.externalSources = toJars(m_ExternalSources);
 
     buildPlugins = new StringBuilder();
-    if (m_Debian) {
-      if (m_DebianSnippet != null) {
-        try {
-	  lines = Files.readAllLines(m_DebianSnippet.toPath());
-	  for (String line: lines)
-	    buildPlugins.append(line).append("\n");
-	}
-	catch (Exception e) {
-          getLogger().log(Level.SEVERE, "Failed to load Debian maven snippet: " + m_DebianSnippet, e);
-          return "Failed to load Debian maven snippet: " + m_DebianSnippet;
-	}
+    // without custom snippet, the .deb package gets generated in-process (see createDebianPackage)
+    if (m_Debian && (m_DebianSnippet != null)) {
+      try {
+	lines = Files.readAllLines(m_DebianSnippet.toPath());
+	for (String line: lines)
+	  buildPlugins.append(line).append("\n");
       }
-      else {
-        if (m_Sources)
-	  buildPlugin = Content.readString(Resources.LOCATION + "/" + Template.DEBIANBUILDSRC_FILE);
-        else
-	  buildPlugin = Content.readString(Resources.LOCATION + "/" + Template.DEBIANBUILD_FILE);
-	buildPlugins.append(buildPlugin);
+      catch (Exception e) {
+	getLogger().log(Level.SEVERE, "Failed to load Debian maven snippet: " + m_DebianSnippet, e);
+	return "Failed to load Debian maven snippet: " + m_DebianSnippet;
       }
     }
     if (m_Redhat) {
@@ -1308,10 +2858,63 @@ public class Main {
       result = Template.configureTemplate(m_PomTemplate, m_OutputDir, config);
     }
 
-    if (result == null)
-      m_ActPomTemplate = new File(m_OutputDir.getAbsolutePath() + "/pom.xml");
+    if (result == null)
+      m_ActPomTemplate = new File(m_OutputDir.getAbsolutePath() + "/" + Template.POM_FILE);
+
+    // separate POM for the sources
+    if ((result == null) && isSourcesInBackground()) {
+      config.noSources = false;
+      if (m_PomTemplate == null)
+	result = Template.configureBundledTemplate(m_OutputDir, SOURCES_POM_FILE, config);
+      else
+	result = Template.configureTemplate(m_PomTemplate, m_OutputDir, SOURCES_POM_FILE, config);
+      if (result == null)
+	m_ActSourcesPom = new File(m_OutputDir.getAbsolutePath() + "/" + SOURCES_POM_FILE);
+    }
+
+    return result;
+  }
+
+  /**
+   * Verifies that all artifacts required by the generated POM are present
+   * in the local repository.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String checkOffline() {
+    String		result;
+    File		localRepo;
+    OfflineCheck	check;
+    List<String>	missing;
+    StringBuilder	msg;
+    long		start;
+
+    start     = System.currentTimeMillis();
+    if (m_LocalRepoBase != null)
+      localRepo = m_LocalRepoBase;
+    else
+      localRepo = Settings.localRepository(m_MavenUserSettings, m_ActMavenHome);
+    check     = new OfflineCheck(localRepo, m_OfflineThreads);
+    try {
+      result = check.check(OfflineCheck.fromPom(m_ActPomTemplate, m_Clean));
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to check local repository: " + localRepo, e);
+      return "Failed to check local repository '" + localRepo + "': " + e;
+    }
+    if (result != null)
+      return result;
+
+    missing = check.getMissing();
+    if (!missing.isEmpty()) {
+      msg = new StringBuilder("Offline mode, but " + missing.size() + " file(s) missing from local repository " + localRepo + ":");
+      for (String m: missing)
+	msg.append("\n  ").append(m);
+      return msg.toString();
+    }
+    getLogger().info("Local repository contains all " + check.getChecked() + " artifacts (" + (System.currentTimeMillis() - start) + "ms)");
 
-    return result;
+    return null;
   }
 
   /**
@@ -1320,48 +2923,473 @@ public class Main {
    * @return		null if successful, otherwise error message
    */
   protected String executeMaven() {
+    return executeMaven(m_Clean, m_Offline);
+  }
+
+  /**
+   * Executes maven to pull in the artifacts.
+   *
+   * @param clean	whether to clean the output first
+   * @param offline	whether to run Maven in offline mode
+   * @return		null if successful, otherwise error message
+   */
+  protected String executeMaven(boolean clean, boolean offline) {
     InvocationRequest 	request;
     Invoker 		invoker;
+    InvocationResult	result;
     List<String>	goals;
+    Properties		props;
+    long		count;
 
     goals = new ArrayList<>();
-    if (m_Clean)
+    if (clean)
       goals.add("clean");
     goals.add("package");
-    if (m_Debian)
+    if (m_Debian && (m_DebianSnippet != null))
       goals.add("deb:package");
 
     request = new DefaultInvocationRequest();
     request.setPomFile(m_ActPomTemplate);
     request.setGoals(goals);
     request.setJavaHome(m_ActJavaHome);
+    request.setOffline(offline);
+    props = new Properties();
+    // the embedded proxy limits the connections per repository, otherwise only the overall parallel downloads
+    if ((m_MaxConnections > 0) && (m_ActProxy == null))
+      props.setProperty("aether.connector.basic.threads", "" + m_MaxConnections);
+    // JavaCPP presets only resolve the natives of this platform
+    if ((m_ActPlatform != null) && (m_ActPlatform.getArch() != null))
+      props.setProperty("javacpp.platform", m_ActPlatform.toString());
+    if ((m_ActLocalRepo != null) && m_ActLocalRepo.isTail())
+      props.setProperty(LocalRepository.TAIL_PROPERTY, m_ActLocalRepo.getBase().getAbsolutePath());
+    if (!props.isEmpty())
+      request.setProperties(props);
     if (m_MavenUserSettings != null)
       request.setUserSettingsFile(m_MavenUserSettings);
+    if (m_ActGlobalSettings != null)
+      request.setGlobalSettingsFile(m_ActGlobalSettings);
+    if (m_ActLocalRepo != null)
+      request.setLocalRepositoryDirectory(m_ActLocalRepo.getOverlay());
+    count = 0;
+    if (m_Quiet) {
+      m_ActOutput.clear();
+      count             = m_ActOutput.getCount();
+      m_ActMavenTimings = new MavenTimings(m_ActOutput);
+      request.setBatchMode(true);
+      request.setErrorHandler(m_ActOutput);
+    }
+    else {
+      m_ActMavenTimings = new MavenTimings(new PrintStreamHandler(System.out, true));
+    }
+    request.setOutputHandler(m_ActMavenTimings);
     invoker = new DefaultInvoker();
     invoker.setMavenHome(m_ActMavenHome);
+    if (m_ActMavenExecutable != null)
+      invoker.setMavenExecutable(m_ActMavenExecutable);
     try {
-      invoker.execute(request);
+      result = invoker.execute(request);
     }
     catch (Exception e) {
+      if (m_Quiet)
+	printOutput("Maven");
       getLogger().log(Level.SEVERE, "Failed to bootstrap the application!", e);
       return "Failed to bootstrap the application: " + e;
     }
+    finally {
+      m_ActMavenTimings.finish();
+    }
+
+    if (result.getExitCode() != 0) {
+      if (m_Quiet)
+	printOutput("Maven");
+      return "Failed to bootstrap the application, Maven exit code: " + result.getExitCode();
+    }
+    if (m_Quiet) {
+      getLogger().info("Maven finished successfully: " + (m_ActOutput.getCount() - count) + " lines of output, "
+	+ m_ActMavenTimings.getTransfers().size() + " transfers"
+	+ (m_ActOutput.getLogFile() != null ? " (see " + m_ActOutput.getLogFile() + ")" : ""));
+      // timings only go into the log
+      if (m_Slowest > 0) {
+	for (String line: ("Maven timings:\n" + m_ActMavenTimings.summary(m_Slowest)).split("\n"))
+	  m_ActOutput.consumeLine(line);
+      }
+    }
+    else if (m_Slowest > 0) {
+      getLogger().info("Maven timings:\n" + m_ActMavenTimings.summary(m_Slowest));
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns whether the sources get downloaded in the background, i.e.,
+   * sources requested and not packaged (Debian/Redhat/Docker).
+   *
+   * @return		true if in the background
+   */
+  protected boolean isSourcesInBackground() {
+    return m_Sources && m_SourcesBackground && !m_Debian && !m_Redhat && !getDocker();
+  }
+
+  /**
+   * Downloads the sources using a separate Maven invocation (single
+   * download thread, output captured), reporting the progress.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String executeSourcesMaven() {
+    InvocationRequest 		request;
+    Invoker 			invoker;
+    InvocationResult		result;
+    final OutputBuffer		output;
+    final AtomicInteger		copied;
+    Properties			props;
+    long			start;
+
+    if (!m_ActSourcesPom.exists())
+      return "POM for downloading the sources no longer exists (removed by clean?): " + m_ActSourcesPom;
+
+    start   = System.currentTimeMillis();
+    output  = new OutputBuffer(m_QuietLines, null);
+    copied  = new AtomicInteger(0);
+    request = new DefaultInvocationRequest();
+    request.setPomFile(m_ActSourcesPom);
+    request.setGoals(Collections.singletonList(SOURCES_GOAL));
+    request.setJavaHome(m_ActJavaHome);
+    request.setOffline(m_Offline);
+    request.setBatchMode(true);
+    props = new Properties();
+    props.setProperty("aether.connector.basic.threads", "1");
+    if ((m_ActLocalRepo != null) && m_ActLocalRepo.isTail())
+      props.setProperty(LocalRepository.TAIL_PROPERTY, m_ActLocalRepo.getBase().getAbsolutePath());
+    request.setProperties(props);
+    if (m_MavenUserSettings != null)
+      request.setUserSettingsFile(m_MavenUserSettings);
+    if (m_ActGlobalSettings != null)
+      request.setGlobalSettingsFile(m_ActGlobalSettings);
+    if (m_ActLocalRepo != null)
+      request.setLocalRepositoryDirectory(m_ActLocalRepo.getOverlay());
+    request.setOutputHandler((String line) -> {
+      output.consumeLine(line);
+      if (line.contains("Copying ") && (copied.incrementAndGet() % 10 == 0))
+	getLogger().info("Sources: " + copied.get() + " jar(s) copied so far");
+    });
+    request.setErrorHandler(output);
+    invoker = new DefaultInvoker();
+    invoker.setMavenHome(m_ActMavenHome);
+    if (m_ActMavenExecutable != null)
+      invoker.setMavenExecutable(m_ActMavenExecutable);
+    try {
+      result = invoker.execute(request);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to download sources!", e);
+      return "Failed to download sources: " + e;
+    }
+    finally {
+      output.close();
+    }
+    if (result.getExitCode() != 0)
+      return "Failed to download sources, Maven exit code: " + result.getExitCode() + "\n" + String.join("\n", output.getLines());
+
+    getLogger().info("Sources complete: " + copied.get() + " jar(s) in " + new File(m_OutputDirMaven, "src")
+      + " (" + (System.currentTimeMillis() - start) + "ms)");
+
+    return null;
+  }
+
+  /**
+   * Starts the download of the sources in the background, after waiting
+   * for a previous download to finish.
+   *
+   * @see		#m_ActSources
+   */
+  protected void startSources() {
+    waitForSources();
+    getLogger().info("Downloading sources in the background");
+    m_ActSourcesResult = null;
+    m_ActSources       = new Thread(() -> {
+      String result = executeSourcesMaven();
+      if ((result == null) && (m_ActLocalRepo != null))
+	result = m_ActLocalRepo.promote();
+      // lib already got verified (and possibly pruned) by the main thread
+      if ((result == null) && m_Verify)
+	result = verifyOutput("src");
+      m_ActSourcesResult = result;
+    }, "bootstrapp-sources");
+    m_ActSources.start();
+  }
+
+  /**
+   * Waits for the background download of the sources to finish and reports
+   * its status. A failed download only results in a warning, as the
+   * application is usable without the sources.
+   *
+   * @see		#m_ActSources
+   */
+  protected void waitForSources() {
+    if (m_ActSources == null)
+      return;
+    try {
+      m_ActSources.join();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    if (m_ActSourcesResult != null)
+      getLogger().warning(m_ActSourcesResult);
+    m_ActSources       = null;
+    m_ActSourcesResult = null;
+  }
+
+  /**
+   * Verifies the artifacts in the lib/src directories against the checksums
+   * in the local repository and records the manifest for verifying the
+   * output later on (see VerifyOutput).
+   *
+   * @param subDirs	the sub-directories to verify
+   * @return		null if successful, otherwise error message
+   */
+  protected String verifyOutput(String... subDirs) {
+    Checksums			checksums;
+    List<Checksums.Result>	hashes;
+    File			localRepo;
+    StringBuilder		msg;
+
+    if (m_LocalRepoBase != null)
+      localRepo = m_LocalRepoBase;
+    else
+      localRepo = Settings.localRepository(m_MavenUserSettings, m_ActMavenHome);
+    checksums = new Checksums(-1);
+    try {
+      hashes = checksums.verify(m_OutputDirMaven, null, localRepo, subDirs);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to verify output: " + m_OutputDirMaven, e);
+      return "Failed to verify output '" + m_OutputDirMaven + "': " + e;
+    }
+    if (!checksums.getMismatches().isEmpty()) {
+      msg = new StringBuilder(checksums.getMismatches().size() + " file(s) failed verification:");
+      for (String m: checksums.getMismatches())
+	msg.append("\n  ").append(m);
+      return msg.toString();
+    }
+
+    return updateManifest(hashes, subDirs);
+  }
+
+  /**
+   * Updates the checksum manifest: the entries of the sub-directories get
+   * replaced with the hashes, the entries of other sub-directories are kept
+   * as long as their files still exist. Synchronized, as the sources get
+   * verified in the background.
+   *
+   * @param hashes	the hashes to store
+   * @param subDirs	the sub-directories that the hashes replace
+   * @return		null if successful, otherwise error message
+   */
+  protected synchronized String updateManifest(List<Checksums.Result> hashes, String... subDirs) {
+    List<Checksums.Result>	all;
+    Map<String,String>		checksums;
+    Checksums.Result		hash;
+    File			manifest;
+    boolean			replaced;
+
+    manifest  = new File(m_OutputDirMaven, Checksums.MANIFEST_FILE);
+    checksums = new TreeMap<>();
+    if (manifest.exists()) {
+      try {
+	checksums = Checksums.readManifest(manifest);
+      }
+      catch (Exception e) {
+	getLogger().log(Level.SEVERE, "Failed to read manifest: " + manifest, e);
+	return "Failed to read manifest '" + manifest + "': " + e;
+      }
+    }
+
+    all = new ArrayList<>(hashes);
+    for (String path: checksums.keySet()) {
+      replaced = false;
+      for (String subDir: subDirs)
+	replaced = replaced || path.startsWith(subDir + "/");
+      if (replaced || !new File(m_OutputDirMaven, path).exists())
+	continue;
+      hash        = new Checksums.Result();
+      hash.path   = path;
+      hash.sha256 = checksums.get(path);
+      all.add(hash);
+    }
+    all.sort((r1, r2) -> r1.path.compareTo(r2.path));
+
+    return Checksums.writeManifest(manifest, all);
+  }
+
+  /**
+   * Returns the names of the jars of the direct dependencies as they appear
+   * in the lib directory.
+   *
+   * @return		the jar names
+   */
+  protected Set<String> directJarNames() {
+    Set<String>		result;
+    String[]		parts;
+
+    result = new HashSet<>();
+    for (String dependency: getAllDependencies()) {
+      parts = dependency.split(":");
+      if (parts.length == 3)
+	result.add(parts[1] + "-" + parts[2] + ".jar");
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the names of the external jars as they appear in the lib
+   * directory (system dependencies).
+   *
+   * @return		the jar names
+   */
+  protected Set<String> externalJarNames() {
+    Set<String>		result;
+
+    result = new HashSet<>();
+    if (m_ExternalJars != null) {
+      for (File jar: toJars(m_ExternalJars)) {
+	result.add(jar.getName());
+	result.add("ext-" + jar.getName().toLowerCase().replace(".jar", "") + "-0.0.0.jar");
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Scans the jars in the lib directory for main classes and uses the best
+   * candidate as main class. Direct dependencies get preferred over
+   * transitive ones.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String discoverMainClass() {
+    MainClassFinder			finder;
+    List<MainClassFinder.Candidate>	candidates;
+    Set<String>				direct;
+    File				lib;
+    int					i;
+
+    direct = directJarNames();
+    direct.addAll(externalJarNames());
+
+    lib    = new File(m_OutputDirMaven, "lib");
+    finder = new MainClassFinder(-1);
+    try {
+      candidates = finder.find(lib, direct);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to discover main class in: " + lib, e);
+      return "Failed to discover main class in '" + lib + "': " + e;
+    }
+    if (candidates.isEmpty()) {
+      getLogger().warning("No main class found in: " + lib);
+      return null;
+    }
+
+    for (i = 0; i < candidates.size() && i < 5; i++)
+      getLogger().info("Main class candidate " + (i + 1) + ": " + candidates.get(i));
+    m_MainClass = candidates.get(0).className;
+    getLogger().info("Using discovered main class: " + m_MainClass);
 
     return null;
   }
 
+  /**
+   * Outputs the lines captured in quiet mode on stderr.
+   *
+   * @param process	the process that the output is from
+   */
+  protected void printOutput(String process) {
+    List<String>	lines;
+
+    lines = m_ActOutput.getLines();
+    System.err.println("Last " + lines.size() + " line(s) of output from " + process
+      + (m_ActOutput.getLogFile() != null ? " (complete output in " + m_ActOutput.getLogFile() + ")" : "") + ":");
+    for (String line: lines)
+      System.err.println(line);
+  }
+
+  /**
+   * Returns the java executable to use for the scripts.
+   *
+   * @param baseDir	the directory containing the runtime directory (as used by the script)
+   * @param sep		the file separator to use
+   * @return		the java executable of the runtime (quoted), "java" if no runtime generated
+   */
+  protected String runtimeJava(String baseDir, String sep) {
+    if (m_ActRuntime == null)
+      return "java";
+    return "\"" + baseDir + sep + RuntimeImage.DIR + sep + "bin" + sep + "java\"";
+  }
+
+  /**
+   * Returns the java executable to use for launching the main class.
+   *
+   * @return		the java executable of the runtime, if generated, otherwise the one of the JDK
+   */
+  protected String javaBinary() {
+    if (m_ActRuntime != null)
+      return m_ActRuntime.getAbsolutePath() + "/bin/java";
+    return m_ActJavaHome.getAbsolutePath() + "/bin/java";
+  }
+
+  /**
+   * Returns the path of the class data sharing archive.
+   *
+   * @param baseDir	the directory containing the archive directory (as used by the launch command)
+   * @param quote	whether to enclose the path in double quotes
+   * @return		the path, null if no archive generated
+   */
+  protected String cdsArchive(String baseDir, boolean quote) {
+    String	result;
+
+    if (m_ActCDS == null)
+      return null;
+    result = baseDir + "/" + ClassDataSharing.DIR + "/" + m_ActCDS.getArchiveName();
+    if (quote)
+      result = "\"" + result + "\"";
+
+    return result;
+  }
+
+  /**
+   * Returns whether the class data sharing archive gets shipped with the
+   * docker image. As the archive is only valid for the JDK it was generated
+   * with, this requires the runtime image.
+   *
+   * @return		true if shipped
+   */
+  protected boolean isCDSShipped() {
+    return (m_ActCDS != null) && (m_ActRuntime != null);
+  }
+
   /**
    * Builds and returns the launch command for the main class.
    *
+   * @param javaBinary	the java executable
+   * @param libDir	the class path
+   * @param archive	the class data sharing archive to use, null if none
    * @return		the command
    */
-  protected List<String> buildLaunchCommand(String javaBinary, String libDir) {
+  protected List<String> buildLaunchCommand(String javaBinary, String libDir, String archive) {
     List<String> 	result;
 
     result = new ArrayList<>();
     result.add(javaBinary);
     if (m_JVM != null)
       result.addAll(m_JVM);
+    if ((archive != null) && (m_ActCDS != null))
+      result.addAll(m_ActCDS.runtimeOptions(archive));
     result.add("-cp");
     result.add(libDir);
     result.add(m_MainClass);
@@ -1387,7 +3415,7 @@ public class Main {
 	  return "Failed to create directory for shell script: " + dir;
       }
 
-      cmd = buildLaunchCommand("java", "\"$CP\"");
+      cmd = buildLaunchCommand(runtimeJava("$BASEDIR", "/"), "\"$CP\"", null);
       file = new File(dir.getAbsolutePath() + "/start.sh");
       script = new StringBuilder();
       script.append("#!/bin/bash\n");
@@ -1432,7 +3460,7 @@ public class Main {
 	  return "Failed to create directory for batch script: " + dir;
       }
 
-      cmd = buildLaunchCommand("java", "\"%CP%\"");
+      cmd = buildLaunchCommand(runtimeJava("%BASEDIR%", "\\"), "\"%CP%\"", null);
       file = new File(dir.getAbsolutePath() + "/start.bat");
       script = new StringBuilder();
       script.append("@echo off\n");
@@ -1495,7 +3523,7 @@ public class Main {
 	return "Failed to create directory for launch script: " + dir;
     }
 
-    cmd = buildLaunchCommand("java", "\"$CP\"");
+    cmd = buildLaunchCommand(runtimeJava("/usr/lib/" + m_Name, "/"), "\"$CP\"", null);
     file = new File(dir.getAbsolutePath() + "/launch");
     script = new StringBuilder();
     script.append("#!/bin/bash\n");
@@ -1518,6 +3546,216 @@ public class Main {
     return null;
   }
 
+  /**
+   * Removes the native artifacts for other platforms from the lib directory
+   * (the known classifiers already got excluded by Maven) and reports the
+   * bytes saved.
+   */
+  protected void prunePlatform() {
+    List<String>	pruned;
+    long		saved;
+
+    pruned = new ArrayList<>();
+    saved  = Platform.readPruned(new File(m_OutputDirMaven, Platform.PRUNED_FILE), pruned);
+    saved += m_ActPlatform.prune(new File(m_OutputDirMaven, "lib"), pruned);
+    if (pruned.isEmpty()) {
+      getLogger().info("No native artifacts for other platforms than " + m_ActPlatform);
+      return;
+    }
+    Collections.sort(pruned);
+    getLogger().fine("Pruned artifacts: " + pruned);
+    getLogger().info("Pruned " + pruned.size() + " native artifact(s) for other platforms than " + m_ActPlatform
+      + ", saving " + String.format("%.1f", saved / 1024.0 / 1024.0) + "MB");
+  }
+
+  /**
+   * Generates the Debian package in-process from the lib directory, the
+   * launch script and (optionally) the src directory. The artifact
+   * exclusions get taken from the bundled Maven snippet.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String createDebianPackage() {
+    DebianPackage	deb;
+    String		snippet;
+
+    snippet = Content.readString(Resources.LOCATION + "/" + Template.DEBIANBUILD_FILE);
+    if (snippet == null)
+      return "Failed to read Debian maven snippet: " + Template.DEBIANBUILD_FILE;
+    deb = new DebianPackage(m_Name, m_Version)
+      .compression(m_DebianCompression)
+      .maintainer(m_DebianMaintainer)
+      .runtime(m_ActRuntime);
+    // the target platform supersedes the hard-coded exclusions
+    if (m_ActPlatform == null)
+      deb.exclusions(DebianPackage.exclusions(snippet));
+
+    return deb.write(
+      new File(m_OutputDirMaven, deb.getFileName()),
+      new File(m_OutputDirMaven, "lib"),
+      new File(m_OutputDir.getAbsolutePath() + "/launch"),
+      m_Sources ? new File(m_OutputDirMaven, "src") : null);
+  }
+
+  /**
+   * Determines the jars in the lib directory that are not reachable from
+   * the main class and the additional entry points, reports them and moves
+   * them to the unused directory (if enabled). The checksum manifest gets
+   * updated accordingly.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String analyzeReachability() {
+    String			result;
+    Reachability		reachability;
+    Map<String,String>		checksums;
+    List<Checksums.Result>	hashes;
+    Checksums.Result		hash;
+    File			manifest;
+    long			size;
+
+    if ((m_MainClass == null) && ((m_ReachabilityEntries == null) || m_ReachabilityEntries.isEmpty()))
+      return "Reachability analysis requires a main class or additional entry points!";
+
+    reachability = new Reachability(-1)
+      .entryPoints(m_ReachabilityEntries)
+      .keep(m_ReachabilityKeep);
+    if ((result = reachability.analyze(new File(m_OutputDirMaven, "lib"), m_MainClass)) != null)
+      return result;
+    if (reachability.getUnreachable().isEmpty()) {
+      getLogger().info("All jars are reachable");
+      return null;
+    }
+
+    size = 0;
+    for (File jar: reachability.getUnreachable()) {
+      size += jar.length();
+      getLogger().info("Unreachable: " + jar.getName() + " (" + jar.length() / 1024 + "kB)");
+    }
+    getLogger().info(reachability.getUnreachable().size() + " unreachable jar(s), "
+      + String.format("%.1f", size / 1024.0 / 1024.0) + "MB");
+    if (!m_ReachabilityPrune)
+      return null;
+
+    if ((result = reachability.prune(new File(m_OutputDirMaven, Reachability.UNUSED_DIR))) != null)
+      return result;
+    getLogger().info("Moved unreachable jar(s) to " + new File(m_OutputDirMaven, Reachability.UNUSED_DIR));
+
+    // update checksums
+    manifest = new File(m_OutputDirMaven, Checksums.MANIFEST_FILE);
+    if (!manifest.exists())
+      return null;
+    try {
+      checksums = Checksums.readManifest(manifest);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to read manifest: " + manifest, e);
+      return "Failed to read manifest '" + manifest + "': " + e;
+    }
+    hashes = new ArrayList<>();
+    for (File jar: reachability.getUnreachable()) {
+      if (!checksums.containsKey("lib/" + jar.getName()))
+	continue;
+      hash        = new Checksums.Result();
+      hash.path   = Reachability.UNUSED_DIR + "/" + jar.getName();
+      hash.sha256 = checksums.get("lib/" + jar.getName());
+      hashes.add(hash);
+    }
+
+    // the lib entries of the moved jars get dropped, as they no longer exist
+    return updateManifest(hashes, Reachability.UNUSED_DIR);
+  }
+
+  /**
+   * Generates the minimal runtime for the jars in the lib directory with
+   * jdeps/jlink. The Debian launch script gets regenerated to make use of
+   * the runtime.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String createRuntimeImage() {
+    String		result;
+    RuntimeImage	runtime;
+    File		output;
+
+    m_ActRuntime = null;
+    output       = new File(m_OutputDirMaven, RuntimeImage.DIR);
+    deleteDir(output);
+    runtime = new RuntimeImage(m_ActJavaHome, -1)
+      .modules(m_JLinkModules)
+      .cds(m_CDS);
+    if ((result = runtime.create(new File(m_OutputDirMaven, "lib"), output)) != null)
+      return result;
+    m_ActRuntime = output;
+
+    if (m_Debian && (m_DebianSnippet == null) && (m_MainClass != null)) {
+      if ((result = createLaunchScript()) != null)
+	return result;
+    }
+    if (m_Redhat)
+      getLogger().warning("Runtime image is not used by the Redhat package, as it gets built beforehand");
+
+    return null;
+  }
+
+  /**
+   * Merges the jars in the lib directory into a single flat jar.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String createMergedJar() {
+    MergedJar	merged;
+    String	name;
+
+    name = m_Name;
+    if ((m_Version != null) && !m_Version.isEmpty())
+      name += "-" + m_Version;
+    merged = new MergedJar(m_MainClass)
+      .duplicates(m_MergedDuplicates)
+      .append(m_MergedAppend);
+    return merged.write(new File(m_OutputDirMaven, "lib"), new File(m_OutputDirMaven, name + "-merged.jar"));
+  }
+
+  /**
+   * Generates the class data sharing archive from a training run of the
+   * main class, using the class path relative to the output directory (as
+   * the JVM requires the identical class path). The modification times of
+   * the jars get set to the timestamp of the docker layers beforehand, as
+   * the JVM checks these as well. The archive gets used when launching the
+   * main class and, with a runtime image, by the docker image.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String generateCDS() {
+    String		result;
+    ClassDataSharing	cds;
+
+    if (m_MainClass == null)
+      return "Cannot generate class data sharing archive without a main class!";
+
+    for (File jar: new File(m_OutputDirMaven, "lib").listFiles()) {
+      if (!jar.setLastModified(OciImage.sourceDateEpoch() * 1000))
+	return "Failed to set modification time of: " + jar;
+    }
+
+    cds = new ClassDataSharing(m_ActRuntime != null ? m_ActRuntime : m_ActJavaHome)
+      .timeout(m_CDSTimeout)
+      .trigger(m_CDSTrigger)
+      .workingDir(m_OutputDirMaven.getAbsoluteFile());
+    result = cds.generate(
+      buildLaunchCommand(javaBinary(), "lib/*", null),
+      new File(m_OutputDirMaven, ClassDataSharing.DIR));
+    if (result != null)
+      return result;
+    m_ActCDS = cds;
+    if (getDocker() && (m_ActRuntime == null))
+      getLogger().warning("Class data sharing archive is only valid for " + m_ActJavaHome + ", not shipping it with the docker image (requires --jlink)");
+    if (getScripts() || m_Debian || m_Redhat)
+      getLogger().warning("Class data sharing archive is not used by scripts and packages, as their class path differs from the training run");
+
+    return null;
+  }
+
   /**
    * Launches the main class, if provided.
    *
@@ -1527,24 +3765,100 @@ public class Main {
     List<String>	cmd;
     ProcessBuilder 	builder;
     int			exitCode;
+    long		count;
 
     if (m_MainClass != null) {
-      cmd = buildLaunchCommand(m_ActJavaHome.getAbsolutePath() + "/bin/java", m_OutputDirMaven.getAbsolutePath() + "/lib/*");
+      // the archive requires the relative class path of the training run
+      if (m_ActCDS != null)
+	cmd = buildLaunchCommand(javaBinary(), "lib/*", cdsArchive(m_OutputDirMaven.getAbsolutePath(), false));
+      else
+	cmd = buildLaunchCommand(javaBinary(), m_OutputDirMaven.getAbsolutePath() + "/lib/*", null);
       builder = new ProcessBuilder(cmd);
+      if (m_ActCDS != null)
+	builder.directory(m_OutputDirMaven.getAbsoluteFile());
+      count   = 0;
+      if (m_Quiet) {
+	m_ActOutput.clear();
+	count = m_ActOutput.getCount();
+      }
+      try {
+        StreamingProcessOutput output = new StreamingProcessOutput(m_Quiet ? m_ActOutput : new SimpleStreamingProcessOwner());
+	output.monitor(builder);
+	exitCode = output.getExitCode();
+	if (exitCode != 0) {
+	  if (m_Quiet)
+	    printOutput(m_MainClass);
+	  return "Failed to launch class (" + builder.command() + "): " + exitCode;
+	}
+	if (m_Quiet)
+	  getLogger().info("Finished " + m_MainClass + " successfully: " + (m_ActOutput.getCount() - count) + " lines of output"
+	    + (m_ActOutput.getLogFile() != null ? " (see " + m_ActOutput.getLogFile() + ")" : ""));
+      }
+      catch (Exception e) {
+	if (m_Quiet)
+	  printOutput(m_MainClass);
+        getLogger().log(Level.SEVERE, "Failed to launch class!", e);
+        return "Failed to launch class: " + e;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Starts the main class in the background (watch mode), if provided.
+   *
+   * @return		null if successful, otherwise error message
+   * @see		#m_ActLaunched
+   */
+  protected String startMainClass() {
+    List<String>	cmd;
+    ProcessBuilder 	builder;
+
+    if (m_MainClass == null)
+      return null;
+
+    // the archive requires the relative class path of the training run
+    if (m_ActCDS != null)
+      cmd = buildLaunchCommand(javaBinary(), "lib/*", cdsArchive(m_OutputDirMaven.getAbsolutePath(), false));
+    else
+      cmd = buildLaunchCommand(javaBinary(), m_OutputDirMaven.getAbsolutePath() + "/lib/*", null);
+    builder = new ProcessBuilder(cmd);
+    if (m_ActCDS != null)
+      builder.directory(m_OutputDirMaven.getAbsoluteFile());
+    builder.inheritIO();
+    try {
+      m_ActLaunched = builder.start();
+      getLogger().info("Started " + m_MainClass);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to start class!", e);
+      return "Failed to start class: " + e;
+    }
+
+    return null;
+  }
+
+  /**
+   * Stops the main class that was started in the background (watch mode).
+   *
+   * @see		#m_ActLaunched
+   */
+  protected void stopMainClass() {
+    if (m_ActLaunched == null)
+      return;
+    if (m_ActLaunched.isAlive()) {
+      getLogger().info("Stopping " + m_MainClass);
+      m_ActLaunched.destroy();
       try {
-        StreamingProcessOutput output = new StreamingProcessOutput(new SimpleStreamingProcessOwner());
-	output.monitor(builder);
-	exitCode = output.getExitCode();
-	if (exitCode != 0)
-	  return "Failed to launch class (" + builder.command() + "): " + exitCode;
+	if (!m_ActLaunched.waitFor(10, TimeUnit.SECONDS))
+	  m_ActLaunched.destroyForcibly().waitFor();
       }
-      catch (Exception e) {
-        getLogger().log(Level.SEVERE, "Failed to launch class!", e);
-        return "Failed to launch class: " + e;
+      catch (InterruptedException e) {
+	m_ActLaunched.destroyForcibly();
       }
     }
-
-    return null;
+    m_ActLaunched = null;
   }
 
   /**
@@ -1574,13 +3888,19 @@ public class Main {
 	return "Failed to create directory for launch script: " + dir;
     }
 
-    cmd = buildLaunchCommand("java", "\"/bootstrapp/" + name + "/lib/*\"");
+    // the archive requires the relative class path of the training run
+    if (isCDSShipped())
+      cmd = buildLaunchCommand(runtimeJava("/bootstrapp/" + name, "/"), "\"lib/*\"", cdsArchive("/bootstrapp/" + name, true));
+    else
+      cmd = buildLaunchCommand(runtimeJava("/bootstrapp/" + name, "/"), "\"/bootstrapp/" + name + "/lib/*\"", null);
     file = new File(dir.getAbsolutePath() + "/" + name + ".sh");
     script = new StringBuilder();
     script.append("#!/bin/bash\n");
     script.append("#\n");
     script.append("# Start script for " + m_Name + "\n");
     script.append("#\n");
+    if (isCDSShipped())
+      script.append("cd \"/bootstrapp/" + name + "\"\n");
     for (String c: cmd)
       script.append(c).append(" ");
     script.append("\n");
@@ -1596,15 +3916,206 @@ public class Main {
     return null;
   }
 
+  /**
+   * Sorts the bootstrapped jars into tiers for layered Docker images, from
+   * rarely to frequently changing: releases of third-party (ie transitive)
+   * dependencies, releases of the direct dependencies, snapshots, external
+   * jars and sources.
+   *
+   * @return		the tiers (tier - jars)
+   */
+  protected Map<String,List<File>> dockerTiers() {
+    Map<String,List<File>>	result;
+    Set<String>			direct;
+    Set<String>			external;
+    String			tier;
+
+    result = new LinkedHashMap<>();
+    result.put("dependencies", new ArrayList<>());
+    result.put("application", new ArrayList<>());
+    result.put("snapshots", new ArrayList<>());
+    result.put("external", new ArrayList<>());
+    result.put(TIER_SOURCES, new ArrayList<>());
+
+    direct   = directJarNames();
+    external = externalJarNames();
+    for (String jar: listFiles(new File(m_OutputDirMaven, "lib")).keySet()) {
+      if (external.contains(jar))
+	tier = "external";
+      else if (jar.contains("-SNAPSHOT") || jar.matches(".*-[0-9]{8}\\.[0-9]{6}-[0-9]+(-.*)?\\.jar"))
+	tier = "snapshots";
+      else if (direct.contains(jar))
+	tier = "application";
+      else
+	tier = "dependencies";
+      result.get(tier).add(new File(m_OutputDirMaven, "lib/" + jar));
+    }
+    if (m_Sources) {
+      for (String jar: listFiles(new File(m_OutputDirMaven, "src")).keySet())
+	result.get(TIER_SOURCES).add(new File(m_OutputDirMaven, "src/" + jar));
+    }
+
+    return result;
+  }
+
+  /**
+   * Stages the tiers in separate directories (hard links, if possible),
+   * for copying them into the image separately.
+   *
+   * @param tiers	the tiers to stage
+   * @return		null if successful, otherwise error message
+   */
+  protected String stageDockerTiers(Map<String,List<File>> tiers) {
+    File	dir;
+    File	target;
+
+    deleteDir(new File(m_OutputDir, DOCKER_TIERS_DIR));
+    for (String tier: tiers.keySet()) {
+      if (tiers.get(tier).isEmpty())
+	continue;
+      dir = new File(m_OutputDir, DOCKER_TIERS_DIR + "/" + tier);
+      if (!dir.mkdirs())
+	return "Failed to create directory for Docker tier: " + dir;
+      for (File file: tiers.get(tier)) {
+	target = new File(dir, file.getName());
+	try {
+	  try {
+	    Files.createLink(target.toPath(), file.toPath());
+	  }
+	  catch (Exception e) {
+	    Files.copy(file.toPath(), target.toPath());
+	  }
+	}
+	catch (Exception e) {
+	  getLogger().log(Level.SEVERE, "Failed to stage " + file + " in " + dir, e);
+	  return "Failed to stage '" + file + "' in '" + dir + "': " + e;
+	}
+      }
+      getLogger().info("Docker tier '" + tier + "': " + tiers.get(tier).size() + " jar(s)");
+    }
+
+    return null;
+  }
+
+  /**
+   * Adds the directory recursively to the layer, preserving the executable
+   * flag of the files.
+   *
+   * @param layer	the layer to add to
+   * @param path	the path of the directory in the image
+   * @param dir		the directory to add
+   */
+  protected void addTree(OciImage.Layer layer, String path, File dir) {
+    File[]	files;
+
+    files = dir.listFiles();
+    if (files == null)
+      return;
+    for (File file: files) {
+      if (file.isDirectory())
+	addTree(layer, path + "/" + file.getName(), file);
+      else
+	layer.add(path + "/" + file.getName(), file, file.canExecute());
+    }
+  }
+
+  /**
+   * Writes the Docker image directly as OCI image layout, with separate
+   * layers for the libraries, the sources and the start script on top of
+   * the base image.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String writeOciImage() {
+    List<OciImage.Layer>	layers;
+    Map<String,List<File>>	tiers;
+    OciImage.Layer		layer;
+    OciImage			image;
+    String			name;
+    String			arch;
+    File			script;
+
+    name = m_Name;
+    if ((m_Version != null) && !m_Version.isEmpty())
+      name += "-" + m_Version;
+    if (m_DockerSnippet != null)
+      getLogger().warning("Custom docker instructions are not applied to the OCI image: " + m_DockerSnippet);
+
+    layers = new ArrayList<>();
+    if (m_ActRuntime != null) {
+      layer = new OciImage.Layer("runtime");
+      addTree(layer, "bootstrapp/" + name + "/" + RuntimeImage.DIR, m_ActRuntime);
+      layers.add(layer);
+    }
+    if (m_DockerLayered) {
+      tiers = dockerTiers();
+      for (String tier: tiers.keySet()) {
+	if (tiers.get(tier).isEmpty())
+	  continue;
+	layer = new OciImage.Layer(tier);
+	for (File jar: tiers.get(tier))
+	  layer.add("bootstrapp/" + name + "/" + (tier.equals(TIER_SOURCES) ? "src" : "lib") + "/" + jar.getName(), jar, false);
+	layers.add(layer);
+      }
+    }
+    else {
+      layer = new OciImage.Layer("libraries");
+      for (String jar: listFiles(new File(m_OutputDirMaven, "lib")).keySet())
+	layer.add("bootstrapp/" + name + "/lib/" + jar, new File(m_OutputDirMaven, "lib/" + jar), false);
+      layers.add(layer);
+    }
+    if (m_Sources && !m_DockerLayered) {
+      layer = new OciImage.Layer("sources");
+      for (String jar: listFiles(new File(m_OutputDirMaven, "src")).keySet())
+	layer.add("bootstrapp/" + name + "/src/" + jar, new File(m_OutputDirMaven, "src/" + jar), false);
+      layers.add(layer);
+    }
+    if (isCDSShipped()) {
+      layer = new OciImage.Layer("class data sharing");
+      layer.add("bootstrapp/" + name + "/" + ClassDataSharing.DIR + "/" + m_ActCDS.getArchiveName(), new File(m_OutputDirMaven, ClassDataSharing.DIR + "/" + m_ActCDS.getArchiveName()), false);
+      layers.add(layer);
+    }
+    script = new File(m_OutputDir.getAbsolutePath() + "/" + name + ".sh");
+    if ((m_MainClass != null) && script.exists())
+      layers.add(new OciImage.Layer("start script").add("bootstrapp/" + name + ".sh", script, true));
+
+    arch = "amd64";
+    if ((m_ActPlatform != null) && (m_ActPlatform.getArch() != null)) {
+      switch (m_ActPlatform.getArch()) {
+	case "x86_64":
+	  arch = "amd64";
+	  break;
+	case "x86":
+	  arch = "386";
+	  break;
+	case "armhf":
+	  arch = "arm";
+	  break;
+	default:
+	  arch = m_ActPlatform.getArch();
+      }
+    }
+
+    image = new OciImage(m_OciBase, new File(m_OutputDir, "oci"))
+      .baseName(m_DockerBaseImage)
+      .tag(((m_Version != null) && !m_Version.isEmpty()) ? m_Version : "latest")
+      .arch(arch)
+      .cmd((m_MainClass != null) && script.exists() ? Collections.singletonList("/bootstrapp/" + name + ".sh") : null);
+
+    return image.write(layers);
+  }
+
   /**
    * Initializes the Dockerfile.
    *
    * @return		null if successful, otherwise error message
    */
   protected String initDockerfile() {
+    String		result;
     File 		file;
     List<String>	lines;
     List<String>	content;
+    Map<String,List<File>>	tiers;
     String		startScript;
     String		name;
     String		dirPrefix;
@@ -1644,10 +4155,30 @@ public class Main {
       dirPrefix = "";
     else
       dirPrefix = "target/";
-    content.add("# copy libraries");
-    content.add("COPY " + dirPrefix + "lib/* /bootstrapp/" + name + "/lib/");
-    if (m_Sources)
-      content.add("COPY " + dirPrefix + "src/* /bootstrapp/" + name + "/src/");
+    if (m_ActRuntime != null) {
+      content.add("# runtime");
+      content.add("COPY " + dirPrefix + RuntimeImage.DIR + "/ /bootstrapp/" + name + "/" + RuntimeImage.DIR + "/");
+    }
+    if (m_DockerLayered) {
+      tiers = dockerTiers();
+      if ((result = stageDockerTiers(tiers)) != null)
+	return result;
+      content.add("# copy libraries (from rarely to frequently changing)");
+      for (String tier: tiers.keySet()) {
+	if (!tiers.get(tier).isEmpty())
+	  content.add("COPY " + DOCKER_TIERS_DIR + "/" + tier + "/ /bootstrapp/" + name + "/" + (tier.equals(TIER_SOURCES) ? "src" : "lib") + "/");
+      }
+    }
+    else {
+      content.add("# copy libraries");
+      content.add("COPY " + dirPrefix + "lib/* /bootstrapp/" + name + "/lib/");
+      if (m_Sources)
+	content.add("COPY " + dirPrefix + "src/* /bootstrapp/" + name + "/src/");
+    }
+    if (isCDSShipped()) {
+      content.add("# class data sharing archive");
+      content.add("COPY " + dirPrefix + ClassDataSharing.DIR + "/ /bootstrapp/" + name + "/" + ClassDataSharing.DIR + "/");
+    }
     startScript = null;
     if (m_MainClass != null) {
       startScript = "/bootstrapp/" + name + ".sh";
@@ -1678,6 +4209,47 @@ public class Main {
     return null;
   }
 
+  /**
+   * Records the time that has passed since the start for the stage.
+   *
+   * @param stage	the stage to record the timing for
+   * @param start	the start timestamp of the stage (msec)
+   */
+  protected void addStageTiming(String stage, long start) {
+    m_StageTimings.put(stage, System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Records stage timings, artifact counts and output sizes in the history.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String recordHistory() {
+    Run		run;
+    long[]	stats;
+    long	total;
+
+    run = new Run();
+    run.timestamp = System.currentTimeMillis();
+    total         = 0;
+    for (String stage: m_StageTimings.keySet()) {
+      run.metrics.put(History.PREFIX_TIME + stage, m_StageTimings.get(stage));
+      total += m_StageTimings.get(stage);
+    }
+    run.metrics.put(History.PREFIX_TIME + "total", total);
+    for (String dir: new String[]{"lib", "src"}) {
+      stats = History.dirStats(new File(m_OutputDirMaven.getAbsolutePath() + "/" + dir));
+      run.metrics.put(History.PREFIX_COUNT + dir, stats[0]);
+      run.metrics.put(History.PREFIX_SIZE + dir, stats[1]);
+    }
+    if (m_ActMavenTimings != null) {
+      run.metrics.put(History.PREFIX_COUNT + "transfers", (long) m_ActMavenTimings.getTransfers().size());
+      run.metrics.put(History.PREFIX_SIZE + "transfers", m_ActMavenTimings.getTotalSize());
+    }
+
+    return History.record(m_Name, m_Version, run);
+  }
+
   /**
    * Performs the bootstrapping.
    *
@@ -1685,45 +4257,520 @@ public class Main {
    */
   protected String doExecute() {
     String		result;
+    long		start;
 
     // initialize
-    m_ActMavenHome   = null;
-    m_ActJavaHome    = null;
-    m_ActPomTemplate = null;
+    m_ActMavenHome      = null;
+    m_ActJavaHome       = null;
+    m_ActPomTemplate    = null;
+    m_ActGlobalSettings = null;
+    m_ActMavenTimings   = null;
+    m_ActOutput         = m_Quiet ? new OutputBuffer(m_QuietLines, m_QuietLog) : null;
+    m_ActCDS            = null;
+    m_ActRuntime        = null;
+    m_ActBandwidth      = (m_DownloadLimit > 0) ? new TokenBucket(m_DownloadLimit * 1024L) : null;
+    m_StageTimings      = new LinkedHashMap<>();
+    start               = System.currentTimeMillis();
     if ((result = initMavenHome()) != null)
       return result;
     if ((result = initJavaHome()) != null)
       return result;
     if ((result = initOutputDir()) != null)
       return result;
+    if ((result = initRepositories()) != null)
+      return result;
+    if ((result = initSettings()) != null)
+      return result;
+    if ((result = initLocalRepository()) != null)
+      return result;
+    if ((result = initPlatform()) != null)
+      return result;
+    addStageTiming("init", start);
+    start = System.currentTimeMillis();
     if ((result = initPomTemplate()) != null)
       return result;
-    if (m_Debian || m_Redhat) {
+    if (m_Offline) {
+      if ((result = checkOffline()) != null)
+	return result;
+    }
+    // packages built by Maven require the launch script beforehand
+    if (m_Redhat || (m_Debian && (m_DebianSnippet != null))) {
+      if ((m_MainClass == null) && m_DiscoverMainClass)
+	return "Main class discovery cannot be used with packages built by Maven (Redhat, Debian snippet), please supply the main class!";
       if ((result = createLaunchScript()) != null)
 	return result;
     }
+    addStageTiming("pom", start);
 
     // bootstrap application
+    start = System.currentTimeMillis();
     if ((result = executeMaven()) != null)
       return result;
+    if (m_ActLocalRepo != null) {
+      if ((result = m_ActLocalRepo.promote()) != null)
+	getLogger().warning(result);
+    }
+    if (m_ActPlatform != null)
+      prunePlatform();
+    addStageTiming("maven", start);
+    if (isSourcesInBackground()) {
+      getLogger().info("Application ready: " + listFiles(new File(m_OutputDirMaven, "lib")).size() + " jar(s) in " + new File(m_OutputDirMaven, "lib"));
+      startSources();
+    }
+    if (m_Verify) {
+      start = System.currentTimeMillis();
+      if ((result = verifyOutput(isSourcesInBackground() ? new String[]{"lib"} : Checksums.DIRS)) != null)
+	return result;
+      addStageTiming("verify", start);
+    }
 
     // main class
+    start = System.currentTimeMillis();
+    if ((m_MainClass == null) && m_DiscoverMainClass && (result = discoverMainClass()) != null)
+      return result;
+    if (m_Debian && (m_DebianSnippet == null)) {
+      if ((result = createLaunchScript()) != null)
+	return result;
+    }
+    if (m_Reachability) {
+      if ((result = analyzeReachability()) != null)
+	return result;
+      addStageTiming("reachability", start);
+      start = System.currentTimeMillis();
+    }
+    if (m_JLink) {
+      if ((result = createRuntimeImage()) != null)
+	return result;
+      addStageTiming("jlink", start);
+      start = System.currentTimeMillis();
+    }
+    if (m_CDS) {
+      if ((result = generateCDS()) != null)
+	return result;
+      addStageTiming("cds", start);
+      start = System.currentTimeMillis();
+    }
     if (getScripts() && (result = createScripts()) != null)
       return result;
-    if (getLaunch() && (result = launchMainClass()) != null)
+    addStageTiming("scripts", start);
+    if (m_Merged) {
+      start = System.currentTimeMillis();
+      if ((result = createMergedJar()) != null)
+	return result;
+      addStageTiming("merged", start);
+    }
+    if (m_Debian && (m_DebianSnippet == null)) {
+      start = System.currentTimeMillis();
+      if ((result = createDebianPackage()) != null)
+	return result;
+      addStageTiming("deb", start);
+    }
+    if (getLaunch() && !m_Watch && (result = launchMainClass()) != null)
       return result;
 
     // docker
     if (getDocker()) {
+      start = System.currentTimeMillis();
       if ((result = createDockerScript()) != null)
         return result;
       if ((result = initDockerfile()) != null)
         return result;
+      if ((m_OciBase != null) && ((result = writeOciImage()) != null))
+        return result;
+      addStageTiming("docker", start);
+    }
+
+    // history
+    if (m_History) {
+      if ((result = recordHistory()) != null)
+	getLogger().warning(result);
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the files and directories to monitor in watch mode.
+   *
+   * @return		the files/directories
+   */
+  protected List<File> getWatchedFiles() {
+    List<File>	result;
+
+    result = new ArrayList<>();
+    if (m_DependencyFiles != null)
+      result.addAll(m_DependencyFiles);
+    if (m_PomTemplate != null)
+      result.add(m_PomTemplate);
+    if (m_ExternalJars != null)
+      result.addAll(m_ExternalJars);
+    if (m_ExternalSources != null)
+      result.addAll(m_ExternalSources);
+    if (m_Debian && (m_DebianSnippet != null))
+      result.add(m_DebianSnippet);
+    if (m_Redhat && (m_RedhatSnippet != null))
+      result.add(m_RedhatSnippet);
+    if (m_Docker && (m_DockerSnippet != null))
+      result.add(m_DockerSnippet);
+
+    return result;
+  }
+
+  /**
+   * Checks whether any of the files/directories has changed.
+   *
+   * @param files	the files/directories to check, can be null
+   * @param changed	the changed files/directories (absolute)
+   * @return		true if at least one changed
+   */
+  protected boolean hasChanged(List<File> files, Set<File> changed) {
+    if (files == null)
+      return false;
+    for (File file: files) {
+      if (changed.contains(file.getAbsoluteFile()))
+	return true;
+    }
+    return false;
+  }
+
+  /**
+   * Lists the files in the directory.
+   *
+   * @param dir		the directory to list
+   * @return		the files (name - size)
+   */
+  protected Map<String,Long> listFiles(File dir) {
+    Map<String,Long>	result;
+    File[]		files;
+
+    result = new TreeMap<>();
+    files  = dir.listFiles();
+    if (files != null) {
+      for (File file: files)
+	result.put(file.getName(), file.length());
+    }
+
+    return result;
+  }
+
+  /**
+   * Deletes the directory recursively.
+   *
+   * @param dir		the directory to delete
+   */
+  protected void deleteDir(File dir) {
+    if (!dir.exists())
+      return;
+    try (Stream<Path> stream = Files.walk(dir.toPath())) {
+      stream
+	.sorted(Collections.reverseOrder())
+	.map(Path::toFile)
+	.forEach(File::delete);
+    }
+    catch (Exception e) {
+      getLogger().warning("Failed to delete directory: " + dir + "\n" + e);
+    }
+  }
+
+  /**
+   * Regenerates the outputs derived from the lib directory after it changed
+   * in watch mode, in the same order as {@link #doExecute()}: runtime image,
+   * scripts, merged jar, Debian package and docker output (start script,
+   * Dockerfile with its tiers, OCI layout). The class data sharing archive
+   * gets removed, as it requires a training run.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String regenerateOutputs() {
+    String	result;
+
+    if (m_ActRuntime != null) {
+      // the launched main class uses the runtime image
+      stopMainClass();
+      if ((result = createRuntimeImage()) != null)
+	return result;
+    }
+    if (m_ActCDS != null) {
+      deleteDir(new File(m_OutputDirMaven, ClassDataSharing.DIR));
+      m_ActCDS = null;
+      getLogger().warning("Removed outdated class data sharing archive, re-run without watch mode to regenerate it");
+    }
+    if (getScripts() && (result = createScripts()) != null)
+      return result;
+    if (m_Merged) {
+      if ((result = createMergedJar()) != null)
+	return result;
+    }
+    if (m_Debian && (m_DebianSnippet == null)) {
+      if ((result = createDebianPackage()) != null)
+	return result;
+    }
+    if (getDocker()) {
+      if ((result = createDockerScript()) != null)
+	return result;
+      if ((result = initDockerfile()) != null)
+	return result;
+      if ((m_OciBase != null) && ((result = writeOciImage()) != null))
+	return result;
+    }
+
+    return null;
+  }
+
+  /**
+   * Removes the files from the directory that are not listed.
+   *
+   * @param dir		the directory to sync
+   * @param keep	the names of the files to keep, null to keep all
+   */
+  protected void syncDir(File dir, Set<String> keep) {
+    File[]	files;
+    int		removed;
+
+    if (keep == null) {
+      getLogger().warning("No resolved artifacts available, cannot remove stale jars from: " + dir);
+      return;
+    }
+    files = dir.listFiles();
+    if (files == null)
+      return;
+    removed = 0;
+    for (File file: files) {
+      if (file.isFile() && !keep.contains(file.getName())) {
+	if (file.delete())
+	  removed++;
+	else
+	  getLogger().warning("Failed to remove stale file: " + file);
+      }
+    }
+    if (removed > 0)
+      getLogger().info("Removed " + removed + " stale file(s) from: " + dir);
+  }
+
+  /**
+   * Re-bootstraps incrementally after changes in watch mode: regenerates
+   * the POM and only executes Maven if the POM or the external jars changed
+   * (offline, if the local repository already contains all artifacts). The
+   * lib/src directories get updated in place, i.e., Maven only copies new
+   * or updated jars and the jars no longer resolved get removed afterwards
+   * (jars added by a failed Maven run get removed). If the jars in the lib directory
+   * changed (name or size), the derived outputs get regenerated and the
+   * launched main class gets restarted.
+   *
+   * @param changed	the changed files/directories (absolute)
+   * @return		null if successful, otherwise error message
+   */
+  protected String rebootstrap(Set<File> changed) {
+    String		result;
+    String		pomOld;
+    String		pomNew;
+    boolean		offline;
+    File		localRepo;
+    OfflineCheck	check;
+    List<File>		dirs;
+    List<Set<String>>	existing;
+    Map<String,Long>	before;
+    Map<String,Long>	after;
+    int			added;
+    int			removed;
+    int			updated;
+    int			i;
+    long		start;
+
+    start = System.currentTimeMillis();
+    waitForSources();
+
+    // docker snippet only affects the Dockerfile
+    if (m_Docker && (m_DockerSnippet != null) && changed.remove(m_DockerSnippet.getAbsoluteFile())) {
+      if ((result = initDockerfile()) != null)
+	return result;
+      if (changed.isEmpty())
+	return null;
+    }
+
+    // regenerate POM
+    try {
+      pomOld = m_ActPomTemplate.exists() ? new String(Files.readAllBytes(m_ActPomTemplate.toPath())) : "";
+      if ((result = initPomTemplate()) != null)
+	return result;
+      pomNew = new String(Files.readAllBytes(m_ActPomTemplate.toPath()));
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to regenerate POM: " + m_ActPomTemplate, e);
+      return "Failed to regenerate POM '" + m_ActPomTemplate + "': " + e;
+    }
+    if (pomNew.equals(pomOld) && !hasChanged(m_ExternalJars, changed) && !hasChanged(m_ExternalSources, changed)) {
+      getLogger().info("POM unchanged, nothing to do");
+      return null;
+    }
+
+    // only go online if artifacts are missing
+    offline = m_Offline;
+    if (m_Offline) {
+      if ((result = checkOffline()) != null)
+	return result;
+    }
+    else {
+      localRepo = (m_LocalRepoBase != null) ? m_LocalRepoBase : Settings.localRepository(m_MavenUserSettings, m_ActMavenHome);
+      check     = new OfflineCheck(localRepo, m_OfflineThreads);
+      try {
+	offline = (check.check(OfflineCheck.fromPom(m_ActPomTemplate)) == null) && check.getMissing().isEmpty();
+      }
+      catch (Exception e) {
+	offline = false;
+      }
+      if (!offline)
+	getLogger().info("Resolving " + check.getMissing().size() + " missing artifact(s)");
+    }
+
+    // fresh overlay, as promoting moved the new files into the base
+    if (m_ActLocalRepo != null) {
+      m_ActLocalRepo.deleteOverlay();
+      if ((result = m_ActLocalRepo.createOverlay()) != null)
+	return result;
+    }
+
+    // update lib/src in place (Maven only copies new/updated jars)
+    dirs = new ArrayList<>();
+    dirs.add(new File(m_OutputDirMaven, "lib"));
+    dirs.add(new File(m_OutputDirMaven, "src"));
+    before   = listFiles(dirs.get(0));
+    existing = new ArrayList<>();
+    for (File dir: dirs)
+      existing.add(new HashSet<>(listFiles(dir).keySet()));
+    new File(m_OutputDirMaven, Template.RESOLVED_FILE).delete();
+
+    result = executeMaven(false, offline);
+    if ((result != null) && offline && !m_Offline) {
+      getLogger().warning("Failed to bootstrap offline, retrying online");
+      result = executeMaven(false, false);
+    }
+
+    // sync lib/src
+    for (i = 0; i < dirs.size(); i++) {
+      if (result != null)
+	syncDir(dirs.get(i), existing.get(i));
+      else if ((i == 0) || m_Sources)
+	syncDir(dirs.get(i), Template.readResolved(new File(m_OutputDirMaven, Template.RESOLVED_FILE), i == 1));
+    }
+    if (result != null)
+      return result;
+    if (m_ActLocalRepo != null) {
+      if ((result = m_ActLocalRepo.promote()) != null)
+	getLogger().warning(result);
+    }
+    if (m_ActPlatform != null)
+      prunePlatform();
+    // same order as in doExecute: verify, then prune unreachable jars
+    if (m_Verify) {
+      if ((result = verifyOutput(isSourcesInBackground() ? new String[]{"lib"} : Checksums.DIRS)) != null)
+	return result;
+    }
+    if (m_Reachability) {
+      if ((result = analyzeReachability()) != null)
+	return result;
+    }
+
+    after   = listFiles(dirs.get(0));
+    added   = 0;
+    removed = 0;
+    updated = 0;
+    for (String name: after.keySet()) {
+      if (!before.containsKey(name))
+	added++;
+      else if (!before.get(name).equals(after.get(name)))
+	updated++;
+    }
+    for (String name: before.keySet()) {
+      if (!after.containsKey(name))
+	removed++;
+    }
+    getLogger().info("Re-bootstrapped in " + (System.currentTimeMillis() - start) + "ms, lib: "
+      + added + " added, " + removed + " removed, " + updated + " updated");
+    if (isSourcesInBackground())
+      startSources();
+    if (!before.equals(after)) {
+      if ((result = regenerateOutputs()) != null)
+	return result;
+    }
+
+    // restart
+    if (getLaunch() && (!before.equals(after) || (m_ActLaunched == null) || !m_ActLaunched.isAlive())) {
+      stopMainClass();
+      if ((result = startMainClass()) != null)
+	return result;
     }
 
     return null;
   }
 
+  /**
+   * Monitors the inputs and re-bootstraps incrementally on changes, until
+   * interrupted or terminated. Starts the main class in the background, if
+   * it is to be launched.
+   *
+   * @return		null if successful, otherwise error message
+   * @see		#rebootstrap(Set)
+   */
+  protected String watch() {
+    String	result;
+    List<File>	files;
+    Set<File>	changed;
+    Thread	hook;
+
+    files = getWatchedFiles();
+    if (files.isEmpty())
+      return "Nothing to watch, requires dependency files, POM template, external jars/sources or snippets!";
+
+    hook = new Thread(() -> {
+      stopMainClass();
+      cleanUp();
+    });
+    Runtime.getRuntime().addShutdownHook(hook);
+    try (FileWatcher watcher = new FileWatcher(files, m_WatchDelay)) {
+      if ((result = watcher.start()) != null)
+	return result;
+      if (getLaunch() && (result = startMainClass()) != null)
+	return result;
+      getLogger().info("Watching for changes: " + watcher.getFiles());
+      while (true) {
+	changed = watcher.waitForChanges();
+	getLogger().info("Detected changes: " + changed);
+	if ((result = rebootstrap(changed)) != null)
+	  getLogger().severe(result);
+      }
+    }
+    catch (InterruptedException e) {
+      return null;
+    }
+    finally {
+      stopMainClass();
+      try {
+	Runtime.getRuntime().removeShutdownHook(hook);
+      }
+      catch (IllegalStateException e) {
+	// already shutting down
+      }
+    }
+  }
+
+  /**
+   * Releases resources that were acquired during bootstrapping, e.g.,
+   * stops the embedded proxy.
+   */
+  protected void cleanUp() {
+    if (m_ActLocalRepo != null) {
+      m_ActLocalRepo.deleteOverlay();
+      m_ActLocalRepo = null;
+    }
+    if (m_ActOutput != null)
+      m_ActOutput.close();
+    if (m_ActProxy != null) {
+      m_ActProxy.stop();
+      m_ActProxy = null;
+    }
+  }
+
   /**
    * Performs the bootstrapping.
    *
@@ -1732,7 +4779,15 @@ public class Main {
   public String execute() {
     String		result;
 
-    result = doExecute();
+    try {
+      result = doExecute();
+      if ((result == null) && m_Watch)
+	result = watch();
+    }
+    finally {
+      waitForSources();
+      cleanUp();
+    }
     if (result != null)
       getLogger().severe(result);
 
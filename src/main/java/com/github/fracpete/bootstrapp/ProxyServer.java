@@ -0,0 +1,398 @@
+/*
+ * ProxyServer.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp;
+
+import com.github.fracpete.bootstrapp.core.CachingProxy;
+import com.github.fracpete.bootstrapp.core.TokenBucket;
+import com.github.fracpete.simpleargparse4j.ArgumentParser;
+import com.github.fracpete.simpleargparse4j.ArgumentParserException;
+import com.github.fracpete.simpleargparse4j.Namespace;
+import com.github.fracpete.simpleargparse4j.Option.Type;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Runs a caching proxy for Maven repositories that can be shared by all
+ * bootstraps on a host (see --proxy_url in Main).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ProxyServer {
+
+  /** the default port. */
+  public final static int DEFAULT_PORT = 8765;
+
+  /** the port to listen on. */
+  protected int m_Port;
+
+  /** the cache directory. */
+  protected File m_CacheDir;
+
+  /** the maximum cache size in MB. */
+  protected int m_CacheSize;
+
+  /** the repositories. */
+  protected List<String> m_Repositories;
+
+  /** the download limit in kB/s (0 = unlimited). */
+  protected int m_DownloadLimit;
+
+  /** the maximum number of concurrent connections per repository (0 = unlimited). */
+  protected int m_MaxConnections;
+
+  /** the proxy. */
+  protected transient CachingProxy m_Proxy;
+
+  /** for logging. */
+  protected Logger m_Logger;
+
+  /** whether help got requested. */
+  protected boolean m_HelpRequested;
+
+  /**
+   * Initializes the object.
+   */
+  public ProxyServer() {
+    initialize();
+  }
+
+  /**
+   * Initializes the members.
+   */
+  protected void initialize() {
+    m_Port           = DEFAULT_PORT;
+    m_CacheDir       = null;
+    m_CacheSize      = CachingProxy.DEFAULT_CACHE_SIZE;
+    m_Repositories   = null;
+    m_DownloadLimit  = 0;
+    m_MaxConnections = 0;
+    m_Logger         = null;
+    m_HelpRequested  = false;
+  }
+
+  /**
+   * Returns the logger instance to use.
+   *
+   * @return		the logger
+   */
+  protected Logger getLogger() {
+    if (m_Logger == null)
+      m_Logger = Logger.getLogger(getClass().getName());
+    return m_Logger;
+  }
+
+  /**
+   * Sets the port to listen on.
+   *
+   * @param port	the port
+   * @return		itself
+   */
+  public ProxyServer port(int port) {
+    m_Port = port;
+    return this;
+  }
+
+  /**
+   * Returns the port to listen on.
+   *
+   * @return		the port
+   */
+  public int getPort() {
+    return m_Port;
+  }
+
+  /**
+   * Sets the cache directory.
+   *
+   * @param dir		the directory, null for default
+   * @return		itself
+   */
+  public ProxyServer cacheDir(File dir) {
+    m_CacheDir = dir;
+    return this;
+  }
+
+  /**
+   * Returns the cache directory.
+   *
+   * @return		the directory, null for default
+   */
+  public File getCacheDir() {
+    return m_CacheDir;
+  }
+
+  /**
+   * Sets the maximum cache size.
+   *
+   * @param size	the size in MB
+   * @return		itself
+   */
+  public ProxyServer cacheSize(int size) {
+    m_CacheSize = size;
+    return this;
+  }
+
+  /**
+   * Returns the maximum cache size.
+   *
+   * @return		the size in MB
+   */
+  public int getCacheSize() {
+    return m_CacheSize;
+  }
+
+  /**
+   * Sets the repositories to proxy (in addition to Maven Central).
+   *
+   * @param repositories	the repositories, can be null
+   * @return		itself
+   */
+  public ProxyServer repositories(List<String> repositories) {
+    m_Repositories = repositories;
+    return this;
+  }
+
+  /**
+   * Sets the repositories to proxy (in addition to Maven Central).
+   *
+   * @param repositories	the repositories, can be null
+   * @return		itself
+   */
+  public ProxyServer repositories(String... repositories) {
+    if (repositories != null)
+      m_Repositories = new ArrayList<>(Arrays.asList(repositories));
+    else
+      m_Repositories = null;
+    return this;
+  }
+
+  /**
+   * Returns the repositories.
+   *
+   * @return		the repositories, can be null
+   */
+  public List<String> getRepositories() {
+    return m_Repositories;
+  }
+
+  /**
+   * Sets the limit for the total download bandwidth.
+   *
+   * @param limit	the limit in kB/s, 0 for unlimited
+   * @return		itself
+   */
+  public ProxyServer downloadLimit(int limit) {
+    m_DownloadLimit = limit;
+    return this;
+  }
+
+  /**
+   * Returns the limit for the total download bandwidth.
+   *
+   * @return		the limit in kB/s, 0 for unlimited
+   */
+  public int getDownloadLimit() {
+    return m_DownloadLimit;
+  }
+
+  /**
+   * Sets the maximum number of concurrent connections per repository.
+   *
+   * @param max		the maximum, 0 for unlimited
+   * @return		itself
+   */
+  public ProxyServer maxConnections(int max) {
+    m_MaxConnections = max;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of concurrent connections per repository.
+   *
+   * @return		the maximum, 0 for unlimited
+   */
+  public int getMaxConnections() {
+    return m_MaxConnections;
+  }
+
+  /**
+   * Configures and returns the commandline parser.
+   *
+   * @return		the parser
+   */
+  protected ArgumentParser getParser() {
+    ArgumentParser 		parser;
+
+    parser = new ArgumentParser("Caching proxy for Maven repositories, to be shared by bootstrapp runs.");
+    parser.addOption("-p", "--port")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(DEFAULT_PORT)
+      .dest("port")
+      .metaVar("PORT")
+      .help("The port to listen on (localhost only).");
+    parser.addOption("-c", "--cache_dir")
+      .required(false)
+      .type(Type.DIRECTORY)
+      .dest("cache_dir")
+      .metaVar("DIR")
+      .help("The directory for caching the artifacts; default is below the bootstrapp home directory.");
+    parser.addOption("-s", "--cache_size")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(CachingProxy.DEFAULT_CACHE_SIZE)
+      .dest("cache_size")
+      .metaVar("MB")
+      .help("The maximum size of the cache, least recently used artifacts get evicted.");
+    parser.addOption("-r", "--repository")
+      .required(false)
+      .multiple(true)
+      .dest("repositories")
+      .metaVar("REPOSITORY")
+      .help("The maven repository to proxy in addition to Maven Central (id;name;url), e.g.: bedatadriven;bedatadriven public repo;https://nexus.bedatadriven.com/content/groups/public/");
+    parser.addOption("-l", "--download_limit")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(0)
+      .dest("download_limit")
+      .metaVar("KB_PER_SEC")
+      .help("The limit for the total download bandwidth from the repositories in kB/s; 0 for unlimited.");
+    parser.addOption("-m", "--max_connections")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(0)
+      .dest("max_connections")
+      .metaVar("NUM")
+      .help("The maximum number of concurrent connections per repository; 0 for unlimited.");
+
+    return parser;
+  }
+
+  /**
+   * Sets the parsed options.
+   *
+   * @param ns		the parsed options
+   * @return		if successfully set
+   */
+  protected boolean setOptions(Namespace ns) {
+    port(ns.getInt("port"));
+    cacheDir(ns.getFile("cache_dir"));
+    cacheSize(ns.getInt("cache_size"));
+    repositories(ns.getList("repositories"));
+    downloadLimit(ns.getInt("download_limit"));
+    maxConnections(ns.getInt("max_connections"));
+    return true;
+  }
+
+  /**
+   * Returns whether help got requested when setting the options.
+   *
+   * @return		true if help got requested
+   */
+  public boolean getHelpRequested() {
+    return m_HelpRequested;
+  }
+
+  /**
+   * Parses the options and configures the object.
+   *
+   * @param options	the command-line options
+   * @return		true if successfully set (or help requested)
+   */
+  public boolean setOptions(String[] options) {
+    ArgumentParser 	parser;
+    Namespace 		ns;
+
+    m_HelpRequested = false;
+    parser          = getParser();
+    try {
+      ns = parser.parseArgs(options);
+    }
+    catch (ArgumentParserException e) {
+      parser.handleError(e);
+      m_HelpRequested = parser.getHelpRequested();
+      return m_HelpRequested;
+    }
+
+    return setOptions(ns);
+  }
+
+  /**
+   * Starts the proxy.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public String start() {
+    String	result;
+    File	cacheDir;
+
+    cacheDir = (m_CacheDir == null) ? CachingProxy.defaultCacheDir() : m_CacheDir;
+    m_Proxy  = new CachingProxy(CachingProxy.upstream(m_Repositories), cacheDir, m_CacheSize);
+    m_Proxy.setMaxConnections(m_MaxConnections);
+    if (m_DownloadLimit > 0)
+      m_Proxy.setBandwidth(new TokenBucket(m_DownloadLimit * 1024L));
+    result   = m_Proxy.start(m_Port);
+    if (result != null) {
+      getLogger().severe(result);
+      m_Proxy = null;
+    }
+
+    return result;
+  }
+
+  /**
+   * Stops the proxy.
+   */
+  public void stop() {
+    if (m_Proxy != null) {
+      m_Proxy.stop();
+      m_Proxy = null;
+    }
+  }
+
+  /**
+   * Returns the URL of the proxy.
+   *
+   * @return		the URL, null if not running
+   */
+  public String getURL() {
+    if (m_Proxy == null)
+      return null;
+    return m_Proxy.getURL();
+  }
+
+  /**
+   * Runs the proxy with the specified command-line arguments until the
+   * process gets terminated.
+   *
+   * @param args	the options to use
+   * @throws Exception	if interrupted
+   */
+  public static void main(String[] args) throws Exception {
+    final ProxyServer server = new ProxyServer();
+
+    if (!server.setOptions(args)) {
+      System.err.println("Failed to parse options!");
+      System.exit(1);
+    }
+    else if (server.getHelpRequested()) {
+      System.exit(0);
+    }
+
+    String result = server.start();
+    if (result != null) {
+      System.err.println("Failed to start proxy:\n" + result);
+      System.exit(2);
+    }
+    Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+    System.out.println("Use the following with bootstrapp: --proxy_url " + server.getURL());
+    Thread.currentThread().join();
+  }
+}
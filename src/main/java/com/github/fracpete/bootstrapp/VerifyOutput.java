@@ -0,0 +1,381 @@
+/*
+ * VerifyOutput.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp;
+
+import com.github.fracpete.bootstrapp.core.Checksums;
+import com.github.fracpete.bootstrapp.core.Settings;
+import com.github.fracpete.simpleargparse4j.ArgumentParser;
+import com.github.fracpete.simpleargparse4j.ArgumentParserException;
+import com.github.fracpete.simpleargparse4j.Namespace;
+import com.github.fracpete.simpleargparse4j.Option.Type;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Verifies the integrity of the bootstrapped artifacts (lib/src directories),
+ * e.g., after copying the output to another machine. The files get hashed in
+ * parallel and compared against the manifest recorded by bootstrapp (see
+ * --verify in Main) or, if not available, the checksums in the local
+ * repository.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class VerifyOutput {
+
+  /** the directory with the lib/src directories. */
+  protected File m_Dir;
+
+  /** the manifest to compare against. */
+  protected File m_Manifest;
+
+  /** the local repository to compare against. */
+  protected File m_LocalRepo;
+
+  /** whether to write the manifest. */
+  protected boolean m_WriteManifest;
+
+  /** the number of threads. */
+  protected int m_Threads;
+
+  /** the mismatches. */
+  protected transient List<String> m_Mismatches;
+
+  /** for logging. */
+  protected Logger m_Logger;
+
+  /** whether help got requested. */
+  protected boolean m_HelpRequested;
+
+  /**
+   * Initializes the object.
+   */
+  public VerifyOutput() {
+    initialize();
+  }
+
+  /**
+   * Initializes the members.
+   */
+  protected void initialize() {
+    m_Dir           = null;
+    m_Manifest      = null;
+    m_LocalRepo     = null;
+    m_WriteManifest = false;
+    m_Threads       = -1;
+    m_Mismatches    = new ArrayList<>();
+    m_Logger        = null;
+    m_HelpRequested = false;
+  }
+
+  /**
+   * Returns the logger instance to use.
+   *
+   * @return		the logger
+   */
+  protected Logger getLogger() {
+    if (m_Logger == null)
+      m_Logger = Logger.getLogger(getClass().getName());
+    return m_Logger;
+  }
+
+  /**
+   * Sets the directory with the lib/src directories.
+   *
+   * @param dir		the directory
+   * @return		itself
+   */
+  public VerifyOutput dir(File dir) {
+    m_Dir = dir;
+    return this;
+  }
+
+  /**
+   * Returns the directory with the lib/src directories.
+   *
+   * @return		the directory
+   */
+  public File getDir() {
+    return m_Dir;
+  }
+
+  /**
+   * Sets the manifest to compare against.
+   *
+   * @param manifest	the manifest, null for the one in the directory (if present)
+   * @return		itself
+   */
+  public VerifyOutput manifest(File manifest) {
+    m_Manifest = manifest;
+    return this;
+  }
+
+  /**
+   * Returns the manifest to compare against.
+   *
+   * @return		the manifest, null for the one in the directory (if present)
+   */
+  public File getManifest() {
+    return m_Manifest;
+  }
+
+  /**
+   * Sets the local repository to compare against.
+   *
+   * @param dir		the repository, null for the default one if no manifest available
+   * @return		itself
+   */
+  public VerifyOutput localRepo(File dir) {
+    m_LocalRepo = dir;
+    return this;
+  }
+
+  /**
+   * Returns the local repository to compare against.
+   *
+   * @return		the repository, null for the default one if no manifest available
+   */
+  public File getLocalRepo() {
+    return m_LocalRepo;
+  }
+
+  /**
+   * Sets whether to write the manifest if verification was successful.
+   *
+   * @param write	true if to write
+   * @return		itself
+   */
+  public VerifyOutput writeManifest(boolean write) {
+    m_WriteManifest = write;
+    return this;
+  }
+
+  /**
+   * Returns whether to write the manifest if verification was successful.
+   *
+   * @return		true if to write
+   */
+  public boolean getWriteManifest() {
+    return m_WriteManifest;
+  }
+
+  /**
+   * Sets the number of threads to use for hashing.
+   *
+   * @param threads	the number of threads, -1 for number of CPUs
+   * @return		itself
+   */
+  public VerifyOutput threads(int threads) {
+    m_Threads = threads;
+    return this;
+  }
+
+  /**
+   * Returns the number of threads to use for hashing.
+   *
+   * @return		the number of threads, -1 for number of CPUs
+   */
+  public int getThreads() {
+    return m_Threads;
+  }
+
+  /**
+   * Returns the mismatches of the last verification.
+   *
+   * @return		the mismatches
+   */
+  public List<String> getMismatches() {
+    return m_Mismatches;
+  }
+
+  /**
+   * Configures and returns the commandline parser.
+   *
+   * @return		the parser
+   */
+  protected ArgumentParser getParser() {
+    ArgumentParser 		parser;
+
+    parser = new ArgumentParser("Verifies the checksums of the bootstrapped artifacts in the lib/src directories.");
+    parser.addOption("-d", "--dir")
+      .required(true)
+      .type(Type.EXISTING_DIR)
+      .dest("dir")
+      .metaVar("DIR")
+      .help("The directory with the lib/src directories, e.g., the 'target' directory of the output.");
+    parser.addOption("-m", "--manifest")
+      .required(false)
+      .type(Type.FILE)
+      .dest("manifest")
+      .metaVar("FILE")
+      .help("The manifest to compare against; default is " + Checksums.MANIFEST_FILE + " in the directory (if present).");
+    parser.addOption("-r", "--local_repo")
+      .required(false)
+      .type(Type.EXISTING_DIR)
+      .dest("local_repo")
+      .metaVar("DIR")
+      .help("The local repository to compare against; default is the one Maven uses, if no manifest is available.");
+    parser.addOption("-w", "--write_manifest")
+      .type(Type.BOOLEAN)
+      .setDefault(false)
+      .dest("write_manifest")
+      .help("If enabled, the manifest gets (re-)written after successful verification.");
+    parser.addOption("-t", "--threads")
+      .required(false)
+      .type(Type.INTEGER)
+      .setDefault(-1)
+      .dest("threads")
+      .metaVar("NUM")
+      .help("The number of threads to use for hashing, -1 for number of CPUs.");
+
+    return parser;
+  }
+
+  /**
+   * Sets the parsed options.
+   *
+   * @param ns		the parsed options
+   * @return		if successfully set
+   */
+  protected boolean setOptions(Namespace ns) {
+    dir(ns.getFile("dir"));
+    manifest(ns.getFile("manifest"));
+    localRepo(ns.getFile("local_repo"));
+    writeManifest(ns.getBoolean("write_manifest"));
+    threads(ns.getInt("threads"));
+    return true;
+  }
+
+  /**
+   * Returns whether help got requested when setting the options.
+   *
+   * @return		true if help got requested
+   */
+  public boolean getHelpRequested() {
+    return m_HelpRequested;
+  }
+
+  /**
+   * Parses the options and configures the object.
+   *
+   * @param options	the command-line options
+   * @return		true if successfully set (or help requested)
+   */
+  public boolean setOptions(String[] options) {
+    ArgumentParser 	parser;
+    Namespace 		ns;
+
+    m_HelpRequested = false;
+    parser          = getParser();
+    try {
+      ns = parser.parseArgs(options);
+    }
+    catch (ArgumentParserException e) {
+      parser.handleError(e);
+      m_HelpRequested = parser.getHelpRequested();
+      return m_HelpRequested;
+    }
+
+    return setOptions(ns);
+  }
+
+  /**
+   * Performs the verification and outputs the mismatches.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String doExecute() {
+    Checksums			checksums;
+    List<Checksums.Result>	hashes;
+    File			manifest;
+    File			localRepo;
+
+    if (m_Dir == null)
+      return "No directory provided!";
+
+    manifest = m_Manifest;
+    if ((manifest == null) && new File(m_Dir, Checksums.MANIFEST_FILE).exists())
+      manifest = new File(m_Dir, Checksums.MANIFEST_FILE);
+    if ((manifest != null) && !manifest.exists()) {
+      if (!m_WriteManifest)
+	return "Manifest does not exist: " + manifest;
+      manifest = null;
+    }
+    localRepo = m_LocalRepo;
+    if ((localRepo == null) && (manifest == null))
+      localRepo = Settings.localRepository(null, null);
+
+    checksums = new Checksums(m_Threads);
+    try {
+      hashes = checksums.verify(m_Dir, manifest, localRepo, Checksums.DIRS);
+    }
+    catch (Exception e) {
+      return "Failed to verify " + m_Dir + ": " + e;
+    }
+    m_Mismatches = checksums.getMismatches();
+
+    System.out.println("Files: " + hashes.size());
+    System.out.println("Verified: " + checksums.getVerified());
+    System.out.println("Without checksum: " + checksums.getUnverified());
+    if (m_Mismatches.isEmpty()) {
+      System.out.println("No mismatches.");
+    }
+    else {
+      System.out.println("Mismatches:");
+      for (String mismatch: m_Mismatches)
+	System.out.println("  " + mismatch);
+    }
+
+    if (m_WriteManifest && m_Mismatches.isEmpty())
+      return Checksums.writeManifest((m_Manifest != null) ? m_Manifest : new File(m_Dir, Checksums.MANIFEST_FILE), hashes);
+
+    return null;
+  }
+
+  /**
+   * Performs the verification.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public String execute() {
+    String		result;
+
+    m_Mismatches = new ArrayList<>();
+    result       = doExecute();
+    if (result != null)
+      getLogger().severe(result);
+
+    return result;
+  }
+
+  /**
+   * Executes the verification with the specified command-line arguments.
+   * Exits with 3 if mismatches were detected.
+   *
+   * @param args	the options to use
+   */
+  public static void main(String[] args) {
+    VerifyOutput verify = new VerifyOutput();
+
+    if (!verify.setOptions(args)) {
+      System.err.println("Failed to parse options!");
+      System.exit(1);
+    }
+    else if (verify.getHelpRequested()) {
+      System.exit(0);
+    }
+
+    String result = verify.execute();
+    if (result != null) {
+      System.err.println("Failed to verify output:\n" + result);
+      System.exit(2);
+    }
+    if (!verify.getMismatches().isEmpty())
+      System.exit(3);
+  }
+}
@@ -0,0 +1,466 @@
+/*
+ * Bundle.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Self-contained cache bundle (zip file) for air-gapped nodes, containing
+ * the Maven distribution, the artifacts of the local repository and the
+ * resolved metadata (version cache). The first entry is the index with the
+ * SHA-256 checksum, size, unix mode and path of all the other entries
+ * (tab-separated), so that importing only requires a single sequential read,
+ * with the checksum verification and writing of the files happening in
+ * parallel. Already compressed files (jar, zip, etc) get stored rather than
+ * deflated.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Bundle {
+
+  /** the name of the index entry. */
+  public final static String INDEX_FILE = "bootstrapp-bundle.index";
+
+  /** the prefix for the Maven distribution. */
+  public final static String PREFIX_MAVEN = "maven/";
+
+  /** the prefix for the local repository. */
+  public final static String PREFIX_REPOSITORY = "repository/";
+
+  /** the prefix for the metadata. */
+  public final static String PREFIX_METADATA = "metadata/";
+
+  /** the extensions of files that get stored rather than deflated. */
+  public final static String[] STORED_EXTENSIONS = {".jar", ".zip", ".war", ".gz", ".tgz", ".bz2", ".xz"};
+
+  /** the maximum number of kB of file content held in memory while importing. */
+  public final static int MAX_BUFFERED = 256 * 1024;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(Bundle.class.getName());
+
+  /**
+   * Container for an entry of the index.
+   */
+  public static class Entry {
+
+    /** the path in the bundle. */
+    public String path;
+
+    /** the size in bytes. */
+    public long size;
+
+    /** the unix mode. */
+    public int mode;
+
+    /** the SHA-256 checksum. */
+    public String sha256;
+
+    /** the file to add (when exporting). */
+    public transient File file;
+
+    /**
+     * Returns the line for the index.
+     *
+     * @return		the line
+     */
+    public String toLine() {
+      return sha256 + "\t" + size + "\t" + Integer.toOctalString(mode) + "\t" + path;
+    }
+
+    /**
+     * Parses the line from the index.
+     *
+     * @param line	the line to parse
+     * @return		the entry, null if invalid
+     */
+    public static Entry parse(String line) {
+      Entry	result;
+      String[]	parts;
+
+      parts = line.split("\t", 4);
+      if (parts.length != 4)
+	return null;
+      result        = new Entry();
+      result.sha256 = parts[0];
+      result.size   = Long.parseLong(parts[1]);
+      result.mode   = Integer.parseInt(parts[2], 8);
+      result.path   = parts[3];
+
+      return result;
+    }
+  }
+
+  /** the bundle file. */
+  protected File m_File;
+
+  /** the number of threads to use. */
+  protected int m_Threads;
+
+  /**
+   * Initializes the bundle.
+   *
+   * @param file	the bundle file
+   * @param threads	the number of threads for hashing/writing files
+   */
+  public Bundle(File file, int threads) {
+    m_File    = file;
+    m_Threads = Math.max(1, threads);
+  }
+
+  /**
+   * Returns the bundle file.
+   *
+   * @return		the file
+   */
+  public File getFile() {
+    return m_File;
+  }
+
+  /**
+   * Adds all the files below the directory as entries.
+   *
+   * @param dir		the directory to add
+   * @param prefix	the prefix for the paths in the bundle
+   * @param entries	the entries to add to
+   * @throws Exception	if listing fails
+   */
+  protected static void collect(File dir, String prefix, List<Entry> entries) throws Exception {
+    final Path	root;
+    List<Path>	files;
+    Entry	entry;
+
+    root = dir.getAbsoluteFile().toPath();
+    try (Stream<Path> stream = Files.walk(root)) {
+      files = stream
+	.filter(Files::isRegularFile)
+	.filter(p -> !p.startsWith(root.resolve(LocalRepository.LOCK_DIR)))
+	.filter(p -> !LocalRepository.isIgnored(p.getFileName().toString()))
+	.sorted()
+	.collect(Collectors.toList());
+    }
+    for (Path file: files) {
+      entry      = new Entry();
+      entry.path = prefix + root.relativize(file).toString().replace(File.separatorChar, '/');
+      entry.file = file.toFile();
+      entry.size = entry.file.length();
+      entry.mode = entry.file.canExecute() ? 0755 : 0644;
+      entries.add(entry);
+    }
+  }
+
+  /**
+   * Returns whether the file gets stored rather than deflated.
+   *
+   * @param path	the path to check
+   * @return		true if to store
+   */
+  protected static boolean isStored(String path) {
+    for (String ext: STORED_EXTENSIONS) {
+      if (path.endsWith(ext))
+	return true;
+    }
+    return false;
+  }
+
+  /**
+   * Computes the checksums of the entries in parallel.
+   *
+   * @param entries	the entries to process
+   * @throws Exception	if hashing fails
+   */
+  protected void hash(List<Entry> entries) throws Exception {
+    ExecutorService	executor;
+    List<Future<?>>	futures;
+
+    executor = Executors.newFixedThreadPool(m_Threads);
+    futures  = new ArrayList<>();
+    try {
+      for (final Entry entry: entries) {
+	futures.add(executor.submit(() -> {
+	  try (InputStream in = new FileInputStream(entry.file)) {
+	    entry.sha256 = DigestUtils.sha256Hex(in);
+	  }
+	  return null;
+	}));
+      }
+      for (Future<?> future: futures)
+	future.get();
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Writes the bundle.
+   *
+   * @param mavenHome		the Maven distribution to include, null to skip
+   * @param repository		the local repository to include, null to skip
+   * @param versionCache	the version cache to include, null to skip
+   * @return			null if successful, otherwise error message
+   */
+  public String export(File mavenHome, File repository, File versionCache) {
+    List<Entry>		entries;
+    Entry		entry;
+    StringBuilder	index;
+    ZipArchiveEntry	zipEntry;
+    byte[]		data;
+    long		start;
+    long		total;
+
+    start   = System.currentTimeMillis();
+    entries = new ArrayList<>();
+    try {
+      if ((mavenHome != null) && mavenHome.isDirectory())
+	collect(mavenHome, PREFIX_MAVEN, entries);
+      if ((repository != null) && repository.isDirectory())
+	collect(repository, PREFIX_REPOSITORY, entries);
+      if ((versionCache != null) && versionCache.exists()) {
+	entry      = new Entry();
+	entry.path = PREFIX_METADATA + VersionCache.CACHE_FILE;
+	entry.file = versionCache.getAbsoluteFile();
+	entry.size = entry.file.length();
+	entry.mode = 0644;
+	entries.add(entry);
+      }
+      hash(entries);
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to collect files for bundle: " + m_File, e);
+      return "Failed to collect files for bundle '" + m_File + "': " + e;
+    }
+
+    index = new StringBuilder();
+    total = 0;
+    for (Entry e: entries) {
+      index.append(e.toLine()).append("\n");
+      total += e.size;
+    }
+
+    try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(m_File)) {
+      data     = index.toString().getBytes(StandardCharsets.UTF_8);
+      zipEntry = new ZipArchiveEntry(INDEX_FILE);
+      zipEntry.setSize(data.length);
+      out.putArchiveEntry(zipEntry);
+      out.write(data);
+      out.closeArchiveEntry();
+      for (Entry e: entries) {
+	zipEntry = new ZipArchiveEntry(e.path);
+	zipEntry.setSize(e.size);
+	zipEntry.setUnixMode(e.mode);
+	zipEntry.setTime(e.file.lastModified());
+	zipEntry.setMethod(isStored(e.path) ? ZipEntry.STORED : ZipEntry.DEFLATED);
+	out.putArchiveEntry(zipEntry);
+	Files.copy(e.file.toPath(), out);
+	out.closeArchiveEntry();
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to write bundle: " + m_File, e);
+      m_File.delete();
+      return "Failed to write bundle '" + m_File + "': " + e;
+    }
+
+    LOGGER.info("Exported " + entries.size() + " files (" + total + " bytes) to " + m_File
+      + " (" + (System.currentTimeMillis() - start) + "ms)");
+
+    return null;
+  }
+
+  /**
+   * Reads the content of the current entry.
+   *
+   * @param in		the stream to read from
+   * @return		the content
+   * @throws Exception	if reading fails
+   */
+  protected static byte[] read(InputStream in) throws Exception {
+    ByteArrayOutputStream	out;
+    byte[]			buffer;
+    int				len;
+
+    out    = new ByteArrayOutputStream();
+    buffer = new byte[8192];
+    while ((len = in.read(buffer)) > 0)
+      out.write(buffer, 0, len);
+
+    return out.toByteArray();
+  }
+
+  /**
+   * Returns the destination for the path in the bundle.
+   *
+   * @param path	the path in the bundle
+   * @param mavenHome	the directory for the Maven distribution
+   * @param repository	the local repository
+   * @return		the destination, null if not supported
+   */
+  protected static File target(String path, File mavenHome, File repository) {
+    if (path.startsWith("/") || path.contains("\\") || ("/" + path + "/").contains("/../"))
+      return null;
+    if (path.startsWith(PREFIX_MAVEN))
+      return new File(mavenHome, path.substring(PREFIX_MAVEN.length()));
+    if (path.startsWith(PREFIX_REPOSITORY))
+      return new File(repository, path.substring(PREFIX_REPOSITORY.length()));
+    return null;
+  }
+
+  /**
+   * Verifies the content and writes it atomically to the destination.
+   *
+   * @param entry	the index entry
+   * @param data	the content
+   * @param file	the destination
+   * @throws Exception	if verification or writing fails
+   */
+  protected static void write(Entry entry, byte[] data, File file) throws Exception {
+    Path	tmp;
+
+    if ((data.length != entry.size) || !DigestUtils.sha256Hex(data).equals(entry.sha256))
+      throw new IllegalStateException("Checksum mismatch");
+    Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+    tmp = file.toPath().resolveSibling(file.getName() + "." + Thread.currentThread().getId() + ".part");
+    Files.write(tmp, data);
+    if ((entry.mode & 0100) != 0)
+      tmp.toFile().setExecutable(true);
+    LocalRepository.moveAtomically(tmp, file.toPath());
+  }
+
+  /**
+   * Reads the bundle sequentially and writes the verified files in parallel
+   * to their destinations. The metadata gets merged into the version cache.
+   *
+   * @param mavenHome		the directory for the Maven distribution
+   * @param repository		the local repository
+   * @param versionCache	the version cache to merge the metadata into
+   * @return			null if successful, otherwise error message
+   */
+  public String extract(File mavenHome, File repository, VersionCache versionCache) {
+    Map<String,Entry>		index;
+    Entry			entry;
+    ZipArchiveEntry		zipEntry;
+    final List<String>		errors;
+    final Semaphore		buffered;
+    ExecutorService		executor;
+    List<Future<?>>		futures;
+    byte[]			data;
+    File			file;
+    File			metadata;
+    int				permits;
+    long			start;
+    long			total;
+
+    start    = System.currentTimeMillis();
+    index    = new LinkedHashMap<>();
+    errors   = Collections.synchronizedList(new ArrayList<>());
+    buffered = new Semaphore(MAX_BUFFERED);
+    futures  = new ArrayList<>();
+    metadata = null;
+    total    = 0;
+    executor = Executors.newFixedThreadPool(m_Threads);
+    try (ZipArchiveInputStream in = new ZipArchiveInputStream(new BufferedInputStream(new FileInputStream(m_File)))) {
+      zipEntry = in.getNextEntry();
+      if ((zipEntry == null) || !zipEntry.getName().equals(INDEX_FILE))
+	return "Not a bootstrapp bundle (index missing): " + m_File;
+      for (String line: new String(read(in), StandardCharsets.UTF_8).split("\n")) {
+	if (line.isEmpty())
+	  continue;
+	entry = Entry.parse(line);
+	if (entry == null)
+	  return "Invalid line in index of bundle " + m_File + ": " + line;
+	index.put(entry.path, entry);
+      }
+
+      while ((zipEntry = in.getNextEntry()) != null) {
+	if (zipEntry.isDirectory())
+	  continue;
+	final Entry fEntry = index.remove(zipEntry.getName());
+	if (fEntry == null) {
+	  errors.add(zipEntry.getName() + ": not in index");
+	  continue;
+	}
+	if (fEntry.path.equals(PREFIX_METADATA + VersionCache.CACHE_FILE)) {
+	  data     = read(in);
+	  metadata = File.createTempFile("bootstrapp-", "-" + VersionCache.CACHE_FILE);
+	  write(fEntry, data, metadata);
+	  continue;
+	}
+	final File fFile = target(fEntry.path, mavenHome, repository);
+	if (fFile == null) {
+	  errors.add(fEntry.path + ": unsupported location");
+	  continue;
+	}
+	// limit the amount of content waiting to be written
+	permits = (int) Math.min(MAX_BUFFERED, fEntry.size / 1024 + 1);
+	buffered.acquire(permits);
+	final int fPermits = permits;
+	final byte[] fData = read(in);
+	total += fData.length;
+	futures.add(executor.submit(() -> {
+	  try {
+	    write(fEntry, fData, fFile);
+	  }
+	  catch (Exception e) {
+	    errors.add(fEntry.path + ": " + e);
+	  }
+	  finally {
+	    buffered.release(fPermits);
+	  }
+	}));
+      }
+      for (Future<?> future: futures)
+	future.get();
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to import bundle: " + m_File, e);
+      return "Failed to import bundle '" + m_File + "': " + e;
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    if (metadata != null) {
+      versionCache.merge(metadata);
+      metadata.delete();
+    }
+    for (String path: index.keySet())
+      errors.add(path + ": missing from bundle");
+    if (!errors.isEmpty())
+      return "Failed to import bundle " + m_File + ":\n" + String.join("\n", errors);
+
+    LOGGER.info("Imported " + futures.size() + " files (" + total + " bytes) from " + m_File
+      + " (" + (System.currentTimeMillis() - start) + "ms)");
+
+    return null;
+  }
+}
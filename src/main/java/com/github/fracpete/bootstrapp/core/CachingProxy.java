@@ -0,0 +1,508 @@
+/*
+ * CachingProxy.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caching HTTP proxy for Maven repositories, to be used as mirror. Requests
+ * get resolved against the upstream repositories in order, with concurrent
+ * requests for the same file collapsed into a single fetch. Artifacts are
+ * kept in a disk cache with size-bounded LRU eviction, metadata files
+ * (maven-metadata.xml) and snapshots are always fetched from upstream.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class CachingProxy
+  implements HttpHandler {
+
+  /** the name of the cache directory. */
+  public final static String CACHE_DIR = "proxy-cache";
+
+  /** the URL of Maven Central. */
+  public final static String CENTRAL_URL = "https://repo.maven.apache.org/maven2/";
+
+  /** the ID of the mirror. */
+  public final static String MIRROR_ID = "bootstrapp-proxy";
+
+  /** the default maximum cache size in MB. */
+  public final static int DEFAULT_CACHE_SIZE = 10 * 1024;
+
+  /** the timeout for upstream connections in msec. */
+  public final static int TIMEOUT = 30000;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(CachingProxy.class.getName());
+
+  /** the upstream repository URLs (ending in "/"). */
+  protected List<String> m_Upstream;
+
+  /** the cache directory. */
+  protected File m_CacheDir;
+
+  /** the maximum size of the cache in bytes. */
+  protected long m_MaxSize;
+
+  /** the cached files in LRU order (path - size). */
+  protected LinkedHashMap<String,Long> m_Cached;
+
+  /** the current size of the cache in bytes. */
+  protected long m_Size;
+
+  /** the fetches in progress (path - file). */
+  protected Map<String,CompletableFuture<File>> m_InFlight;
+
+  /** the limits for concurrent connections per upstream repository (URL - semaphore), empty if unlimited. */
+  protected Map<String,Semaphore> m_Connections;
+
+  /** the bandwidth limit for upstream downloads, null if unlimited. */
+  protected TokenBucket m_Bandwidth;
+
+  /** the user settings to obtain the HTTP proxy from. */
+  protected File m_UserSettings;
+
+  /** the maven installation to obtain the HTTP proxy from. */
+  protected File m_MavenHome;
+
+  /** the server. */
+  protected HttpServer m_Server;
+
+  /** the executor for the server. */
+  protected ExecutorService m_Executor;
+
+  /**
+   * Initializes the proxy.
+   *
+   * @param upstream	the upstream repository URLs
+   * @param cacheDir	the cache directory
+   * @param maxSizeMB	the maximum cache size in MB
+   */
+  public CachingProxy(List<String> upstream, File cacheDir, int maxSizeMB) {
+    m_Upstream = new ArrayList<>();
+    for (String url: upstream)
+      m_Upstream.add(url.endsWith("/") ? url : url + "/");
+    m_CacheDir    = cacheDir;
+    m_MaxSize     = (long) maxSizeMB * 1024 * 1024;
+    m_Cached      = new LinkedHashMap<>(16, 0.75f, true);
+    m_InFlight    = new ConcurrentHashMap<>();
+    m_Connections = new HashMap<>();
+  }
+
+  /**
+   * Sets the maximum number of concurrent connections per upstream repository.
+   * Must be called before starting the proxy.
+   *
+   * @param max		the maximum, 0 or less for unlimited
+   */
+  public void setMaxConnections(int max) {
+    m_Connections.clear();
+    if (max > 0) {
+      for (String url: m_Upstream)
+	m_Connections.put(url, new Semaphore(max, true));
+    }
+  }
+
+  /**
+   * Sets the bandwidth limit for downloads from the upstream repositories.
+   * Must be called before starting the proxy.
+   *
+   * @param bandwidth	the limit, null for unlimited
+   */
+  public void setBandwidth(TokenBucket bandwidth) {
+    m_Bandwidth = bandwidth;
+  }
+
+  /**
+   * Sets the Maven settings to obtain the HTTP proxy for upstream
+   * connections from. Must be called before starting the proxy.
+   *
+   * @param userSettings	the user settings, null for $HOME/.m2/settings.xml
+   * @param mavenHome		the maven installation, can be null
+   * @see			Settings#proxy(File, File, String)
+   */
+  public void setSettings(File userSettings, File mavenHome) {
+    m_UserSettings = userSettings;
+    m_MavenHome    = mavenHome;
+  }
+
+  /**
+   * Returns the default cache directory, located next to the downloaded
+   * Maven installation.
+   *
+   * @return		the directory
+   * @see		Maven#homeDir()
+   */
+  public static File defaultCacheDir() {
+    return new File(new File(Maven.homeDir()).getAbsoluteFile().getParentFile(), CACHE_DIR);
+  }
+
+  /**
+   * Turns the repositories (id;name;url) into upstream URLs, followed by
+   * Maven Central.
+   *
+   * @param repositories	the repositories, can be null
+   * @return			the URLs
+   */
+  public static List<String> upstream(List<String> repositories) {
+    List<String>	result;
+    String[]		parts;
+
+    result = new ArrayList<>();
+    if (repositories != null) {
+      for (String repo: repositories) {
+	parts = repo.split(";");
+	if (parts.length == 3)
+	  result.add(parts[2]);
+      }
+    }
+    result.add(CENTRAL_URL);
+
+    return result;
+  }
+
+  /**
+   * Returns the mirror definition (id;mirrorOf;url) for the proxy URL.
+   *
+   * @param url		the URL of the proxy
+   * @return		the mirror definition
+   * @see		Settings.Configuration#mirrors
+   */
+  public static String mirror(String url) {
+    return MIRROR_ID + ";*;" + url;
+  }
+
+  /**
+   * Scans the cache directory and initializes the LRU order from the last
+   * modified timestamps.
+   *
+   * @param dir		the current directory
+   * @param files	for collecting the files
+   */
+  protected void scan(File dir, List<File> files) {
+    File[]	children;
+
+    children = dir.listFiles();
+    if (children == null)
+      return;
+    for (File child: children) {
+      if (child.isDirectory())
+	scan(child, files);
+      else if (!child.getName().endsWith(".part"))
+	files.add(child);
+    }
+  }
+
+  /**
+   * Starts the proxy.
+   *
+   * @param port	the port to listen on, 0 for a free one
+   * @return		null if successful, otherwise error message
+   */
+  public String start(int port) {
+    List<File>	files;
+    String	root;
+
+    if (!m_CacheDir.exists() && !m_CacheDir.mkdirs())
+      return "Failed to create proxy cache directory: " + m_CacheDir;
+
+    files = new ArrayList<>();
+    scan(m_CacheDir, files);
+    files.sort((f1, f2) -> Long.compare(f1.lastModified(), f2.lastModified()));
+    root = m_CacheDir.getAbsolutePath() + File.separator;
+    synchronized(m_Cached) {
+      for (File file: files)
+	add(file.getAbsolutePath().substring(root.length()).replace(File.separatorChar, '/'), file.length());
+    }
+
+    try {
+      m_Executor = Executors.newCachedThreadPool();
+      m_Server   = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+      m_Server.createContext("/", this);
+      m_Server.setExecutor(m_Executor);
+      m_Server.start();
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to start proxy on port " + port, e);
+      return "Failed to start proxy on port " + port + ": " + e;
+    }
+    LOGGER.info("Caching proxy listening on " + getURL() + " (cache: " + m_CacheDir + ", " + files.size() + " files)");
+
+    return null;
+  }
+
+  /**
+   * Returns the URL of the proxy.
+   *
+   * @return		the URL, null if not running
+   */
+  public String getURL() {
+    if (m_Server == null)
+      return null;
+    return "http://127.0.0.1:" + m_Server.getAddress().getPort() + "/";
+  }
+
+  /**
+   * Stops the proxy.
+   */
+  public void stop() {
+    if (m_Server != null) {
+      m_Server.stop(0);
+      m_Server = null;
+    }
+    if (m_Executor != null) {
+      m_Executor.shutdownNow();
+      m_Executor = null;
+    }
+  }
+
+  /**
+   * Adds the file to the cache index and evicts the least recently used
+   * files if the maximum size has been exceeded. Must be called within a
+   * synchronized block on the index.
+   *
+   * @param path	the path of the file
+   * @param size	the size of the file
+   */
+  protected void add(String path, long size) {
+    Iterator<Map.Entry<String,Long>>	iter;
+    Map.Entry<String,Long>		eldest;
+
+    if (m_Cached.containsKey(path))
+      m_Size -= m_Cached.get(path);
+    m_Cached.put(path, size);
+    m_Size += size;
+
+    iter = m_Cached.entrySet().iterator();
+    while ((m_Size > m_MaxSize) && iter.hasNext()) {
+      eldest = iter.next();
+      if (eldest.getKey().equals(path))
+	continue;
+      if (new File(m_CacheDir, eldest.getKey()).delete() || !new File(m_CacheDir, eldest.getKey()).exists()) {
+	m_Size -= eldest.getValue();
+	iter.remove();
+      }
+    }
+  }
+
+  /**
+   * Returns whether the path can be cached.
+   *
+   * @param path	the path to check
+   * @return		true if cacheable
+   */
+  protected boolean isCacheable(String path) {
+    return !path.contains("maven-metadata.xml") && !path.contains("-SNAPSHOT");
+  }
+
+  /**
+   * Fetches the file from the upstream repositories, honouring the limits
+   * for connections per repository and the bandwidth limit.
+   *
+   * @param path	the path of the file
+   * @param target	the file to store the content in
+   * @return		true if found
+   * @throws IOException	if fetching fails
+   */
+  protected boolean fetchUpstream(String path, File target) throws IOException {
+    HttpURLConnection	conn;
+    File		tmp;
+    Semaphore		connections;
+
+    tmp = new File(target.getAbsolutePath() + "." + Thread.currentThread().getId() + ".part");
+    for (String upstream: m_Upstream) {
+      connections = m_Connections.get(upstream);
+      if (connections != null) {
+	try {
+	  connections.acquire();
+	}
+	catch (InterruptedException e) {
+	  throw new InterruptedIOException("Interrupted while waiting for connection to: " + upstream);
+	}
+      }
+      conn = (HttpURLConnection) new URL(upstream + path).openConnection(Settings.proxy(m_UserSettings, m_MavenHome, upstream + path));
+      conn.setConnectTimeout(TIMEOUT);
+      conn.setReadTimeout(TIMEOUT);
+      conn.setInstanceFollowRedirects(true);
+      try {
+	if (conn.getResponseCode() != HttpURLConnection.HTTP_OK)
+	  continue;
+	if (!target.getParentFile().exists() && !target.getParentFile().mkdirs())
+	  throw new IOException("Failed to create directory: " + target.getParentFile());
+	try (InputStream in = (m_Bandwidth == null) ? conn.getInputStream() : new ThrottledInputStream(conn.getInputStream(), m_Bandwidth)) {
+	  Files.copy(in, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	return true;
+      }
+      catch (IOException e) {
+	LOGGER.warning("Failed to fetch from upstream: " + upstream + path + ": " + e);
+      }
+      finally {
+	conn.disconnect();
+	if (connections != null)
+	  connections.release();
+	if (tmp.exists())
+	  tmp.delete();
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Opens the file for the path, fetching it if necessary. Concurrent
+   * requests for the same path share a single fetch. Files that are not
+   * cacheable get re-fetched, replacing the previous copy atomically.
+   * Files get opened within the synchronized block on the index, as
+   * eviction only deletes files within that block (and opened files remain
+   * readable), i.e., no truncated files get served.
+   *
+   * @param path	the path of the file
+   * @return		the opened file, null if not available upstream
+   * @throws Exception	if fetching or opening fails
+   */
+  protected FileChannel open(String path) throws Exception {
+    FileChannel			result;
+    boolean			cacheable;
+    File			file;
+    CompletableFuture<File>	future;
+    CompletableFuture<File>	existing;
+
+    cacheable = isCacheable(path);
+    file      = new File(m_CacheDir, path);
+    while (true) {
+      if (cacheable) {
+	synchronized(m_Cached) {
+	  if (m_Cached.containsKey(path) && file.exists()) {
+	    // update LRU order, also persistently for restarts
+	    m_Cached.get(path);
+	    file.setLastModified(System.currentTimeMillis());
+	    return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	  }
+	}
+      }
+
+      future   = new CompletableFuture<>();
+      existing = m_InFlight.putIfAbsent(path, future);
+      if (existing != null) {
+	if (existing.get() == null)
+	  return null;
+	synchronized(m_Cached) {
+	  if (file.exists())
+	    return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+	// evicted in the meantime
+	continue;
+      }
+
+      try {
+	if (!fetchUpstream(path, file)) {
+	  future.complete(null);
+	  return null;
+	}
+	synchronized(m_Cached) {
+	  if (cacheable)
+	    add(path, file.length());
+	  result = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+	future.complete(file);
+	return result;
+      }
+      catch (Exception e) {
+	future.completeExceptionally(e);
+	throw e;
+      }
+      finally {
+	m_InFlight.remove(path);
+      }
+    }
+  }
+
+  /**
+   * Handles the request.
+   *
+   * @param exchange	the exchange to handle
+   * @throws IOException	if handling fails
+   */
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    String		path;
+    boolean		head;
+    FileChannel		file;
+    byte[]		buffer;
+    int			len;
+
+    path = exchange.getRequestURI().getPath();
+    while (path.startsWith("/"))
+      path = path.substring(1);
+    head = exchange.getRequestMethod().equals("HEAD");
+    if (path.isEmpty() || path.contains("..") || !(head || exchange.getRequestMethod().equals("GET"))) {
+      exchange.sendResponseHeaders(400, -1);
+      exchange.close();
+      return;
+    }
+
+    try {
+      file = open(path);
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to retrieve: " + path, e);
+      exchange.sendResponseHeaders(502, -1);
+      exchange.close();
+      return;
+    }
+
+    try {
+      if (file == null) {
+	exchange.sendResponseHeaders(404, -1);
+      }
+      else {
+	exchange.sendResponseHeaders(200, head ? -1 : file.size());
+	if (!head) {
+	  buffer = new byte[8192];
+	  try (InputStream in = Channels.newInputStream(file); OutputStream out = exchange.getResponseBody()) {
+	    while ((len = in.read(buffer)) > 0)
+	      out.write(buffer, 0, len);
+	  }
+	}
+      }
+    }
+    finally {
+      if (file != null)
+	file.close();
+      exchange.close();
+    }
+  }
+}
@@ -0,0 +1,402 @@
+/*
+ * Checksums.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Verifies the integrity of the bootstrapped artifacts (lib/src directories)
+ * by hashing them in parallel (work-stealing pool, memory-mapped reads) and
+ * comparing the hashes with a recorded manifest (sha256sum format) and/or
+ * with the SHA-1 checksums stored in the local repository.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Checksums {
+
+  /** the name of the manifest file. */
+  public final static String MANIFEST_FILE = "checksums.sha256";
+
+  /** the directories to verify. */
+  public final static String[] DIRS = {"lib", "src"};
+
+  /** the size of the regions to map. */
+  public final static int MAP_SIZE = 64 * 1024 * 1024;
+
+  /** the file size below which files get read rather than mapped (mapping has a fixed overhead). */
+  public final static int MAP_THRESHOLD = 64 * 1024;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(Checksums.class.getName());
+
+  /**
+   * Container for the hashes of a file.
+   */
+  public static class Result {
+
+    /** the path relative to the directory. */
+    public String path;
+
+    /** the file. */
+    public File file;
+
+    /** the SHA-1 checksum. */
+    public String sha1;
+
+    /** the SHA-256 checksum. */
+    public String sha256;
+  }
+
+  /** the number of threads to use. */
+  protected int m_NumThreads;
+
+  /** the mismatches of the last verification. */
+  protected List<String> m_Mismatches;
+
+  /** the number of files that got verified successfully. */
+  protected int m_Verified;
+
+  /** the number of files that could not be verified (no checksum available). */
+  protected int m_Unverified;
+
+  /**
+   * Initializes the verification.
+   *
+   * @param numThreads	the number of threads, less than 1 for number of CPUs
+   */
+  public Checksums(int numThreads) {
+    m_NumThreads = (numThreads < 1) ? Runtime.getRuntime().availableProcessors() : numThreads;
+    m_Mismatches = new ArrayList<>();
+    m_Verified   = 0;
+    m_Unverified = 0;
+  }
+
+  /**
+   * Returns the mismatches of the last verification.
+   *
+   * @return		the mismatches
+   */
+  public List<String> getMismatches() {
+    return m_Mismatches;
+  }
+
+  /**
+   * Returns the number of files that got verified successfully.
+   *
+   * @return		the number of files
+   */
+  public int getVerified() {
+    return m_Verified;
+  }
+
+  /**
+   * Returns the number of files that could not be verified, as no checksum
+   * was available.
+   *
+   * @return		the number of files
+   */
+  public int getUnverified() {
+    return m_Unverified;
+  }
+
+  /**
+   * Turns the digest into a hex string.
+   *
+   * @param digest	the digest to convert
+   * @return		the hex string
+   */
+  protected static String toHex(MessageDigest digest) {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    for (byte b: digest.digest())
+      result.append(String.format("%02x", b));
+
+    return result.toString();
+  }
+
+  /**
+   * Computes the SHA-1 and SHA-256 checksums of the file in a single pass,
+   * mapping larger files into memory.
+   *
+   * @param file	the file to hash
+   * @return		the checksums (SHA-1, SHA-256)
+   * @throws Exception	if reading fails
+   */
+  public static String[] hash(File file) throws Exception {
+    MessageDigest	sha1;
+    MessageDigest	sha256;
+    MappedByteBuffer	buffer;
+    byte[]		data;
+    long		size;
+    long		pos;
+
+    sha1   = MessageDigest.getInstance("SHA-1");
+    sha256 = MessageDigest.getInstance("SHA-256");
+    size   = file.length();
+    if (size < MAP_THRESHOLD) {
+      data = Files.readAllBytes(file.toPath());
+      sha1.update(data);
+      sha256.update(data);
+    }
+    else {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+	size = channel.size();
+	for (pos = 0; pos < size; pos += MAP_SIZE) {
+	  buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_SIZE, size - pos));
+	  sha1.update(buffer.duplicate());
+	  sha256.update(buffer);
+	}
+      }
+    }
+
+    return new String[]{toHex(sha1), toHex(sha256)};
+  }
+
+  /**
+   * Hashes all files in the sub-directories in parallel, largest files first.
+   *
+   * @param dir		the directory with the sub-directories
+   * @param subDirs	the sub-directories to hash (eg lib and src)
+   * @return		the hashes, sorted by path
+   * @throws Exception	if hashing fails
+   */
+  public List<Result> hashAll(File dir, String... subDirs) throws Exception {
+    List<Result>		result;
+    List<Path>			files;
+    List<Callable<Result>>	jobs;
+    ExecutorService		executor;
+    File			sub;
+    final Path			root;
+
+    root  = dir.getAbsoluteFile().toPath();
+    files = new ArrayList<>();
+    for (String subDir: subDirs) {
+      sub = new File(dir, subDir);
+      if (!sub.isDirectory())
+	continue;
+      try (Stream<Path> stream = Files.walk(sub.toPath())) {
+	files.addAll(stream.filter(Files::isRegularFile).collect(Collectors.toList()));
+      }
+    }
+    // largest first, to avoid a long tail
+    files.sort((p1, p2) -> Long.compare(p2.toFile().length(), p1.toFile().length()));
+
+    jobs = new ArrayList<>();
+    for (final Path file: files) {
+      jobs.add(() -> {
+	Result r = new Result();
+	String[] hashes = hash(file.toFile());
+	r.file   = file.toFile();
+	r.path   = root.relativize(file.toAbsolutePath()).toString().replace(File.separatorChar, '/');
+	r.sha1   = hashes[0];
+	r.sha256 = hashes[1];
+	return r;
+      });
+    }
+
+    result   = new ArrayList<>();
+    executor = Executors.newWorkStealingPool(m_NumThreads);
+    try {
+      for (Future<Result> future: executor.invokeAll(jobs))
+	result.add(future.get());
+    }
+    finally {
+      executor.shutdownNow();
+    }
+    result.sort((r1, r2) -> r1.path.compareTo(r2.path));
+
+    return result;
+  }
+
+  /**
+   * Reads the manifest (sha256sum format).
+   *
+   * @param manifest	the manifest to read
+   * @return		the checksums (path - SHA-256)
+   * @throws Exception	if reading fails
+   */
+  public static Map<String,String> readManifest(File manifest) throws Exception {
+    Map<String,String>	result;
+    String[]		parts;
+
+    result = new TreeMap<>();
+    for (String line: Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+      parts = line.split(" [ *]", 2);
+      if (parts.length == 2)
+	result.put(parts[1], parts[0].trim());
+    }
+
+    return result;
+  }
+
+  /**
+   * Writes the manifest (sha256sum format, i.e., can be checked with
+   * "sha256sum -c" as well).
+   *
+   * @param manifest	the manifest to write
+   * @param hashes	the hashes to write
+   * @return		null if successful, otherwise error message
+   */
+  public static String writeManifest(File manifest, List<Result> hashes) {
+    List<String>	lines;
+    Path		tmp;
+
+    lines = new ArrayList<>();
+    for (Result r: hashes)
+      lines.add(r.sha256 + "  " + r.path);
+    tmp = manifest.toPath().resolveSibling(manifest.getName() + ".part");
+    try {
+      Files.write(tmp, lines, StandardCharsets.UTF_8);
+      Files.move(tmp, manifest.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to write manifest: " + manifest, e);
+      return "Failed to write manifest '" + manifest + "': " + e;
+    }
+
+    return null;
+  }
+
+  /**
+   * Collects the SHA-1 checksums stored in the local repository for the
+   * specified file names (the same name can occur with different groups).
+   *
+   * @param localRepo	the local repository
+   * @param names	the file names to look for
+   * @return		the checksums (name - SHA-1s)
+   * @throws Exception	if reading fails
+   */
+  public static Map<String,Set<String>> repositoryChecksums(File localRepo, final Set<String> names) throws Exception {
+    Map<String,Set<String>>	result;
+    List<Path>			files;
+    File			sha1;
+    String			name;
+
+    result = new HashMap<>();
+    if (!localRepo.isDirectory())
+      return result;
+    try (Stream<Path> stream = Files.walk(localRepo.toPath())) {
+      files = stream
+	.filter(p -> names.contains(p.getFileName().toString()))
+	.collect(Collectors.toList());
+    }
+    for (Path file: files) {
+      sha1 = new File(file.toString() + ".sha1");
+      if (!sha1.exists())
+	continue;
+      name = file.getFileName().toString();
+      if (!result.containsKey(name))
+	result.put(name, new HashSet<>());
+      // format: checksum [filename]
+      result.get(name).add(new String(Files.readAllBytes(sha1.toPath()), StandardCharsets.UTF_8).trim().split("\\s+")[0].toLowerCase());
+    }
+
+    return result;
+  }
+
+  /**
+   * Verifies the files in the sub-directories against the manifest and/or
+   * the local repository. The mismatches are available via
+   * {@link #getMismatches()} afterwards.
+   *
+   * @param dir		the directory with the sub-directories (eg target)
+   * @param manifest	the manifest to compare against, null to skip
+   * @param localRepo	the local repository to compare against, null to skip
+   * @param subDirs	the sub-directories to verify
+   * @return		the hashes
+   * @throws Exception	if hashing or reading fails
+   */
+  public List<Result> verify(File dir, File manifest, File localRepo, String... subDirs) throws Exception {
+    List<Result>		result;
+    Map<String,String>		expected;
+    Map<String,Set<String>>	repo;
+    Set<String>			names;
+    Set<String>			found;
+    boolean			checked;
+    long			start;
+
+    start        = System.currentTimeMillis();
+    m_Mismatches = new ArrayList<>();
+    m_Verified   = 0;
+    m_Unverified = 0;
+    result       = hashAll(dir, subDirs);
+
+    expected = null;
+    if (manifest != null)
+      expected = readManifest(manifest);
+    repo = null;
+    if (localRepo != null) {
+      names = new HashSet<>();
+      for (Result r: result)
+	names.add(r.file.getName());
+      repo = repositoryChecksums(localRepo, names);
+    }
+
+    found = new HashSet<>();
+    for (Result r: result) {
+      checked = false;
+      if (expected != null) {
+	checked = true;
+	found.add(r.path);
+	if (!expected.containsKey(r.path)) {
+	  m_Mismatches.add(r.path + ": not in manifest");
+	  continue;
+	}
+	if (!expected.get(r.path).equalsIgnoreCase(r.sha256)) {
+	  m_Mismatches.add(r.path + ": checksum differs from manifest");
+	  continue;
+	}
+      }
+      if ((repo != null) && repo.containsKey(r.file.getName())) {
+	checked = true;
+	if (!repo.get(r.file.getName()).contains(r.sha1)) {
+	  m_Mismatches.add(r.path + ": checksum differs from local repository");
+	  continue;
+	}
+      }
+      if (checked)
+	m_Verified++;
+      else
+	m_Unverified++;
+    }
+    if (expected != null) {
+      for (String path: expected.keySet()) {
+	if (!found.contains(path))
+	  m_Mismatches.add(path + ": missing");
+      }
+    }
+
+    LOGGER.info("Verified " + m_Verified + " of " + result.size() + " files in " + dir + ": "
+      + m_Mismatches.size() + " mismatches, " + m_Unverified + " without checksum ("
+      + (System.currentTimeMillis() - start) + "ms)");
+
+    return result;
+  }
+}
@@ -0,0 +1,440 @@
+/*
+ * ClassDataSharing.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Generates an archive of the classes loaded by the application during a
+ * training run, for faster startup: a JDK AOT cache (Java 24+), a dynamic
+ * AppCDS archive (Java 13+) or a static AppCDS archive from a class list
+ * (Java 11/12). The training run gets stopped once the time limit is
+ * reached or the output matches the trigger, unless the application exits
+ * by itself beforehand. The archive is only valid for the JDK it was
+ * generated with and the same class path.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClassDataSharing {
+
+  /**
+   * The type of archive, determined by the Java version.
+   */
+  public enum Mode {
+    /** static archive from list of loaded classes (-Xshare:dump). */
+    CLASS_LIST(11, "jsa"),
+    /** dynamic archive (-XX:ArchiveClassesAtExit). */
+    DYNAMIC(13, "jsa"),
+    /** AOT cache (-XX:AOTMode=record/create). */
+    AOT_CACHE(24, "aot");
+
+    /** the minimum Java version. */
+    private final int m_MinVersion;
+
+    /** the extension of the archive. */
+    private final String m_Extension;
+
+    /**
+     * Initializes the mode.
+     *
+     * @param minVersion	the minimum Java version
+     * @param ext		the extension of the archive
+     */
+    Mode(int minVersion, String ext) {
+      m_MinVersion = minVersion;
+      m_Extension  = ext;
+    }
+
+    /**
+     * Returns the minimum Java version.
+     *
+     * @return		the version
+     */
+    public int getMinVersion() {
+      return m_MinVersion;
+    }
+
+    /**
+     * Returns the extension of the archive.
+     *
+     * @return		the extension
+     */
+    public String getExtension() {
+      return m_Extension;
+    }
+  }
+
+  /** the directory (below the output directory) for the archive. */
+  public final static String DIR = "cds";
+
+  /** the name of the archive (without extension). */
+  public final static String NAME = "app";
+
+  /** the default time limit for the training run in seconds. */
+  public final static int DEFAULT_TIMEOUT = 60;
+
+  /** the number of lines of output to report if training fails. */
+  public final static int TAIL_LINES = 20;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(ClassDataSharing.class.getName());
+
+  /** the Java home to use. */
+  protected File m_JavaHome;
+
+  /** the time limit for the training run in seconds, less than 1 for none. */
+  protected int m_Timeout;
+
+  /** the regular expression that ends the training run, null if none. */
+  protected Pattern m_Trigger;
+
+  /** the archive type, null if not supported. */
+  protected Mode m_Mode;
+
+  /** the working directory for the training run, null for the current one. */
+  protected File m_WorkingDir;
+
+  /**
+   * Initializes the archive generation.
+   *
+   * @param javaHome	the Java home to generate the archive with
+   */
+  public ClassDataSharing(File javaHome) {
+    m_JavaHome = javaHome;
+    m_Timeout  = DEFAULT_TIMEOUT;
+    m_Trigger  = null;
+    m_Mode     = mode(featureVersion(javaHome));
+  }
+
+  /**
+   * Sets the time limit for the training run.
+   *
+   * @param seconds	the time limit in seconds, less than 1 to wait for the application to exit
+   * @return		itself
+   */
+  public ClassDataSharing timeout(int seconds) {
+    m_Timeout = seconds;
+    return this;
+  }
+
+  /**
+   * Sets the regular expression that ends the training run once a line of
+   * output matches it (eg a "started" message of a service).
+   *
+   * @param regexp	the regular expression, null or empty for none
+   * @return		itself
+   */
+  public ClassDataSharing trigger(String regexp) {
+    if ((regexp == null) || regexp.isEmpty())
+      m_Trigger = null;
+    else
+      m_Trigger = Pattern.compile(regexp);
+    return this;
+  }
+
+  /**
+   * Sets the working directory for the training run, which a relative
+   * class path gets resolved against. Training with a relative class path
+   * (eg lib/*) allows the archive to be used in another location, as long
+   * as the application gets launched from the same relative directory.
+   *
+   * @param dir		the directory, null for the current one
+   * @return		itself
+   */
+  public ClassDataSharing workingDir(File dir) {
+    m_WorkingDir = dir;
+    return this;
+  }
+
+  /**
+   * Returns the archive type.
+   *
+   * @return		the type, null if not supported by the Java version
+   */
+  public Mode getMode() {
+    return m_Mode;
+  }
+
+  /**
+   * Returns the file name of the archive.
+   *
+   * @return		the file name
+   */
+  public String getArchiveName() {
+    return NAME + "." + (m_Mode == null ? Mode.DYNAMIC : m_Mode).getExtension();
+  }
+
+  /**
+   * Determines the feature version (eg 8, 11, 21) of the Java installation
+   * from its release file.
+   *
+   * @param javaHome	the Java home
+   * @return		the version, -1 if failed to determine
+   */
+  public static int featureVersion(File javaHome) {
+    File	release;
+    String	version;
+
+    release = new File(javaHome, "release");
+    if (!release.exists())
+      return -1;
+    try {
+      for (String line: Files.readAllLines(release.toPath(), StandardCharsets.UTF_8)) {
+	if (!line.startsWith("JAVA_VERSION="))
+	  continue;
+	version = line.substring(line.indexOf('=') + 1).replace("\"", "").trim();
+	if (version.startsWith("1."))
+	  version = version.substring(2);
+	return Integer.parseInt(version.split("[^0-9]")[0]);
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.WARNING, "Failed to determine Java version: " + release, e);
+    }
+
+    return -1;
+  }
+
+  /**
+   * Determines the best archive type for the Java version.
+   *
+   * @param version	the feature version
+   * @return		the type, null if not supported
+   */
+  public static Mode mode(int version) {
+    Mode	result;
+
+    result = null;
+    for (Mode mode: Mode.values()) {
+      if (version >= mode.getMinVersion())
+	result = mode;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the JVM options for using the archive.
+   *
+   * @param archive	the path of the archive (as used by the launch command)
+   * @return		the options
+   */
+  public List<String> runtimeOptions(String archive) {
+    List<String>	result;
+
+    result = new ArrayList<>();
+    if (m_Mode == Mode.AOT_CACHE)
+      result.add("-XX:AOTCache=" + archive);
+    else
+      result.add("-XX:SharedArchiveFile=" + archive);
+
+    return result;
+  }
+
+  /**
+   * Executes the training run. The process gets terminated (allowing the
+   * JVM to write the archive on exit) once the time limit is reached or
+   * the trigger matches.
+   *
+   * @param cmd		the command to execute
+   * @return		null if successful, otherwise error message
+   */
+  protected String train(List<String> cmd) {
+    final Process		process;
+    final Deque<String>		tail;
+    final AtomicBoolean		stopped;
+    ProcessBuilder		builder;
+    Thread			reader;
+    int				exitCode;
+
+    tail    = new ArrayDeque<>();
+    stopped = new AtomicBoolean(false);
+    builder = new ProcessBuilder(cmd);
+    builder.directory(m_WorkingDir);
+    builder.redirectErrorStream(true);
+    try {
+      process = builder.start();
+      reader  = new Thread(() -> {
+	String line;
+	try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+	  while ((line = in.readLine()) != null) {
+	    LOGGER.fine(line);
+	    synchronized (tail) {
+	      tail.add(line);
+	      if (tail.size() > TAIL_LINES)
+		tail.removeFirst();
+	    }
+	    if ((m_Trigger != null) && !stopped.get() && m_Trigger.matcher(line).find()) {
+	      LOGGER.info("Training trigger matched: " + line);
+	      stopped.set(true);
+	      process.destroy();
+	    }
+	  }
+	}
+	catch (Exception e) {
+	  // process got terminated
+	}
+      });
+      reader.start();
+
+      if (m_Timeout > 0) {
+	if (!process.waitFor(m_Timeout, TimeUnit.SECONDS)) {
+	  LOGGER.info("Training time limit of " + m_Timeout + "s reached");
+	  stopped.set(true);
+	  process.destroy();
+	}
+      }
+      if (!process.waitFor(60, TimeUnit.SECONDS)) {
+	process.destroyForcibly().waitFor();
+	return "Training run did not terminate: " + cmd;
+      }
+      reader.join();
+      exitCode = process.exitValue();
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to execute training run: " + cmd, e);
+      return "Failed to execute training run " + cmd + ": " + e;
+    }
+
+    if (!stopped.get() && (exitCode != 0)) {
+      synchronized (tail) {
+	for (String line: tail)
+	  System.err.println(line);
+      }
+      return "Training run failed with exit code " + exitCode + ": " + cmd;
+    }
+
+    return null;
+  }
+
+  /**
+   * Executes the command that turns the training data into the archive.
+   *
+   * @param cmd		the command to execute
+   * @return		null if successful, otherwise error message
+   */
+  protected String dump(List<String> cmd) {
+    ProcessBuilder	builder;
+    Process		process;
+    List<String>	output;
+    String		line;
+
+    output  = new ArrayList<>();
+    builder = new ProcessBuilder(cmd);
+    builder.directory(m_WorkingDir);
+    builder.redirectErrorStream(true);
+    try {
+      process = builder.start();
+      try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+	while ((line = in.readLine()) != null)
+	  output.add(line);
+      }
+      if (process.waitFor() != 0) {
+	for (String l: output)
+	  System.err.println(l);
+	return "Failed to create archive (exit code " + process.exitValue() + "): " + cmd;
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to create archive: " + cmd, e);
+      return "Failed to create archive " + cmd + ": " + e;
+    }
+
+    return null;
+  }
+
+  /**
+   * Generates the archive in the directory, using the launch command of the
+   * application (java binary, JVM options, class path, main class) for the
+   * training run.
+   *
+   * @param launch	the launch command
+   * @param dir		the directory to store the archive in
+   * @return		null if successful, otherwise error message
+   */
+  public String generate(List<String> launch, File dir) {
+    String		result;
+    List<String>	cmd;
+    File		archive;
+    File		training;
+    long		start;
+
+    if (m_Mode == null)
+      return "Class data sharing archives require Java " + Mode.CLASS_LIST.getMinVersion() + " or later: " + m_JavaHome;
+
+    start = System.currentTimeMillis();
+    if (!dir.exists() && !dir.mkdirs())
+      return "Failed to create directory for class data sharing archive: " + dir;
+    archive = new File(dir, getArchiveName());
+    if (archive.exists() && !archive.delete())
+      return "Failed to remove outdated class data sharing archive: " + archive;
+
+    // training run
+    cmd = new ArrayList<>(launch);
+    switch (m_Mode) {
+      case CLASS_LIST:
+	training = new File(dir, NAME + ".classlist");
+	cmd.add(1, "-XX:DumpLoadedClassList=" + training.getAbsolutePath());
+	break;
+      case DYNAMIC:
+	training = null;
+	cmd.add(1, "-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath());
+	break;
+      case AOT_CACHE:
+	training = new File(dir, NAME + ".aotconf");
+	cmd.add(1, "-XX:AOTMode=record");
+	cmd.add(2, "-XX:AOTConfiguration=" + training.getAbsolutePath());
+	break;
+      default:
+	return "Unhandled class data sharing mode: " + m_Mode;
+    }
+    LOGGER.info("Training run for " + m_Mode + " archive" + (m_Timeout > 0 ? " (max " + m_Timeout + "s)" : ""));
+    if ((result = train(cmd)) != null)
+      return result;
+
+    // create archive from training data (same options/class path, without main class)
+    if (training != null) {
+      if (!training.exists())
+	return "Training run did not generate any data: " + training;
+      cmd = new ArrayList<>(launch.subList(0, launch.size() - 1));
+      if (m_Mode == Mode.CLASS_LIST) {
+	cmd.add(1, "-Xshare:dump");
+	cmd.add(2, "-XX:SharedClassListFile=" + training.getAbsolutePath());
+	cmd.add(3, "-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+      }
+      else {
+	cmd.add(1, "-XX:AOTMode=create");
+	cmd.add(2, "-XX:AOTConfiguration=" + training.getAbsolutePath());
+	cmd.add(3, "-XX:AOTCache=" + archive.getAbsolutePath());
+      }
+      result = dump(cmd);
+      if (!training.delete())
+	LOGGER.warning("Failed to remove training data: " + training);
+      if (result != null)
+	return result;
+    }
+
+    if (!archive.exists())
+      return "Training run did not generate class data sharing archive: " + archive;
+    LOGGER.info("Generated " + m_Mode + " archive " + archive + " (" + archive.length() / 1024 + "kB, "
+      + (System.currentTimeMillis() - start) + "ms)");
+
+    return null;
+  }
+}
@@ -0,0 +1,718 @@
+/*
+ * DebianPackage.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.apache.commons.compress.compressors.xz.XZUtils;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes a Debian package (ar archive with debian-binary, control.tar.gz
+ * and data.tar.*) directly from the bootstrapped jars, the launch script and
+ * the source jars, i.e., without staging the files in another directory.
+ * The jars get installed in /usr/lib/NAME, the launch script as
+ * /usr/bin/NAME and an optional runtime image in /usr/lib/NAME/runtime
+ * (making the package architecture-specific). Jars matching the exclusion regular expressions (same as
+ * in the debian.build snippet) get skipped. All timestamps are set to
+ * SOURCE_DATE_EPOCH (or 0), for reproducible packages.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class DebianPackage {
+
+  /**
+   * The compression to use for the data archive.
+   */
+  public enum Compression {
+    GZIP("gz"),
+    XZ("xz"),
+    ZSTD("zst");
+
+    /** the extension. */
+    private final String m_Extension;
+
+    /**
+     * Initializes the compression.
+     *
+     * @param ext	the extension
+     */
+    Compression(String ext) {
+      m_Extension = ext;
+    }
+
+    /**
+     * Returns the file extension.
+     *
+     * @return		the extension
+     */
+    public String getExtension() {
+      return m_Extension;
+    }
+  }
+
+  /**
+   * An entry of the data archive.
+   */
+  protected static class DataEntry {
+
+    /** the path in the archive (without leading "./"). */
+    public String path;
+
+    /** the file to add, null for a directory. */
+    public File file;
+
+    /** the file mode. */
+    public int mode;
+
+    /**
+     * Initializes the entry.
+     *
+     * @param path	the path in the archive
+     * @param file	the file, null for a directory
+     * @param mode	the file mode
+     */
+    public DataEntry(String path, File file, int mode) {
+      this.path = path;
+      this.file = file;
+      this.mode = mode;
+    }
+  }
+
+  /** the size of an ar member header. */
+  public final static int AR_HEADER = 60;
+
+  /** the default package dependency. */
+  public final static String DEFAULT_DEPENDS = "openjdk-11-jre | openjdk-11-jre-headless";
+
+  /** the regular expression for extracting the exclusions from the snippet. */
+  public final static Pattern EXCLUSIONS = Pattern.compile("<excludeArtifactsRegExp>(.*?)</excludeArtifactsRegExp>", Pattern.DOTALL);
+
+  /** the regular expression for extracting a parameter. */
+  public final static Pattern PARAM = Pattern.compile("<param>\\s*(.*?)\\s*</param>", Pattern.DOTALL);
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(DebianPackage.class.getName());
+
+  /** the package name. */
+  protected String m_Name;
+
+  /** the package version. */
+  protected String m_Version;
+
+  /** the package dependencies. */
+  protected String m_Depends;
+
+  /** the exclusions (applied to the jar names). */
+  protected List<Pattern> m_Exclusions;
+
+  /** the compression. */
+  protected Compression m_Compression;
+
+  /** the number of threads for compression. */
+  protected int m_NumThreads;
+
+  /** the runtime image, null if none. */
+  protected File m_Runtime;
+
+  /** the architecture of the package. */
+  protected String m_Architecture;
+
+  /** the maintainer (name and email). */
+  protected String m_Maintainer;
+
+  /** the timestamp for the archive entries (seconds since epoch). */
+  protected long m_Epoch;
+
+  /** the MD5 checksums of the data files. */
+  protected transient StringBuilder m_MD5Sums;
+
+  /** the installed size in bytes. */
+  protected transient long m_InstalledSize;
+
+  /**
+   * Initializes the package.
+   *
+   * @param name	the package name
+   * @param version	the package version
+   */
+  public DebianPackage(String name, String version) {
+    m_Name         = name;
+    m_Version      = version;
+    m_Depends      = DEFAULT_DEPENDS;
+    m_Exclusions   = new ArrayList<>();
+    m_Compression  = Compression.GZIP;
+    m_NumThreads   = -1;
+    m_Runtime      = null;
+    m_Architecture = "all";
+    m_Maintainer   = defaultMaintainer();
+    m_Epoch        = OciImage.sourceDateEpoch();
+  }
+
+  /**
+   * Returns the default maintainer, using the DEBFULLNAME and DEBEMAIL
+   * environment variables (like the Debian tools), falling back on the
+   * user name.
+   *
+   * @return		the maintainer
+   */
+  public static String defaultMaintainer() {
+    String	name;
+    String	email;
+
+    name  = System.getenv("DEBFULLNAME");
+    email = System.getenv("DEBEMAIL");
+    if ((name == null) || name.isEmpty())
+      name = System.getProperty("user.name");
+    if ((email == null) || email.isEmpty())
+      email = System.getProperty("user.name") + "@localhost";
+
+    return name + " <" + email + ">";
+  }
+
+  /**
+   * Sets the maintainer of the package (Maintainer field).
+   *
+   * @param maintainer	the maintainer ("name &lt;email&gt;"), null or empty for the default one
+   * @return		itself
+   * @see		#defaultMaintainer()
+   */
+  public DebianPackage maintainer(String maintainer) {
+    if ((maintainer == null) || maintainer.isEmpty())
+      m_Maintainer = defaultMaintainer();
+    else
+      m_Maintainer = maintainer;
+    return this;
+  }
+
+  /**
+   * Sets the package dependencies (Depends field).
+   *
+   * @param depends	the dependencies, null or empty for none
+   * @return		itself
+   */
+  public DebianPackage depends(String depends) {
+    m_Depends = depends;
+    return this;
+  }
+
+  /**
+   * Sets the exclusions, regular expressions in the format of the
+   * debian-maven-plugin (excludeArtifactsRegExp), i.e., ":" separating the
+   * classifier. They get applied to the jar names (without .jar).
+   *
+   * @param exclusions	the regular expressions
+   * @return		itself
+   */
+  public DebianPackage exclusions(List<String> exclusions) {
+    m_Exclusions = new ArrayList<>();
+    for (String exclusion: exclusions)
+      m_Exclusions.add(Pattern.compile(exclusion.replace(":", "-")));
+    return this;
+  }
+
+  /**
+   * Sets the compression for the data archive.
+   *
+   * @param compression	the compression
+   * @return		itself
+   */
+  public DebianPackage compression(Compression compression) {
+    m_Compression = compression;
+    return this;
+  }
+
+  /**
+   * Sets the number of threads to use for compression.
+   *
+   * @param threads	the number of threads, -1 for number of CPUs
+   * @return		itself
+   */
+  public DebianPackage threads(int threads) {
+    m_NumThreads = threads;
+    return this;
+  }
+
+  /**
+   * Sets the runtime image to install in /usr/lib/NAME/runtime. The package
+   * then no longer depends on a Java package and its architecture is the
+   * one of the current system.
+   *
+   * @param runtime	the runtime image, null if none
+   * @return		itself
+   */
+  public DebianPackage runtime(File runtime) {
+    m_Runtime = runtime;
+    if (runtime != null) {
+      m_Depends      = null;
+      m_Architecture = architecture(System.getProperty("os.arch"));
+    }
+    else {
+      m_Architecture = "all";
+    }
+    return this;
+  }
+
+  /**
+   * Turns the Java architecture (os.arch) into the Debian one.
+   *
+   * @param arch	the Java architecture
+   * @return		the Debian architecture
+   */
+  public static String architecture(String arch) {
+    switch (arch) {
+      case "x86_64":
+      case "amd64":
+	return "amd64";
+      case "x86":
+      case "i386":
+      case "i686":
+	return "i386";
+      case "aarch64":
+	return "arm64";
+      case "arm":
+	return "armhf";
+      case "ppc64le":
+	return "ppc64el";
+      default:
+	return arch;
+    }
+  }
+
+  /**
+   * Extracts the exclusions (excludeArtifactsRegExp) from the Maven snippet.
+   *
+   * @param snippet	the snippet to parse
+   * @return		the regular expressions
+   */
+  public static List<String> exclusions(String snippet) {
+    List<String>	result;
+    Matcher		matcher;
+    Matcher		param;
+
+    result  = new ArrayList<>();
+    matcher = EXCLUSIONS.matcher(snippet);
+    while (matcher.find()) {
+      param = PARAM.matcher(matcher.group(1));
+      while (param.find())
+	result.add(param.group(1));
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the file name of the package.
+   *
+   * @return		the file name
+   */
+  public String getFileName() {
+    return m_Name + "_" + m_Version + "_" + m_Architecture + ".deb";
+  }
+
+  /**
+   * Checks whether the jar is excluded.
+   *
+   * @param name	the name of the jar
+   * @return		true if excluded
+   */
+  public boolean isExcluded(String name) {
+    name = name.replaceAll("\\.jar$", "");
+    for (Pattern exclusion: m_Exclusions) {
+      if (exclusion.matcher(name).matches())
+	return true;
+    }
+    return false;
+  }
+
+  /**
+   * Wraps the stream in the compressor.
+   *
+   * @param out		the stream to wrap
+   * @param compression	the compression to use
+   * @return		the compressing stream
+   * @throws Exception	if the compression is not available
+   */
+  protected OutputStream compress(OutputStream out, Compression compression) throws Exception {
+    switch (compression) {
+      case GZIP:
+	return new ParallelGzipOutputStream(out, m_NumThreads);
+      case XZ:
+	if (!XZUtils.isXZCompressionAvailable())
+	  throw new IllegalStateException("XZ compression not available, requires org.tukaani:xz on the classpath!");
+	return new XZCompressorOutputStream(out);
+      case ZSTD:
+	if (!ZstdUtils.isZstdCompressionAvailable())
+	  throw new IllegalStateException("Zstandard compression not available, requires com.github.luben:zstd-jni on the classpath!");
+	return new ZstdCompressorOutputStream(out);
+      default:
+	throw new IllegalStateException("Unhandled compression: " + compression);
+    }
+  }
+
+  /**
+   * Adds the directory entry.
+   *
+   * @param tar		the archive to add to
+   * @param path	the path of the directory (without leading "./")
+   * @throws Exception	if writing fails
+   */
+  protected void addDir(TarArchiveOutputStream tar, String path) throws Exception {
+    TarArchiveEntry	entry;
+
+    entry = new TarArchiveEntry(path.equals(".") ? "./" : "./" + path + "/", true);
+    entry.setMode(TarArchiveEntry.DEFAULT_DIR_MODE);
+    entry.setModTime(m_Epoch * 1000);
+    entry.setUserName("root");
+    entry.setGroupName("root");
+    tar.putArchiveEntry(entry);
+    tar.closeArchiveEntry();
+  }
+
+  /**
+   * Adds the data to the archive.
+   *
+   * @param tar		the archive to add to
+   * @param path	the path in the archive (without leading "./")
+   * @param data	the data to add
+   * @param mode	the file mode
+   * @throws Exception	if writing fails
+   */
+  protected void addData(TarArchiveOutputStream tar, String path, byte[] data, int mode) throws Exception {
+    TarArchiveEntry	entry;
+
+    entry = new TarArchiveEntry("./" + path, true);
+    entry.setSize(data.length);
+    entry.setMode(mode);
+    entry.setModTime(m_Epoch * 1000);
+    entry.setUserName("root");
+    entry.setGroupName("root");
+    tar.putArchiveEntry(entry);
+    tar.write(data);
+    tar.closeArchiveEntry();
+  }
+
+  /**
+   * Streams the file into the archive.
+   *
+   * @param tar		the archive to add to
+   * @param path	the path in the archive (without leading "./")
+   * @param file	the file to add
+   * @param mode	the file mode
+   * @throws Exception	if writing fails
+   */
+  protected void addFile(TarArchiveOutputStream tar, String path, File file, int mode) throws Exception {
+    TarArchiveEntry	entry;
+
+    entry = new TarArchiveEntry("./" + path, true);
+    entry.setSize(file.length());
+    entry.setMode(mode);
+    entry.setModTime(m_Epoch * 1000);
+    entry.setUserName("root");
+    entry.setGroupName("root");
+    tar.putArchiveEntry(entry);
+    Files.copy(file.toPath(), tar);
+    tar.closeArchiveEntry();
+  }
+
+  /**
+   * Adds the directory recursively (sorted), preserving the executable flag
+   * of the files. Symbolic links get resolved.
+   *
+   * @param entries	the entries to add to
+   * @param path	the path of the directory in the archive
+   * @param dir		the directory to add
+   */
+  protected void collectTree(List<DataEntry> entries, String path, File dir) {
+    File[]	files;
+
+    entries.add(new DataEntry(path, null, 0));
+    files = dir.listFiles();
+    if (files == null)
+      return;
+    Arrays.sort(files);
+    for (File file: files) {
+      if (file.isDirectory())
+	collectTree(entries, path + "/" + file.getName(), file);
+      else
+	entries.add(new DataEntry(path + "/" + file.getName(), file, file.canExecute() ? 0100755 : 0100644));
+    }
+  }
+
+  /**
+   * Turns the bytes into a hex string.
+   *
+   * @param digest	the bytes to convert
+   * @return		the hex string
+   */
+  protected static String toHex(byte[] digest) {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    for (byte b: digest)
+      result.append(String.format("%02x", b));
+
+    return result.toString();
+  }
+
+  /**
+   * Returns the sorted jars in the directory.
+   *
+   * @param dir		the directory to list
+   * @return		the jars
+   */
+  protected List<File> listJars(File dir) {
+    List<File>	result;
+    File[]	files;
+
+    result = new ArrayList<>();
+    if ((dir == null) || !dir.isDirectory())
+      return result;
+    files = dir.listFiles((d, name) -> name.toLowerCase().endsWith(".jar"));
+    if (files != null) {
+      Arrays.sort(files);
+      result.addAll(Arrays.asList(files));
+    }
+
+    return result;
+  }
+
+  /**
+   * Determines the entries of the data archive.
+   *
+   * @param libDir	the directory with the jars
+   * @param launch	the launch script, null if none
+   * @param srcDir	the directory with the source jars, null if none
+   * @return		the entries
+   */
+  protected List<DataEntry> collect(File libDir, File launch, File srcDir) {
+    List<DataEntry>	result;
+    List<File>		sources;
+    String		lib;
+    int			excluded;
+
+    result   = new ArrayList<>();
+    lib      = "usr/lib/" + m_Name;
+    sources  = listJars(srcDir);
+    excluded = 0;
+    result.add(new DataEntry(".", null, 0));
+    result.add(new DataEntry("usr", null, 0));
+    if (launch != null) {
+      result.add(new DataEntry("usr/bin", null, 0));
+      result.add(new DataEntry("usr/bin/" + m_Name, launch, 0100755));
+    }
+    result.add(new DataEntry("usr/lib", null, 0));
+    result.add(new DataEntry(lib, null, 0));
+    for (File jar: listJars(libDir)) {
+      if (isExcluded(jar.getName()))
+	excluded++;
+      else
+	result.add(new DataEntry(lib + "/" + jar.getName(), jar, 0100644));
+    }
+    if (!sources.isEmpty()) {
+      result.add(new DataEntry(lib + "/src", null, 0));
+      for (File jar: sources)
+	result.add(new DataEntry(lib + "/src/" + jar.getName(), jar, 0100644));
+    }
+    if (m_Runtime != null)
+      collectTree(result, lib + "/" + RuntimeImage.DIR, m_Runtime);
+    if (excluded > 0)
+      LOGGER.info("Excluded " + excluded + " jar(s) from Debian package");
+
+    return result;
+  }
+
+  /**
+   * Computes the MD5 checksums and the installed size of the files, as
+   * required by the control archive that precedes the data archive.
+   *
+   * @param entries	the entries of the data archive
+   * @throws Exception	if reading fails
+   */
+  protected void checksums(List<DataEntry> entries) throws Exception {
+    MessageDigest	md5;
+    byte[]		buffer;
+
+    m_MD5Sums       = new StringBuilder();
+    m_InstalledSize = 0;
+    buffer          = new byte[64 * 1024];
+    for (DataEntry entry: entries) {
+      if (entry.file == null)
+	continue;
+      md5 = MessageDigest.getInstance("MD5");
+      try (InputStream in = new DigestInputStream(Files.newInputStream(entry.file.toPath()), md5)) {
+	while (in.read(buffer) > 0) {
+	  // only computing checksum
+	}
+      }
+      m_MD5Sums.append(toHex(md5.digest())).append("  ").append(entry.path).append("\n");
+      m_InstalledSize += entry.file.length();
+    }
+  }
+
+  /**
+   * Writes the data archive.
+   *
+   * @param out		the stream to write to, gets closed
+   * @param entries	the entries to write
+   * @throws Exception	if writing fails
+   */
+  protected void writeData(OutputStream out, List<DataEntry> entries) throws Exception {
+    try (TarArchiveOutputStream tar = new TarArchiveOutputStream(compress(out, m_Compression))) {
+      tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+      tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_STAR);
+      for (DataEntry entry: entries) {
+	if (entry.file == null)
+	  addDir(tar, entry.path);
+	else
+	  addFile(tar, entry.path, entry.file, entry.mode);
+      }
+    }
+  }
+
+  /**
+   * Generates the control archive.
+   *
+   * @return		the gzip compressed archive
+   * @throws Exception	if generating fails
+   */
+  protected byte[] control() throws Exception {
+    ByteArrayOutputStream	result;
+    StringBuilder		control;
+
+    control = new StringBuilder();
+    control.append("Package: ").append(m_Name).append("\n");
+    control.append("Version: ").append(m_Version).append("\n");
+    control.append("Section: misc\n");
+    control.append("Priority: optional\n");
+    control.append("Architecture: ").append(m_Architecture).append("\n");
+    if ((m_Depends != null) && !m_Depends.isEmpty())
+      control.append("Depends: ").append(m_Depends).append("\n");
+    control.append("Installed-Size: ").append((m_InstalledSize + 1023) / 1024).append("\n");
+    control.append("Maintainer: ").append(m_Maintainer).append("\n");
+    control.append("Description: ").append(m_Name).append(" - generated by bootstrapp\n");
+
+    result = new ByteArrayOutputStream();
+    try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new ParallelGzipOutputStream(result, 1))) {
+      addDir(tar, ".");
+      addData(tar, "control", control.toString().getBytes(StandardCharsets.UTF_8), 0100644);
+      addData(tar, "md5sums", m_MD5Sums.toString().getBytes(StandardCharsets.UTF_8), 0100644);
+    }
+
+    return result.toByteArray();
+  }
+
+  /**
+   * Generates the header of an ar member.
+   *
+   * @param name	the name of the member
+   * @param size	the size of the content
+   * @return		the header
+   */
+  protected ByteBuffer arHeader(String name, long size) {
+    return ByteBuffer.wrap(String.format("%-16s%-12d%-6d%-6d%-8s%-10d`\n", name, m_Epoch, 0, 0, "100644", size).getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Adds the member to the ar archive.
+   *
+   * @param channel	the archive to add to
+   * @param name	the name of the member
+   * @param data	the content
+   * @throws Exception	if writing fails
+   */
+  protected void addMember(FileChannel channel, String name, byte[] data) throws Exception {
+    channel.write(arHeader(name, data.length));
+    channel.write(ByteBuffer.wrap(data));
+    if (data.length % 2 == 1)
+      channel.write(ByteBuffer.wrap(new byte[]{'\n'}));
+  }
+
+  /**
+   * Writes the package. The checksums get computed beforehand, as the
+   * control archive precedes the data archive. The data archive gets
+   * streamed into the package after a placeholder header, whose size
+   * gets patched afterwards.
+   *
+   * @param output	the package file to write
+   * @param libDir	the directory with the jars
+   * @param launch	the launch script, null if none
+   * @param srcDir	the directory with the source jars, null if none
+   * @return		null if successful, otherwise error message
+   */
+  public String write(File output, File libDir, File launch, File srcDir) {
+    List<DataEntry>	entries;
+    String		name;
+    File		tmp;
+    long		header;
+    long		size;
+    long		start;
+
+    start = System.currentTimeMillis();
+    name  = "data.tar." + m_Compression.getExtension();
+    tmp   = new File(output.getPath() + ".part");
+    try {
+      entries = collect(libDir, launch, srcDir);
+      checksums(entries);
+      try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+	channel.write(ByteBuffer.wrap("!<arch>\n".getBytes(StandardCharsets.US_ASCII)));
+	addMember(channel, "debian-binary", "2.0\n".getBytes(StandardCharsets.US_ASCII));
+	addMember(channel, "control.tar.gz", control());
+	header = channel.position();
+	channel.write(arHeader(name, 0));
+	// the channel must stay open for patching the header
+	writeData(new BufferedOutputStream(Channels.newOutputStream(channel)) {
+	  @Override
+	  public void close() throws IOException {
+	    flush();
+	  }
+	}, entries);
+	size = channel.position() - header - AR_HEADER;
+	if (size % 2 == 1)
+	  channel.write(ByteBuffer.wrap(new byte[]{'\n'}));
+	channel.write(arHeader(name, size), header);
+      }
+      Files.move(tmp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to write Debian package: " + output, e);
+      return "Failed to write Debian package '" + output + "': " + e;
+    }
+    finally {
+      tmp.delete();
+    }
+
+    LOGGER.info("Wrote Debian package " + output + " (" + output.length() / 1024 + "kB, "
+      + (System.currentTimeMillis() - start) + "ms)");
+
+    return null;
+  }
+}
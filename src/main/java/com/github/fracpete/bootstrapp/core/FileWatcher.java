@@ -0,0 +1,193 @@
+/*
+ * FileWatcher.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Monitors files and directories for changes using a WatchService. Files
+ * get monitored via their parent directory, so that editors replacing
+ * files (rather than writing them in place) are handled as well. Changes
+ * get debounced: after the first change, further changes get collected
+ * until none occurred for the specified delay.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class FileWatcher
+  implements AutoCloseable {
+
+  /** the default delay in msec. */
+  public final static int DEFAULT_DELAY = 500;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(FileWatcher.class.getName());
+
+  /** the files/directories to monitor. */
+  protected List<File> m_Files;
+
+  /** the delay in msec for debouncing. */
+  protected int m_Delay;
+
+  /** the watch service. */
+  protected transient WatchService m_Service;
+
+  /** the registered directories (key - directory). */
+  protected transient Map<WatchKey,Path> m_Keys;
+
+  /**
+   * Initializes the watcher.
+   *
+   * @param files	the files/directories to monitor
+   * @param delay	the delay in msec for debouncing
+   */
+  public FileWatcher(List<File> files, int delay) {
+    m_Files = new ArrayList<>();
+    for (File file: files)
+      m_Files.add(file.getAbsoluteFile());
+    m_Delay = Math.max(0, delay);
+    m_Keys  = new HashMap<>();
+  }
+
+  /**
+   * Returns the files/directories being monitored.
+   *
+   * @return		the files/directories
+   */
+  public List<File> getFiles() {
+    return m_Files;
+  }
+
+  /**
+   * Registers the directories with the watch service.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public String start() {
+    Set<Path>	dirs;
+    WatchKey	key;
+
+    dirs = new LinkedHashSet<>();
+    for (File file: m_Files) {
+      if (file.isDirectory())
+	dirs.add(file.toPath());
+      else
+	dirs.add(file.getParentFile().toPath());
+    }
+
+    try {
+      m_Service = FileSystems.getDefault().newWatchService();
+      for (Path dir: dirs) {
+	key = dir.register(m_Service,
+	  StandardWatchEventKinds.ENTRY_CREATE,
+	  StandardWatchEventKinds.ENTRY_MODIFY,
+	  StandardWatchEventKinds.ENTRY_DELETE);
+	m_Keys.put(key, dir);
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to monitor: " + dirs, e);
+      close();
+      return "Failed to monitor " + dirs + ": " + e;
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the monitored file/directory that the changed path belongs to.
+   *
+   * @param path	the changed path
+   * @return		the monitored file/directory, null if not monitored
+   */
+  protected File match(Path path) {
+    for (File file: m_Files) {
+      if (file.toPath().equals(path) || path.startsWith(file.toPath()))
+	return file;
+    }
+    return null;
+  }
+
+  /**
+   * Adds the monitored files/directories affected by the events of the key.
+   *
+   * @param key		the key to process
+   * @param changed	the set to add to
+   */
+  protected void process(WatchKey key, Set<File> changed) {
+    Path	dir;
+    File	file;
+
+    dir = m_Keys.get(key);
+    for (WatchEvent<?> event: key.pollEvents()) {
+      if (dir == null)
+	continue;
+      // events got lost, assume everything in the directory changed
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+	for (File f: m_Files) {
+	  if (f.toPath().equals(dir) || f.toPath().getParent().equals(dir))
+	    changed.add(f);
+	}
+	continue;
+      }
+      file = match(dir.resolve((Path) event.context()));
+      if (file != null)
+	changed.add(file);
+    }
+    key.reset();
+  }
+
+  /**
+   * Waits for changes of the monitored files/directories and returns them
+   * once no further changes occurred for the delay.
+   *
+   * @return		the changed files/directories
+   * @throws InterruptedException	if interrupted while waiting
+   */
+  public Set<File> waitForChanges() throws InterruptedException {
+    Set<File>	result;
+    WatchKey	key;
+
+    result = new LinkedHashSet<>();
+    while (result.isEmpty())
+      process(m_Service.take(), result);
+    while ((key = m_Service.poll(m_Delay, TimeUnit.MILLISECONDS)) != null)
+      process(key, result);
+
+    return result;
+  }
+
+  /**
+   * Stops monitoring.
+   */
+  @Override
+  public void close() {
+    if (m_Service != null) {
+      try {
+	m_Service.close();
+      }
+      catch (Exception e) {
+	// ignored
+      }
+      m_Service = null;
+    }
+    m_Keys.clear();
+  }
+}
@@ -0,0 +1,345 @@
+/*
+ * History.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Manages the performance history of bootstrap runs, stored per name and
+ * version below the bootstrapp home directory. Each run is stored as a
+ * single line of tab-separated key=value pairs, the first one being the
+ * timestamp.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class History {
+
+  /** the name of the history directory. */
+  public final static String HISTORY_DIR = "history";
+
+  /** the extension of the history files. */
+  public final static String HISTORY_EXT = ".history";
+
+  /** the key for the timestamp. */
+  public final static String KEY_TIMESTAMP = "timestamp";
+
+  /** the prefix for stage timings (msec). */
+  public final static String PREFIX_TIME = "time.";
+
+  /** the prefix for artifact counts. */
+  public final static String PREFIX_COUNT = "count.";
+
+  /** the prefix for output sizes (bytes). */
+  public final static String PREFIX_SIZE = "size.";
+
+  /** the maximum number of runs to keep per name/version. */
+  public final static int MAX_RUNS = 100;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(History.class.getName());
+
+  /**
+   * Container for a single run.
+   */
+  public static class Run {
+
+    /** the timestamp of the run. */
+    public long timestamp;
+
+    /** the metrics (key - value). */
+    public Map<String,Long> metrics = new LinkedHashMap<>();
+
+    /**
+     * Turns the run into a line for the history file.
+     *
+     * @return		the line
+     */
+    public String toLine() {
+      StringBuilder	result;
+
+      result = new StringBuilder();
+      result.append(KEY_TIMESTAMP).append("=").append(timestamp);
+      for (String key: metrics.keySet())
+        result.append("\t").append(key).append("=").append(metrics.get(key));
+
+      return result.toString();
+    }
+
+    /**
+     * Parses a line from the history file.
+     *
+     * @param line	the line to parse
+     * @return		the run, null if failed to parse
+     */
+    public static Run parse(String line) {
+      Run	result;
+      String[]	parts;
+      int	pos;
+      String	key;
+      long	value;
+
+      result = new Run();
+      parts  = line.split("\t");
+      try {
+	for (String part: parts) {
+	  pos = part.indexOf('=');
+	  if (pos == -1)
+	    continue;
+	  key   = part.substring(0, pos);
+	  value = Long.parseLong(part.substring(pos + 1));
+	  if (key.equals(KEY_TIMESTAMP))
+	    result.timestamp = value;
+	  else
+	    result.metrics.put(key, value);
+	}
+      }
+      catch (Exception e) {
+	LOGGER.warning("Failed to parse history line: " + line);
+	return null;
+      }
+
+      return result;
+    }
+  }
+
+  /**
+   * Container for a detected regression.
+   */
+  public static class Regression {
+
+    /** the metric. */
+    public String metric;
+
+    /** the baseline value. */
+    public double baseline;
+
+    /** the latest value. */
+    public long latest;
+
+    /** the ratio latest/baseline. */
+    public double ratio;
+
+    /**
+     * Returns a short description of the regression.
+     *
+     * @return		the description
+     */
+    @Override
+    public String toString() {
+      return metric + ": " + latest + " vs baseline " + String.format("%.1f", baseline) + " (x" + String.format("%.2f", ratio) + ")";
+    }
+  }
+
+  /**
+   * Returns the directory for storing the history.
+   * Located next to the downloaded Maven installation.
+   *
+   * @return		the directory
+   * @see		Maven#homeDir()
+   */
+  public static File historyDir() {
+    return new File(new File(Maven.homeDir()).getAbsoluteFile().getParentFile(), HISTORY_DIR);
+  }
+
+  /**
+   * Returns the history file for the name/version.
+   *
+   * @param name	the name of the project
+   * @param version	the version of the project
+   * @return		the file
+   */
+  public static File historyFile(String name, String version) {
+    return new File(historyDir(), sanitize(name) + File.separator + sanitize(version) + HISTORY_EXT);
+  }
+
+  /**
+   * Turns the string into something usable as file name.
+   *
+   * @param s		the string to process
+   * @return		the processed string
+   */
+  protected static String sanitize(String s) {
+    if ((s == null) || s.isEmpty())
+      return "_";
+    return s.replaceAll("[^A-Za-z0-9._-]", "_");
+  }
+
+  /**
+   * Determines the number of files and their total size in the directory
+   * (non-recursive).
+   *
+   * @param dir		the directory to inspect
+   * @return		the count (index 0) and size in bytes (index 1)
+   */
+  public static long[] dirStats(File dir) {
+    long[]	result;
+    File[]	files;
+
+    result = new long[2];
+    files  = dir.listFiles();
+    if (files != null) {
+      for (File file: files) {
+	if (!file.isFile())
+	  continue;
+	result[0]++;
+	result[1] += file.length();
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Appends the run to the history of the name/version. Only keeps the
+   * most recent {@link #MAX_RUNS} runs.
+   *
+   * @param name	the name of the project
+   * @param version	the version of the project
+   * @param run		the run to add
+   * @return		null if successful, otherwise error message
+   */
+  public static synchronized String record(String name, String version, Run run) {
+    File		file;
+    List<String>	lines;
+
+    file = historyFile(name, version);
+    try {
+      if (!file.getParentFile().exists()) {
+	if (!file.getParentFile().mkdirs())
+	  return "Failed to create history directory: " + file.getParentFile();
+      }
+      if (file.exists())
+	lines = new ArrayList<>(Files.readAllLines(file.toPath()));
+      else
+	lines = new ArrayList<>();
+      lines.add(run.toLine());
+      while (lines.size() > MAX_RUNS)
+	lines.remove(0);
+      Files.write(file.toPath(), lines, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to record history in: " + file, e);
+      return "Failed to record history in '" + file + "': " + e;
+    }
+
+    return null;
+  }
+
+  /**
+   * Loads the history of the name/version, oldest run first.
+   *
+   * @param name	the name of the project
+   * @param version	the version of the project
+   * @return		the runs, empty if no history available
+   */
+  public static List<Run> load(String name, String version) {
+    List<Run>	result;
+    File	file;
+    Run		run;
+
+    result = new ArrayList<>();
+    file   = historyFile(name, version);
+    if (!file.exists())
+      return result;
+
+    try {
+      for (String line: Files.readAllLines(file.toPath())) {
+	line = line.trim();
+	if (line.isEmpty())
+	  continue;
+	run = Run.parse(line);
+	if (run != null)
+	  result.add(run);
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to load history from: " + file, e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Computes the median of the values.
+   *
+   * @param values	the values
+   * @return		the median
+   */
+  protected static double median(List<Long> values) {
+    List<Long>	sorted;
+    int		mid;
+
+    sorted = new ArrayList<>(values);
+    Collections.sort(sorted);
+    mid = sorted.size() / 2;
+    if (sorted.size() % 2 == 1)
+      return sorted.get(mid);
+    else
+      return (sorted.get(mid - 1) + sorted.get(mid)) / 2.0;
+  }
+
+  /**
+   * Compares the latest run with the median of the preceding runs (rolling
+   * baseline) and returns all metrics that exceed the thresholds.
+   *
+   * @param runs		the runs, oldest first
+   * @param baselineSize	the maximum number of preceding runs to use as baseline
+   * @param timeThreshold	the ratio above which timings are considered a regression (eg 1.3)
+   * @param sizeThreshold	the ratio above which counts/sizes are considered a regression (eg 2.0)
+   * @return			the regressions, empty if none or not enough runs
+   */
+  public static List<Regression> compare(List<Run> runs, int baselineSize, double timeThreshold, double sizeThreshold) {
+    List<Regression>	result;
+    Run			latest;
+    List<Run>		baseline;
+    List<Long>		values;
+    double		base;
+    double		threshold;
+    Regression		regression;
+
+    result = new ArrayList<>();
+    if (runs.size() < 2)
+      return result;
+
+    latest   = runs.get(runs.size() - 1);
+    baseline = runs.subList(Math.max(0, runs.size() - 1 - baselineSize), runs.size() - 1);
+    for (String metric: latest.metrics.keySet()) {
+      values = new ArrayList<>();
+      for (Run run: baseline) {
+	if (run.metrics.containsKey(metric))
+	  values.add(run.metrics.get(metric));
+      }
+      if (values.isEmpty())
+	continue;
+      base = median(values);
+      if (base <= 0)
+	continue;
+      if (metric.startsWith(PREFIX_TIME))
+	threshold = timeThreshold;
+      else
+	threshold = sizeThreshold;
+      if (latest.metrics.get(metric) / base > threshold) {
+	regression          = new Regression();
+	regression.metric   = metric;
+	regression.baseline = base;
+	regression.latest   = latest.metrics.get(metric);
+	regression.ratio    = regression.latest / base;
+	result.add(regression);
+      }
+    }
+
+    return result;
+  }
+}
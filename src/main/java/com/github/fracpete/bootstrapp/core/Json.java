@@ -0,0 +1,351 @@
+/*
+ * Json.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader/writer for the OCI image metadata. Objects get parsed
+ * into LinkedHashMaps (preserving the order of the keys), arrays into
+ * Lists, numbers into Longs (or Doubles if not integral).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Json {
+
+  /** the JSON string to parse. */
+  protected String m_Input;
+
+  /** the current position. */
+  protected int m_Pos;
+
+  /**
+   * Initializes the parser.
+   *
+   * @param input	the JSON string to parse
+   */
+  protected Json(String input) {
+    m_Input = input;
+    m_Pos   = 0;
+  }
+
+  /**
+   * Parses the JSON string.
+   *
+   * @param input	the JSON string to parse
+   * @return		the parsed value (Map, List, String, Long, Double, Boolean, null)
+   * @throws IllegalArgumentException	if not valid JSON
+   */
+  public static Object parse(String input) {
+    Json	json;
+    Object	result;
+
+    json   = new Json(input);
+    result = json.value();
+    json.skipWhitespace();
+    if (json.m_Pos < input.length())
+      throw json.error("Unexpected trailing content");
+
+    return result;
+  }
+
+  /**
+   * Generates an error for the current position.
+   *
+   * @param msg		the error message
+   * @return		the exception
+   */
+  protected IllegalArgumentException error(String msg) {
+    return new IllegalArgumentException(msg + " at position " + m_Pos);
+  }
+
+  /**
+   * Skips whitespace.
+   */
+  protected void skipWhitespace() {
+    while ((m_Pos < m_Input.length()) && Character.isWhitespace(m_Input.charAt(m_Pos)))
+      m_Pos++;
+  }
+
+  /**
+   * Consumes the expected character.
+   *
+   * @param c		the expected character
+   */
+  protected void expect(char c) {
+    skipWhitespace();
+    if ((m_Pos >= m_Input.length()) || (m_Input.charAt(m_Pos) != c))
+      throw error("Expected '" + c + "'");
+    m_Pos++;
+  }
+
+  /**
+   * Parses the value at the current position.
+   *
+   * @return		the value
+   */
+  protected Object value() {
+    char	c;
+
+    skipWhitespace();
+    if (m_Pos >= m_Input.length())
+      throw error("Unexpected end");
+    c = m_Input.charAt(m_Pos);
+    switch (c) {
+      case '{':
+	return object();
+      case '[':
+	return array();
+      case '"':
+	return string();
+      default:
+	if (m_Input.startsWith("true", m_Pos)) {
+	  m_Pos += 4;
+	  return true;
+	}
+	if (m_Input.startsWith("false", m_Pos)) {
+	  m_Pos += 5;
+	  return false;
+	}
+	if (m_Input.startsWith("null", m_Pos)) {
+	  m_Pos += 4;
+	  return null;
+	}
+	return number();
+    }
+  }
+
+  /**
+   * Parses an object.
+   *
+   * @return		the object
+   */
+  protected Map<String,Object> object() {
+    Map<String,Object>	result;
+    String		key;
+
+    result = new LinkedHashMap<>();
+    expect('{');
+    skipWhitespace();
+    if (m_Input.charAt(m_Pos) == '}') {
+      m_Pos++;
+      return result;
+    }
+    while (true) {
+      skipWhitespace();
+      key = string();
+      expect(':');
+      result.put(key, value());
+      skipWhitespace();
+      if (m_Input.charAt(m_Pos) == ',') {
+	m_Pos++;
+	continue;
+      }
+      expect('}');
+      return result;
+    }
+  }
+
+  /**
+   * Parses an array.
+   *
+   * @return		the array
+   */
+  protected List<Object> array() {
+    List<Object>	result;
+
+    result = new ArrayList<>();
+    expect('[');
+    skipWhitespace();
+    if (m_Input.charAt(m_Pos) == ']') {
+      m_Pos++;
+      return result;
+    }
+    while (true) {
+      result.add(value());
+      skipWhitespace();
+      if (m_Input.charAt(m_Pos) == ',') {
+	m_Pos++;
+	continue;
+      }
+      expect(']');
+      return result;
+    }
+  }
+
+  /**
+   * Parses a string.
+   *
+   * @return		the string
+   */
+  protected String string() {
+    StringBuilder	result;
+    char		c;
+
+    if ((m_Pos >= m_Input.length()) || (m_Input.charAt(m_Pos) != '"'))
+      throw error("Expected string");
+    m_Pos++;
+    result = new StringBuilder();
+    while (m_Pos < m_Input.length()) {
+      c = m_Input.charAt(m_Pos++);
+      if (c == '"')
+	return result.toString();
+      if (c != '\\') {
+	result.append(c);
+	continue;
+      }
+      c = m_Input.charAt(m_Pos++);
+      switch (c) {
+	case 'b':
+	  result.append('\b');
+	  break;
+	case 'f':
+	  result.append('\f');
+	  break;
+	case 'n':
+	  result.append('\n');
+	  break;
+	case 'r':
+	  result.append('\r');
+	  break;
+	case 't':
+	  result.append('\t');
+	  break;
+	case 'u':
+	  result.append((char) Integer.parseInt(m_Input.substring(m_Pos, m_Pos + 4), 16));
+	  m_Pos += 4;
+	  break;
+	default:
+	  result.append(c);
+      }
+    }
+    throw error("Unterminated string");
+  }
+
+  /**
+   * Parses a number.
+   *
+   * @return		the number
+   */
+  protected Number number() {
+    int		start;
+    String	num;
+
+    start = m_Pos;
+    while ((m_Pos < m_Input.length()) && ("+-.eE".indexOf(m_Input.charAt(m_Pos)) > -1 || Character.isDigit(m_Input.charAt(m_Pos))))
+      m_Pos++;
+    num = m_Input.substring(start, m_Pos);
+    if (num.isEmpty())
+      throw error("Unexpected character '" + m_Input.charAt(m_Pos) + "'");
+    if (num.contains(".") || num.contains("e") || num.contains("E"))
+      return Double.parseDouble(num);
+    return Long.parseLong(num);
+  }
+
+  /**
+   * Appends the string in quotes, escaping it.
+   *
+   * @param s		the string to append
+   * @param result	the buffer to append to
+   */
+  protected static void quote(String s, StringBuilder result) {
+    char	c;
+    int		i;
+
+    result.append('"');
+    for (i = 0; i < s.length(); i++) {
+      c = s.charAt(i);
+      switch (c) {
+	case '"':
+	  result.append("\\\"");
+	  break;
+	case '\\':
+	  result.append("\\\\");
+	  break;
+	case '\n':
+	  result.append("\\n");
+	  break;
+	case '\r':
+	  result.append("\\r");
+	  break;
+	case '\t':
+	  result.append("\\t");
+	  break;
+	default:
+	  if (c < 0x20)
+	    result.append(String.format("\\u%04x", (int) c));
+	  else
+	    result.append(c);
+      }
+    }
+    result.append('"');
+  }
+
+  /**
+   * Appends the value in compact JSON notation.
+   *
+   * @param value	the value to append
+   * @param result	the buffer to append to
+   */
+  protected static void toJson(Object value, StringBuilder result) {
+    boolean	first;
+
+    if (value == null) {
+      result.append("null");
+    }
+    else if (value instanceof String) {
+      quote((String) value, result);
+    }
+    else if ((value instanceof Number) || (value instanceof Boolean)) {
+      result.append(value);
+    }
+    else if (value instanceof Map) {
+      result.append('{');
+      first = true;
+      for (Map.Entry<?,?> entry: ((Map<?,?>) value).entrySet()) {
+	if (!first)
+	  result.append(',');
+	first = false;
+	quote("" + entry.getKey(), result);
+	result.append(':');
+	toJson(entry.getValue(), result);
+      }
+      result.append('}');
+    }
+    else if (value instanceof List) {
+      result.append('[');
+      first = true;
+      for (Object item: (List<?>) value) {
+	if (!first)
+	  result.append(',');
+	first = false;
+	toJson(item, result);
+      }
+      result.append(']');
+    }
+    else {
+      quote(value.toString(), result);
+    }
+  }
+
+  /**
+   * Turns the value into compact JSON.
+   *
+   * @param value	the value (Map, List, String, Number, Boolean, null)
+   * @return		the JSON string
+   */
+  public static String toJson(Object value) {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    toJson(value, result);
+
+    return result.toString();
+  }
+}
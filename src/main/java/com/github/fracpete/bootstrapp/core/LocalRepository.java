@@ -0,0 +1,396 @@
+/*
+ * LocalRepository.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Local repository layout for concurrent bootstraps: a shared base repository
+ * that Maven never writes to and a per-run overlay that Maven uses as local
+ * repository. With Maven 3.9+, the base gets used as read-only tail of the
+ * (initially empty) overlay, so that all cached artifacts are available
+ * without downloading them again. Older versions of Maven do not support
+ * tails, in which case the overlay gets seeded with hard links to the files
+ * of the base (mutable tracking/metadata files get copied). After a successful
+ * run, the new files get promoted into the base using atomic moves, while
+ * holding a named lock (within the process and across processes).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class LocalRepository {
+
+  /** the suffix for the directory with the overlays, located next to the base. */
+  public final static String OVERLAYS_SUFFIX = "-overlays";
+
+  /** the directory in the base with the lock files. */
+  public final static String LOCK_DIR = ".locks";
+
+  /** the name of the lock used for promoting. */
+  public final static String PROMOTE_LOCK = "promote";
+
+  /** the Maven property for read-only local repositories (Maven 3.9+). */
+  public final static String TAIL_PROPERTY = "maven.repo.local.tail";
+
+  /** the in-process locks (lock file - lock), as file locks are per process. */
+  protected static Map<String,ReentrantLock> LOCKS = new HashMap<>();
+
+  /** the pattern for the maven-core jar (group 1: major, group 2: minor version). */
+  protected final static Pattern MAVEN_CORE = Pattern.compile("maven-core-([0-9]+)\\.([0-9]+)\\..*\\.jar");
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(LocalRepository.class.getName());
+
+  /** the base repository. */
+  protected File m_Base;
+
+  /** whether the base is used as tail rather than seeding the overlay. */
+  protected boolean m_Tail;
+
+  /** the overlay of this run. */
+  protected File m_Overlay;
+
+  /**
+   * Initializes the repository, seeding the overlay from the base.
+   *
+   * @param base	the shared base repository
+   */
+  public LocalRepository(File base) {
+    this(base, false);
+  }
+
+  /**
+   * Initializes the repository.
+   *
+   * @param base	the shared base repository
+   * @param tail	whether Maven uses the base as tail (no seeding of the overlay)
+   * @see		#TAIL_PROPERTY
+   * @see		#supportsTail(File)
+   */
+  public LocalRepository(File base, boolean tail) {
+    m_Base    = base.getAbsoluteFile();
+    m_Tail    = tail;
+    m_Overlay = null;
+  }
+
+  /**
+   * Returns the base repository.
+   *
+   * @return		the base
+   */
+  public File getBase() {
+    return m_Base;
+  }
+
+  /**
+   * Returns whether Maven uses the base as tail rather than seeding the overlay.
+   *
+   * @return		true if used as tail
+   * @see		#TAIL_PROPERTY
+   */
+  public boolean isTail() {
+    return m_Tail;
+  }
+
+  /**
+   * Returns the overlay of this run.
+   *
+   * @return		the overlay, null if not created
+   */
+  public File getOverlay() {
+    return m_Overlay;
+  }
+
+  /**
+   * Checks whether the Maven installation supports read-only tails of the
+   * local repository (Maven 3.9+), by inspecting the maven-core jar.
+   *
+   * @param mavenHome	the Maven installation
+   * @return		true if supported
+   * @see		#TAIL_PROPERTY
+   */
+  public static boolean supportsTail(File mavenHome) {
+    File[]	files;
+    Matcher	matcher;
+    int		major;
+    int		minor;
+
+    files = new File(mavenHome, "lib").listFiles();
+    if (files == null)
+      return false;
+    for (File file: files) {
+      matcher = MAVEN_CORE.matcher(file.getName());
+      if (matcher.matches()) {
+	major = Integer.parseInt(matcher.group(1));
+	minor = Integer.parseInt(matcher.group(2));
+	return (major > 3) || ((major == 3) && (minor >= 9));
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns whether the file is to be ignored, e.g., failed download markers.
+   *
+   * @param name	the file name
+   * @return		true if to ignore
+   */
+  protected static boolean isIgnored(String name) {
+    return name.endsWith(".lastUpdated") || name.endsWith(".part") || name.endsWith(".lock");
+  }
+
+  /**
+   * Returns whether Maven modifies the file in place (tracking and metadata
+   * files). These get copied rather than linked.
+   *
+   * @param name	the file name
+   * @return		true if mutable
+   */
+  protected static boolean isMutable(String name) {
+    return name.equals("_remote.repositories") || name.endsWith(".properties") || name.startsWith("maven-metadata");
+  }
+
+  /**
+   * Returns all files below the directory, relative to the directory.
+   *
+   * @param dir		the directory to list
+   * @return		the relative paths
+   * @throws IOException	if listing fails
+   */
+  protected static List<Path> list(File dir) throws IOException {
+    final Path	root;
+
+    root = dir.toPath();
+    try (Stream<Path> stream = Files.walk(root)) {
+      return stream
+	.filter(Files::isRegularFile)
+	.filter(p -> !p.startsWith(root.resolve(LOCK_DIR)))
+	.filter(p -> !isIgnored(p.getFileName().toString()))
+	.map(root::relativize)
+	.collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Creates the overlay for this run and, unless the base is used as tail,
+   * seeds it with the content of the base (in parallel).
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public String createOverlay() {
+    File			dir;
+    List<Path>			files;
+    final List<String>		errors;
+    final AtomicBoolean		fallback;
+    final AtomicInteger		linked;
+    long			start;
+
+    start = System.currentTimeMillis();
+    dir   = new File(m_Base.getParentFile(), m_Base.getName() + OVERLAYS_SUFFIX);
+    try {
+      if (!m_Base.exists() && !m_Base.mkdirs())
+	return "Failed to create base repository: " + m_Base;
+      if (!dir.exists() && !dir.mkdirs())
+	return "Failed to create overlays directory: " + dir;
+      m_Overlay = Files.createTempDirectory(dir.toPath(), "run-").toFile();
+      if (m_Tail) {
+	LOGGER.info("Created overlay " + m_Overlay + " with base " + m_Base + " as tail");
+	return null;
+      }
+      files = list(m_Base);
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to create overlay for: " + m_Base, e);
+      return "Failed to create overlay for '" + m_Base + "': " + e;
+    }
+
+    errors   = Collections.synchronizedList(new ArrayList<>());
+    fallback = new AtomicBoolean(false);
+    linked   = new AtomicInteger(0);
+    files.parallelStream().forEach((Path rel) -> {
+      Path source = m_Base.toPath().resolve(rel);
+      Path target = m_Overlay.toPath().resolve(rel);
+      try {
+	Files.createDirectories(target.getParent());
+	if (!fallback.get() && !isMutable(rel.getFileName().toString())) {
+	  try {
+	    Files.createLink(target, source);
+	    linked.incrementAndGet();
+	    return;
+	  }
+	  catch (UnsupportedOperationException | IOException e) {
+	    if (!fallback.getAndSet(true))
+	      LOGGER.warning("Failed to create hard link, falling back to copying: " + e);
+	  }
+	}
+	Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+      }
+      catch (Exception e) {
+	errors.add(rel + ": " + e);
+      }
+    });
+    if (!errors.isEmpty())
+      return "Failed to seed overlay " + m_Overlay + ":\n" + String.join("\n", errors);
+
+    LOGGER.info("Created overlay " + m_Overlay + " with " + files.size() + " files (" + linked.get() + " linked, "
+      + (System.currentTimeMillis() - start) + "ms)");
+
+    return null;
+  }
+
+  /**
+   * Moves the file atomically, falling back to copying to a temp file first
+   * if the move across file systems is not supported.
+   *
+   * @param source	the file to move
+   * @param target	the destination
+   * @throws IOException	if moving fails
+   */
+  protected static void moveAtomically(Path source, Path target) throws IOException {
+    Path	tmp;
+
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    catch (AtomicMoveNotSupportedException e) {
+      tmp = target.resolveSibling(target.getFileName() + "." + Thread.currentThread().getId() + ".part");
+      Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+      Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Promotes the new files of the overlay into the base, while holding the
+   * promotion lock. Updated metadata files replace the ones in the base.
+   *
+   * @return		null if successful, otherwise error message
+   * @see		#PROMOTE_LOCK
+   */
+  public String promote() {
+    if (m_Overlay == null)
+      return "No overlay created!";
+
+    return withLock(PROMOTE_LOCK, () -> {
+      List<Path> files;
+      int promoted;
+      long start;
+
+      start    = System.currentTimeMillis();
+      files    = list(m_Overlay);
+      promoted = 0;
+      for (Path rel: files) {
+	Path source = m_Overlay.toPath().resolve(rel);
+	Path target = m_Base.toPath().resolve(rel);
+	if (Files.exists(target)) {
+	  if (Files.isSameFile(source, target))
+	    continue;
+	  if (!isMutable(rel.getFileName().toString()))
+	    continue;
+	  if (Files.getLastModifiedTime(source).compareTo(Files.getLastModifiedTime(target)) <= 0)
+	    continue;
+	}
+	Files.createDirectories(target.getParent());
+	moveAtomically(source, target);
+	promoted++;
+      }
+      LOGGER.info("Promoted " + promoted + " files from overlay " + m_Overlay + " to " + m_Base
+	+ " (" + (System.currentTimeMillis() - start) + "ms)");
+      return null;
+    });
+  }
+
+  /**
+   * Interface for code to execute while holding a lock.
+   */
+  public interface LockedAction {
+
+    /**
+     * Executes the action.
+     *
+     * @return		null if successful, otherwise error message
+     * @throws Exception	if execution fails
+     */
+    String execute() throws Exception;
+  }
+
+  /**
+   * Executes the action while holding the named lock of the base repository,
+   * which is exclusive within this process and across processes.
+   *
+   * @param name	the name of the lock
+   * @param action	the action to execute
+   * @return		null if successful, otherwise error message
+   */
+  public String withLock(String name, LockedAction action) {
+    File		lockFile;
+    ReentrantLock	lock;
+
+    lockFile = new File(new File(m_Base, LOCK_DIR), name + ".lock");
+    synchronized(LOCKS) {
+      if (!LOCKS.containsKey(lockFile.getAbsolutePath()))
+	LOCKS.put(lockFile.getAbsolutePath(), new ReentrantLock());
+      lock = LOCKS.get(lockFile.getAbsolutePath());
+    }
+
+    lock.lock();
+    try {
+      if (!lockFile.getParentFile().exists() && !lockFile.getParentFile().mkdirs())
+	return "Failed to create lock directory: " + lockFile.getParentFile();
+      try (RandomAccessFile raf = new RandomAccessFile(lockFile, "rw");
+	   FileChannel channel = raf.getChannel();
+	   FileLock fileLock = channel.lock()) {
+	return action.execute();
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to execute action under lock: " + lockFile, e);
+      return "Failed to execute action under lock '" + lockFile + "': " + e;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Deletes the overlay of this run.
+   */
+  public void deleteOverlay() {
+    if (m_Overlay == null)
+      return;
+    try (Stream<Path> stream = Files.walk(m_Overlay.toPath())) {
+      stream
+	.sorted(Collections.reverseOrder())
+	.map(Path::toFile)
+	.forEach(File::delete);
+    }
+    catch (Exception e) {
+      LOGGER.warning("Failed to delete overlay: " + m_Overlay + "\n" + e);
+    }
+    m_Overlay = null;
+  }
+}
@@ -0,0 +1,402 @@
+/*
+ * MainClassFinder.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+
+/**
+ * Discovers main classes in the jars of a directory concurrently, without
+ * loading any classes: the manifests get checked for the Main-Class
+ * attribute and the class files get parsed (constant pool and methods) for
+ * a "public static void main(String[])" method. In order to stay fast on
+ * large classpaths, only the class files of direct dependencies get parsed,
+ * unless no candidate was found at all. Candidates get ranked: direct over
+ * transitive dependencies, manifest over plain main method, top-level over
+ * nested classes.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MainClassFinder {
+
+  /** the name of the main method. */
+  public final static String MAIN_NAME = "main";
+
+  /** the descriptor of the main method. */
+  public final static String MAIN_DESCRIPTOR = "([Ljava/lang/String;)V";
+
+  /** the magic number of class files. */
+  public final static int MAGIC = 0xCAFEBABE;
+
+  /** public. */
+  public final static int ACC_PUBLIC = 0x0001;
+
+  /** static. */
+  public final static int ACC_STATIC = 0x0008;
+
+  /** annotation. */
+  public final static int ACC_ANNOTATION = 0x2000;
+
+  /** module. */
+  public final static int ACC_MODULE = 0x8000;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(MainClassFinder.class.getName());
+
+  /**
+   * Container for a main class candidate.
+   */
+  public static class Candidate
+    implements Comparable<Candidate> {
+
+    /** the class name. */
+    public String className;
+
+    /** the jar the class is from. */
+    public File jar;
+
+    /** whether declared in the manifest. */
+    public boolean manifest;
+
+    /** whether from a direct dependency. */
+    public boolean direct;
+
+    /**
+     * Returns the score of the candidate (higher is better).
+     *
+     * @return		the score
+     */
+    public int getScore() {
+      return (direct ? 4 : 0) + (manifest ? 2 : 0) + (className.contains("$") ? 0 : 1);
+    }
+
+    /**
+     * Compares by score (descending) and then name.
+     *
+     * @param o		the candidate to compare with
+     * @return		less than, equal to, or greater than zero
+     */
+    @Override
+    public int compareTo(Candidate o) {
+      if (getScore() != o.getScore())
+	return Integer.compare(o.getScore(), getScore());
+      return className.compareTo(o.className);
+    }
+
+    /**
+     * Returns a short description.
+     *
+     * @return		the description
+     */
+    @Override
+    public String toString() {
+      return className + " (" + jar.getName() + ", " + (direct ? "direct" : "transitive") + (manifest ? ", manifest" : "") + ")";
+    }
+  }
+
+  /** the number of threads to use. */
+  protected int m_NumThreads;
+
+  /**
+   * Initializes the finder.
+   *
+   * @param numThreads	the number of threads, less than 1 for number of CPUs
+   */
+  public MainClassFinder(int numThreads) {
+    m_NumThreads = (numThreads < 1) ? Runtime.getRuntime().availableProcessors() : numThreads;
+  }
+
+  /**
+   * Checks whether the class file declares a public class with a
+   * "public static void main(String[])" method.
+   *
+   * @param data	the class file
+   * @return		the class name (with dots), null if not a main class
+   * @throws Exception	if parsing fails
+   */
+  public static String parse(byte[] data) throws Exception {
+    DataInputStream	in;
+    String[]		utf8;
+    int[]		classes;
+    int			count;
+    int			i;
+    int			n;
+    int			m;
+    int			tag;
+    int			access;
+    int			thisClass;
+    int			flags;
+    int			name;
+    int			desc;
+    boolean		hasName;
+    boolean		hasDesc;
+
+    in = new DataInputStream(new ByteArrayInputStream(data));
+    if (in.readInt() != MAGIC)
+      return null;
+    in.readUnsignedShort();  // minor
+    in.readUnsignedShort();  // major
+
+    // constant pool
+    count   = in.readUnsignedShort();
+    utf8    = new String[count];
+    classes = new int[count];
+    hasName = false;
+    hasDesc = false;
+    for (i = 1; i < count; i++) {
+      tag = in.readUnsignedByte();
+      switch (tag) {
+	case 1:   // utf8
+	  utf8[i] = in.readUTF();
+	  hasName = hasName || utf8[i].equals(MAIN_NAME);
+	  hasDesc = hasDesc || utf8[i].equals(MAIN_DESCRIPTOR);
+	  break;
+	case 7:   // class
+	  classes[i] = in.readUnsignedShort();
+	  break;
+	case 8:   // string
+	case 16:  // method type
+	case 19:  // module
+	case 20:  // package
+	  in.skipBytes(2);
+	  break;
+	case 15:  // method handle
+	  in.skipBytes(3);
+	  break;
+	case 3:   // integer
+	case 4:   // float
+	case 9:   // field ref
+	case 10:  // method ref
+	case 11:  // interface method ref
+	case 12:  // name and type
+	case 17:  // dynamic
+	case 18:  // invoke dynamic
+	  in.skipBytes(4);
+	  break;
+	case 5:   // long
+	case 6:   // double
+	  in.skipBytes(8);
+	  i++;
+	  break;
+	default:
+	  throw new IllegalStateException("Unknown constant pool tag: " + tag);
+      }
+    }
+    if (!hasName || !hasDesc)
+      return null;
+
+    access    = in.readUnsignedShort();
+    thisClass = in.readUnsignedShort();
+    if (((access & ACC_PUBLIC) == 0) || ((access & (ACC_ANNOTATION | ACC_MODULE)) != 0))
+      return null;
+    in.skipBytes(2);  // super class
+    in.skipBytes(2 * in.readUnsignedShort());  // interfaces
+
+    // fields
+    n = in.readUnsignedShort();
+    for (i = 0; i < n; i++) {
+      in.skipBytes(6);
+      m = in.readUnsignedShort();
+      while (m-- > 0) {
+	in.skipBytes(2);
+	in.skipBytes(in.readInt());
+      }
+    }
+
+    // methods
+    n = in.readUnsignedShort();
+    for (i = 0; i < n; i++) {
+      flags = in.readUnsignedShort();
+      name  = in.readUnsignedShort();
+      desc  = in.readUnsignedShort();
+      if (((flags & (ACC_PUBLIC | ACC_STATIC)) == (ACC_PUBLIC | ACC_STATIC))
+	&& MAIN_NAME.equals(utf8[name]) && MAIN_DESCRIPTOR.equals(utf8[desc]))
+	return utf8[classes[thisClass]].replace('/', '.');
+      m = in.readUnsignedShort();
+      while (m-- > 0) {
+	in.skipBytes(2);
+	in.skipBytes(in.readInt());
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Reads the entry completely.
+   *
+   * @param jar		the jar to read from
+   * @param entry	the entry to read
+   * @return		the content
+   * @throws Exception	if reading fails
+   */
+  protected static byte[] read(JarFile jar, ZipEntry entry) throws Exception {
+    byte[]	result;
+    int		pos;
+    int		len;
+
+    result = new byte[(int) entry.getSize()];
+    try (InputStream in = jar.getInputStream(entry)) {
+      pos = 0;
+      while ((pos < result.length) && ((len = in.read(result, pos, result.length - pos)) > 0))
+	pos += len;
+    }
+
+    return result;
+  }
+
+  /**
+   * Scans the jar for main classes.
+   *
+   * @param file	the jar to scan
+   * @param direct	whether the jar is a direct dependency
+   * @param classes	whether to parse the class files or only the manifest
+   * @return		the candidates
+   */
+  protected List<Candidate> scan(File file, boolean direct, boolean classes) {
+    List<Candidate>		result;
+    Manifest			manifest;
+    String			declared;
+    Enumeration<? extends ZipEntry>	entries;
+    ZipEntry			entry;
+    String			className;
+    Candidate			candidate;
+
+    result = new ArrayList<>();
+    try (JarFile jar = new JarFile(file, false)) {
+      declared = null;
+      manifest = jar.getManifest();
+      if (manifest != null)
+	declared = manifest.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+      if (declared != null) {
+	candidate           = new Candidate();
+	candidate.className = declared.trim();
+	candidate.jar       = file;
+	candidate.direct    = direct;
+	candidate.manifest  = true;
+	result.add(candidate);
+      }
+      if (!classes)
+	return result;
+
+      entries = jar.entries();
+      while (entries.hasMoreElements()) {
+	entry = entries.nextElement();
+	if (entry.isDirectory() || !entry.getName().endsWith(".class") || entry.getName().startsWith("META-INF/")
+	  || entry.getName().endsWith("module-info.class") || entry.getName().endsWith("package-info.class")
+	  || (entry.getSize() < 0) || (entry.getSize() > Integer.MAX_VALUE))
+	  continue;
+	try {
+	  className = parse(read(jar, entry));
+	}
+	catch (Exception e) {
+	  LOGGER.fine("Failed to parse " + entry.getName() + " in " + file + ": " + e);
+	  continue;
+	}
+	if ((className == null) || className.equals(declared))
+	  continue;
+	candidate           = new Candidate();
+	candidate.className = className;
+	candidate.jar       = file;
+	candidate.direct    = direct;
+	result.add(candidate);
+      }
+    }
+    catch (Exception e) {
+      LOGGER.warning("Failed to scan jar: " + file + "\n" + e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Scans the jars concurrently.
+   *
+   * @param jars	the jars to scan
+   * @param direct	the direct dependencies (file names)
+   * @param classes	whether to parse the class files of all jars, otherwise only the direct ones
+   * @return		the candidates
+   * @throws Exception	if scanning fails
+   */
+  protected List<Candidate> scan(List<File> jars, final Set<String> direct, final boolean classes) throws Exception {
+    List<Candidate>			result;
+    List<Callable<List<Candidate>>>	jobs;
+    ExecutorService			executor;
+
+    jobs = new ArrayList<>();
+    for (final File jar: jars) {
+      final boolean isDirect = direct.contains(jar.getName());
+      jobs.add(() -> scan(jar, isDirect, classes || isDirect));
+    }
+    result   = new ArrayList<>();
+    executor = Executors.newWorkStealingPool(m_NumThreads);
+    try {
+      for (Future<List<Candidate>> future: executor.invokeAll(jobs))
+	result.addAll(future.get());
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    return result;
+  }
+
+  /**
+   * Finds and ranks the main classes in the jars of the directory.
+   *
+   * @param dir		the directory with the jars (eg lib)
+   * @param direct	the file names of the jars of the direct dependencies
+   * @return		the ranked candidates, best first
+   * @throws Exception	if scanning fails
+   */
+  public List<Candidate> find(File dir, Set<String> direct) throws Exception {
+    List<Candidate>	result;
+    List<File>		jars;
+    File[]		files;
+    long		start;
+
+    start = System.currentTimeMillis();
+    files = dir.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+	return name.toLowerCase().endsWith(".jar");
+      }
+    });
+    if (files == null)
+      return new ArrayList<>();
+    jars = new ArrayList<>(Arrays.asList(files));
+    // largest first, to avoid a long tail
+    jars.sort((f1, f2) -> Long.compare(f2.length(), f1.length()));
+
+    result = scan(jars, direct, false);
+    if (result.isEmpty())
+      result = scan(jars, direct, true);
+    Collections.sort(result);
+
+    LOGGER.info("Found " + result.size() + " main class candidate(s) in " + jars.size() + " jar(s) ("
+      + (System.currentTimeMillis() - start) + "ms)");
+
+    return result;
+  }
+}
@@ -1,6 +1,6 @@
 /*
  * Maven.java
- * Copyright (C) 2020-2025 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2020-2026 University of Waikato, Hamilton, NZ
  */
 
 package com.github.fracpete.bootstrapp.core;
@@ -11,6 +11,11 @@ import com.github.fracpete.resourceextractor4j.Content;
 import org.apache.commons.lang3.SystemUtils;
 
 import java.io.File;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -96,20 +101,22 @@ public class Maven {
    * @return		null if successful, otherwise error message
    */
   public static String initRemoteMaven() {
-    File			dir;
+    return initRemoteMaven(null);
+  }
+
+  /**
+   * Downloads Maven from the web, if necessary.
+   *
+   * @param bandwidth	the bandwidth limit for the download, null for unlimited
+   * @return		null if successful, otherwise error message
+   */
+  public static String initRemoteMaven(TokenBucket bandwidth) {
     String			res;
-    String			dirname;
     String			url;
-    String 			tmpFile;
-    FileResponse 		r;
-    List<String> 		lines;
-    StringBuilder		error;
-    File			file;
-
-    dir = new File(homeDir());
+    List<String> 		executables;
 
     // exists already?
-    if (dir.exists() && dir.isDirectory())
+    if (new File(homeDir()).isDirectory())
       return null;
 
     // get URL
@@ -119,26 +126,63 @@ public class Maven {
       return "Failed to read URL from resource: " + res;
     url = url.trim();
 
-    // get directory
-    res     = Resources.LOCATION + "/" + DIR_FILE;
-    dirname = Content.readString(res);
-    if (dirname == null)
-      return "Failed to read directory from resource: " + res;
-    dirname = dirname.trim();
+    // get executables
+    executables = new ArrayList<>();
+    if (!SystemUtils.IS_OS_WINDOWS) {
+      res         = Resources.LOCATION + "/" + EXECUTABLES_FILE;
+      executables = Content.readLines(res);
+      if (executables == null)
+        return "Failed to read executable files from: " + res;
+    }
+
+    return install("Maven", url, new File(homeDir()), executables, bandwidth);
+  }
+
+  /**
+   * Downloads the zip file and decompresses it. The zip file must contain
+   * the specified directory as top-level directory.
+   *
+   * @param name	the name of the distribution, used for logging and the temp file
+   * @param url		the URL of the zip file
+   * @param dir		the directory that the zip file contains
+   * @param executables	the files to make executable (relative to the directory)
+   * @param bandwidth	the bandwidth limit for the download, null for unlimited
+   * @return		null if successful, otherwise error message
+   */
+  protected static String install(String name, String url, File dir, List<String> executables, TokenBucket bandwidth) {
+    String 			tmpFile;
+    FileResponse 		r;
+    HttpURLConnection		conn;
+    List<String> 		lines;
+    StringBuilder		error;
+    File			file;
 
     // download file
-    tmpFile = System.getProperty("java.io.tmpdir") + File.separator + "maven.zip";
+    tmpFile = System.getProperty("java.io.tmpdir") + File.separator + name.toLowerCase().replace(" ", "-") + ".zip";
     try {
-      LOGGER.info("Downloading Maven from: " + url);
-      r = Requests.get(url)
-	.allowRedirects(true)
-	.execute(new FileResponse(tmpFile, 1024 * 1024));
-      if (r.ok())
-	LOGGER.info("Finished downloading Maven.");
+      LOGGER.info("Downloading " + name + " from: " + url);
+      if (bandwidth == null) {
+	r = Requests.get(url)
+	  .allowRedirects(true)
+	  .execute(new FileResponse(tmpFile, 1024 * 1024));
+	if (r.ok())
+	  LOGGER.info("Finished downloading " + name + ".");
+      }
+      else {
+	conn = (HttpURLConnection) new URL(url).openConnection();
+	conn.setInstanceFollowRedirects(true);
+	try (InputStream in = new ThrottledInputStream(conn.getInputStream(), bandwidth)) {
+	  Files.copy(in, new File(tmpFile).toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	finally {
+	  conn.disconnect();
+	}
+	LOGGER.info("Finished downloading " + name + " (limited to " + bandwidth.getRate() / 1024 + "kB/s).");
+      }
     }
     catch (Exception e) {
-      LOGGER.log(Level.SEVERE, "Failed to download Maven from:\n" + url + "\nto:\n" + tmpFile, e);
-      return "Failed to download Maven from:\n" + url + "\nto:\n" + tmpFile;
+      LOGGER.log(Level.SEVERE, "Failed to download " + name + " from:\n" + url + "\nto:\n" + tmpFile, e);
+      return "Failed to download " + name + " from:\n" + url + "\nto:\n" + tmpFile;
     }
 
     // decompress
@@ -155,15 +199,9 @@ public class Maven {
     }
 
     // set executable flags
-    if (!SystemUtils.IS_OS_WINDOWS) {
-      res = Resources.LOCATION + "/" + EXECUTABLES_FILE;
-      lines = Content.readLines(res);
-      if (lines == null)
-        return "Failed to read executable files from: " + res;
-      for (String line : lines) {
-	file = new File(homeDir() + "/" + line);
-	file.setExecutable(true);
-      }
+    for (String line: executables) {
+      file = new File(dir, line);
+      file.setExecutable(true);
     }
 
     return null;
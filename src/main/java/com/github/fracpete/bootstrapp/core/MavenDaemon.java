@@ -0,0 +1,154 @@
+/*
+ * MavenDaemon.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import com.github.fracpete.resourceextractor4j.Content;
+import org.apache.commons.lang3.SystemUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maven Daemon (mvnd) related tasks. The daemon keeps the build JVM alive
+ * between executions, avoiding cold starts, plugin class loading and JIT
+ * warm-up for repeated bootstraps on the same host.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MavenDaemon {
+
+  /** the file with the download URL. */
+  public final static String URL_FILE = "mvnd.url";
+
+  /** the file with the directory in the zip file. */
+  public final static String DIR_FILE = "mvnd.dir";
+
+  /** the file with the file names of the executables. */
+  public final static String EXECUTABLES_FILE = "mvnd.executables";
+
+  /** the placeholder for the platform in the URL/directory. */
+  public final static String PH_PLATFORM = "{platform}";
+
+  /** the directory of the embedded Maven installation. */
+  public final static String MAVEN_DIR = "mvn";
+
+  /** the home directory. */
+  protected static String HOMEDIR = null;
+
+  /**
+   * Returns the platform string used by the mvnd distributions.
+   *
+   * @return		the platform, null if not supported
+   */
+  public static String platform() {
+    boolean	arm;
+
+    arm = System.getProperty("os.arch").equals("aarch64");
+    if (SystemUtils.IS_OS_WINDOWS)
+      return "windows-amd64";
+    if (SystemUtils.IS_OS_MAC)
+      return arm ? "darwin-aarch64" : "darwin-amd64";
+    if (SystemUtils.IS_OS_LINUX && !arm)
+      return "linux-amd64";
+    return null;
+  }
+
+  /**
+   * Returns the home directory for the downloaded mvnd version, located
+   * next to the downloaded Maven installation.
+   *
+   * @return		the directory, null if platform not supported
+   * @see		Maven#homeDir()
+   */
+  public static synchronized String homeDir() {
+    List<String> 	lines;
+    String		platform;
+
+    if (HOMEDIR == null) {
+      platform = platform();
+      lines    = Content.readLines(Resources.LOCATION + "/" + DIR_FILE);
+      if ((platform == null) || (lines == null) || lines.isEmpty())
+	return null;
+      HOMEDIR = new File(new File(Maven.homeDir()).getAbsoluteFile().getParentFile(), lines.get(0).trim().replace(PH_PLATFORM, platform)).getAbsolutePath();
+    }
+
+    return HOMEDIR;
+  }
+
+  /**
+   * Returns the Maven installation that is embedded in the mvnd installation.
+   *
+   * @param home	the mvnd installation
+   * @return		the Maven installation
+   */
+  public static File mavenHome(File home) {
+    return new File(home, MAVEN_DIR);
+  }
+
+  /**
+   * Returns the mvnd executable of the installation.
+   *
+   * @param home	the mvnd installation
+   * @return		the executable
+   */
+  public static File executable(File home) {
+    if (SystemUtils.IS_OS_WINDOWS)
+      return new File(home, "bin/mvnd.cmd");
+    else
+      return new File(home, "bin/mvnd");
+  }
+
+  /**
+   * Downloads mvnd from the web, if necessary.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public static String initRemoteMavenDaemon() {
+    return initRemoteMavenDaemon(null);
+  }
+
+  /**
+   * Downloads mvnd from the web, if necessary.
+   *
+   * @param bandwidth	the bandwidth limit for the download, null for unlimited
+   * @return		null if successful, otherwise error message
+   */
+  public static String initRemoteMavenDaemon(TokenBucket bandwidth) {
+    String			res;
+    String			url;
+    String			platform;
+    List<String> 		executables;
+
+    platform = platform();
+    if (platform == null)
+      return "No Maven Daemon distribution available for platform: " + SystemUtils.OS_NAME + "/" + System.getProperty("os.arch");
+    if (homeDir() == null)
+      return "Failed to determine Maven Daemon directory from resource: " + Resources.LOCATION + "/" + DIR_FILE;
+
+    // exists already?
+    if (new File(homeDir()).isDirectory())
+      return null;
+
+    // get URL
+    res = Resources.LOCATION + "/" + URL_FILE;
+    url = Content.readString(res);
+    if (url == null)
+      return "Failed to read URL from resource: " + res;
+    url = url.trim().replace(PH_PLATFORM, platform);
+
+    // get executables
+    executables = new ArrayList<>();
+    if (!SystemUtils.IS_OS_WINDOWS) {
+      res         = Resources.LOCATION + "/" + EXECUTABLES_FILE;
+      executables = Content.readLines(res);
+      if (executables == null)
+        return "Failed to read executable files from: " + res;
+    }
+
+    return Maven.install("Maven Daemon", url, new File(homeDir()), executables, bandwidth);
+  }
+}
@@ -0,0 +1,329 @@
+/*
+ * MavenTimings.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import org.apache.maven.shared.invoker.InvocationOutputHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the output of the forked Maven process for the artifact transfers
+ * and the plugin executions, and records their timings. The lines get passed
+ * on to the (optional) base handler.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MavenTimings
+  implements InvocationOutputHandler {
+
+  /** for removing ANSI escape codes. */
+  public final static Pattern ANSI = Pattern.compile("\u001B\\[[;\\d]*m");
+
+  /** the start of a transfer. */
+  public final static Pattern TRANSFER_START = Pattern.compile("^(Downloading|Uploading) (?:from|to) ([^:]+): (\\S+)$");
+
+  /** the end of a transfer. */
+  public final static Pattern TRANSFER_END = Pattern.compile("^(Downloaded|Uploaded) (?:from|to) ([^:]+): (\\S+) \\(([\\d.,]+ [kKMG]?B)(?: at ([\\d.,]+ [kKMG]?B/s))?\\)$");
+
+  /** the start of a plugin execution. */
+  public final static Pattern EXECUTION_START = Pattern.compile("^--- (\\S+) \\((\\S+)\\) @ (\\S+) ---$");
+
+  /**
+   * Container for an artifact transfer.
+   */
+  public static class Transfer {
+
+    /** the repository ID. */
+    public String repository;
+
+    /** the URL. */
+    public String url;
+
+    /** the size in bytes. */
+    public long size;
+
+    /** the duration in msec. */
+    public long duration;
+
+    /** whether it was an upload. */
+    public boolean upload;
+
+    /**
+     * Returns the throughput.
+     *
+     * @return		the throughput in bytes/sec, -1 if not available
+     */
+    public double getThroughput() {
+      if (duration <= 0)
+	return -1;
+      return size * 1000.0 / duration;
+    }
+
+    /**
+     * Returns a short description.
+     *
+     * @return		the description
+     */
+    @Override
+    public String toString() {
+      return duration + "ms, " + size + " bytes, "
+	+ (duration > 0 ? String.format("%.1f", getThroughput() / 1000.0) + " kB/s, " : "")
+	+ repository + ": " + url;
+    }
+  }
+
+  /**
+   * Container for a plugin execution.
+   */
+  public static class Execution {
+
+    /** the plugin goal (plugin:version:goal). */
+    public String goal;
+
+    /** the execution ID. */
+    public String id;
+
+    /** the project. */
+    public String project;
+
+    /** the duration in msec. */
+    public long duration;
+
+    /**
+     * Returns a short description.
+     *
+     * @return		the description
+     */
+    @Override
+    public String toString() {
+      return duration + "ms, " + goal + " (" + id + ") @ " + project;
+    }
+  }
+
+  /** the handler to pass the lines on to, can be null. */
+  protected InvocationOutputHandler m_Base;
+
+  /** the transfers in progress (URL - start timestamp). */
+  protected Map<String,Long> m_Started;
+
+  /** the completed transfers. */
+  protected List<Transfer> m_Transfers;
+
+  /** the plugin executions. */
+  protected List<Execution> m_Executions;
+
+  /** the current execution. */
+  protected Execution m_Current;
+
+  /** the start of the current execution. */
+  protected long m_CurrentStart;
+
+  /**
+   * Initializes the handler.
+   *
+   * @param base	the handler to pass the lines on to, can be null
+   */
+  public MavenTimings(InvocationOutputHandler base) {
+    m_Base       = base;
+    m_Started    = new HashMap<>();
+    m_Transfers  = new ArrayList<>();
+    m_Executions = new ArrayList<>();
+    m_Current    = null;
+  }
+
+  /**
+   * Parses a size string like "2.5 kB" (decimal units, like Maven outputs them).
+   *
+   * @param s		the string to parse
+   * @return		the size in bytes
+   */
+  protected static long parseSize(String s) {
+    String[]	parts;
+    double	value;
+
+    parts = s.trim().split(" ");
+    value = Double.parseDouble(parts[0].replace(",", ""));
+    switch (parts[1].toUpperCase()) {
+      case "KB":
+	value *= 1000;
+	break;
+      case "MB":
+	value *= 1000 * 1000;
+	break;
+      case "GB":
+	value *= 1000 * 1000 * 1000;
+	break;
+    }
+
+    return Math.round(value);
+  }
+
+  /**
+   * Finishes the current plugin execution, if any.
+   *
+   * @param now		the current timestamp
+   */
+  protected void finishExecution(long now) {
+    if (m_Current == null)
+      return;
+    m_Current.duration = now - m_CurrentStart;
+    m_Executions.add(m_Current);
+    m_Current = null;
+  }
+
+  /**
+   * Processes the line.
+   *
+   * @param line	the line to process
+   * @throws IOException	if base handler fails
+   */
+  @Override
+  public void consumeLine(String line) throws IOException {
+    String	plain;
+    Matcher	matcher;
+    long	now;
+    Long	start;
+    Transfer	transfer;
+
+    if (m_Base != null)
+      m_Base.consumeLine(line);
+
+    now   = System.currentTimeMillis();
+    plain = ANSI.matcher(line).replaceAll("");
+    if (plain.startsWith("[INFO] "))
+      plain = plain.substring(7);
+    plain = plain.trim();
+
+    synchronized(this) {
+      if ((matcher = TRANSFER_START.matcher(plain)).matches()) {
+	m_Started.put(matcher.group(3), now);
+      }
+      else if ((matcher = TRANSFER_END.matcher(plain)).matches()) {
+	start               = m_Started.remove(matcher.group(3));
+	transfer            = new Transfer();
+	transfer.upload     = matcher.group(1).equals("Uploaded");
+	transfer.repository = matcher.group(2);
+	transfer.url        = matcher.group(3);
+	transfer.size       = parseSize(matcher.group(4));
+	transfer.duration   = (start == null) ? -1 : now - start;
+	// fall back on Maven's throughput if no start got logged
+	if ((start == null) && (matcher.group(5) != null) && (parseSize(matcher.group(5).replace("/s", "")) > 0))
+	  transfer.duration = Math.round(transfer.size * 1000.0 / parseSize(matcher.group(5).replace("/s", "")));
+	m_Transfers.add(transfer);
+      }
+      else if ((matcher = EXECUTION_START.matcher(plain)).matches()) {
+	finishExecution(now);
+	m_Current         = new Execution();
+	m_Current.goal    = matcher.group(1);
+	m_Current.id      = matcher.group(2);
+	m_Current.project = matcher.group(3);
+	m_CurrentStart    = now;
+      }
+      else if (plain.startsWith("BUILD ") || plain.startsWith("---------") || plain.startsWith("Building ")) {
+	finishExecution(now);
+      }
+    }
+  }
+
+  /**
+   * Returns the completed transfers.
+   *
+   * @return		the transfers
+   */
+  public synchronized List<Transfer> getTransfers() {
+    return new ArrayList<>(m_Transfers);
+  }
+
+  /**
+   * Returns the plugin executions.
+   *
+   * @return		the executions
+   */
+  public synchronized List<Execution> getExecutions() {
+    return new ArrayList<>(m_Executions);
+  }
+
+  /**
+   * Finishes the recording, to be called once Maven has finished.
+   */
+  public synchronized void finish() {
+    finishExecution(System.currentTimeMillis());
+    m_Started.clear();
+  }
+
+  /**
+   * Returns the total number of transferred bytes.
+   *
+   * @return		the bytes
+   */
+  public synchronized long getTotalSize() {
+    long	result;
+
+    result = 0;
+    for (Transfer transfer: m_Transfers)
+      result += transfer.size;
+
+    return result;
+  }
+
+  /**
+   * Generates a summary with the slowest transfers and plugin executions.
+   *
+   * @param top		the maximum number of transfers/executions to list
+   * @return		the summary
+   */
+  public String summary(int top) {
+    StringBuilder	result;
+    List<Transfer>	transfers;
+    List<Execution>	executions;
+    Map<String,long[]>	repos;
+    long[]		stats;
+    int			i;
+
+    transfers  = getTransfers();
+    executions = getExecutions();
+    transfers.sort((t1, t2) -> Long.compare(t2.duration, t1.duration));
+    executions.sort((e1, e2) -> Long.compare(e2.duration, e1.duration));
+
+    result = new StringBuilder();
+    result.append("Transfers: ").append(transfers.size()).append(", ").append(getTotalSize()).append(" bytes\n");
+
+    // per repository: count, bytes, msec
+    repos = new HashMap<>();
+    for (Transfer transfer: transfers) {
+      if (!repos.containsKey(transfer.repository))
+	repos.put(transfer.repository, new long[3]);
+      stats = repos.get(transfer.repository);
+      stats[0]++;
+      stats[1] += transfer.size;
+      stats[2] += Math.max(0, transfer.duration);
+    }
+    for (String repo: repos.keySet()) {
+      stats = repos.get(repo);
+      result.append("  ").append(repo).append(": ").append(stats[0]).append(" files, ")
+	.append(stats[1]).append(" bytes, ").append(stats[2]).append("ms\n");
+    }
+
+    if (!transfers.isEmpty()) {
+      result.append("Slowest transfers:\n");
+      for (i = 0; (i < top) && (i < transfers.size()); i++)
+	result.append("  ").append(transfers.get(i)).append("\n");
+    }
+    if (!executions.isEmpty()) {
+      result.append("Slowest plugin executions:\n");
+      for (i = 0; (i < top) && (i < executions.size()); i++)
+	result.append("  ").append(executions.get(i)).append("\n");
+    }
+
+    return result.toString().trim();
+  }
+}
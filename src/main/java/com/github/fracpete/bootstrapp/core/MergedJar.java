@@ -0,0 +1,414 @@
+/*
+ * MergedJar.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Merges the jars of a directory into a single flat jar, which starts
+ * faster than a Spring Boot jar with nested jars. The entries get copied
+ * in one pass without decompressing and recompressing them. Service
+ * providers (META-INF/services), Spring auto-configurations
+ * (META-INF/spring/*.imports) and factories (META-INF/spring.factories)
+ * get merged, resources like reference.conf get appended. Signature files,
+ * manifests and module descriptors get dropped. Other duplicate entries get
+ * handled according to the duplicate strategy.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MergedJar {
+
+  /**
+   * How to handle duplicate entries (other than merged/appended ones).
+   */
+  public enum Duplicates {
+    /** the entry of the first jar (sorted by name) wins. */
+    FIRST,
+    /** the entry of the last jar (sorted by name) wins. */
+    LAST,
+    /** fail if the content differs (except for META-INF, eg licenses). */
+    FAIL,
+  }
+
+  /** the resources that get appended by default. */
+  public final static String[] DEFAULT_APPEND = {
+    "reference\\.conf",
+    "META-INF/spring\\.handlers",
+    "META-INF/spring\\.schemas",
+    "META-INF/spring\\.tooling",
+  };
+
+  /** the pattern for files to drop. */
+  public final static Pattern DROP = Pattern.compile(
+    "META-INF/MANIFEST\\.MF|META-INF/INDEX\\.LIST|META-INF/[^/]+\\.(SF|DSA|RSA|EC)|META-INF/SIG-[^/]+"
+      + "|module-info\\.class|META-INF/versions/[0-9]+/module-info\\.class", Pattern.CASE_INSENSITIVE);
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(MergedJar.class.getName());
+
+  /** the main class, null if none. */
+  protected String m_MainClass;
+
+  /** how to handle duplicates. */
+  protected Duplicates m_Duplicates;
+
+  /** the resources to append. */
+  protected List<Pattern> m_Append;
+
+  /** the last jar containing the entry (name - index of jar). */
+  protected transient Map<String,Integer> m_ActLast;
+
+  /** the merged/appended resources (name - content). */
+  protected transient Map<String,Object> m_ActMerged;
+
+  /**
+   * Initializes the merging.
+   *
+   * @param mainClass	the main class for the manifest, null if none
+   */
+  public MergedJar(String mainClass) {
+    m_MainClass  = mainClass;
+    m_Duplicates = Duplicates.FIRST;
+    m_Append     = new ArrayList<>();
+    append(null);
+  }
+
+  /**
+   * Sets how to handle duplicate entries.
+   *
+   * @param duplicates	the strategy
+   * @return		itself
+   */
+  public MergedJar duplicates(Duplicates duplicates) {
+    m_Duplicates = duplicates;
+    return this;
+  }
+
+  /**
+   * Sets additional resources to append (besides the default ones).
+   *
+   * @param regexps	the regular expressions for the entry names, can be null
+   * @return		itself
+   * @see		#DEFAULT_APPEND
+   */
+  public MergedJar append(List<String> regexps) {
+    m_Append = new ArrayList<>();
+    for (String regexp: DEFAULT_APPEND)
+      m_Append.add(Pattern.compile(regexp));
+    if (regexps != null) {
+      for (String regexp: regexps)
+	m_Append.add(Pattern.compile(regexp));
+    }
+    return this;
+  }
+
+  /**
+   * Checks whether the entry gets appended.
+   *
+   * @param name	the entry name
+   * @return		true if to append
+   */
+  protected boolean isAppended(String name) {
+    for (Pattern append: m_Append) {
+      if (append.matcher(name).matches())
+	return true;
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether the entry lists classes (one per line) that get merged.
+   *
+   * @param name	the entry name
+   * @return		true if merged
+   */
+  protected boolean isList(String name) {
+    return (name.startsWith("META-INF/services/") && (name.indexOf('/', 18) == -1))
+      || (name.startsWith("META-INF/spring/") && name.endsWith(".imports"));
+  }
+
+  /**
+   * Reads the entry completely.
+   *
+   * @param zip		the jar to read from
+   * @param entry	the entry to read
+   * @return		the content
+   * @throws Exception	if reading fails
+   */
+  protected byte[] read(ZipFile zip, ZipArchiveEntry entry) throws Exception {
+    ByteArrayOutputStream	result;
+    byte[]			buffer;
+    int				len;
+
+    result = new ByteArrayOutputStream();
+    buffer = new byte[8192];
+    try (InputStream in = zip.getInputStream(entry)) {
+      while ((len = in.read(buffer)) > 0)
+	result.write(buffer, 0, len);
+    }
+
+    return result.toByteArray();
+  }
+
+  /**
+   * Merges the content of the entry into the already collected content.
+   *
+   * @param name	the entry name
+   * @param data	the content of the entry
+   * @throws Exception	if merging fails
+   */
+  @SuppressWarnings("unchecked")
+  protected void merge(String name, byte[] data) throws Exception {
+    Properties			props;
+    Map<String,Set<String>>	factories;
+    Set<String>			lines;
+    ByteArrayOutputStream	appended;
+    String			content;
+
+    content = new String(data, StandardCharsets.UTF_8);
+    if (name.equals("META-INF/spring.factories")) {
+      factories = (Map<String,Set<String>>) m_ActMerged.computeIfAbsent(name, k -> new LinkedHashMap<String,Set<String>>());
+      props     = new Properties();
+      props.load(new StringReader(content));
+      for (String key: props.stringPropertyNames()) {
+	for (String value: props.getProperty(key).split(",")) {
+	  if (!value.trim().isEmpty())
+	    factories.computeIfAbsent(key.trim(), k -> new LinkedHashSet<>()).add(value.trim());
+	}
+      }
+    }
+    else if (isList(name)) {
+      lines = (Set<String>) m_ActMerged.computeIfAbsent(name, k -> new LinkedHashSet<String>());
+      for (String line: content.split("\r?\n")) {
+	if (line.contains("#"))
+	  line = line.substring(0, line.indexOf('#'));
+	if (!line.trim().isEmpty())
+	  lines.add(line.trim());
+      }
+    }
+    else {
+      appended = (ByteArrayOutputStream) m_ActMerged.computeIfAbsent(name, k -> new ByteArrayOutputStream());
+      appended.write(data);
+      if ((data.length > 0) && (data[data.length - 1] != '\n'))
+	appended.write('\n');
+    }
+  }
+
+  /**
+   * Turns the merged content into bytes.
+   *
+   * @param name	the entry name
+   * @param merged	the merged content
+   * @return		the bytes
+   */
+  @SuppressWarnings("unchecked")
+  protected byte[] toBytes(String name, Object merged) {
+    StringBuilder		result;
+    Map<String,Set<String>>	factories;
+
+    if (merged instanceof ByteArrayOutputStream)
+      return ((ByteArrayOutputStream) merged).toByteArray();
+
+    result = new StringBuilder();
+    if (name.equals("META-INF/spring.factories")) {
+      factories = (Map<String,Set<String>>) merged;
+      for (String key: factories.keySet())
+	result.append(key).append("=").append(String.join(",", factories.get(key))).append("\n");
+    }
+    else {
+      for (String line: (Set<String>) merged)
+	result.append(line).append("\n");
+    }
+
+    return result.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Scans the central directories of the jars for duplicates (required for
+   * the LAST and FAIL strategies) and multi-release jars.
+   *
+   * @param jars	the jars to scan
+   * @return		whether any of the jars is a multi-release jar
+   * @throws Exception	if scanning fails or duplicates differ (FAIL)
+   */
+  protected boolean scan(List<File> jars) throws Exception {
+    boolean			result;
+    Map<String,Long>		crcs;
+    Map<String,File>		owners;
+    Enumeration<ZipArchiveEntry>	entries;
+    ZipArchiveEntry		entry;
+    String			name;
+    int				i;
+
+    result    = false;
+    crcs      = new HashMap<>();
+    owners    = new HashMap<>();
+    m_ActLast = new HashMap<>();
+    for (i = 0; i < jars.size(); i++) {
+      try (ZipFile zip = new ZipFile.Builder().setFile(jars.get(i)).get()) {
+	entries = zip.getEntries();
+	while (entries.hasMoreElements()) {
+	  entry = entries.nextElement();
+	  name  = entry.getName();
+	  if (entry.isDirectory() || DROP.matcher(name).matches())
+	    continue;
+	  if (name.startsWith("META-INF/versions/"))
+	    result = true;
+	  if ((m_Duplicates == Duplicates.FAIL) && crcs.containsKey(name) && (crcs.get(name) != entry.getCrc())
+	    && !name.startsWith("META-INF/") && !isList(name) && !isAppended(name) && !name.equals("META-INF/spring.factories"))
+	    throw new IllegalStateException("Duplicate entry '" + name + "' with different content: " + owners.get(name).getName() + ", " + jars.get(i).getName());
+	  crcs.putIfAbsent(name, entry.getCrc());
+	  owners.putIfAbsent(name, jars.get(i));
+	  m_ActLast.put(name, i);
+	}
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Writes the manifest.
+   *
+   * @param out		the jar to write to
+   * @param multiRelease	whether to flag it as multi-release jar
+   * @throws Exception	if writing fails
+   */
+  protected void writeManifest(ZipArchiveOutputStream out, boolean multiRelease) throws Exception {
+    Manifest	manifest;
+    Attributes	attrs;
+
+    manifest = new Manifest();
+    attrs    = manifest.getMainAttributes();
+    attrs.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    attrs.putValue("Created-By", "bootstrapp");
+    if (m_MainClass != null)
+      attrs.put(Attributes.Name.MAIN_CLASS, m_MainClass);
+    if (multiRelease)
+      attrs.putValue("Multi-Release", "true");
+    out.putArchiveEntry(new ZipArchiveEntry("META-INF/"));
+    out.closeArchiveEntry();
+    out.putArchiveEntry(new ZipArchiveEntry("META-INF/MANIFEST.MF"));
+    manifest.write(out);
+    out.closeArchiveEntry();
+  }
+
+  /**
+   * Merges the jars in the directory into the output jar.
+   *
+   * @param dir		the directory with the jars (eg lib)
+   * @param output	the jar to write
+   * @return		null if successful, otherwise error message
+   */
+  public String write(File dir, File output) {
+    List<File>			jars;
+    File[]			files;
+    File			tmp;
+    Set<String>			written;
+    Enumeration<ZipArchiveEntry>	entries;
+    ZipArchiveEntry		entry;
+    String			name;
+    boolean			multiRelease;
+    int				i;
+    int				duplicates;
+    long			start;
+
+    start = System.currentTimeMillis();
+    files = dir.listFiles((d, n) -> n.toLowerCase().endsWith(".jar"));
+    if ((files == null) || (files.length == 0))
+      return "No jars to merge in: " + dir;
+    jars = new ArrayList<>(Arrays.asList(files));
+    Collections.sort(jars);
+
+    m_ActMerged = new LinkedHashMap<>();
+    written     = new HashSet<>();
+    duplicates  = 0;
+    tmp         = new File(output.getPath() + ".part");
+    try {
+      multiRelease = scan(jars);
+      try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(tmp)) {
+	writeManifest(out, multiRelease);
+	written.add("META-INF/");
+	for (i = 0; i < jars.size(); i++) {
+	  try (ZipFile zip = new ZipFile.Builder().setFile(jars.get(i)).get()) {
+	    entries = zip.getEntriesInPhysicalOrder();
+	    while (entries.hasMoreElements()) {
+	      entry = entries.nextElement();
+	      name  = entry.getName();
+	      if (DROP.matcher(name).matches())
+		continue;
+	      if (entry.isDirectory()) {
+		if (written.add(name)) {
+		  out.putArchiveEntry(new ZipArchiveEntry(name));
+		  out.closeArchiveEntry();
+		}
+		continue;
+	      }
+	      if (name.equals("META-INF/spring.factories") || isList(name) || isAppended(name)) {
+		merge(name, read(zip, entry));
+		continue;
+	      }
+	      if ((m_Duplicates == Duplicates.LAST) ? (m_ActLast.get(name) != i) : written.contains(name)) {
+		duplicates++;
+		continue;
+	      }
+	      written.add(name);
+	      // copy compressed data as is
+	      out.addRawArchiveEntry(new ZipArchiveEntry(entry), zip.getRawInputStream(entry));
+	    }
+	  }
+	}
+	for (String merged: m_ActMerged.keySet()) {
+	  out.putArchiveEntry(new ZipArchiveEntry(merged));
+	  out.write(toBytes(merged, m_ActMerged.get(merged)));
+	  out.closeArchiveEntry();
+	}
+      }
+      Files.move(tmp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to write merged jar: " + output, e);
+      return "Failed to write merged jar '" + output + "': " + e;
+    }
+    finally {
+      tmp.delete();
+      m_ActMerged = null;
+      m_ActLast   = null;
+    }
+
+    LOGGER.info("Wrote merged jar " + output + " (" + jars.size() + " jars, " + duplicates + " duplicate(s) skipped, "
+      + output.length() / 1024 + "kB, " + (System.currentTimeMillis() - start) + "ms)");
+
+    return null;
+  }
+}
@@ -0,0 +1,728 @@
+/*
+ * OciImage.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes an OCI image layout (oci-layout, index.json, blobs/sha256) without
+ * a Docker daemon: the layers of a base image (stored as OCI image layout
+ * as well, eg via "skopeo copy docker://IMAGE oci:DIR") get combined with
+ * additional layers generated from local files. The layers get built and
+ * hashed in parallel, with fixed timestamps and ownership for reproducible
+ * digests. Layers whose files did not change get reused from earlier runs
+ * (see {@link #CACHE_FILE}).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class OciImage {
+
+  /** the media type of OCI image indices. */
+  public final static String MEDIATYPE_INDEX = "application/vnd.oci.image.index.v1+json";
+
+  /** the media type of OCI image manifests. */
+  public final static String MEDIATYPE_MANIFEST = "application/vnd.oci.image.manifest.v1+json";
+
+  /** the media type of OCI image configs. */
+  public final static String MEDIATYPE_CONFIG = "application/vnd.oci.image.config.v1+json";
+
+  /** the media type of gzip compressed OCI layers. */
+  public final static String MEDIATYPE_LAYER = "application/vnd.oci.image.layer.v1.tar+gzip";
+
+  /** the file in the output layout caching the layers (key, digest, diff ID, size). */
+  public final static String CACHE_FILE = "bootstrapp-layers.cache";
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(OciImage.class.getName());
+
+  /**
+   * Container for a layer to add.
+   */
+  public static class Layer {
+
+    /** the description (for the history). */
+    public String comment;
+
+    /** the files (path in image - file). */
+    public TreeMap<String,File> files = new TreeMap<>();
+
+    /** the paths of executable files. */
+    public Set<String> executables = new HashSet<>();
+
+    /** the digest of the compressed layer. */
+    protected String digest;
+
+    /** the digest of the uncompressed layer. */
+    protected String diffId;
+
+    /** the size of the compressed layer. */
+    protected long size;
+
+    /**
+     * Initializes the layer.
+     *
+     * @param comment	the description
+     */
+    public Layer(String comment) {
+      this.comment = comment;
+    }
+
+    /**
+     * Adds the file.
+     *
+     * @param path	the path in the image (without leading slash)
+     * @param file	the file to add
+     * @param executable	whether the file is executable
+     * @return		itself
+     */
+    public Layer add(String path, File file, boolean executable) {
+      files.put(path, file);
+      if (executable)
+	executables.add(path);
+      return this;
+    }
+  }
+
+  /** the base image (OCI image layout). */
+  protected File m_Base;
+
+  /** the name of the base image (eg openjdk:11-jdk-slim-buster), can be null. */
+  protected String m_BaseName;
+
+  /** the output directory for the OCI image layout. */
+  protected File m_Output;
+
+  /** the tag to use. */
+  protected String m_Tag;
+
+  /** the command to set, can be null. */
+  protected List<String> m_Cmd;
+
+  /** the architecture to pick from multi-platform base images. */
+  protected String m_Arch;
+
+  /** the timestamp to use (seconds since epoch). */
+  protected long m_Epoch;
+
+  /** the number of threads. */
+  protected int m_NumThreads;
+
+  /** the digest of the manifest of the base image. */
+  protected transient String m_BaseDigest;
+
+  /**
+   * Initializes the image.
+   *
+   * @param base	the base image (OCI image layout)
+   * @param output	the output directory for the OCI image layout
+   */
+  public OciImage(File base, File output) {
+    m_Base       = base;
+    m_BaseName   = null;
+    m_Output     = output;
+    m_Tag        = "latest";
+    m_Cmd        = null;
+    m_Arch       = "amd64";
+    m_Epoch      = sourceDateEpoch();
+    m_NumThreads = -1;
+  }
+
+  /**
+   * Sets the name of the base image (recorded as annotation).
+   *
+   * @param name	the name, can be null
+   * @return		itself
+   */
+  public OciImage baseName(String name) {
+    m_BaseName = name;
+    return this;
+  }
+
+  /**
+   * Sets the tag (ref name in index.json).
+   *
+   * @param tag		the tag
+   * @return		itself
+   */
+  public OciImage tag(String tag) {
+    m_Tag = tag;
+    return this;
+  }
+
+  /**
+   * Sets the command to run.
+   *
+   * @param cmd		the command, null to keep the one of the base image
+   * @return		itself
+   */
+  public OciImage cmd(List<String> cmd) {
+    m_Cmd = cmd;
+    return this;
+  }
+
+  /**
+   * Sets the architecture to pick from multi-platform base images.
+   *
+   * @param arch	the architecture (eg amd64 or arm64)
+   * @return		itself
+   */
+  public OciImage arch(String arch) {
+    m_Arch = arch;
+    return this;
+  }
+
+  /**
+   * Sets the timestamp to use for entries, history and annotations.
+   *
+   * @param epoch	the seconds since epoch (default: SOURCE_DATE_EPOCH or 0)
+   * @return		itself
+   */
+  public OciImage epoch(long epoch) {
+    m_Epoch = epoch;
+    return this;
+  }
+
+  /**
+   * Sets the number of threads to use.
+   *
+   * @param threads	the number of threads, -1 for number of CPUs
+   * @return		itself
+   */
+  public OciImage threads(int threads) {
+    m_NumThreads = threads;
+    return this;
+  }
+
+  /**
+   * Returns the timestamp to use, SOURCE_DATE_EPOCH if set, otherwise 0.
+   *
+   * @return		the seconds since epoch
+   */
+  public static long sourceDateEpoch() {
+    String	epoch;
+
+    epoch = System.getenv("SOURCE_DATE_EPOCH");
+    if (epoch != null) {
+      try {
+	return Long.parseLong(epoch.trim());
+      }
+      catch (Exception e) {
+	LOGGER.warning("Invalid SOURCE_DATE_EPOCH: " + epoch);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Turns the digest into a hex string.
+   *
+   * @param digest	the digest to convert
+   * @return		the hex string
+   */
+  protected static String toHex(byte[] digest) {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    for (byte b: digest)
+      result.append(String.format("%02x", b));
+
+    return result.toString();
+  }
+
+  /**
+   * Returns the file for the blob.
+   *
+   * @param layout	the image layout
+   * @param digest	the digest (algorithm:hex)
+   * @return		the file
+   */
+  protected static File blob(File layout, String digest) {
+    String[]	parts;
+
+    parts = digest.split(":", 2);
+    return new File(layout, "blobs/" + parts[0] + "/" + parts[1]);
+  }
+
+  /**
+   * Reads the JSON blob.
+   *
+   * @param layout	the image layout
+   * @param digest	the digest of the blob
+   * @return		the parsed blob
+   * @throws Exception	if reading fails
+   */
+  @SuppressWarnings("unchecked")
+  protected static Map<String,Object> readBlob(File layout, String digest) throws Exception {
+    return (Map<String,Object>) Json.parse(new String(Files.readAllBytes(blob(layout, digest).toPath()), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Writes the JSON blob to the output layout.
+   *
+   * @param json	the JSON to write
+   * @param mediaType	the media type
+   * @return		the descriptor
+   * @throws Exception	if writing fails
+   */
+  protected Map<String,Object> writeBlob(Object json, String mediaType) throws Exception {
+    Map<String,Object>	result;
+    byte[]		data;
+    String		digest;
+    File		file;
+
+    data   = Json.toJson(json).getBytes(StandardCharsets.UTF_8);
+    digest = "sha256:" + toHex(MessageDigest.getInstance("SHA-256").digest(data));
+    file   = blob(m_Output, digest);
+    if (!file.exists())
+      write(file.toPath(), data);
+
+    result = new LinkedHashMap<>();
+    result.put("mediaType", mediaType);
+    result.put("digest", digest);
+    result.put("size", (long) data.length);
+
+    return result;
+  }
+
+  /**
+   * Writes the data atomically.
+   *
+   * @param file	the file to write
+   * @param data	the data
+   * @throws Exception	if writing fails
+   */
+  protected static void write(Path file, byte[] data) throws Exception {
+    Path	tmp;
+
+    tmp = file.resolveSibling(file.getFileName() + ".part");
+    Files.write(tmp, data);
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Determines the manifest of the base image, picking the linux manifest
+   * for the architecture from multi-platform images.
+   *
+   * @return		the manifest
+   * @throws Exception	if reading fails or no manifest found
+   */
+  @SuppressWarnings("unchecked")
+  protected Map<String,Object> baseManifest() throws Exception {
+    Map<String,Object>		index;
+    Map<String,Object>		current;
+    Map<String,Object>		platform;
+    List<Map<String,Object>>	manifests;
+    String			mediaType;
+    int				i;
+
+    index   = (Map<String,Object>) Json.parse(new String(Files.readAllBytes(new File(m_Base, "index.json").toPath()), StandardCharsets.UTF_8));
+    current = index;
+    // descend into (nested) indices
+    while (current.containsKey("manifests")) {
+      manifests = (List<Map<String,Object>>) current.get("manifests");
+      if (manifests.isEmpty())
+	throw new IllegalStateException("No manifests in base image: " + m_Base);
+      current = manifests.get(0);
+      for (i = 0; i < manifests.size(); i++) {
+	platform = (Map<String,Object>) manifests.get(i).get("platform");
+	if ((platform != null) && "linux".equals(platform.get("os")) && m_Arch.equals(platform.get("architecture"))) {
+	  current = manifests.get(i);
+	  break;
+	}
+      }
+      mediaType    = "" + current.get("mediaType");
+      m_BaseDigest = (String) current.get("digest");
+      current      = readBlob(m_Base, m_BaseDigest);
+      if (mediaType.contains("manifest") && !mediaType.contains("list"))
+	break;
+    }
+    if (!current.containsKey("layers"))
+      throw new IllegalStateException("Failed to locate image manifest in base image: " + m_Base);
+
+    return current;
+  }
+
+  /**
+   * Copies (or links) the blob of the base image into the output layout,
+   * unless already present.
+   *
+   * @param digest	the digest of the blob
+   * @throws Exception	if copying fails
+   */
+  protected void copyBlob(String digest) throws Exception {
+    File	source;
+    File	target;
+
+    source = blob(m_Base, digest);
+    target = blob(m_Output, digest);
+    if (target.exists())
+      return;
+    if (!source.exists())
+      throw new IllegalStateException("Blob missing from base image: " + source);
+    try {
+      Files.createLink(target.toPath(), source.toPath());
+    }
+    catch (Exception e) {
+      Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Computes the cache key of the layer from paths, sizes, timestamps and
+   * modes of its files.
+   *
+   * @param layer	the layer
+   * @return		the key
+   * @throws Exception	if hashing fails
+   */
+  protected String key(Layer layer) throws Exception {
+    MessageDigest	digest;
+    File		file;
+
+    digest = MessageDigest.getInstance("SHA-256");
+    digest.update(("" + m_Epoch).getBytes(StandardCharsets.UTF_8));
+    for (String path: layer.files.keySet()) {
+      file = layer.files.get(path);
+      digest.update((path + "\t" + file.length() + "\t" + file.lastModified() + "\t" + layer.executables.contains(path) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Adds the entry with fixed timestamp and ownership.
+   *
+   * @param tar		the archive to add to
+   * @param path	the path
+   * @param file	the file, null for directory
+   * @param mode	the mode
+   * @throws Exception	if writing fails
+   */
+  protected void addEntry(TarArchiveOutputStream tar, String path, File file, int mode) throws Exception {
+    TarArchiveEntry	entry;
+
+    entry = new TarArchiveEntry(path, true);
+    entry.setModTime(m_Epoch * 1000);
+    entry.setMode(mode);
+    entry.setIds(0, 0);
+    if (file != null)
+      entry.setSize(file.length());
+    tar.putArchiveEntry(entry);
+    if (file != null)
+      Files.copy(file.toPath(), tar);
+    tar.closeArchiveEntry();
+  }
+
+  /**
+   * Builds the layer (tar.gz) in the blobs directory, computing digest and
+   * diff ID while writing.
+   *
+   * @param layer	the layer to build
+   * @throws Exception	if building fails
+   */
+  protected void build(Layer layer) throws Exception {
+    MessageDigest	compressed;
+    MessageDigest	uncompressed;
+    Set<String>		dirs;
+    File		tmp;
+    File		target;
+    OutputStream	out;
+    String		parent;
+    int			pos;
+
+    dirs = new TreeSet<>();
+    for (String path: layer.files.keySet()) {
+      parent = path;
+      while ((pos = parent.lastIndexOf('/')) > 0) {
+	parent = parent.substring(0, pos);
+	dirs.add(parent + "/");
+      }
+    }
+
+    compressed   = MessageDigest.getInstance("SHA-256");
+    uncompressed = MessageDigest.getInstance("SHA-256");
+    tmp          = new File(m_Output, "blobs/sha256/" + UUID.randomUUID() + ".part");
+    out          = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())), compressed);
+    try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new DigestOutputStream(new ParallelGzipOutputStream(out, -1), uncompressed))) {
+      tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+      tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+      for (String dir: dirs)
+	addEntry(tar, dir, null, 040755);
+      for (String path: layer.files.keySet())
+	addEntry(tar, path, layer.files.get(path), layer.executables.contains(path) ? 0100755 : 0100644);
+    }
+
+    layer.digest = "sha256:" + toHex(compressed.digest());
+    layer.diffId = "sha256:" + toHex(uncompressed.digest());
+    layer.size   = tmp.length();
+    target       = blob(m_Output, layer.digest);
+    if (target.exists())
+      Files.delete(tmp.toPath());
+    else
+      Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Reads the layer cache.
+   *
+   * @return		the cache (key - digest, diff ID, size)
+   */
+  protected Map<String,String[]> readCache() {
+    Map<String,String[]>	result;
+    File			file;
+    String[]			parts;
+
+    result = new TreeMap<>();
+    file   = new File(m_Output, CACHE_FILE);
+    if (!file.exists())
+      return result;
+    try {
+      for (String line: Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+	parts = line.split("\t");
+	if ((parts.length == 4) && blob(m_Output, parts[1]).exists())
+	  result.put(parts[0], new String[]{parts[1], parts[2], parts[3]});
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.WARNING, "Failed to read layer cache: " + file, e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Builds the layers in parallel, reusing cached ones.
+   *
+   * @param layers	the layers to build
+   * @return		the number of reused layers
+   * @throws Exception	if building fails
+   */
+  protected int build(List<Layer> layers) throws Exception {
+    int				result;
+    Map<String,String[]>	cache;
+    List<Callable<Void>>	jobs;
+    ExecutorService		executor;
+    List<String>		lines;
+    String			key;
+    String[]			cached;
+
+    result  = 0;
+    cache   = readCache();
+    jobs    = new ArrayList<>();
+    for (final Layer layer: layers) {
+      key    = key(layer);
+      cached = cache.get(key);
+      if (cached != null) {
+	layer.digest = cached[0];
+	layer.diffId = cached[1];
+	layer.size   = Long.parseLong(cached[2]);
+	result++;
+      }
+      else {
+	jobs.add(() -> {
+	  build(layer);
+	  return null;
+	});
+      }
+    }
+
+    executor = Executors.newFixedThreadPool(Math.max(1, Math.min(jobs.size(), (m_NumThreads < 1) ? Runtime.getRuntime().availableProcessors() : m_NumThreads)));
+    try {
+      for (Future<Void> future: executor.invokeAll(jobs))
+	future.get();
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    lines = new ArrayList<>();
+    for (Layer layer: layers)
+      lines.add(key(layer) + "\t" + layer.digest + "\t" + layer.diffId + "\t" + layer.size);
+    write(new File(m_Output, CACHE_FILE).toPath(), (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+
+    return result;
+  }
+
+  /**
+   * Removes blobs that are no longer referenced.
+   *
+   * @param referenced	the referenced digests
+   */
+  protected void removeUnreferenced(Set<String> referenced) {
+    File[]	files;
+
+    files = new File(m_Output, "blobs/sha256").listFiles();
+    if (files == null)
+      return;
+    for (File file: files) {
+      if (!referenced.contains("sha256:" + file.getName()) && !file.delete())
+	LOGGER.warning("Failed to remove unreferenced blob: " + file);
+    }
+  }
+
+  /**
+   * Writes the image with the additional layers on top of the base image.
+   *
+   * @param layers	the layers to add
+   * @return		null if successful, otherwise error message
+   */
+  @SuppressWarnings("unchecked")
+  public String write(List<Layer> layers) {
+    Map<String,Object>		base;
+    Map<String,Object>		config;
+    Map<String,Object>		rootfs;
+    Map<String,Object>		cfg;
+    Map<String,Object>		manifest;
+    Map<String,Object>		layerDesc;
+    Map<String,Object>		history;
+    Map<String,Object>		annotations;
+    Map<String,Object>		configDesc;
+    Map<String,Object>		manifestDesc;
+    Map<String,Object>		index;
+    List<Object>		diffIds;
+    List<Object>		histories;
+    List<Object>		layerDescs;
+    Set<String>			referenced;
+    SimpleDateFormat		format;
+    String			created;
+    String			mediaType;
+    int				reused;
+    long			start;
+
+    start  = System.currentTimeMillis();
+    format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    created = format.format(new Date(m_Epoch * 1000));
+    referenced = new HashSet<>();
+
+    try {
+      if (!new File(m_Output, "blobs/sha256").exists() && !new File(m_Output, "blobs/sha256").mkdirs())
+	return "Failed to create OCI image layout: " + m_Output;
+
+      // base image
+      base = baseManifest();
+      config = readBlob(m_Base, (String) ((Map<String,Object>) base.get("config")).get("digest"));
+      layerDescs = new ArrayList<>();
+      for (Object obj: (List<Object>) base.get("layers")) {
+	layerDesc = new LinkedHashMap<>((Map<String,Object>) obj);
+	copyBlob((String) layerDesc.get("digest"));
+	referenced.add((String) layerDesc.get("digest"));
+	mediaType = "" + layerDesc.get("mediaType");
+	if (mediaType.startsWith("application/vnd.docker.image.rootfs.diff.tar"))
+	  layerDesc.put("mediaType", MEDIATYPE_LAYER);
+	layerDescs.add(layerDesc);
+      }
+
+      // additional layers
+      reused = build(layers);
+      rootfs = (Map<String,Object>) config.get("rootfs");
+      if (rootfs == null) {
+	rootfs = new LinkedHashMap<>();
+	rootfs.put("type", "layers");
+	rootfs.put("diff_ids", new ArrayList<>());
+	config.put("rootfs", rootfs);
+      }
+      diffIds   = (List<Object>) rootfs.get("diff_ids");
+      histories = (List<Object>) config.get("history");
+      if (histories == null) {
+	histories = new ArrayList<>();
+	config.put("history", histories);
+      }
+      for (Layer layer: layers) {
+	layerDesc = new LinkedHashMap<>();
+	layerDesc.put("mediaType", MEDIATYPE_LAYER);
+	layerDesc.put("digest", layer.digest);
+	layerDesc.put("size", layer.size);
+	layerDescs.add(layerDesc);
+	referenced.add(layer.digest);
+	diffIds.add(layer.diffId);
+	history = new LinkedHashMap<>();
+	history.put("created", created);
+	history.put("created_by", "bootstrapp: " + layer.comment);
+	histories.add(history);
+      }
+
+      // config
+      config.put("created", created);
+      if (m_Cmd != null) {
+	cfg = (Map<String,Object>) config.get("config");
+	if (cfg == null) {
+	  cfg = new LinkedHashMap<>();
+	  config.put("config", cfg);
+	}
+	cfg.put("Cmd", new ArrayList<Object>(m_Cmd));
+      }
+      configDesc = writeBlob(config, MEDIATYPE_CONFIG);
+      referenced.add((String) configDesc.get("digest"));
+
+      // manifest
+      manifest = new LinkedHashMap<>();
+      manifest.put("schemaVersion", 2L);
+      manifest.put("mediaType", MEDIATYPE_MANIFEST);
+      manifest.put("config", configDesc);
+      manifest.put("layers", layerDescs);
+      annotations = new LinkedHashMap<>();
+      if (m_BaseName != null)
+	annotations.put("org.opencontainers.image.base.name", m_BaseName);
+      annotations.put("org.opencontainers.image.base.digest", m_BaseDigest);
+      annotations.put("org.opencontainers.image.created", created);
+      manifest.put("annotations", annotations);
+      manifestDesc = writeBlob(manifest, MEDIATYPE_MANIFEST);
+      referenced.add((String) manifestDesc.get("digest"));
+
+      // index
+      annotations = new LinkedHashMap<>();
+      annotations.put("org.opencontainers.image.ref.name", m_Tag);
+      manifestDesc.put("annotations", annotations);
+      index = new LinkedHashMap<>();
+      index.put("schemaVersion", 2L);
+      index.put("mediaType", MEDIATYPE_INDEX);
+      index.put("manifests", new ArrayList<Object>(Collections.singletonList(manifestDesc)));
+      write(new File(m_Output, "index.json").toPath(), Json.toJson(index).getBytes(StandardCharsets.UTF_8));
+      write(new File(m_Output, "oci-layout").toPath(), "{\"imageLayoutVersion\":\"1.0.0\"}".getBytes(StandardCharsets.UTF_8));
+      removeUnreferenced(referenced);
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to write OCI image: " + m_Output, e);
+      return "Failed to write OCI image '" + m_Output + "': " + e;
+    }
+
+    LOGGER.info("Wrote OCI image " + m_Output + " (" + layers.size() + " layer(s) added, " + reused + " reused, "
+      + (System.currentTimeMillis() - start) + "ms)");
+
+    return null;
+  }
+}
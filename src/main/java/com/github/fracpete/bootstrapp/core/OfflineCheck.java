@@ -0,0 +1,749 @@
+/*
+ * OfflineCheck.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Verifies that all artifacts required for bootstrapping are available in
+ * the local repository, to fail fast in offline mode. The dependency graph
+ * gets traversed level by level using the cached POMs (incl. parents,
+ * dependency management and BOM imports), with the artifacts of a level
+ * being checked in parallel. Conflicting versions are mediated like Maven
+ * does (nearest wins).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class OfflineCheck {
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(OfflineCheck.class.getName());
+
+  /** the plugins that Maven (3.8.3) implicitly binds up to the package phase for jar packaging. */
+  public final static String[] JAR_BINDINGS = {
+    "org.apache.maven.plugins:maven-resources-plugin:2.6",
+    "org.apache.maven.plugins:maven-compiler-plugin:3.1",
+    "org.apache.maven.plugins:maven-surefire-plugin:2.12.4",
+    "org.apache.maven.plugins:maven-jar-plugin:2.4",
+  };
+
+  /** the plugin that Maven (3.8.3) uses for the clean phase. */
+  public final static String CLEAN_BINDING = "org.apache.maven.plugins:maven-clean-plugin:2.5";
+
+  /**
+   * Container for an artifact to check.
+   */
+  public static class Artifact {
+
+    /** the group ID. */
+    public String groupId;
+
+    /** the artifact ID. */
+    public String artifactId;
+
+    /** the version. */
+    public String version;
+
+    /** the classifier, can be null. */
+    public String classifier;
+
+    /** the type (jar/pom). */
+    public String type = "jar";
+
+    /** the exclusions (group:artifact) inherited along the path. */
+    public Set<String> exclusions = new HashSet<>();
+
+    /**
+     * Returns group and artifact ID.
+     *
+     * @return		group:artifact
+     */
+    public String key() {
+      return groupId + ":" + artifactId;
+    }
+
+    /**
+     * Returns the path of the file in the repository, relative to the root.
+     *
+     * @param extension	the extension of the file
+     * @return		the path
+     */
+    public String path(String extension) {
+      return groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/"
+	+ artifactId + "-" + version + ((classifier == null) || extension.equals("pom") ? "" : "-" + classifier) + "." + extension;
+    }
+
+    /**
+     * Returns a short description.
+     *
+     * @return		the description
+     */
+    @Override
+    public String toString() {
+      return groupId + ":" + artifactId + ":" + version + (classifier == null ? "" : ":" + classifier);
+    }
+  }
+
+  /**
+   * Simplified model of a POM.
+   */
+  protected static class Pom {
+
+    /** the group ID. */
+    public String groupId;
+
+    /** the artifact ID. */
+    public String artifactId;
+
+    /** the version. */
+    public String version;
+
+    /** the parent, can be null. */
+    public Pom parent;
+
+    /** the properties (incl parent). */
+    public Map<String,String> properties = new HashMap<>();
+
+    /** the dependencies. */
+    public List<Element> dependencies = new ArrayList<>();
+
+    /** the managed dependencies. */
+    public List<Element> managed = new ArrayList<>();
+
+    /** the effective managed versions (group:artifact - version/scope), incl parents and imports. */
+    public Map<String,String[]> management;
+  }
+
+  /** the local repository. */
+  protected File m_LocalRepo;
+
+  /** the number of threads to use. */
+  protected int m_NumThreads;
+
+  /** the parsed POMs (path - POM). */
+  protected Map<String,Pom> m_Poms;
+
+  /** the missing files (sorted). */
+  protected Set<String> m_Missing;
+
+  /** the number of checked artifacts. */
+  protected int m_Checked;
+
+  /**
+   * Initializes the check.
+   *
+   * @param localRepo	the local repository
+   * @param numThreads	the number of threads to use, -1 for number of CPUs times two
+   */
+  public OfflineCheck(File localRepo, int numThreads) {
+    m_LocalRepo  = localRepo;
+    m_NumThreads = (numThreads < 1) ? Runtime.getRuntime().availableProcessors() * 2 : numThreads;
+    m_Poms       = new ConcurrentHashMap<>();
+    m_Missing    = Collections.synchronizedSet(new TreeSet<String>());
+    m_Checked    = 0;
+  }
+
+  /**
+   * Checks whether the Maven installation is present.
+   *
+   * @param mavenHome	the installation directory
+   * @return		null if present, otherwise error message
+   */
+  public static String checkMaven(File mavenHome) {
+    if (!mavenHome.isDirectory())
+      return "Maven installation missing: " + mavenHome;
+    if (!new File(mavenHome, "bin").isDirectory() || !new File(mavenHome, "lib").isDirectory())
+      return "Maven installation incomplete: " + mavenHome;
+    return null;
+  }
+
+  /**
+   * Returns the missing files.
+   *
+   * @return		the files (absolute path and artifact)
+   */
+  public List<String> getMissing() {
+    synchronized(m_Missing) {
+      return new ArrayList<>(m_Missing);
+    }
+  }
+
+  /**
+   * Returns the number of artifacts that were checked.
+   *
+   * @return		the number of artifacts
+   */
+  public int getChecked() {
+    return m_Checked;
+  }
+
+  /**
+   * Records the file as missing.
+   *
+   * @param file	the missing file
+   * @param artifact	the associated artifact
+   */
+  protected void missing(File file, Artifact artifact) {
+    m_Missing.add(file.getAbsolutePath() + " (" + artifact + ")");
+  }
+
+  /**
+   * Returns the text of the first direct child element with the name.
+   *
+   * @param parent	the parent element
+   * @param name	the name of the child
+   * @return		the trimmed text, null if not present
+   */
+  protected static String childText(Element parent, String name) {
+    Element	child;
+
+    child = child(parent, name);
+    if (child == null)
+      return null;
+    return child.getTextContent().trim();
+  }
+
+  /**
+   * Returns the first direct child element with the name.
+   *
+   * @param parent	the parent element
+   * @param name	the name of the child
+   * @return		the child, null if not present
+   */
+  protected static Element child(Element parent, String name) {
+    NodeList	children;
+    int		i;
+
+    children = parent.getChildNodes();
+    for (i = 0; i < children.getLength(); i++) {
+      if ((children.item(i).getNodeType() == Node.ELEMENT_NODE) && name.equals(children.item(i).getLocalName()))
+	return (Element) children.item(i);
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns all direct child elements with the name.
+   *
+   * @param parent	the parent element, can be null
+   * @param name	the name of the children
+   * @return		the children
+   */
+  protected static List<Element> children(Element parent, String name) {
+    List<Element>	result;
+    NodeList		children;
+    int			i;
+
+    result = new ArrayList<>();
+    if (parent == null)
+      return result;
+    children = parent.getChildNodes();
+    for (i = 0; i < children.getLength(); i++) {
+      if ((children.item(i).getNodeType() == Node.ELEMENT_NODE) && name.equals(children.item(i).getLocalName()))
+	result.add((Element) children.item(i));
+    }
+
+    return result;
+  }
+
+  /**
+   * Replaces the ${...} placeholders with the POM's properties.
+   *
+   * @param pom		the POM to use
+   * @param s		the string to process, can be null
+   * @return		the processed string
+   */
+  protected static String interpolate(Pom pom, String s) {
+    int		i;
+    int		start;
+    int		end;
+    String	key;
+    String	value;
+
+    if (s == null)
+      return null;
+    for (i = 0; (i < 10) && s.contains("${"); i++) {
+      start = s.indexOf("${");
+      end   = s.indexOf('}', start);
+      if (end == -1)
+	break;
+      key   = s.substring(start + 2, end);
+      value = pom.properties.get(key);
+      if (value == null)
+	break;
+      s = s.substring(0, start) + value + s.substring(end + 1);
+    }
+
+    return s;
+  }
+
+  /**
+   * Loads the POM from the local repository, including its parents.
+   *
+   * @param artifact	the artifact to load the POM for
+   * @return		the POM, null if missing or failed to parse
+   */
+  protected Pom loadPom(Artifact artifact) {
+    Pom				result;
+    File			file;
+    Document			doc;
+    DocumentBuilderFactory	factory;
+    Element			root;
+    Element			parentElement;
+    Artifact			parent;
+    String			path;
+
+    path   = artifact.path("pom");
+    result = m_Poms.get(path);
+    if (result != null)
+      return result;
+
+    file = new File(m_LocalRepo, path);
+    if (!file.exists()) {
+      missing(file, artifact);
+      return null;
+    }
+
+    try {
+      factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      doc    = factory.newDocumentBuilder().parse(file);
+      root   = doc.getDocumentElement();
+      result = new Pom();
+
+      // parent
+      parentElement = child(root, "parent");
+      if (parentElement != null) {
+	parent            = new Artifact();
+	parent.groupId    = childText(parentElement, "groupId");
+	parent.artifactId = childText(parentElement, "artifactId");
+	parent.version    = childText(parentElement, "version");
+	parent.type       = "pom";
+	result.parent     = loadPom(parent);
+	if (result.parent == null)
+	  return null;
+	result.properties.putAll(result.parent.properties);
+      }
+
+      result.groupId    = childText(root, "groupId");
+      result.artifactId = childText(root, "artifactId");
+      result.version    = childText(root, "version");
+      if ((result.groupId == null) && (result.parent != null))
+	result.groupId = result.parent.groupId;
+      if ((result.version == null) && (result.parent != null))
+	result.version = result.parent.version;
+      for (Element prop: propertyElements(child(root, "properties")))
+	result.properties.put(prop.getLocalName(), prop.getTextContent().trim());
+      result.properties.put("project.groupId", result.groupId);
+      result.properties.put("project.artifactId", result.artifactId);
+      result.properties.put("project.version", result.version);
+      result.properties.put("pom.groupId", result.groupId);
+      result.properties.put("pom.version", result.version);
+      if (result.parent != null) {
+	result.properties.put("project.parent.groupId", result.parent.groupId);
+	result.properties.put("project.parent.version", result.parent.version);
+	result.properties.put("parent.version", result.parent.version);
+      }
+      result.dependencies = children(child(root, "dependencies"), "dependency");
+      if (child(root, "dependencyManagement") != null)
+	result.managed = children(child(child(root, "dependencyManagement"), "dependencies"), "dependency");
+      m_Poms.put(path, result);
+    }
+    catch (Exception e) {
+      LOGGER.warning("Failed to parse POM: " + file + "\n" + e);
+      m_Missing.add(file.getAbsolutePath() + " (" + artifact + ", unparseable)");
+      return null;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns all child elements of the properties element.
+   *
+   * @param properties	the properties element, can be null
+   * @return		the property elements
+   */
+  protected static List<Element> propertyElements(Element properties) {
+    List<Element>	result;
+    NodeList		children;
+    int			i;
+
+    result = new ArrayList<>();
+    if (properties == null)
+      return result;
+    children = properties.getChildNodes();
+    for (i = 0; i < children.getLength(); i++) {
+      if (children.item(i).getNodeType() == Node.ELEMENT_NODE)
+	result.add((Element) children.item(i));
+    }
+
+    return result;
+  }
+
+  /**
+   * Determines the effective dependency management of the POM (parents and
+   * imported BOMs included, closest definition wins).
+   *
+   * @param pom		the POM to get the management for
+   * @return		the management (group:artifact - version/scope)
+   */
+  protected Map<String,String[]> management(Pom pom) {
+    Map<String,String[]>	result;
+    String			key;
+    String			scope;
+    Artifact			bom;
+    Pom				bomPom;
+
+    synchronized(pom) {
+      if (pom.management != null)
+	return pom.management;
+
+      result = new HashMap<>();
+      for (Element dep: pom.managed) {
+	key   = interpolate(pom, childText(dep, "groupId")) + ":" + interpolate(pom, childText(dep, "artifactId"));
+	scope = childText(dep, "scope");
+	if ("import".equals(scope)) {
+	  bom            = new Artifact();
+	  bom.groupId    = interpolate(pom, childText(dep, "groupId"));
+	  bom.artifactId = interpolate(pom, childText(dep, "artifactId"));
+	  bom.version    = interpolate(pom, childText(dep, "version"));
+	  bom.type       = "pom";
+	  bomPom         = loadPom(bom);
+	  if (bomPom != null) {
+	    for (Map.Entry<String,String[]> entry: management(bomPom).entrySet()) {
+	      if (!result.containsKey(entry.getKey()))
+		result.put(entry.getKey(), entry.getValue());
+	    }
+	  }
+	}
+	else if (!result.containsKey(key)) {
+	  result.put(key, new String[]{interpolate(pom, childText(dep, "version")), scope});
+	}
+      }
+      if (pom.parent != null) {
+	for (Map.Entry<String,String[]> entry: management(pom.parent).entrySet()) {
+	  if (!result.containsKey(entry.getKey()))
+	    result.put(entry.getKey(), entry.getValue());
+	}
+      }
+      pom.management = result;
+    }
+
+    return result;
+  }
+
+  /**
+   * Resolves a version range against the versions available in the local
+   * repository.
+   *
+   * @param artifact	the artifact with the range
+   * @return		the highest available version, null if none
+   */
+  protected String resolveRange(Artifact artifact) {
+    File	dir;
+    String[]	versions;
+    List<String> available;
+
+    dir      = new File(m_LocalRepo, artifact.groupId.replace('.', '/') + "/" + artifact.artifactId);
+    versions = dir.list();
+    if (versions == null)
+      return null;
+    available = new ArrayList<>();
+    for (String version: versions) {
+      if (new File(dir, version + "/" + artifact.artifactId + "-" + version + ".pom").exists())
+	available.add(version);
+    }
+
+    return Versions.highest(available, artifact.version);
+  }
+
+  /**
+   * Checks the artifact and returns its dependencies.
+   *
+   * @param artifact	the artifact to check
+   * @return		the dependencies to check next
+   */
+  protected List<Artifact> check(Artifact artifact) {
+    List<Artifact>		result;
+    Pom				pom;
+    File			file;
+    Map<String,String[]>	management;
+    Artifact			dep;
+    String			scope;
+    String[]			managed;
+    String			resolved;
+
+    result = new ArrayList<>();
+
+    if (Versions.isRange(artifact.version)) {
+      resolved = resolveRange(artifact);
+      if (resolved == null) {
+	m_Missing.add(new File(m_LocalRepo, artifact.groupId.replace('.', '/') + "/" + artifact.artifactId).getAbsolutePath() + " (" + artifact + ", no version in range)");
+	return result;
+      }
+      artifact.version = resolved;
+    }
+
+    pom = loadPom(artifact);
+    if (pom == null)
+      return result;
+
+    if (!artifact.type.equals("pom")) {
+      file = new File(m_LocalRepo, artifact.path("jar"));
+      if (!file.exists())
+	missing(file, artifact);
+    }
+
+    management = management(pom);
+    for (Element element: pom.dependencies) {
+      dep            = new Artifact();
+      dep.groupId    = interpolate(pom, childText(element, "groupId"));
+      dep.artifactId = interpolate(pom, childText(element, "artifactId"));
+      dep.version    = interpolate(pom, childText(element, "version"));
+      dep.classifier = interpolate(pom, childText(element, "classifier"));
+      if ("pom".equals(childText(element, "type")))
+	dep.type = "pom";
+      scope   = childText(element, "scope");
+      managed = management.get(dep.key());
+      if ((managed != null) && (dep.version == null))
+	dep.version = managed[0];
+      if ((managed != null) && (scope == null))
+	scope = managed[1];
+      if ((scope != null) && !scope.equals("compile") && !scope.equals("runtime"))
+	continue;
+      if ("true".equals(childText(element, "optional")))
+	continue;
+      if ("test-jar".equals(childText(element, "type")))
+	continue;
+      if (artifact.exclusions.contains(dep.key()) || artifact.exclusions.contains(dep.groupId + ":*"))
+	continue;
+      if ((dep.version == null) || dep.version.contains("${")) {
+	LOGGER.warning("Cannot determine version of " + dep.key() + " (dependency of " + artifact + "), skipping");
+	continue;
+      }
+      dep.exclusions.addAll(artifact.exclusions);
+      for (Element excl: children(child(element, "exclusions"), "exclusion"))
+	dep.exclusions.add(interpolate(pom, childText(excl, "groupId")) + ":" + interpolate(pom, childText(excl, "artifactId")));
+      result.add(dep);
+    }
+
+    return result;
+  }
+
+  /**
+   * Traverses the dependency graph starting from the specified artifacts.
+   *
+   * @param roots	the artifacts to start from
+   * @return		null if successful, otherwise error message
+   */
+  public String check(List<Artifact> roots) {
+    ExecutorService		executor;
+    List<Artifact>		level;
+    List<Artifact>		next;
+    List<Future<List<Artifact>>>	futures;
+    Map<String,String>		selected;
+
+    executor = Executors.newFixedThreadPool(m_NumThreads);
+    selected = new LinkedHashMap<>();
+    level    = new ArrayList<>();
+    for (Artifact root: roots) {
+      if (!selected.containsKey(root.key())) {
+	selected.put(root.key(), root.version);
+	level.add(root);
+      }
+    }
+
+    try {
+      while (!level.isEmpty()) {
+	futures = new ArrayList<>();
+	for (final Artifact artifact: level)
+	  futures.add(executor.submit(() -> check(artifact)));
+	m_Checked += level.size();
+	next = new ArrayList<>();
+	for (Future<List<Artifact>> future: futures) {
+	  for (Artifact dep: future.get()) {
+	    // nearest wins
+	    if (selected.containsKey(dep.key()))
+	      continue;
+	    selected.put(dep.key(), dep.version);
+	    next.add(dep);
+	  }
+	}
+	level = next;
+      }
+    }
+    catch (Exception e) {
+      return "Failed to check local repository: " + e;
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    return null;
+  }
+
+  /**
+   * Turns the dependency element into an artifact.
+   *
+   * @param element	the dependency element
+   * @return		the artifact, null if a system dependency
+   */
+  protected static Artifact fromElement(Element element) {
+    Artifact	result;
+
+    if ("system".equals(childText(element, "scope")))
+      return null;
+    result            = new Artifact();
+    result.groupId    = childText(element, "groupId");
+    result.artifactId = childText(element, "artifactId");
+    result.version    = childText(element, "version");
+    result.classifier = childText(element, "classifier");
+    for (Element excl: children(child(element, "exclusions"), "exclusion"))
+      result.exclusions.add(childText(excl, "groupId") + ":" + childText(excl, "artifactId"));
+
+    return result;
+  }
+
+  /**
+   * Returns the plugins that Maven binds implicitly for the packaging, up
+   * to the package phase.
+   *
+   * @param packaging	the packaging of the POM (jar/pom)
+   * @param clean	whether the clean phase gets executed as well
+   * @return		the plugins (group:artifact:version)
+   */
+  public static List<String> defaultBindings(String packaging, boolean clean) {
+    List<String>	result;
+
+    result = new ArrayList<>();
+    if (clean)
+      result.add(CLEAN_BINDING);
+    // pom packaging only binds install/deploy
+    if ("jar".equals(packaging))
+      Collections.addAll(result, JAR_BINDINGS);
+
+    return result;
+  }
+
+  /**
+   * Extracts the parent, the dependencies and the build plugins (incl their
+   * dependencies) from the generated POM, as starting points for the check.
+   * The clean phase does not get executed.
+   *
+   * @param pomFile	the POM to inspect
+   * @return		the artifacts
+   * @throws Exception	if parsing fails
+   * @see		#fromPom(File, boolean)
+   */
+  public static List<Artifact> fromPom(File pomFile) throws Exception {
+    return fromPom(pomFile, false);
+  }
+
+  /**
+   * Extracts the parent, the dependencies, the build plugins (incl their
+   * dependencies) and the plugins that Maven binds implicitly for the
+   * packaging from the generated POM, as starting points for the check.
+   *
+   * @param pomFile	the POM to inspect
+   * @param clean	whether the clean phase gets executed as well
+   * @return		the artifacts
+   * @throws Exception	if parsing fails
+   */
+  public static List<Artifact> fromPom(File pomFile, boolean clean) throws Exception {
+    List<Artifact>		result;
+    DocumentBuilderFactory	factory;
+    Element			root;
+    Element			parent;
+    Element			build;
+    Artifact			artifact;
+    Set<String>			declared;
+    String			packaging;
+    String[]			parts;
+
+    result  = new ArrayList<>();
+    factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    root    = factory.newDocumentBuilder().parse(pomFile).getDocumentElement();
+
+    parent = child(root, "parent");
+    if (parent != null) {
+      artifact            = new Artifact();
+      artifact.groupId    = childText(parent, "groupId");
+      artifact.artifactId = childText(parent, "artifactId");
+      artifact.version    = childText(parent, "version");
+      artifact.type       = "pom";
+      result.add(artifact);
+    }
+
+    for (Element dep: children(child(root, "dependencies"), "dependency")) {
+      artifact = fromElement(dep);
+      if (artifact != null)
+	result.add(artifact);
+    }
+
+    declared = new HashSet<>();
+    build    = child(root, "build");
+    if (build != null) {
+      for (Element plugin: children(child(build, "plugins"), "plugin")) {
+	artifact            = new Artifact();
+	artifact.groupId    = childText(plugin, "groupId");
+	artifact.artifactId = childText(plugin, "artifactId");
+	artifact.version    = childText(plugin, "version");
+	if (artifact.groupId == null)
+	  artifact.groupId = "org.apache.maven.plugins";
+	declared.add(artifact.key());
+	if (artifact.version == null) {
+	  LOGGER.warning("Plugin without version, cannot check: " + artifact.key());
+	  continue;
+	}
+	result.add(artifact);
+	for (Element dep: children(child(plugin, "dependencies"), "dependency")) {
+	  artifact = fromElement(dep);
+	  if (artifact != null)
+	    result.add(artifact);
+	}
+      }
+    }
+
+    // lifecycle plugins, unless declared explicitly
+    packaging = childText(root, "packaging");
+    if (packaging == null)
+      packaging = "jar";
+    for (String binding: defaultBindings(packaging, clean)) {
+      parts               = binding.split(":");
+      artifact            = new Artifact();
+      artifact.groupId    = parts[0];
+      artifact.artifactId = parts[1];
+      artifact.version    = parts[2];
+      if (!declared.contains(artifact.key()))
+	result.add(artifact);
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * OutputBuffer.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import com.github.fracpete.processoutput4j.core.StreamingProcessOutputType;
+import com.github.fracpete.processoutput4j.core.StreamingProcessOwner;
+import org.apache.maven.shared.invoker.InvocationOutputHandler;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Captures the output of processes (Maven, launched application) in a
+ * bounded ring buffer instead of printing it, optionally spilling all the
+ * lines to a log file.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class OutputBuffer
+  implements InvocationOutputHandler, StreamingProcessOwner {
+
+  /** the default number of lines to keep. */
+  public final static int DEFAULT_LINES = 100;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(OutputBuffer.class.getName());
+
+  /** the maximum number of lines to keep. */
+  protected int m_MaxLines;
+
+  /** the lines. */
+  protected ArrayDeque<String> m_Lines;
+
+  /** the total number of lines received. */
+  protected long m_Count;
+
+  /** the log file to spill the lines to, can be null. */
+  protected File m_LogFile;
+
+  /** the writer for the log file. */
+  protected BufferedWriter m_Writer;
+
+  /**
+   * Initializes the buffer.
+   *
+   * @param maxLines	the maximum number of lines to keep
+   * @param logFile	the log file to write all lines to, null to keep in memory only
+   */
+  public OutputBuffer(int maxLines, File logFile) {
+    m_MaxLines = Math.max(1, maxLines);
+    m_Lines    = new ArrayDeque<>();
+    m_Count    = 0;
+    m_LogFile  = logFile;
+    m_Writer   = null;
+    if (m_LogFile != null) {
+      try {
+	m_Writer = new BufferedWriter(new FileWriter(m_LogFile));
+      }
+      catch (Exception e) {
+	LOGGER.warning("Failed to open log file, keeping output in memory only: " + m_LogFile + "\n" + e);
+	m_LogFile = null;
+      }
+    }
+  }
+
+  /**
+   * Returns the log file.
+   *
+   * @return		the file, null if none used (or failed to write)
+   */
+  public File getLogFile() {
+    return m_LogFile;
+  }
+
+  /**
+   * Adds the line.
+   *
+   * @param line	the line to add
+   */
+  @Override
+  public synchronized void consumeLine(String line) {
+    if (m_Lines.size() == m_MaxLines)
+      m_Lines.removeFirst();
+    m_Lines.addLast(line);
+    m_Count++;
+    if (m_Writer != null) {
+      try {
+	m_Writer.write(line);
+	m_Writer.newLine();
+      }
+      catch (IOException e) {
+	LOGGER.warning("Failed to write to log file, keeping output in memory only: " + m_LogFile + "\n" + e);
+	close();
+	m_LogFile = null;
+      }
+    }
+  }
+
+  /**
+   * Returns what output type to capture.
+   *
+   * @return		the type
+   */
+  @Override
+  public StreamingProcessOutputType getOutputType() {
+    return StreamingProcessOutputType.BOTH;
+  }
+
+  /**
+   * Adds the line from the process.
+   *
+   * @param line	the line
+   * @param stdout	whether from stdout or stderr
+   */
+  @Override
+  public void processOutput(String line, boolean stdout) {
+    consumeLine(line);
+  }
+
+  /**
+   * Returns the total number of lines received.
+   *
+   * @return		the number of lines
+   */
+  public synchronized long getCount() {
+    return m_Count;
+  }
+
+  /**
+   * Returns the lines currently in the buffer.
+   *
+   * @return		the lines
+   */
+  public synchronized List<String> getLines() {
+    return new ArrayList<>(m_Lines);
+  }
+
+  /**
+   * Removes all lines from the buffer (the log file is unaffected).
+   */
+  public synchronized void clear() {
+    m_Lines.clear();
+  }
+
+  /**
+   * Flushes and closes the log file, if any.
+   */
+  public synchronized void close() {
+    if (m_Writer == null)
+      return;
+    try {
+      m_Writer.close();
+    }
+    catch (Exception e) {
+      // ignored
+    }
+    m_Writer = null;
+  }
+}
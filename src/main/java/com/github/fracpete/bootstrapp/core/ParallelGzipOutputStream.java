@@ -0,0 +1,274 @@
+/*
+ * ParallelGzipOutputStream.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a single gzip member, deflating blocks of data concurrently (like
+ * pigz): each block gets compressed independently, primed with the last
+ * 32kB of the previous block as dictionary, and flushed to a byte boundary,
+ * so that the blocks can be concatenated into one valid deflate stream.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ParallelGzipOutputStream
+  extends OutputStream {
+
+  /** the default block size. */
+  public final static int BLOCK_SIZE = 1024 * 1024;
+
+  /** the size of the dictionary (deflate window). */
+  public final static int DICT_SIZE = 32 * 1024;
+
+  /** the underlying stream. */
+  protected OutputStream m_Out;
+
+  /** the compression level. */
+  protected int m_Level;
+
+  /** the number of threads. */
+  protected int m_NumThreads;
+
+  /** the compression jobs. */
+  protected ExecutorService m_Executor;
+
+  /** the blocks being compressed, in order. */
+  protected Deque<Future<byte[]>> m_Pending;
+
+  /** the current block. */
+  protected byte[] m_Block;
+
+  /** the number of bytes in the current block. */
+  protected int m_Count;
+
+  /** the dictionary for the next block. */
+  protected byte[] m_Dictionary;
+
+  /** the checksum of the uncompressed data. */
+  protected CRC32 m_CRC;
+
+  /** the number of uncompressed bytes. */
+  protected long m_Total;
+
+  /** whether the stream got closed. */
+  protected boolean m_Closed;
+
+  /**
+   * Initializes the stream with default compression.
+   *
+   * @param out		the stream to write to
+   * @param numThreads	the number of threads, less than 1 for number of CPUs
+   * @throws IOException	if writing the header fails
+   */
+  public ParallelGzipOutputStream(OutputStream out, int numThreads) throws IOException {
+    this(out, Deflater.DEFAULT_COMPRESSION, numThreads);
+  }
+
+  /**
+   * Initializes the stream.
+   *
+   * @param out		the stream to write to
+   * @param level	the compression level
+   * @param numThreads	the number of threads, less than 1 for number of CPUs
+   * @throws IOException	if writing the header fails
+   */
+  public ParallelGzipOutputStream(OutputStream out, int level, int numThreads) throws IOException {
+    m_Out        = out;
+    m_Level      = level;
+    m_NumThreads = (numThreads < 1) ? Runtime.getRuntime().availableProcessors() : numThreads;
+    m_Executor   = Executors.newFixedThreadPool(m_NumThreads);
+    m_Pending    = new ArrayDeque<>();
+    m_Block      = new byte[BLOCK_SIZE];
+    m_Count      = 0;
+    m_Dictionary = null;
+    m_CRC        = new CRC32();
+    m_Total      = 0;
+    m_Closed     = false;
+
+    // magic, deflate, no flags, no mtime, no extra flags, unknown OS
+    m_Out.write(new byte[]{0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 255});
+  }
+
+  /**
+   * Compresses the block.
+   *
+   * @param data	the data to compress
+   * @param dictionary	the dictionary to use, can be null
+   * @param last	whether this is the last block
+   * @param level	the compression level
+   * @return		the compressed data
+   */
+  protected static byte[] deflate(byte[] data, byte[] dictionary, boolean last, int level) {
+    ByteArrayOutputStream	result;
+    Deflater			deflater;
+    byte[]			buffer;
+    int				len;
+
+    result   = new ByteArrayOutputStream(data.length / 2 + 64);
+    buffer   = new byte[64 * 1024];
+    deflater = new Deflater(level, true);
+    try {
+      if (dictionary != null)
+	deflater.setDictionary(dictionary);
+      deflater.setInput(data);
+      if (last) {
+	deflater.finish();
+	while (!deflater.finished()) {
+	  len = deflater.deflate(buffer);
+	  result.write(buffer, 0, len);
+	}
+      }
+      else {
+	do {
+	  len = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+	  result.write(buffer, 0, len);
+	}
+	while (len == buffer.length);
+      }
+    }
+    finally {
+      deflater.end();
+    }
+
+    return result.toByteArray();
+  }
+
+  /**
+   * Writes the compressed blocks to the underlying stream.
+   *
+   * @param max		the maximum number of blocks to keep pending
+   * @throws IOException	if writing or compression fails
+   */
+  protected void drain(int max) throws IOException {
+    while (m_Pending.size() > max) {
+      try {
+	m_Out.write(m_Pending.removeFirst().get());
+      }
+      catch (IOException e) {
+	throw e;
+      }
+      catch (Exception e) {
+	throw new IOException("Failed to compress block", e);
+      }
+    }
+  }
+
+  /**
+   * Submits the current block for compression.
+   *
+   * @param last	whether this is the last block
+   * @throws IOException	if writing or compression fails
+   */
+  protected void submit(final boolean last) throws IOException {
+    final byte[]	data;
+    final byte[]	dictionary;
+    byte[]		next;
+
+    data       = Arrays.copyOf(m_Block, m_Count);
+    dictionary = m_Dictionary;
+    m_CRC.update(data);
+    m_Total += data.length;
+
+    if (data.length >= DICT_SIZE) {
+      next = Arrays.copyOfRange(data, data.length - DICT_SIZE, data.length);
+    }
+    else {
+      next = new byte[Math.min(DICT_SIZE, data.length + (dictionary == null ? 0 : dictionary.length))];
+      System.arraycopy(data, 0, next, next.length - data.length, data.length);
+      if (dictionary != null)
+	System.arraycopy(dictionary, dictionary.length - (next.length - data.length), next, 0, next.length - data.length);
+    }
+    m_Dictionary = (next.length > 0) ? next : null;
+    m_Count      = 0;
+
+    drain(m_NumThreads * 2);
+    m_Pending.add(m_Executor.submit(() -> deflate(data, dictionary, last, m_Level)));
+  }
+
+  /**
+   * Writes the byte.
+   *
+   * @param b		the byte to write
+   * @throws IOException	if writing fails
+   */
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[]{(byte) b}, 0, 1);
+  }
+
+  /**
+   * Writes the bytes.
+   *
+   * @param b		the bytes to write
+   * @param off		the offset
+   * @param len		the number of bytes
+   * @throws IOException	if writing fails
+   */
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    int		n;
+
+    if (m_Closed)
+      throw new IOException("Stream already closed!");
+    while (len > 0) {
+      n = Math.min(len, m_Block.length - m_Count);
+      System.arraycopy(b, off, m_Block, m_Count, n);
+      m_Count += n;
+      off     += n;
+      len     -= n;
+      if (m_Count == m_Block.length)
+	submit(false);
+    }
+  }
+
+  /**
+   * Compresses the remaining data, writes the trailer and closes the
+   * underlying stream.
+   *
+   * @throws IOException	if writing fails
+   */
+  @Override
+  public void close() throws IOException {
+    if (m_Closed)
+      return;
+    m_Closed = true;
+    try {
+      submit(true);
+      drain(0);
+      writeInt((int) m_CRC.getValue());
+      writeInt((int) m_Total);
+      m_Out.flush();
+    }
+    finally {
+      m_Executor.shutdownNow();
+      m_Out.close();
+    }
+  }
+
+  /**
+   * Writes the integer in little endian order.
+   *
+   * @param value	the value to write
+   * @throws IOException	if writing fails
+   */
+  protected void writeInt(int value) throws IOException {
+    m_Out.write(value & 0xff);
+    m_Out.write((value >> 8) & 0xff);
+    m_Out.write((value >> 16) & 0xff);
+    m_Out.write((value >> 24) & 0xff);
+  }
+}
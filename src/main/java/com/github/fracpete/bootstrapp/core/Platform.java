@@ -0,0 +1,301 @@
+/*
+ * Platform.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Represents a target platform (operating system and, optionally,
+ * architecture) in JavaCPP notation (eg linux-x86_64 or linux-arm64) and
+ * determines which platform-specific native artifacts (JavaCPP, Netty,
+ * LWJGL, OpenJFX classifiers) are not required for it.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Platform {
+
+  /** the pattern for a platform classifier (os, arch, variant). */
+  public final static Pattern CLASSIFIER = Pattern.compile(
+    "(?:natives-)?(linux|windows|win|macosx|macos|osx|mac|android|ios|freebsd)"
+      + "(?:-(x86_64|x86-64|amd64|x64|x86|i386|i686|arm64|aarch64|aarch_64|armhf|arm32|arm|ppc64le|ppcle_64|s390x|s390_64|riscv64))?"
+      + "(?:-(gpu|redist))?");
+
+  /** the known platform classifiers (JavaCPP, Netty, LWJGL, OpenJFX). */
+  public final static String[] KNOWN_CLASSIFIERS = {
+    // JavaCPP
+    "android-arm", "android-arm64", "android-x86", "android-x86_64",
+    "ios-arm64", "ios-x86_64",
+    "linux-x86", "linux-x86_64", "linux-x86_64-gpu", "linux-armhf", "linux-arm64", "linux-arm64-gpu", "linux-ppc64le", "linux-ppc64le-gpu",
+    "macosx-x86_64", "macosx-arm64",
+    "windows-x86", "windows-x86_64", "windows-x86_64-gpu",
+    // Netty
+    "linux-aarch_64", "linux-riscv64", "osx-x86_64", "osx-aarch_64",
+    // LWJGL
+    "natives-linux", "natives-linux-arm64", "natives-linux-arm32", "natives-linux-ppc64le", "natives-linux-riscv64",
+    "natives-macos", "natives-macos-arm64",
+    "natives-windows", "natives-windows-x86", "natives-windows-arm64",
+    "natives-freebsd",
+    // OpenJFX
+    "linux", "linux-aarch64", "mac", "mac-aarch64", "win", "win-x86",
+  };
+
+  /** the name of the file listing the artifacts pruned by Maven. */
+  public final static String PRUNED_FILE = "platform-pruned.txt";
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(Platform.class.getName());
+
+  /** the operating system. */
+  protected String m_OS;
+
+  /** the architecture, null if any. */
+  protected String m_Arch;
+
+  /**
+   * Initializes the platform.
+   *
+   * @param os		the operating system
+   * @param arch	the architecture, null if any
+   */
+  public Platform(String os, String arch) {
+    m_OS   = os;
+    m_Arch = arch;
+  }
+
+  /**
+   * Returns the operating system.
+   *
+   * @return		the operating system
+   */
+  public String getOS() {
+    return m_OS;
+  }
+
+  /**
+   * Returns the architecture.
+   *
+   * @return		the architecture, null if any
+   */
+  public String getArch() {
+    return m_Arch;
+  }
+
+  /**
+   * Normalizes the operating system.
+   *
+   * @param os		the operating system to normalize
+   * @return		the normalized operating system
+   */
+  protected static String normalizeOS(String os) {
+    switch (os) {
+      case "win":
+	return "windows";
+      case "macos":
+      case "osx":
+      case "mac":
+	return "macosx";
+      default:
+	return os;
+    }
+  }
+
+  /**
+   * Normalizes the architecture.
+   *
+   * @param arch	the architecture to normalize, can be null
+   * @return		the normalized architecture, null if none supplied
+   */
+  protected static String normalizeArch(String arch) {
+    if (arch == null)
+      return null;
+    switch (arch) {
+      case "x86-64":
+      case "amd64":
+      case "x64":
+	return "x86_64";
+      case "i386":
+      case "i686":
+	return "x86";
+      case "aarch64":
+      case "aarch_64":
+	return "arm64";
+      case "arm":
+      case "arm32":
+	return "armhf";
+      case "ppcle_64":
+	return "ppc64le";
+      case "s390_64":
+	return "s390x";
+      default:
+	return arch;
+    }
+  }
+
+  /**
+   * Parses the platform (eg linux-x86_64) or classifier (eg natives-linux).
+   *
+   * @param s		the string to parse
+   * @return		the platform, null if not a platform
+   */
+  public static Platform parse(String s) {
+    Matcher	matcher;
+
+    if (s == null)
+      return null;
+    matcher = CLASSIFIER.matcher(s.toLowerCase());
+    if (!matcher.matches())
+      return null;
+
+    return new Platform(normalizeOS(matcher.group(1)), normalizeArch(matcher.group(2)));
+  }
+
+  /**
+   * Determines the platform of the jar from its classifier, ie the name
+   * must look like artifact-version-classifier.jar.
+   *
+   * @param name	the name of the jar
+   * @return		the platform, null if not platform-specific
+   */
+  public static Platform classify(String name) {
+    Platform	result;
+    String[]	parts;
+    int		i;
+
+    if (!name.toLowerCase().endsWith(".jar"))
+      return null;
+    parts = name.substring(0, name.length() - 4).split("-");
+    // classifiers consist of up to four parts (eg natives-linux-arm64 or linux-x86_64-gpu)
+    for (i = Math.max(1, parts.length - 4); i < parts.length; i++) {
+      if (!parts[i - 1].matches(".*[0-9].*"))
+	continue;
+      result = parse(String.join("-", Arrays.asList(parts).subList(i, parts.length)));
+      if (result != null)
+	return result;
+    }
+
+    return null;
+  }
+
+  /**
+   * Checks whether the native code of the other platform can be used on
+   * this platform.
+   *
+   * @param other	the platform to check
+   * @return		true if compatible
+   */
+  public boolean accepts(Platform other) {
+    if (!m_OS.equals(other.getOS()))
+      return false;
+    return (m_Arch == null) || (other.getArch() == null) || m_Arch.equals(other.getArch());
+  }
+
+  /**
+   * Returns the known classifiers that are not required for this platform.
+   *
+   * @return		the classifiers
+   */
+  public List<String> excludedClassifiers() {
+    List<String>	result;
+
+    result = new ArrayList<>();
+    for (String classifier: KNOWN_CLASSIFIERS) {
+      if (!accepts(parse(classifier)))
+	result.add(classifier);
+    }
+
+    return result;
+  }
+
+  /**
+   * Removes the jars for other platforms from the directory.
+   *
+   * @param dir		the directory to prune
+   * @param pruned	for adding the names of the removed jars
+   * @return		the number of bytes removed
+   */
+  public long prune(File dir, List<String> pruned) {
+    long	result;
+    File[]	files;
+    Platform	platform;
+    long	size;
+
+    result = 0;
+    files  = dir.listFiles();
+    if (files == null)
+      return result;
+    for (File file: files) {
+      platform = classify(file.getName());
+      if ((platform == null) || accepts(platform))
+	continue;
+      size = file.length();
+      if (file.delete()) {
+	result += size;
+	pruned.add(file.getName());
+      }
+      else {
+	LOGGER.warning("Failed to remove jar for other platform: " + file);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Reads the artifacts pruned by Maven from the output of dependency:list
+   * (with absolute file names).
+   *
+   * @param list	the output file of dependency:list
+   * @param pruned	for adding the names of the pruned jars
+   * @return		the number of bytes pruned
+   */
+  public static long readPruned(File list, List<String> pruned) {
+    long	result;
+    File	file;
+    Matcher	matcher;
+    Pattern	path;
+
+    result = 0;
+    if (!list.exists())
+      return result;
+    path = Pattern.compile(":((?:[A-Za-z]:)?[\\\\/].*?\\.jar)(\\s|$)");
+    try {
+      for (String line: Files.readAllLines(list.toPath(), StandardCharsets.UTF_8)) {
+	matcher = path.matcher(line);
+	if (!matcher.find())
+	  continue;
+	file = new File(matcher.group(1));
+	if (file.exists()) {
+	  result += file.length();
+	  pruned.add(file.getName());
+	}
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.WARNING, "Failed to read pruned artifacts: " + list, e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the platform in JavaCPP notation.
+   *
+   * @return		the platform (eg linux-x86_64)
+   */
+  @Override
+  public String toString() {
+    return m_OS + (m_Arch != null ? "-" + m_Arch : "");
+  }
+}
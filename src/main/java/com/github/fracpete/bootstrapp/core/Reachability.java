@@ -0,0 +1,543 @@
+/*
+ * Reachability.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarFile;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+
+/**
+ * Determines the jars that are reachable at class level from the entry
+ * points (eg the main class), by following the class references in the
+ * constant pools (classes, descriptors, signatures, annotations) of the
+ * class files, without loading any classes. The jars get indexed
+ * concurrently. Reflection gets approximated by treating string constants
+ * that are names of known classes as references. Service providers
+ * (META-INF/services) and Spring factories/auto-configurations are
+ * reachable if their interface is referenced. Jars without classes are
+ * always considered reachable.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Reachability {
+
+  /** the directory (below the output directory) for the unreachable jars. */
+  public final static String UNUSED_DIR = "unused";
+
+  /** the pattern for class names in descriptors and signatures. */
+  public final static Pattern DESCRIPTOR = Pattern.compile("(?:^|[(\\[;<>:)*+\\-^])L([A-Za-z_$][\\w$/]*)[;<]");
+
+  /** the pattern for class names in string constants. */
+  public final static Pattern CLASS_NAME = Pattern.compile("[A-Za-z_$][\\w$]*(\\.[A-Za-z_$][\\w$]*)+");
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(Reachability.class.getName());
+
+  /**
+   * The classes, references and service providers of a jar.
+   */
+  public static class JarIndex {
+
+    /** the jar. */
+    public File jar;
+
+    /** the classes (internal name - referenced classes). */
+    public Map<String,String[]> classes = new HashMap<>();
+
+    /** the providers (interface - implementations, internal names). */
+    public Map<String,List<String>> providers = new HashMap<>();
+  }
+
+  /** the number of threads to use. */
+  protected int m_NumThreads;
+
+  /** the additional entry points (class names). */
+  protected List<String> m_EntryPoints;
+
+  /** the regular expressions for classes/jars to keep (eg accessed via reflection). */
+  protected List<Pattern> m_Keep;
+
+  /** the reachable jars. */
+  protected transient Set<File> m_ActReachable;
+
+  /** the unreachable jars. */
+  protected transient List<File> m_ActUnreachable;
+
+  /** the number of reachable classes. */
+  protected transient int m_ActClasses;
+
+  /**
+   * Initializes the analysis.
+   *
+   * @param numThreads	the number of threads, less than 1 for number of CPUs
+   */
+  public Reachability(int numThreads) {
+    m_NumThreads     = (numThreads < 1) ? Runtime.getRuntime().availableProcessors() : numThreads;
+    m_EntryPoints    = new ArrayList<>();
+    m_Keep           = new ArrayList<>();
+    m_ActReachable   = new HashSet<>();
+    m_ActUnreachable = new ArrayList<>();
+  }
+
+  /**
+   * Sets the entry points.
+   *
+   * @param classes	the class names, can be null
+   * @return		itself
+   */
+  public Reachability entryPoints(List<String> classes) {
+    m_EntryPoints = new ArrayList<>();
+    if (classes != null)
+      m_EntryPoints.addAll(classes);
+    return this;
+  }
+
+  /**
+   * Sets the regular expressions for classes (eg only accessed via
+   * reflection) and jars (file names) to keep.
+   *
+   * @param regexps	the regular expressions, can be null
+   * @return		itself
+   */
+  public Reachability keep(List<String> regexps) {
+    m_Keep = new ArrayList<>();
+    if (regexps != null) {
+      for (String regexp: regexps)
+	m_Keep.add(Pattern.compile(regexp));
+    }
+    return this;
+  }
+
+  /**
+   * Returns the reachable jars of the last analysis.
+   *
+   * @return		the jars
+   */
+  public Set<File> getReachable() {
+    return m_ActReachable;
+  }
+
+  /**
+   * Returns the unreachable jars of the last analysis, sorted by size
+   * (largest first).
+   *
+   * @return		the jars
+   */
+  public List<File> getUnreachable() {
+    return m_ActUnreachable;
+  }
+
+  /**
+   * Returns the number of reachable classes of the last analysis.
+   *
+   * @return		the number of classes
+   */
+  public int getReachableClasses() {
+    return m_ActClasses;
+  }
+
+  /**
+   * Checks whether the name matches any of the keep patterns.
+   *
+   * @param name	the class or jar name
+   * @return		true if to keep
+   */
+  protected boolean isKept(String name) {
+    for (Pattern keep: m_Keep) {
+      if (keep.matcher(name).matches())
+	return true;
+    }
+    return false;
+  }
+
+  /**
+   * Collects the classes referenced by the class file (internal names).
+   *
+   * @param data	the class file
+   * @return		the referenced classes
+   * @throws Exception	if parsing fails
+   */
+  public static String[] references(byte[] data) throws Exception {
+    Set<String>		result;
+    DataInputStream	in;
+    String[]		utf8;
+    int[]		classes;
+    int[]		strings;
+    int			count;
+    int			i;
+    int			tag;
+    String		name;
+    Matcher		matcher;
+
+    in = new DataInputStream(new ByteArrayInputStream(data));
+    if (in.readInt() != MainClassFinder.MAGIC)
+      return new String[0];
+    in.readUnsignedShort();  // minor
+    in.readUnsignedShort();  // major
+
+    // constant pool
+    count   = in.readUnsignedShort();
+    utf8    = new String[count];
+    classes = new int[count];
+    strings = new int[count];
+    for (i = 1; i < count; i++) {
+      tag = in.readUnsignedByte();
+      switch (tag) {
+	case 1:   // utf8
+	  utf8[i] = in.readUTF();
+	  break;
+	case 7:   // class
+	  classes[i] = in.readUnsignedShort();
+	  break;
+	case 8:   // string
+	  strings[i] = in.readUnsignedShort();
+	  break;
+	case 16:  // method type
+	case 19:  // module
+	case 20:  // package
+	  in.skipBytes(2);
+	  break;
+	case 15:  // method handle
+	  in.skipBytes(3);
+	  break;
+	case 3:   // integer
+	case 4:   // float
+	case 9:   // field ref
+	case 10:  // method ref
+	case 11:  // interface method ref
+	case 12:  // name and type
+	case 17:  // dynamic
+	case 18:  // invoke dynamic
+	  in.skipBytes(4);
+	  break;
+	case 5:   // long
+	case 6:   // double
+	  in.skipBytes(8);
+	  i++;
+	  break;
+	default:
+	  throw new IllegalStateException("Unknown constant pool tag: " + tag);
+      }
+    }
+
+    result = new HashSet<>();
+    for (i = 1; i < count; i++) {
+      if (classes[i] > 0) {
+	name = utf8[classes[i]];
+	if (name.startsWith("[")) {
+	  matcher = DESCRIPTOR.matcher(name.replaceAll("^\\[+", ""));
+	  if (matcher.find())
+	    result.add(matcher.group(1));
+	}
+	else {
+	  result.add(name);
+	}
+      }
+      else if (strings[i] > 0) {
+	name = utf8[strings[i]];
+	if ((name.length() < 256) && CLASS_NAME.matcher(name).matches())
+	  result.add(name.replace('.', '/'));
+      }
+      // descriptors, signatures, annotations
+      else if ((utf8[i] != null) && (utf8[i].indexOf(';') > -1)) {
+	matcher = DESCRIPTOR.matcher(utf8[i]);
+	while (matcher.find())
+	  result.add(matcher.group(1));
+      }
+    }
+
+    return result.toArray(new String[0]);
+  }
+
+  /**
+   * Adds the providers listed in the file (one class per line, # for
+   * comments).
+   *
+   * @param jar		the jar to read from
+   * @param entry	the file with the providers
+   * @param service	the interface (internal name)
+   * @param index	the index to add the providers to
+   * @throws Exception	if reading fails
+   */
+  protected void addProviders(JarFile jar, ZipEntry entry, String service, JarIndex index) throws Exception {
+    String	line;
+
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(jar.getInputStream(entry), StandardCharsets.UTF_8))) {
+      while ((line = reader.readLine()) != null) {
+	if (line.contains("#"))
+	  line = line.substring(0, line.indexOf('#'));
+	line = line.trim();
+	if (!line.isEmpty())
+	  index.providers.computeIfAbsent(service, k -> new ArrayList<>()).add(line.replace('.', '/'));
+      }
+    }
+  }
+
+  /**
+   * Adds the factories listed in the spring.factories file (properties with
+   * interface as key and comma-separated implementations as value).
+   *
+   * @param jar		the jar to read from
+   * @param entry	the spring.factories file
+   * @param index	the index to add the factories to
+   * @throws Exception	if reading fails
+   */
+  protected void addFactories(JarFile jar, ZipEntry entry, JarIndex index) throws Exception {
+    Properties	props;
+
+    props = new Properties();
+    try (InputStreamReader reader = new InputStreamReader(jar.getInputStream(entry), StandardCharsets.UTF_8)) {
+      props.load(reader);
+    }
+    for (String key: props.stringPropertyNames()) {
+      for (String impl: props.getProperty(key).split(",")) {
+	if (!impl.trim().isEmpty())
+	  index.providers.computeIfAbsent(key.trim().replace('.', '/'), k -> new ArrayList<>()).add(impl.trim().replace('.', '/'));
+      }
+    }
+  }
+
+  /**
+   * Indexes the classes and service providers of the jar.
+   *
+   * @param file	the jar to index
+   * @return		the index
+   */
+  protected JarIndex index(File file) {
+    JarIndex				result;
+    Enumeration<? extends ZipEntry>	entries;
+    ZipEntry				entry;
+    String				name;
+
+    result     = new JarIndex();
+    result.jar = file;
+    try (JarFile jar = new JarFile(file, false)) {
+      entries = jar.entries();
+      while (entries.hasMoreElements()) {
+	entry = entries.nextElement();
+	name  = entry.getName();
+	if (entry.isDirectory())
+	  continue;
+	try {
+	  if (name.startsWith("META-INF/services/") && (name.indexOf('/', 18) == -1)) {
+	    addProviders(jar, entry, name.substring(18).replace('.', '/'), result);
+	  }
+	  else if (name.equals("META-INF/spring.factories")) {
+	    addFactories(jar, entry, result);
+	  }
+	  else if (name.startsWith("META-INF/spring/") && name.endsWith(".imports")) {
+	    addProviders(jar, entry, name.substring(16, name.length() - 8).replace('.', '/'), result);
+	  }
+	  else if (name.endsWith(".class") && !name.endsWith("module-info.class") && !name.endsWith("package-info.class")
+	    && (entry.getSize() >= 0) && (entry.getSize() <= Integer.MAX_VALUE)) {
+	    // multi-release classes count towards the base class
+	    if (name.startsWith("META-INF/versions/"))
+	      name = name.replaceFirst("^META-INF/versions/[0-9]+/", "");
+	    else if (name.startsWith("META-INF/"))
+	      continue;
+	    name = name.substring(0, name.length() - 6);
+	    if (result.classes.containsKey(name))
+	      result.classes.put(name, merge(result.classes.get(name), references(MainClassFinder.read(jar, entry))));
+	    else
+	      result.classes.put(name, references(MainClassFinder.read(jar, entry)));
+	  }
+	}
+	catch (Exception e) {
+	  LOGGER.fine("Failed to parse " + name + " in " + file + ": " + e);
+	}
+      }
+    }
+    catch (Exception e) {
+      LOGGER.warning("Failed to index jar: " + file + "\n" + e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Merges the two arrays of references.
+   *
+   * @param a		the first references
+   * @param b		the second references
+   * @return		the merged references
+   */
+  protected static String[] merge(String[] a, String[] b) {
+    Set<String>	result;
+
+    result = new HashSet<>(Arrays.asList(a));
+    result.addAll(Arrays.asList(b));
+
+    return result.toArray(new String[0]);
+  }
+
+  /**
+   * Indexes the jars concurrently.
+   *
+   * @param jars	the jars to index
+   * @return		the indices
+   * @throws Exception	if indexing fails
+   */
+  protected List<JarIndex> index(List<File> jars) throws Exception {
+    List<JarIndex>		result;
+    List<Callable<JarIndex>>	jobs;
+    ExecutorService		executor;
+
+    jobs = new ArrayList<>();
+    for (final File jar: jars)
+      jobs.add(() -> index(jar));
+    result   = new ArrayList<>();
+    executor = Executors.newWorkStealingPool(m_NumThreads);
+    try {
+      for (Future<JarIndex> future: executor.invokeAll(jobs))
+	result.add(future.get());
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    return result;
+  }
+
+  /**
+   * Determines the reachable jars in the directory, starting from the main
+   * class and the additional entry points.
+   *
+   * @param dir		the directory with the jars (eg lib)
+   * @param mainClass	the main class, can be null
+   * @return		null if successful, otherwise error message
+   */
+  public String analyze(File dir, String mainClass) {
+    File[]			files;
+    List<JarIndex>		indices;
+    Map<String,List<JarIndex>>	owners;
+    Map<String,List<String>>	providers;
+    Set<String>			visited;
+    Deque<String>		queue;
+    List<String>		roots;
+    String			name;
+    long			start;
+
+    start            = System.currentTimeMillis();
+    m_ActReachable   = new HashSet<>();
+    m_ActUnreachable = new ArrayList<>();
+    m_ActClasses     = 0;
+    files            = dir.listFiles((d, n) -> n.toLowerCase().endsWith(".jar"));
+    if ((files == null) || (files.length == 0))
+      return null;
+
+    try {
+      indices = index(Arrays.asList(files));
+    }
+    catch (Exception e) {
+      return "Failed to index jars in " + dir + ": " + e;
+    }
+
+    // merge
+    owners    = new HashMap<>();
+    providers = new HashMap<>();
+    roots     = new ArrayList<>();
+    if (mainClass != null)
+      roots.add(mainClass.replace('.', '/'));
+    for (String entry: m_EntryPoints)
+      roots.add(entry.trim().replace('.', '/'));
+    for (JarIndex index: indices) {
+      if (index.classes.isEmpty() || isKept(index.jar.getName()))
+	m_ActReachable.add(index.jar);
+      for (String cls: index.classes.keySet()) {
+	owners.computeIfAbsent(cls, k -> new ArrayList<>()).add(index);
+	if (isKept(index.jar.getName()) || isKept(cls.replace('/', '.')))
+	  roots.add(cls);
+      }
+      for (String service: index.providers.keySet())
+	providers.computeIfAbsent(service, k -> new ArrayList<>()).addAll(index.providers.get(service));
+    }
+    if (roots.isEmpty())
+      return "No entry points for reachability analysis!";
+
+    // traverse
+    visited = new HashSet<>();
+    queue   = new ArrayDeque<>(roots);
+    while (!queue.isEmpty()) {
+      name = queue.removeFirst();
+      if (!visited.add(name))
+	continue;
+      if (providers.containsKey(name))
+	queue.addAll(providers.get(name));
+      if (!owners.containsKey(name))
+	continue;
+      m_ActClasses++;
+      for (JarIndex index: owners.get(name)) {
+	m_ActReachable.add(index.jar);
+	queue.addAll(Arrays.asList(index.classes.get(name)));
+      }
+      // nested classes (eg anonymous ones only referenced from the outer class by the inner classes attribute)
+      if (name.indexOf('$') > -1)
+	queue.add(name.substring(0, name.indexOf('$')));
+    }
+
+    for (File file: files) {
+      if (!m_ActReachable.contains(file))
+	m_ActUnreachable.add(file);
+    }
+    m_ActUnreachable.sort((a, b) -> Long.compare(b.length(), a.length()));
+    LOGGER.info("Reachability: " + m_ActReachable.size() + " of " + files.length + " jar(s) reachable ("
+      + m_ActClasses + " classes, " + (System.currentTimeMillis() - start) + "ms)");
+
+    return null;
+  }
+
+  /**
+   * Moves the unreachable jars of the last analysis into the directory.
+   * Jars from a previous run get removed from it first.
+   *
+   * @param unused	the directory for the unreachable jars
+   * @return		null if successful, otherwise error message
+   */
+  public String prune(File unused) {
+    File[]	files;
+
+    try {
+      files = unused.listFiles();
+      if (files != null) {
+	for (File file: files)
+	  Files.delete(file.toPath());
+      }
+      if (!m_ActUnreachable.isEmpty() && !unused.exists() && !unused.mkdirs())
+	return "Failed to create directory for unreachable jars: " + unused;
+      for (File file: m_ActUnreachable)
+	Files.move(file.toPath(), new File(unused, file.getName()).toPath());
+    }
+    catch (Exception e) {
+      return "Failed to move unreachable jars to " + unused + ": " + e;
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * RepositoryProbe.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Probes repositories (id;name;url) concurrently for latency (HEAD requests)
+ * and throughput (GET request) on a known artifact and ranks them by the
+ * estimated time for retrieving an artifact of typical size. Unreachable
+ * repositories get dropped.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class RepositoryProbe {
+
+  /** the default path of the artifact to probe. */
+  public final static String DEFAULT_PATH = "org/apache/maven/plugins/maven-dependency-plugin/3.2.0/maven-dependency-plugin-3.2.0.pom";
+
+  /** the number of HEAD requests for determining the latency. */
+  public final static int NUM_HEAD = 3;
+
+  /** the typical artifact size in bytes used for ranking. */
+  public final static int TYPICAL_SIZE = 100 * 1024;
+
+  /** the timeout in msec. */
+  public final static int TIMEOUT = 5000;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(RepositoryProbe.class.getName());
+
+  /**
+   * Container for the result of probing a repository.
+   */
+  public static class Result {
+
+    /** the repository (id;name;url). */
+    public String repository;
+
+    /** whether the repository is reachable. */
+    public boolean reachable;
+
+    /** whether the repository has the probe artifact. */
+    public boolean found;
+
+    /** the latency in msec (minimum of the HEAD requests). */
+    public long latency;
+
+    /** the throughput in bytes/sec, -1 if not determined. */
+    public double throughput;
+
+    /** the error, if unreachable. */
+    public String error;
+
+    /**
+     * Returns the estimated time for retrieving an artifact of typical size.
+     *
+     * @return		the time in msec
+     * @see		#TYPICAL_SIZE
+     */
+    public double getEstimate() {
+      if (!reachable)
+	return Double.MAX_VALUE;
+      if (throughput <= 0)
+	return latency + TYPICAL_SIZE;   // assume 1 byte/msec
+      return latency + TYPICAL_SIZE * 1000.0 / throughput;
+    }
+
+    /**
+     * Returns a short description.
+     *
+     * @return		the description
+     */
+    @Override
+    public String toString() {
+      if (!reachable)
+	return repository + ": unreachable (" + error + ")";
+      return repository + ": latency=" + latency + "ms"
+	+ (throughput > 0 ? ", throughput=" + String.format("%.1f", throughput / 1000.0) + "kB/s" : "")
+	+ (found ? "" : ", probe artifact not found");
+    }
+  }
+
+  /** the path of the artifact to probe. */
+  protected String m_Path;
+
+  /**
+   * Initializes the probe.
+   *
+   * @param path	the path of the artifact to probe, relative to the repository URL
+   */
+  public RepositoryProbe(String path) {
+    m_Path = path;
+    while (m_Path.startsWith("/"))
+      m_Path = m_Path.substring(1);
+  }
+
+  /**
+   * Opens a connection.
+   *
+   * @param url		the URL to connect to
+   * @param method	the request method
+   * @return		the connection
+   * @throws Exception	if opening fails
+   */
+  protected HttpURLConnection open(String url, String method) throws Exception {
+    HttpURLConnection	result;
+
+    result = (HttpURLConnection) new URL(url).openConnection();
+    result.setRequestMethod(method);
+    result.setConnectTimeout(TIMEOUT);
+    result.setReadTimeout(TIMEOUT);
+    result.setInstanceFollowRedirects(true);
+    result.setUseCaches(false);
+
+    return result;
+  }
+
+  /**
+   * Probes the repository.
+   *
+   * @param repository	the repository (id;name;url)
+   * @return		the result
+   */
+  protected Result probe(String repository) {
+    Result		result;
+    String		url;
+    HttpURLConnection	conn;
+    long		start;
+    long		latency;
+    long		size;
+    byte[]		buffer;
+    int			len;
+    int			i;
+
+    result            = new Result();
+    result.repository = repository;
+    result.latency    = Long.MAX_VALUE;
+    result.throughput = -1;
+    url               = repository.split(";")[2];
+    if (!url.endsWith("/"))
+      url += "/";
+    url += m_Path;
+
+    try {
+      // latency
+      for (i = 0; i < NUM_HEAD; i++) {
+	conn  = open(url, "HEAD");
+	start = System.nanoTime();
+	try {
+	  result.found = (conn.getResponseCode() == HttpURLConnection.HTTP_OK);
+	}
+	finally {
+	  conn.disconnect();
+	}
+	latency        = (System.nanoTime() - start) / 1000000;
+	result.latency = Math.min(result.latency, latency);
+      }
+      result.reachable = true;
+
+      // throughput
+      if (result.found) {
+	conn   = open(url, "GET");
+	buffer = new byte[8192];
+	size   = 0;
+	start  = System.nanoTime();
+	try (InputStream in = conn.getInputStream()) {
+	  while ((len = in.read(buffer)) > 0)
+	    size += len;
+	}
+	finally {
+	  conn.disconnect();
+	}
+	// subtract the latency to get the transfer rate
+	latency = Math.max(1, (System.nanoTime() - start) / 1000000 - result.latency);
+	result.throughput = size * 1000.0 / latency;
+      }
+    }
+    catch (Exception e) {
+      result.reachable = false;
+      result.error     = e.toString();
+    }
+
+    return result;
+  }
+
+  /**
+   * Probes the repositories concurrently.
+   *
+   * @param repositories	the repositories (id;name;url)
+   * @return		the results, in the order of the repositories
+   */
+  public List<Result> probe(List<String> repositories) {
+    List<Result>		result;
+    ExecutorService		executor;
+    List<Future<Result>>	futures;
+    Result			failed;
+    int				i;
+
+    result   = new ArrayList<>();
+    executor = Executors.newFixedThreadPool(Math.max(1, repositories.size()));
+    futures  = new ArrayList<>();
+    for (final String repository: repositories)
+      futures.add(executor.submit(() -> probe(repository)));
+    for (i = 0; i < futures.size(); i++) {
+      try {
+	result.add(futures.get(i).get());
+      }
+      catch (Exception e) {
+	failed            = new Result();
+	failed.repository = repositories.get(i);
+	failed.error      = e.toString();
+	result.add(failed);
+      }
+    }
+    executor.shutdownNow();
+
+    return result;
+  }
+
+  /**
+   * Probes the repositories and returns the reachable ones, ranked by their
+   * estimated time for retrieving an artifact (fastest first).
+   *
+   * @param repositories	the repositories (id;name;url)
+   * @return		the ranked repositories
+   */
+  public List<String> rank(List<String> repositories) {
+    List<String>	result;
+    List<Result>	results;
+    List<String>	valid;
+
+    valid = new ArrayList<>();
+    for (String repository: repositories) {
+      if (repository.split(";").length == 3)
+	valid.add(repository);
+      else
+	LOGGER.warning("Skipping repository as it does not conform to format 'id;name;url': " + repository);
+    }
+
+    results = probe(valid);
+    results.sort((r1, r2) -> Double.compare(r1.getEstimate(), r2.getEstimate()));
+    result = new ArrayList<>();
+    for (Result r: results) {
+      LOGGER.info("Probed repository " + r);
+      if (r.reachable)
+	result.add(r.repository);
+    }
+
+    return result;
+  }
+}
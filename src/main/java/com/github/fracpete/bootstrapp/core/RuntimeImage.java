@@ -0,0 +1,329 @@
+/*
+ * RuntimeImage.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates a minimal Java runtime for the bootstrapped jars: jdeps
+ * determines the JDK modules that the jars require (analyzing batches of
+ * jars concurrently) and jlink links them into a runtime image, with
+ * compression and without debug information, header files and man pages.
+ * Requires a JDK 11 or later.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class RuntimeImage {
+
+  /** the directory (below the output directory) for the runtime. */
+  public final static String DIR = "runtime";
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(RuntimeImage.class.getName());
+
+  /** the JDK to use. */
+  protected File m_JavaHome;
+
+  /** the number of threads to use. */
+  protected int m_NumThreads;
+
+  /** additional modules to include. */
+  protected List<String> m_Modules;
+
+  /** whether to generate a CDS archive of the JDK classes. */
+  protected boolean m_CDS;
+
+  /** the feature version of the JDK. */
+  protected transient int m_ActVersion;
+
+  /** the modules determined by jdeps. */
+  protected transient Set<String> m_ActModules;
+
+  /**
+   * Initializes the runtime generation.
+   *
+   * @param javaHome	the JDK to use for jdeps/jlink
+   * @param numThreads	the number of threads, less than 1 for number of CPUs
+   */
+  public RuntimeImage(File javaHome, int numThreads) {
+    m_JavaHome   = javaHome;
+    m_NumThreads = (numThreads < 1) ? Runtime.getRuntime().availableProcessors() : numThreads;
+    m_Modules    = new ArrayList<>();
+    m_CDS        = false;
+    m_ActVersion = ClassDataSharing.featureVersion(javaHome);
+    m_ActModules = new TreeSet<>();
+  }
+
+  /**
+   * Sets additional modules to include, eg ones only accessed via
+   * reflection or service loading (jdk.crypto.ec, jdk.localedata).
+   *
+   * @param modules	the modules, can be null
+   * @return		itself
+   */
+  public RuntimeImage modules(List<String> modules) {
+    m_Modules = new ArrayList<>();
+    if (modules != null) {
+      for (String module: modules) {
+	for (String m: module.split(",")) {
+	  if (!m.trim().isEmpty())
+	    m_Modules.add(m.trim());
+	}
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Sets whether to generate a CDS archive of the JDK classes in the
+   * runtime, which is required for dynamic AppCDS archives.
+   *
+   * @param cds		true if to generate
+   * @return		itself
+   */
+  public RuntimeImage cds(boolean cds) {
+    m_CDS = cds;
+    return this;
+  }
+
+  /**
+   * Returns the modules of the runtime (determined and additional ones).
+   *
+   * @return		the modules
+   */
+  public Set<String> getModules() {
+    Set<String>	result;
+
+    result = new TreeSet<>(m_ActModules);
+    result.addAll(m_Modules);
+
+    return result;
+  }
+
+  /**
+   * Executes the command and collects the output (stdout and stderr).
+   *
+   * @param cmd		the command to execute
+   * @param output	for storing the output
+   * @return		null if successful, otherwise error message
+   */
+  protected String exec(List<String> cmd, List<String> output) {
+    ProcessBuilder	builder;
+    Process		process;
+    String		line;
+    int			exitCode;
+
+    builder = new ProcessBuilder(cmd);
+    builder.redirectErrorStream(true);
+    try {
+      process = builder.start();
+      try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+	while ((line = in.readLine()) != null)
+	  output.add(line);
+      }
+      exitCode = process.waitFor();
+      if (exitCode != 0)
+	return "Exit code " + exitCode + ": " + String.join("\n", output);
+    }
+    catch (Exception e) {
+      return "Failed to execute " + cmd + ": " + e;
+    }
+
+    return null;
+  }
+
+  /**
+   * Determines the JDK modules that the jars require.
+   *
+   * @param jars	the jars to analyze
+   * @param modules	for adding the modules
+   * @return		null if successful, otherwise error message
+   */
+  protected String analyze(List<File> jars, Set<String> modules) {
+    List<String>	cmd;
+    List<String>	output;
+    String		result;
+
+    cmd = new ArrayList<>();
+    cmd.add(new File(m_JavaHome, "bin/jdeps").getAbsolutePath());
+    cmd.add("--ignore-missing-deps");
+    cmd.add("--print-module-deps");
+    cmd.add("--multi-release");
+    cmd.add("" + m_ActVersion);
+    cmd.add("-q");
+    for (File jar: jars)
+      cmd.add(jar.getAbsolutePath());
+    output = new ArrayList<>();
+    result = exec(cmd, output);
+    if (result != null)
+      return result;
+
+    for (String line: output) {
+      if (line.trim().isEmpty())
+	continue;
+      for (String module: line.trim().split(","))
+	modules.add(module.trim());
+    }
+
+    return null;
+  }
+
+  /**
+   * Determines the JDK modules that the jars require, analyzing them
+   * individually if the batch fails (eg due to split packages). Jars that
+   * cannot be analyzed get skipped with a warning.
+   *
+   * @param jars	the jars to analyze
+   * @return		the modules
+   */
+  protected Set<String> analyzeBatch(List<File> jars) {
+    Set<String>		result;
+    String		msg;
+
+    result = new TreeSet<>();
+    if (analyze(jars, result) == null)
+      return result;
+
+    for (File jar: jars) {
+      msg = analyze(Collections.singletonList(jar), result);
+      if (msg != null)
+	LOGGER.warning("Failed to determine modules of " + jar + ", skipping: " + msg);
+    }
+
+    return result;
+  }
+
+  /**
+   * Determines the JDK modules that the jars in the directory require.
+   *
+   * @param libDir	the directory with the jars
+   * @return		null if successful, otherwise error message
+   */
+  public String determineModules(File libDir) {
+    List<Callable<Set<String>>>	jobs;
+    List<List<File>>		batches;
+    File[]			jars;
+    ExecutorService		executor;
+    int				i;
+
+    if (m_ActVersion < 11)
+      return "jdeps/jlink require a JDK 11 or later: " + m_JavaHome;
+    if (!new File(m_JavaHome, "bin/jlink").exists() && !new File(m_JavaHome, "bin/jlink.exe").exists())
+      return "No jlink available, requires a JDK rather than a JRE: " + m_JavaHome;
+
+    m_ActModules = new TreeSet<>();
+    m_ActModules.add("java.base");
+    jars = libDir.listFiles((d, name) -> name.toLowerCase().endsWith(".jar"));
+    if ((jars == null) || (jars.length == 0))
+      return null;
+    Arrays.sort(jars);
+
+    // distribute the jars evenly across the batches
+    batches = new ArrayList<>();
+    for (i = 0; i < Math.min(m_NumThreads, jars.length); i++)
+      batches.add(new ArrayList<>());
+    for (i = 0; i < jars.length; i++)
+      batches.get(i % batches.size()).add(jars[i]);
+    jobs = new ArrayList<>();
+    for (final List<File> batch: batches)
+      jobs.add(() -> analyzeBatch(batch));
+
+    executor = Executors.newFixedThreadPool(batches.size());
+    try {
+      for (Future<Set<String>> future: executor.invokeAll(jobs))
+	m_ActModules.addAll(future.get());
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Failed to determine required modules!", e);
+      return "Failed to determine required modules: " + e;
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    return null;
+  }
+
+  /**
+   * Links the runtime image with the determined and additional modules.
+   *
+   * @param output	the directory for the runtime (gets replaced)
+   * @return		null if successful, otherwise error message
+   */
+  public String link(File output) {
+    List<String>	cmd;
+    List<String>	lines;
+    String		result;
+
+    cmd = new ArrayList<>();
+    cmd.add(new File(m_JavaHome, "bin/jlink").getAbsolutePath());
+    cmd.add("--add-modules");
+    cmd.add(String.join(",", getModules()));
+    cmd.add("--strip-debug");
+    cmd.add("--no-header-files");
+    cmd.add("--no-man-pages");
+    // numeric levels got deprecated with Java 21
+    cmd.add("--compress=" + (m_ActVersion >= 21 ? "zip-6" : "2"));
+    cmd.add("--output");
+    cmd.add(output.getAbsolutePath());
+
+    lines  = new ArrayList<>();
+    result = exec(cmd, lines);
+    if (result != null)
+      return "Failed to link runtime image: " + result;
+
+    // jlink does not include the default CDS archive of the JDK
+    if (m_CDS) {
+      cmd = new ArrayList<>();
+      cmd.add(new File(output, "bin/java").getAbsolutePath());
+      cmd.add("-Xshare:dump");
+      lines  = new ArrayList<>();
+      result = exec(cmd, lines);
+      if (result != null)
+	return "Failed to generate CDS archive of runtime image: " + result;
+    }
+
+    return null;
+  }
+
+  /**
+   * Determines the required modules of the jars and links the runtime.
+   *
+   * @param libDir	the directory with the jars
+   * @param output	the directory for the runtime (must not exist)
+   * @return		null if successful, otherwise error message
+   */
+  public String create(File libDir, File output) {
+    String	result;
+    long	start;
+
+    start = System.currentTimeMillis();
+    if ((result = determineModules(libDir)) != null)
+      return result;
+    LOGGER.info("Required modules: " + getModules() + " (" + (System.currentTimeMillis() - start) + "ms)");
+
+    start = System.currentTimeMillis();
+    if ((result = link(output)) != null)
+      return result;
+    LOGGER.info("Linked runtime image " + output + " (" + (System.currentTimeMillis() - start) + "ms)");
+
+    return null;
+  }
+}
@@ -0,0 +1,415 @@
+/*
+ * Settings.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Generates the global Maven settings for the Maven execution, based on the
+ * global settings of the Maven installation (if present).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Settings {
+
+  /** the name of the generated settings file. */
+  public final static String SETTINGS_FILE = "bootstrapp-settings.xml";
+
+  /** the namespace of the settings. */
+  public final static String NAMESPACE = "http://maven.apache.org/SETTINGS/1.0.0";
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(Settings.class.getName());
+
+  /**
+   * The configuration to use for generating the settings.
+   */
+  public static class Configuration {
+
+    /** the mirrors to add (id;mirrorOf;url), take precedence over existing ones. */
+    public List<String> mirrors = new ArrayList<>();
+  }
+
+  /**
+   * Reads the local repository from the settings file.
+   *
+   * @param settings	the settings file to read
+   * @return		the local repository, null if not defined or failed to read
+   */
+  protected static File readLocalRepository(File settings) {
+    DocumentBuilderFactory	factory;
+    Document			doc;
+    NodeList			nodes;
+    String			dir;
+
+    if ((settings == null) || !settings.exists())
+      return null;
+
+    try {
+      factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      doc     = factory.newDocumentBuilder().parse(settings);
+      nodes   = doc.getDocumentElement().getElementsByTagNameNS("*", "localRepository");
+      if (nodes.getLength() == 0)
+	return null;
+      dir = nodes.item(0).getTextContent().trim();
+      if (dir.isEmpty())
+	return null;
+      dir = dir.replace("${user.home}", System.getProperty("user.home"));
+      return new File(dir);
+    }
+    catch (Exception e) {
+      LOGGER.warning("Failed to read local repository from settings: " + settings + "\n" + e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the settings files that Maven uses, user settings first.
+   *
+   * @param userSettings	the user settings, null for $HOME/.m2/settings.xml
+   * @param mavenHome		the maven installation, can be null
+   * @return			the existing settings files
+   */
+  protected static List<File> settingsFiles(File userSettings, File mavenHome) {
+    List<File>	result;
+
+    result = new ArrayList<>();
+    if (userSettings == null)
+      userSettings = new File(System.getProperty("user.home") + "/.m2/settings.xml");
+    if (userSettings.exists())
+      result.add(userSettings);
+    if ((mavenHome != null) && new File(mavenHome, "conf/settings.xml").exists())
+      result.add(new File(mavenHome, "conf/settings.xml"));
+
+    return result;
+  }
+
+  /**
+   * Returns the text of the first child element with the given name.
+   *
+   * @param parent	the parent element
+   * @param name	the name of the child
+   * @return		the trimmed text, null if not present
+   */
+  protected static String childText(Element parent, String name) {
+    NodeList	nodes;
+
+    nodes = parent.getElementsByTagNameNS("*", name);
+    if (nodes.getLength() == 0)
+      return null;
+    return nodes.item(0).getTextContent().trim();
+  }
+
+  /**
+   * Reads the mirrors that Maven uses from the user and global settings.
+   *
+   * @param userSettings	the user settings, null for $HOME/.m2/settings.xml
+   * @param mavenHome		the maven installation, can be null
+   * @return			the mirrors (id;mirrorOf;url), in order of precedence
+   */
+  public static List<String> mirrors(File userSettings, File mavenHome) {
+    List<String>		result;
+    DocumentBuilderFactory	factory;
+    NodeList			nodes;
+    Element			mirror;
+    int				i;
+
+    result  = new ArrayList<>();
+    factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    for (File settings: settingsFiles(userSettings, mavenHome)) {
+      try {
+	nodes = factory.newDocumentBuilder().parse(settings).getDocumentElement().getElementsByTagNameNS("*", "mirror");
+	for (i = 0; i < nodes.getLength(); i++) {
+	  mirror = (Element) nodes.item(i);
+	  if ((childText(mirror, "mirrorOf") != null) && (childText(mirror, "url") != null))
+	    result.add(childText(mirror, "id") + ";" + childText(mirror, "mirrorOf") + ";" + childText(mirror, "url"));
+	}
+      }
+      catch (Exception e) {
+	LOGGER.warning("Failed to read mirrors from settings: " + settings + "\n" + e);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Checks whether the mirrorOf pattern matches the repository (supports
+   * "*", "external:*", comma-separated IDs and exclusions via "!id").
+   *
+   * @param mirrorOf	the pattern of the mirror
+   * @param id		the ID of the repository
+   * @param url		the URL of the repository
+   * @return		true if the mirror applies
+   */
+  public static boolean matchesMirror(String mirrorOf, String id, String url) {
+    boolean	result;
+    String	host;
+
+    result = false;
+    for (String pattern: mirrorOf.split(",")) {
+      pattern = pattern.trim();
+      if (pattern.equals("!" + id))
+	return false;
+      if (pattern.equals(id) || pattern.equals("*")) {
+	result = true;
+      }
+      else if (pattern.equals("external:*")) {
+	try {
+	  host = new URL(url).getHost();
+	}
+	catch (Exception e) {
+	  host = "";
+	}
+	if (!host.equals("localhost") && !host.equals("127.0.0.1") && !url.startsWith("file:"))
+	  result = true;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the URL of the first mirror that applies to the repository.
+   *
+   * @param mirrors	the mirrors (id;mirrorOf;url)
+   * @param id		the ID of the repository
+   * @param url		the URL of the repository
+   * @return		the URL of the mirror, otherwise the URL of the repository
+   */
+  public static String mirrorURL(List<String> mirrors, String id, String url) {
+    String[]	parts;
+
+    for (String mirror: mirrors) {
+      parts = mirror.split(";");
+      if ((parts.length == 3) && matchesMirror(parts[1], id, url))
+	return parts[2];
+    }
+
+    return url;
+  }
+
+  /**
+   * Returns the HTTP proxy to use for the URL, i.e., the first active proxy
+   * in the user and global settings whose protocol matches and whose
+   * non-proxy hosts do not contain the host of the URL. Proxy
+   * authentication is not supported.
+   *
+   * @param userSettings	the user settings, null for $HOME/.m2/settings.xml
+   * @param mavenHome		the maven installation, can be null
+   * @param url			the URL to connect to
+   * @return			the proxy, {@link Proxy#NO_PROXY} if none
+   */
+  public static Proxy proxy(File userSettings, File mavenHome, String url) {
+    DocumentBuilderFactory	factory;
+    NodeList			nodes;
+    Element			proxy;
+    URL				u;
+    String			protocol;
+    String			nonProxy;
+    boolean			excluded;
+    int				i;
+
+    try {
+      u = new URL(url);
+    }
+    catch (Exception e) {
+      return Proxy.NO_PROXY;
+    }
+    factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    for (File settings: settingsFiles(userSettings, mavenHome)) {
+      try {
+	nodes = factory.newDocumentBuilder().parse(settings).getDocumentElement().getElementsByTagNameNS("*", "proxy");
+	for (i = 0; i < nodes.getLength(); i++) {
+	  proxy    = (Element) nodes.item(i);
+	  protocol = (childText(proxy, "protocol") == null) ? "http" : childText(proxy, "protocol");
+	  if ("false".equals(childText(proxy, "active")) || (childText(proxy, "host") == null) || !protocol.equalsIgnoreCase(u.getProtocol()))
+	    continue;
+	  excluded = false;
+	  nonProxy = childText(proxy, "nonProxyHosts");
+	  if (nonProxy != null) {
+	    for (String host: nonProxy.split("[|,]")) {
+	      if (!host.trim().isEmpty() && u.getHost().matches(host.trim().replace(".", "\\.").replace("*", ".*")))
+		excluded = true;
+	    }
+	  }
+	  if (excluded)
+	    return Proxy.NO_PROXY;
+	  if (childText(proxy, "username") != null)
+	    LOGGER.warning("Proxy authentication not supported, connecting without: " + childText(proxy, "host"));
+	  return new Proxy(Proxy.Type.HTTP, new InetSocketAddress(childText(proxy, "host"),
+	    (childText(proxy, "port") == null) ? 8080 : Integer.parseInt(childText(proxy, "port"))));
+	}
+      }
+      catch (Exception e) {
+	LOGGER.warning("Failed to read proxies from settings: " + settings + "\n" + e);
+      }
+    }
+
+    return Proxy.NO_PROXY;
+  }
+
+  /**
+   * Determines the local repository that Maven will use, looking at the
+   * user settings first and then the global settings of the Maven
+   * installation.
+   *
+   * @param userSettings	the user settings, null for $HOME/.m2/settings.xml
+   * @param mavenHome		the maven installation, can be null
+   * @return			the local repository
+   */
+  public static File localRepository(File userSettings, File mavenHome) {
+    File	result;
+
+    if (userSettings == null)
+      userSettings = new File(System.getProperty("user.home") + "/.m2/settings.xml");
+    result = readLocalRepository(userSettings);
+    if ((result == null) && (mavenHome != null))
+      result = readLocalRepository(new File(mavenHome, "conf/settings.xml"));
+    if (result == null)
+      result = new File(System.getProperty("user.home") + "/.m2/repository");
+
+    return result;
+  }
+
+  /**
+   * Returns whether the configuration requires any settings to be generated.
+   *
+   * @param config	the configuration to check
+   * @return		true if settings need generating
+   */
+  public static boolean isRequired(Configuration config) {
+    return !config.mirrors.isEmpty();
+  }
+
+  /**
+   * Returns the first child element with the given name, creates it if necessary.
+   *
+   * @param parent	the parent element
+   * @param name	the name of the child
+   * @param first	whether to insert a newly created child as first child
+   * @return		the child
+   */
+  protected static Element child(Element parent, String name, boolean first) {
+    NodeList	children;
+    Element	result;
+    int		i;
+
+    children = parent.getChildNodes();
+    for (i = 0; i < children.getLength(); i++) {
+      if ((children.item(i).getNodeType() == Node.ELEMENT_NODE) && name.equals(children.item(i).getLocalName()))
+	return (Element) children.item(i);
+    }
+
+    result = parent.getOwnerDocument().createElementNS(parent.getNamespaceURI(), name);
+    if (first && (parent.getFirstChild() != null))
+      parent.insertBefore(result, parent.getFirstChild());
+    else
+      parent.appendChild(result);
+
+    return result;
+  }
+
+  /**
+   * Adds a text element to the parent.
+   *
+   * @param parent	the parent element
+   * @param name	the name of the element
+   * @param value	the text
+   */
+  protected static void text(Element parent, String name, String value) {
+    Element	element;
+
+    element = parent.getOwnerDocument().createElementNS(parent.getNamespaceURI(), name);
+    element.setTextContent(value);
+    parent.appendChild(element);
+  }
+
+  /**
+   * Generates the settings file in the output directory.
+   *
+   * @param mavenHome	the maven installation to get the global settings from, can be null
+   * @param outputDir	the directory to write the settings to
+   * @param config	the configuration
+   * @return		null if successful, otherwise error message
+   * @see		#SETTINGS_FILE
+   */
+  public static String configure(File mavenHome, File outputDir, Configuration config) {
+    DocumentBuilderFactory	factory;
+    DocumentBuilder		builder;
+    Document			doc;
+    File			global;
+    Element			root;
+    Element			mirrors;
+    Element			mirror;
+    Node			firstMirror;
+    String[]			parts;
+    Transformer			transformer;
+
+    try {
+      factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      builder = factory.newDocumentBuilder();
+      global  = (mavenHome == null) ? null : new File(mavenHome, "conf/settings.xml");
+      if ((global != null) && global.exists()) {
+	doc = builder.parse(global);
+      }
+      else {
+	doc = builder.newDocument();
+	doc.appendChild(doc.createElementNS(NAMESPACE, "settings"));
+      }
+      root = doc.getDocumentElement();
+
+      // mirrors (prepended, as Maven uses the first matching one)
+      if (!config.mirrors.isEmpty()) {
+	mirrors     = child(root, "mirrors", false);
+	firstMirror = mirrors.getFirstChild();
+	for (String m: config.mirrors) {
+	  parts = m.split(";");
+	  if (parts.length != 3) {
+	    LOGGER.warning("Skipping mirror as it does not conform to format 'id;mirrorOf;url': " + m);
+	    continue;
+	  }
+	  mirror = doc.createElementNS(root.getNamespaceURI(), "mirror");
+	  text(mirror, "id", parts[0]);
+	  text(mirror, "mirrorOf", parts[1]);
+	  text(mirror, "url", parts[2]);
+	  mirrors.insertBefore(mirror, firstMirror);
+	}
+      }
+
+      transformer = TransformerFactory.newInstance().newTransformer();
+      transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+      transformer.transform(new DOMSource(doc), new StreamResult(new File(outputDir, SETTINGS_FILE)));
+    }
+    catch (Exception e) {
+      return "Failed to generate Maven settings in '" + outputDir + "': " + e;
+    }
+
+    return null;
+  }
+}
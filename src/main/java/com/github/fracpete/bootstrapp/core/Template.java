@@ -1,15 +1,21 @@
 /*
  * Template.java
- * Copyright (C) 2020-2021 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2020-2026 University of Waikato, Hamilton, NZ
  */
 
 package com.github.fracpete.bootstrapp.core;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Manages the POM template.
@@ -21,12 +27,15 @@ public class Template {
   /** the resource location of the POM template. */
   public final static String TEMPLATE_FILE = "template.xml";
 
+  /** the name of the generated POM. */
+  public final static String POM_FILE = "pom.xml";
+
+  /** the name of the list of resolved artifacts (in the output directory). */
+  public final static String RESOLVED_FILE = "resolved.txt";
+
   /** the debian build plugin file. */
   public final static String DEBIANBUILD_FILE = "debian.build";
 
-  /** the debian build plugin file (incl sources). */
-  public final static String DEBIANBUILDSRC_FILE = "debian.build_incl_sources";
-
   /** the redhat build plugin file. */
   public final static String REDHATBUILD_FILE = "redhat.build";
 
@@ -63,6 +72,12 @@ public class Template {
   /** the placeholder in the template POM for additional build plugins. */
   public final static String PH_BUILDPLUGINS = "<!-- buildplugins -->";
 
+  /** the placeholder in the template POM for the classifiers to exclude. */
+  public final static String PH_EXCLUDECLASSIFIERS = "<!-- excludeclassifiers -->";
+
+  /** the placeholder in the template POM for skipping the listing of excluded classifiers. */
+  public final static String PH_NOEXCLUDECLASSIFIERS = "<!-- noexcludeclassifiers -->";
+
   /** the default name. */
   public final static String DEFAULT_NAME = "bootstrapp-harness";
 
@@ -112,6 +127,9 @@ public class Template {
 
     /** additional build plugins to use. */
     public String buildPlugins;
+
+    /** the classifiers to exclude (comma-separated), can be null. */
+    public String excludeClassifiers;
   }
 
   /**
@@ -122,13 +140,25 @@ public class Template {
    * @return			null if successful, otherwise error message
    */
   public static String configureBundledTemplate(File outputDir, Configuration config) {
+    return configureBundledTemplate(outputDir, POM_FILE, config);
+  }
+
+  /**
+   * Configures the bundled template.
+   *
+   * @param outputDir		the directory to copy the template to
+   * @param pomFile		the name of the generated POM
+   * @param config 		the configuration
+   * @return			null if successful, otherwise error message
+   */
+  public static String configureBundledTemplate(File outputDir, String pomFile, Configuration config) {
     String	result;
     String	path;
     File	file;
 
     try {
       path = com.github.fracpete.resourceextractor4j.Files.extractTo(Resources.LOCATION, TEMPLATE_FILE, System.getProperty("java.io.tmpdir"));
-      result = configureTemplate(new File(path), outputDir, config);
+      result = configureTemplate(new File(path), outputDir, pomFile, config);
       file = new File(path);
       if (file.exists())
         file.delete();
@@ -148,6 +178,19 @@ public class Template {
    * @return			null if successful, otherwise error message
    */
   public static String configureTemplate(File template, File outputDir, Configuration config) {
+    return configureTemplate(template, outputDir, POM_FILE, config);
+  }
+
+  /**
+   * Configures the specified template.
+   *
+   * @param template 		the template file to configure
+   * @param outputDir		the directory to copy the template to
+   * @param pomFile		the name of the generated POM
+   * @param config 		the configuration
+   * @return			null if successful, otherwise error message
+   */
+  public static String configureTemplate(File template, File outputDir, String pomFile, Configuration config) {
     List<String>	lines;
     int			i;
     String		line;
@@ -265,6 +308,8 @@ public class Template {
           line = line.replace(PH_NOSOURCES, "" + config.noSources);
           line = line.replace(PH_NOSPRINGBOOT, "" + config.noSpringBoot);
           line = line.replace(PH_PACKAGING, config.noSpringBoot ? "pom" : "jar");
+          line = line.replace(PH_EXCLUDECLASSIFIERS, (config.excludeClassifiers != null) ? config.excludeClassifiers : "");
+          line = line.replace(PH_NOEXCLUDECLASSIFIERS, "" + (config.excludeClassifiers == null));
           if (config.mainClass != null)
 	    line = line.replace(PH_MAINCLASS, "" + config.mainClass);
           if (config.buildPlugins != null)
@@ -279,7 +324,7 @@ public class Template {
       if (!modified)
         LOGGER.warning("Template file did not contain any placeholders, not modified!");
 
-      Files.write(new File(outputDir.getAbsolutePath() + "/pom.xml").toPath(), lines, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+      Files.write(new File(outputDir.getAbsolutePath() + "/" + pomFile).toPath(), lines, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
     }
     catch (Exception e) {
       return "Failed to configure template file '" + template + "': " + e;
@@ -287,4 +332,50 @@ public class Template {
 
     return null;
   }
+
+  /**
+   * Reads the list of resolved artifacts (dependency:list output) and
+   * returns the names of the jars that copy-dependencies generates from them
+   * (artifactId-baseVersion[-classifier].jar).
+   *
+   * @param list	the list to read
+   * @param sources	whether to return the names of the source jars instead
+   * @return		the names, null if failed to read
+   * @see		#RESOLVED_FILE
+   */
+  public static Set<String> readResolved(File list, boolean sources) {
+    Set<String>		result;
+    Matcher		matcher;
+    Pattern		path;
+    String[]		parts;
+    String		version;
+    String		classifier;
+
+    if (!list.exists())
+      return null;
+    result = new HashSet<>();
+    path   = Pattern.compile(":((?:[A-Za-z]:)?[\\\\/].*?\\.jar)(\\s|$)");
+    try {
+      for (String line: Files.readAllLines(list.toPath(), StandardCharsets.UTF_8)) {
+	matcher = path.matcher(line);
+	if (!matcher.find())
+	  continue;
+	// groupId:artifactId:type[:classifier]:version:scope
+	parts = line.substring(0, matcher.start()).trim().split(":");
+	if ((parts.length != 5) && (parts.length != 6))
+	  continue;
+	version    = parts[parts.length - 2].replaceAll("-[0-9]{8}\\.[0-9]{6}-[0-9]+$", "-SNAPSHOT");
+	classifier = (parts.length == 6) ? "-" + parts[3] : "";
+	if (sources)
+	  classifier = "-sources";
+	result.add(parts[1] + "-" + version + classifier + ".jar");
+      }
+    }
+    catch (Exception e) {
+      LOGGER.log(Level.WARNING, "Failed to read resolved artifacts: " + list, e);
+      return null;
+    }
+
+    return result;
+  }
 }
@@ -0,0 +1,90 @@
+/*
+ * ThrottledInputStream.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * Input stream that limits the bandwidth using a token bucket.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ThrottledInputStream
+  extends FilterInputStream {
+
+  /** the maximum number of bytes to read at a time. */
+  public final static int CHUNK_SIZE = 8192;
+
+  /** the bucket to use. */
+  protected TokenBucket m_Bucket;
+
+  /**
+   * Initializes the stream.
+   *
+   * @param in		the stream to throttle
+   * @param bucket	the bucket to use
+   */
+  public ThrottledInputStream(InputStream in, TokenBucket bucket) {
+    super(in);
+    m_Bucket = bucket;
+  }
+
+  /**
+   * Takes the tokens for the bytes that were read.
+   *
+   * @param bytes	the number of bytes
+   * @throws IOException	if interrupted
+   */
+  protected void throttle(int bytes) throws IOException {
+    if (bytes <= 0)
+      return;
+    try {
+      m_Bucket.acquire(bytes);
+    }
+    catch (InterruptedException e) {
+      throw new InterruptedIOException("Interrupted while throttling");
+    }
+  }
+
+  /**
+   * Reads a single byte.
+   *
+   * @return		the byte, -1 if end of stream
+   * @throws IOException	if reading fails
+   */
+  @Override
+  public int read() throws IOException {
+    int		result;
+
+    result = super.read();
+    if (result != -1)
+      throttle(1);
+
+    return result;
+  }
+
+  /**
+   * Reads up to len bytes.
+   *
+   * @param b		the buffer to fill
+   * @param off		the offset in the buffer
+   * @param len		the maximum number of bytes
+   * @return		the number of bytes read, -1 if end of stream
+   * @throws IOException	if reading fails
+   */
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int		result;
+
+    result = super.read(b, off, Math.min(len, CHUNK_SIZE));
+    throttle(result);
+
+    return result;
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * TokenBucket.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+/**
+ * Token bucket for limiting the bandwidth, shared across threads. Callers
+ * reserve the bytes they have transferred and get delayed if the bucket is
+ * in debt, allowing bursts up to one second worth of bytes. Each bootstrap
+ * (or proxy server) passes its own instance to the components that download,
+ * so that concurrent runs in the same process do not affect each other.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class TokenBucket {
+
+  /** the rate in bytes/sec. */
+  protected long m_Rate;
+
+  /** the maximum number of tokens. */
+  protected long m_Capacity;
+
+  /** the available tokens (negative if in debt). */
+  protected double m_Tokens;
+
+  /** the time of the last refill (nanosec). */
+  protected long m_Last;
+
+  /**
+   * Initializes the bucket.
+   *
+   * @param rate	the rate in bytes/sec
+   */
+  public TokenBucket(long rate) {
+    m_Rate     = Math.max(1, rate);
+    m_Capacity = m_Rate;
+    m_Tokens   = m_Capacity;
+    m_Last     = System.nanoTime();
+  }
+
+  /**
+   * Returns the rate.
+   *
+   * @return		the rate in bytes/sec
+   */
+  public long getRate() {
+    return m_Rate;
+  }
+
+  /**
+   * Adds the tokens accumulated since the last refill.
+   */
+  protected void refill() {
+    long	now;
+
+    now      = System.nanoTime();
+    m_Tokens = Math.min(m_Capacity, m_Tokens + (now - m_Last) * m_Rate / 1e9);
+    m_Last   = now;
+  }
+
+  /**
+   * Takes the specified number of tokens, waiting until the bucket is no
+   * longer in debt.
+   *
+   * @param bytes	the number of bytes
+   * @throws InterruptedException	if interrupted while waiting
+   */
+  public void acquire(long bytes) throws InterruptedException {
+    long	wait;
+
+    synchronized(this) {
+      refill();
+      m_Tokens -= bytes;
+      wait      = (m_Tokens < 0) ? (long) (-m_Tokens * 1000 / m_Rate) : 0;
+    }
+    if (wait > 0)
+      Thread.sleep(wait);
+  }
+}
@@ -0,0 +1,397 @@
+/*
+ * VersionCache.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Caches the resolution of version ranges and SNAPSHOT versions of
+ * dependencies (group:artifact:version) to concrete versions, to avoid
+ * Maven querying the metadata of all repositories on every bootstrap.
+ * Entries are valid for the specified time-to-live. Snapshots get resolved
+ * to their timestamped versions.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class VersionCache {
+
+  /** the name of the cache file. */
+  public final static String CACHE_FILE = "version-cache.properties";
+
+  /** the timeout for fetching metadata in msec. */
+  public final static int TIMEOUT = 10000;
+
+  /** for logging. */
+  protected static Logger LOGGER = Logger.getLogger(VersionCache.class.getName());
+
+  /** the cache file. */
+  protected File m_File;
+
+  /** the time-to-live in msec. */
+  protected long m_TTL;
+
+  /** the bandwidth limit for fetching metadata, null if unlimited. */
+  protected TokenBucket m_Bandwidth;
+
+  /** the user settings to obtain the HTTP proxy from. */
+  protected File m_UserSettings;
+
+  /** the maven installation to obtain the HTTP proxy from. */
+  protected File m_MavenHome;
+
+  /**
+   * Initializes the cache.
+   *
+   * @param file	the cache file
+   * @param ttl		the time-to-live in msec
+   */
+  public VersionCache(File file, long ttl) {
+    m_File = file;
+    m_TTL  = ttl;
+  }
+
+  /**
+   * Sets the bandwidth limit for fetching metadata.
+   *
+   * @param bandwidth	the limit, null for unlimited
+   * @return		itself
+   */
+  public VersionCache bandwidth(TokenBucket bandwidth) {
+    m_Bandwidth = bandwidth;
+    return this;
+  }
+
+  /**
+   * Sets the Maven settings to obtain the HTTP proxy from.
+   *
+   * @param userSettings	the user settings, null for $HOME/.m2/settings.xml
+   * @param mavenHome		the maven installation, can be null
+   * @return			itself
+   * @see			Settings#proxy(File, File, String)
+   */
+  public VersionCache settings(File userSettings, File mavenHome) {
+    m_UserSettings = userSettings;
+    m_MavenHome    = mavenHome;
+    return this;
+  }
+
+  /**
+   * Returns the default cache file, located next to the downloaded Maven
+   * installation.
+   *
+   * @return		the file
+   * @see		Maven#homeDir()
+   */
+  public static File defaultFile() {
+    return new File(new File(Maven.homeDir()).getAbsoluteFile().getParentFile(), CACHE_FILE);
+  }
+
+  /**
+   * Returns whether the version needs resolving.
+   *
+   * @param version	the version to check
+   * @return		true if range or snapshot
+   */
+  public static boolean needsResolving(String version) {
+    return Versions.isRange(version) || Versions.isSnapshot(version);
+  }
+
+  /**
+   * Loads the cache entries (group:artifact:version - resolved TAB timestamp).
+   *
+   * @return		the entries
+   */
+  protected Properties load() {
+    Properties	result;
+
+    result = new Properties();
+    if (m_File.exists()) {
+      try (FileInputStream in = new FileInputStream(m_File)) {
+	result.load(in);
+      }
+      catch (Exception e) {
+	LOGGER.warning("Failed to load version cache: " + m_File + "\n" + e);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds the entries to the cache file (atomically replacing it).
+   *
+   * @param entries	the entries to add
+   */
+  protected void store(Properties entries) {
+    Properties	props;
+    File	tmp;
+
+    synchronized(VersionCache.class) {
+      props = load();
+      props.putAll(entries);
+      tmp = new File(m_File.getAbsolutePath() + "." + Thread.currentThread().getId() + ".part");
+      try {
+	if (!m_File.getAbsoluteFile().getParentFile().exists())
+	  m_File.getAbsoluteFile().getParentFile().mkdirs();
+	try (FileOutputStream out = new FileOutputStream(tmp)) {
+	  props.store(out, "bootstrapp version cache");
+	}
+	Files.move(tmp.toPath(), m_File.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      catch (Exception e) {
+	LOGGER.warning("Failed to store version cache: " + m_File + "\n" + e);
+	tmp.delete();
+      }
+    }
+  }
+
+  /**
+   * Returns the cache file.
+   *
+   * @return		the file
+   */
+  public File getFile() {
+    return m_File;
+  }
+
+  /**
+   * Merges the entries of the other cache file into this cache. Existing
+   * entries only get replaced by more recent ones.
+   *
+   * @param file	the cache file to merge
+   */
+  public void merge(File file) {
+    Properties	current;
+    Properties	other;
+    Properties	updated;
+    String[]	entryCurrent;
+    String[]	entryOther;
+
+    current = load();
+    other   = new VersionCache(file, m_TTL).load();
+    updated = new Properties();
+    for (String key: other.stringPropertyNames()) {
+      entryOther = other.getProperty(key).split("\t");
+      if (entryOther.length != 2)
+	continue;
+      if (current.containsKey(key)) {
+	entryCurrent = current.getProperty(key).split("\t");
+	if ((entryCurrent.length == 2) && (Long.parseLong(entryCurrent[1]) >= Long.parseLong(entryOther[1])))
+	  continue;
+      }
+      updated.setProperty(key, other.getProperty(key));
+    }
+    if (!updated.isEmpty())
+      store(updated);
+  }
+
+  /**
+   * Retrieves and parses the metadata.
+   *
+   * @param url		the URL of the maven-metadata.xml
+   * @return		the document, null if not available
+   */
+  protected Document fetch(String url) {
+    HttpURLConnection		conn;
+    DocumentBuilderFactory	factory;
+
+    try {
+      conn = (HttpURLConnection) new URL(url).openConnection(Settings.proxy(m_UserSettings, m_MavenHome, url));
+      conn.setConnectTimeout(TIMEOUT);
+      conn.setReadTimeout(TIMEOUT);
+      conn.setInstanceFollowRedirects(true);
+      try {
+	if (conn.getResponseCode() != HttpURLConnection.HTTP_OK)
+	  return null;
+	factory = DocumentBuilderFactory.newInstance();
+	try (InputStream in = (m_Bandwidth == null) ? conn.getInputStream() : new ThrottledInputStream(conn.getInputStream(), m_Bandwidth)) {
+	  return factory.newDocumentBuilder().parse(in);
+	}
+      }
+      finally {
+	conn.disconnect();
+      }
+    }
+    catch (Exception e) {
+      LOGGER.warning("Failed to retrieve metadata: " + url + "\n" + e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the text of the first element with the given name.
+   *
+   * @param doc		the document to search
+   * @param name	the element name
+   * @return		the text, null if not present
+   */
+  protected static String text(Document doc, String name) {
+    NodeList	nodes;
+
+    nodes = doc.getElementsByTagName(name);
+    if (nodes.getLength() == 0)
+      return null;
+    return nodes.item(0).getTextContent().trim();
+  }
+
+  /**
+   * Resolves the dependency using the metadata of the repositories.
+   *
+   * @param group	the group ID
+   * @param artifact	the artifact ID
+   * @param version	the range or snapshot version
+   * @param upstream	the repository URLs
+   * @return		the resolved version, null if failed to resolve
+   */
+  protected String resolve(String group, String artifact, String version, List<String> upstream) {
+    String	result;
+    String	path;
+    Document	doc;
+    List<String> versions;
+    NodeList	nodes;
+    int		i;
+    String	updated;
+    String	latest;
+    String	timestamp;
+    String	buildNumber;
+
+    result   = null;
+    path     = group.replace('.', '/') + "/" + artifact + "/";
+    versions = new ArrayList<>();
+    latest   = null;
+    for (String url: upstream) {
+      if (!url.endsWith("/"))
+	url += "/";
+      if (Versions.isRange(version)) {
+	doc = fetch(url + path + "maven-metadata.xml");
+	if (doc == null)
+	  continue;
+	nodes = doc.getElementsByTagName("version");
+	for (i = 0; i < nodes.getLength(); i++)
+	  versions.add(nodes.item(i).getTextContent().trim());
+      }
+      else {
+	doc = fetch(url + path + version + "/maven-metadata.xml");
+	if (doc == null)
+	  continue;
+	timestamp   = text(doc, "timestamp");
+	buildNumber = text(doc, "buildNumber");
+	updated     = text(doc, "lastUpdated");
+	if ((timestamp == null) || (buildNumber == null))
+	  continue;
+	// most recently updated repository wins
+	if ((latest == null) || ((updated != null) && (updated.compareTo(latest) > 0))) {
+	  latest = (updated == null) ? "" : updated;
+	  result = version.replace("SNAPSHOT", timestamp + "-" + buildNumber);
+	}
+      }
+    }
+    if (Versions.isRange(version))
+      result = Versions.highest(versions, version);
+
+    return result;
+  }
+
+  /**
+   * Replaces version ranges and snapshot versions of the dependencies
+   * (group:artifact:version) with concrete versions, either from the cache
+   * (if not expired) or by resolving them concurrently via the metadata of
+   * the repositories.
+   *
+   * @param dependencies	the dependencies to process
+   * @param upstream		the repository URLs
+   * @param offline		whether offline, uses expired entries and does not resolve
+   * @return			the processed dependencies
+   */
+  public List<String> resolve(List<String> dependencies, List<String> upstream, boolean offline) {
+    List<String>		result;
+    Properties			cache;
+    Properties			updated;
+    Map<String,Future<String>>	futures;
+    ExecutorService		executor;
+    String[]			parts;
+    String[]			entry;
+    String			resolved;
+    long			now;
+
+    result  = new ArrayList<>();
+    cache   = load();
+    updated = new Properties();
+    futures = new HashMap<>();
+    now     = System.currentTimeMillis();
+
+    // cached or to resolve?
+    executor = null;
+    for (String dependency: dependencies) {
+      parts = dependency.split(":");
+      if ((parts.length != 3) || !needsResolving(parts[2]) || futures.containsKey(dependency))
+	continue;
+      if (cache.containsKey(dependency)) {
+	entry = cache.getProperty(dependency).split("\t");
+	if ((entry.length == 2) && (offline || (now - Long.parseLong(entry[1]) < m_TTL)))
+	  continue;
+      }
+      if (offline)
+	continue;
+      if (executor == null)
+	executor = Executors.newFixedThreadPool(Math.min(8, dependencies.size()));
+      final String[] fParts = parts;
+      futures.put(dependency, executor.submit(() -> resolve(fParts[0], fParts[1], fParts[2], upstream)));
+    }
+
+    for (String dependency: dependencies) {
+      parts    = dependency.split(":");
+      resolved = null;
+      if (futures.containsKey(dependency)) {
+	try {
+	  resolved = futures.get(dependency).get();
+	}
+	catch (Exception e) {
+	  LOGGER.warning("Failed to resolve version of: " + dependency + "\n" + e);
+	}
+	if (resolved != null)
+	  updated.setProperty(dependency, resolved + "\t" + now);
+      }
+      else if ((parts.length == 3) && needsResolving(parts[2]) && cache.containsKey(dependency)) {
+	resolved = cache.getProperty(dependency).split("\t")[0];
+      }
+      if (resolved != null) {
+	LOGGER.info("Using version " + resolved + " for " + dependency);
+	result.add(parts[0] + ":" + parts[1] + ":" + resolved);
+      }
+      else {
+	result.add(dependency);
+      }
+    }
+
+    if (executor != null)
+      executor.shutdownNow();
+    if (!updated.isEmpty())
+      store(updated);
+
+    return result;
+  }
+}
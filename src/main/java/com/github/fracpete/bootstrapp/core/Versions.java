@@ -0,0 +1,157 @@
+/*
+ * Versions.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import java.util.List;
+
+/**
+ * Helper methods for Maven versions and version ranges. Simplified version
+ * of Maven's ordering: numeric parts are compared numerically, qualifiers
+ * lexicographically, with a qualifier sorting before the release (e.g.,
+ * 1.0-SNAPSHOT &lt; 1.0).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Versions {
+
+  /**
+   * Returns whether the version is a range, e.g., "[1.28.0,)".
+   *
+   * @param version	the version to check
+   * @return		true if a range
+   */
+  public static boolean isRange(String version) {
+    return version.startsWith("[") || version.startsWith("(");
+  }
+
+  /**
+   * Returns whether the version is a snapshot version.
+   *
+   * @param version	the version to check
+   * @return		true if snapshot
+   */
+  public static boolean isSnapshot(String version) {
+    return version.endsWith("-SNAPSHOT");
+  }
+
+  /**
+   * Compares the two versions.
+   *
+   * @param v1		the first version
+   * @param v2		the second version
+   * @return		less than, equal to or greater than zero if the first
+   * 			version is smaller, equal or larger than the second
+   */
+  public static int compare(String v1, String v2) {
+    String[]	p1;
+    String[]	p2;
+    int		i;
+    boolean	n1;
+    boolean	n2;
+    int		result;
+
+    p1 = v1.split("[.-]");
+    p2 = v2.split("[.-]");
+    for (i = 0; i < Math.max(p1.length, p2.length); i++) {
+      // missing parts: qualifiers are smaller, numbers are zero
+      if (i >= p1.length)
+	return p2[i].matches("[0-9]+") ? (p2[i].matches("0+") ? 0 : -1) : 1;
+      if (i >= p2.length)
+	return p1[i].matches("[0-9]+") ? (p1[i].matches("0+") ? 0 : 1) : -1;
+      n1 = p1[i].matches("[0-9]+");
+      n2 = p2[i].matches("[0-9]+");
+      if (n1 && n2)
+	result = Long.compare(Long.parseLong(p1[i]), Long.parseLong(p2[i]));
+      else if (n1)
+	result = 1;
+      else if (n2)
+	result = -1;
+      else
+	result = p1[i].compareToIgnoreCase(p2[i]);
+      if (result != 0)
+	return result;
+    }
+
+    return 0;
+  }
+
+  /**
+   * Checks whether the version lies within the range, e.g., "[1.0,2.0)".
+   * Multiple ranges ("[1.0,1.2),[1.3,)") are supported as well.
+   *
+   * @param version	the version to check
+   * @param range	the range
+   * @return		true if within range
+   */
+  public static boolean inRange(String version, String range) {
+    int		start;
+    int		end;
+    String	part;
+    String[]	bounds;
+    boolean	ok;
+
+    start = 0;
+    while (start < range.length()) {
+      end = start + 1;
+      while ((end < range.length()) && (range.charAt(end) != ']') && (range.charAt(end) != ')'))
+	end++;
+      if (end >= range.length())
+	return false;
+      part   = range.substring(start, end + 1).trim();
+      bounds = part.substring(1, part.length() - 1).split(",", -1);
+      if (bounds.length == 1) {
+	// exact version
+	if (compare(version, bounds[0].trim()) == 0)
+	  return true;
+      }
+      else {
+	ok = true;
+	if (!bounds[0].trim().isEmpty()) {
+	  if (part.startsWith("["))
+	    ok = compare(version, bounds[0].trim()) >= 0;
+	  else
+	    ok = compare(version, bounds[0].trim()) > 0;
+	}
+	if (ok && !bounds[1].trim().isEmpty()) {
+	  if (part.endsWith("]"))
+	    ok = compare(version, bounds[1].trim()) <= 0;
+	  else
+	    ok = compare(version, bounds[1].trim()) < 0;
+	}
+	if (ok)
+	  return true;
+      }
+      // next range
+      start = end + 1;
+      while ((start < range.length()) && ((range.charAt(start) == ',') || (range.charAt(start) == ' ')))
+	start++;
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns the highest of the versions that lies within the range.
+   * Snapshot versions are ignored.
+   *
+   * @param versions	the versions to choose from
+   * @param range	the range
+   * @return		the highest matching version, null if none matches
+   */
+  public static String highest(List<String> versions, String range) {
+    String	result;
+
+    result = null;
+    for (String version: versions) {
+      if (isSnapshot(version) || !inRange(version, range))
+	continue;
+      if ((result == null) || (compare(version, result) > 0))
+	result = version;
+    }
+
+    return result;
+  }
+}
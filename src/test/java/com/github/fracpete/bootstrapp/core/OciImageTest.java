@@ -0,0 +1,272 @@
+/*
+ * OciImageTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the generation of OCI images offline, using a base image layout
+ * that gets generated locally.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class OciImageTest {
+
+  /** the fixed timestamp to use. */
+  public final static long EPOCH = 1700000000L;
+
+  /** the temp directory. */
+  protected File m_TmpDir;
+
+  /** the base image layout. */
+  protected File m_Base;
+
+  /** the library jar. */
+  protected File m_Lib;
+
+  /** the start script. */
+  protected File m_Script;
+
+  /**
+   * Creates the base image layout and the files to add.
+   *
+   * @throws Exception	if setup fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    m_TmpDir = Files.createTempDirectory("ocitest").toFile();
+    m_Base   = new File(m_TmpDir, "base");
+    createBase(m_Base);
+    m_Lib    = new File(m_TmpDir, "app.jar");
+    Files.write(m_Lib.toPath(), "library".getBytes(StandardCharsets.UTF_8));
+    m_Script = new File(m_TmpDir, "start.sh");
+    Files.write(m_Script.toPath(), "#!/bin/sh\necho hello\n".getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Removes the temp directory.
+   *
+   * @throws Exception	if removal fails
+   */
+  @After
+  public void tearDown() throws Exception {
+    try (Stream<Path> paths = Files.walk(m_TmpDir.toPath())) {
+      paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  /**
+   * Writes the blob to the layout.
+   *
+   * @param layout	the image layout
+   * @param data	the data to write
+   * @return		the digest
+   * @throws Exception	if writing fails
+   */
+  protected String writeBlob(File layout, byte[] data) throws Exception {
+    String	result;
+
+    result = "sha256:" + OciImage.toHex(MessageDigest.getInstance("SHA-256").digest(data));
+    Files.write(OciImage.blob(layout, result).toPath(), data);
+
+    return result;
+  }
+
+  /**
+   * Creates a minimal base image layout with a single layer.
+   *
+   * @param layout	the directory for the layout
+   * @throws Exception	if creation fails
+   */
+  protected void createBase(File layout) throws Exception {
+    ByteArrayOutputStream	tar;
+    ByteArrayOutputStream	gz;
+    TarArchiveEntry		entry;
+    byte[]			content;
+    String			diffId;
+    String			layer;
+    String			config;
+    byte[]			manifest;
+    String			manifestDigest;
+
+    assertTrue(new File(layout, "blobs/sha256").mkdirs());
+
+    content = "base".getBytes(StandardCharsets.UTF_8);
+    tar     = new ByteArrayOutputStream();
+    try (TarArchiveOutputStream out = new TarArchiveOutputStream(tar)) {
+      entry = new TarArchiveEntry("etc/base.txt");
+      entry.setSize(content.length);
+      out.putArchiveEntry(entry);
+      out.write(content);
+      out.closeArchiveEntry();
+    }
+    gz = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+      out.write(tar.toByteArray());
+    }
+    diffId = "sha256:" + OciImage.toHex(MessageDigest.getInstance("SHA-256").digest(tar.toByteArray()));
+    layer  = writeBlob(layout, gz.toByteArray());
+    config = writeBlob(layout, ("{\"architecture\":\"amd64\",\"os\":\"linux\",\"config\":{},"
+      + "\"rootfs\":{\"type\":\"layers\",\"diff_ids\":[\"" + diffId + "\"]},"
+      + "\"history\":[{\"created_by\":\"base\"}]}").getBytes(StandardCharsets.UTF_8));
+    manifest = ("{\"schemaVersion\":2,\"mediaType\":\"" + OciImage.MEDIATYPE_MANIFEST + "\","
+      + "\"config\":{\"mediaType\":\"" + OciImage.MEDIATYPE_CONFIG + "\",\"digest\":\"" + config + "\",\"size\":1},"
+      + "\"layers\":[{\"mediaType\":\"" + OciImage.MEDIATYPE_LAYER + "\",\"digest\":\"" + layer + "\",\"size\":" + gz.size() + "}]}")
+      .getBytes(StandardCharsets.UTF_8);
+    manifestDigest = writeBlob(layout, manifest);
+    Files.write(new File(layout, "index.json").toPath(), ("{\"schemaVersion\":2,\"manifests\":[{"
+      + "\"mediaType\":\"" + OciImage.MEDIATYPE_MANIFEST + "\",\"digest\":\"" + manifestDigest + "\",\"size\":" + manifest.length + ","
+      + "\"platform\":{\"os\":\"linux\",\"architecture\":\"amd64\"}}]}").getBytes(StandardCharsets.UTF_8));
+    Files.write(new File(layout, "oci-layout").toPath(), "{\"imageLayoutVersion\":\"1.0.0\"}".getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Creates the layers to add.
+   *
+   * @return		the layers
+   */
+  protected List<OciImage.Layer> layers() {
+    List<OciImage.Layer>	result;
+
+    result = new ArrayList<>();
+    result.add(new OciImage.Layer("lib").add("bootstrapp/app/lib/app.jar", m_Lib, false));
+    result.add(new OciImage.Layer("start script").add("bootstrapp/app/start.sh", m_Script, true));
+
+    return result;
+  }
+
+  /**
+   * Returns the digest of the manifest in the index.json of the layout.
+   *
+   * @param layout	the image layout
+   * @return		the digest
+   * @throws Exception	if reading fails
+   */
+  @SuppressWarnings("unchecked")
+  protected String manifestDigest(File layout) throws Exception {
+    Map<String,Object>	index;
+
+    index = (Map<String,Object>) Json.parse(new String(Files.readAllBytes(new File(layout, "index.json").toPath()), StandardCharsets.UTF_8));
+    return (String) ((List<Map<String,Object>>) index.get("manifests")).get(0).get("digest");
+  }
+
+  /**
+   * Writes the image.
+   *
+   * @param output	the output layout
+   * @param epoch	the timestamp to use
+   * @return		the digest of the manifest
+   * @throws Exception	if writing fails
+   */
+  protected String write(File output, long epoch) throws Exception {
+    assertNull(new OciImage(m_Base, output).epoch(epoch).write(layers()));
+    return manifestDigest(output);
+  }
+
+  /**
+   * Tests that unchanged layers get reused across runs and only modified
+   * ones get rebuilt.
+   *
+   * @throws Exception	if test fails
+   */
+  @Test
+  public void testLayerReuse() throws Exception {
+    File			output;
+    OciImage			image;
+    List<OciImage.Layer>	first;
+    List<OciImage.Layer>	second;
+    String			digest;
+
+    output = new File(m_TmpDir, "image");
+    digest = write(output, EPOCH);
+    assertTrue(new File(output, OciImage.CACHE_FILE).exists());
+    assertTrue(OciImage.blob(output, digest).exists());
+
+    image = new OciImage(m_Base, output).epoch(EPOCH);
+    first = layers();
+    assertEquals(2, image.build(first));
+    assertEquals(digest, write(output, EPOCH));
+
+    Files.write(m_Script.toPath(), "#!/bin/sh\necho hello world\n".getBytes(StandardCharsets.UTF_8));
+    second = layers();
+    assertEquals(1, image.build(second));
+    assertEquals(first.get(0).digest, second.get(0).digest);
+    assertNotEquals(first.get(1).digest, second.get(1).digest);
+    assertNotEquals(digest, write(output, EPOCH));
+  }
+
+  /**
+   * Tests that separate runs with the same timestamp produce identical
+   * digests, regardless of the timestamps of the files.
+   *
+   * @throws Exception	if test fails
+   */
+  @Test
+  public void testReproducible() throws Exception {
+    String	first;
+    String	second;
+    String	other;
+
+    first = write(new File(m_TmpDir, "image1"), EPOCH);
+    assertTrue(m_Lib.setLastModified(System.currentTimeMillis() - 3600 * 1000));
+    assertTrue(m_Script.setLastModified(System.currentTimeMillis() - 7200 * 1000));
+    second = write(new File(m_TmpDir, "image2"), EPOCH);
+    assertEquals(first, second);
+    assertEquals(
+      new String(Files.readAllBytes(new File(m_TmpDir, "image1/index.json").toPath()), StandardCharsets.UTF_8),
+      new String(Files.readAllBytes(new File(m_TmpDir, "image2/index.json").toPath()), StandardCharsets.UTF_8));
+
+    other = write(new File(m_TmpDir, "image3"), EPOCH + 1);
+    assertNotEquals(first, other);
+  }
+
+  /**
+   * Tests that the blobs of the base image end up in the output layout.
+   *
+   * @throws Exception	if test fails
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testBaseLayers() throws Exception {
+    File		output;
+    Map<String,Object>	base;
+    Map<String,Object>	manifest;
+    List<Object>	layers;
+
+    output   = new File(m_TmpDir, "image");
+    write(output, EPOCH);
+    base     = OciImage.readBlob(m_Base, manifestDigest(m_Base));
+    manifest = OciImage.readBlob(output, manifestDigest(output));
+    layers   = (List<Object>) manifest.get("layers");
+    assertEquals(3, layers.size());
+    assertEquals(((List<Map<String,Object>>) base.get("layers")).get(0).get("digest"), ((Map<String,Object>) layers.get(0)).get("digest"));
+    for (Object layer: layers)
+      assertTrue(OciImage.blob(output, (String) ((Map<String,Object>) layer).get("digest")).exists());
+    assertEquals(manifestDigest(m_Base), ((Map<String,Object>) manifest.get("annotations")).get("org.opencontainers.image.base.digest"));
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * RepositoryProbeTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.bootstrapp.core;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the ranking of repositories, using local HTTP servers with
+ * different response delays.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class RepositoryProbeTest {
+
+  /** the path of the probe artifact. */
+  public final static String PATH = "org/example/probe/1.0/probe-1.0.jar";
+
+  /** the started servers. */
+  protected List<HttpServer> m_Servers;
+
+  /**
+   * Initializes the servers.
+   */
+  @Before
+  public void setUp() {
+    m_Servers = new ArrayList<>();
+  }
+
+  /**
+   * Stops the servers.
+   */
+  @After
+  public void tearDown() {
+    for (HttpServer server: m_Servers)
+      server.stop(0);
+  }
+
+  /**
+   * Starts a repository that serves the probe artifact after the delay.
+   *
+   * @param id		the ID of the repository
+   * @param delay	the delay in msec for each request
+   * @param found	whether the artifact is available
+   * @return		the repository (id;name;url)
+   * @throws Exception	if starting fails
+   */
+  protected String startRepository(String id, final long delay, final boolean found) throws Exception {
+    HttpServer		server;
+    final byte[]	data;
+
+    data   = new byte[10 * 1024];
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", exchange -> {
+      try {
+	Thread.sleep(delay);
+      }
+      catch (InterruptedException e) {
+	// ignored
+      }
+      if (!found || !exchange.getRequestURI().getPath().equals("/" + PATH)) {
+	exchange.sendResponseHeaders(404, -1);
+      }
+      else if (exchange.getRequestMethod().equals("HEAD")) {
+	exchange.getResponseHeaders().add("Content-Length", "" + data.length);
+	exchange.sendResponseHeaders(200, -1);
+      }
+      else {
+	exchange.sendResponseHeaders(200, data.length);
+	try (OutputStream out = exchange.getResponseBody()) {
+	  out.write(data);
+	}
+      }
+      exchange.close();
+    });
+    server.start();
+    m_Servers.add(server);
+
+    return id + ";" + id + ";http://127.0.0.1:" + server.getAddress().getPort() + "/";
+  }
+
+  /**
+   * Returns a repository that refuses connections.
+   *
+   * @param id		the ID of the repository
+   * @return		the repository (id;name;url)
+   * @throws Exception	if determining a free port fails
+   */
+  protected String unreachableRepository(String id) throws Exception {
+    int		port;
+
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+
+    return id + ";" + id + ";http://127.0.0.1:" + port + "/";
+  }
+
+  /**
+   * Tests that the repositories get ranked by their speed.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testRanking() throws Exception {
+    String		slow;
+    String		fast;
+    String		medium;
+    List<String>	ranked;
+
+    slow   = startRepository("slow", 400, true);
+    fast   = startRepository("fast", 0, true);
+    medium = startRepository("medium", 150, true);
+    ranked = new RepositoryProbe(PATH).rank(Arrays.asList(slow, fast, medium));
+
+    assertEquals(Arrays.asList(fast, medium, slow), ranked);
+  }
+
+  /**
+   * Tests that unreachable repositories get dropped and ones without the
+   * probe artifact get ranked last.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testUnreachable() throws Exception {
+    String			unreachable;
+    String			missing;
+    String			fast;
+    List<String>		ranked;
+    List<RepositoryProbe.Result>	results;
+
+    unreachable = unreachableRepository("unreachable");
+    missing     = startRepository("missing", 0, false);
+    fast        = startRepository("fast", 0, true);
+    ranked      = new RepositoryProbe(PATH).rank(Arrays.asList(unreachable, missing, fast));
+
+    assertEquals(Arrays.asList(fast, missing), ranked);
+
+    results = new RepositoryProbe(PATH).probe(Arrays.asList(unreachable, missing));
+    assertFalse(results.get(0).reachable);
+    assertTrue(results.get(1).reachable);
+    assertFalse(results.get(1).found);
+  }
+
+  /**
+   * Tests that malformed repository definitions get skipped.
+   */
+  @Test
+  public void testMalformed() {
+    assertTrue(new RepositoryProbe(PATH).rank(Arrays.asList("nourl", "id;name")).isEmpty());
+  }
+}